@@ -0,0 +1,227 @@
+package classDiagram.query;
+
+import classDiagram.ClassDiagram;
+import classDiagram.components.Attribute;
+import classDiagram.components.ClassEntity;
+import classDiagram.components.EnumEntity;
+import classDiagram.components.EnumValue;
+import classDiagram.components.InterfaceEntity;
+import classDiagram.components.Method;
+import classDiagram.components.Type;
+import classDiagram.components.Variable;
+import classDiagram.components.Visibility;
+import classDiagram.relationships.Inheritance;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the parsing of {@link Query}, run on a {@link ModelIndex} of a small diagram:
+ * <pre>
+ * abstract class Shape { name : String; abstract area() : double }
+ * class Circle extends Shape { static radius : double; area() : double; private setRadius(radius : double) }
+ * interface Drawable
+ * enum Color { RED, GREEN }
+ * </pre>
+ */
+public class QueryTest {
+
+  private static ModelIndex index;
+
+  public QueryTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+    final ClassDiagram classDiagram = new ClassDiagram();
+    final ClassEntity shape = new ClassEntity("Shape", Visibility.PUBLIC);
+    final ClassEntity circle = new ClassEntity("Circle", Visibility.PUBLIC);
+    final InterfaceEntity drawable = new InterfaceEntity("Drawable", Visibility.PUBLIC);
+    final EnumEntity color = new EnumEntity("Color");
+
+    shape.setAbstract(true);
+    shape.addAttribute(new Attribute("name", new Type("String")));
+    final Method abstractArea = new Method("area", new Type("double"), Visibility.PUBLIC, shape);
+    abstractArea.setAbstract(true);
+    shape.addMethod(abstractArea);
+
+    final Attribute radius = new Attribute("radius", new Type("double"));
+    radius.setStatic(true);
+    circle.addAttribute(radius);
+    circle.addMethod(new Method("area", new Type("double"), Visibility.PUBLIC, circle));
+    final Method setRadius = new Method("setRadius", new Type("void"), Visibility.PRIVATE, circle);
+    setRadius.addParameter(new Variable("radius", new Type("double")));
+    circle.addMethod(setRadius);
+
+    color.addEnumValue(new EnumValue("RED"));
+    color.addEnumValue(new EnumValue("GREEN"));
+
+    // The entities are added in front of the diagram.
+    classDiagram.addEnumEntity(color);
+    classDiagram.addInterfaceEntity(drawable);
+    classDiagram.addClassEntity(circle);
+    classDiagram.addClassEntity(shape);
+    classDiagram.addInheritance(new Inheritance(circle, shape));
+
+    index = new ModelIndex(classDiagram, Collections.emptyList());
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    index = null;
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of the elements searched, without condition.
+   */
+  @Test
+  public void testSelectors() throws Exception {
+    System.out.println("selectors");
+    assertEquals(Arrays.asList("Shape", "Circle", "Drawable", "Color"), run("entities"));
+    assertEquals(Arrays.asList("Shape", "Circle"), run("classes"));
+    assertEquals(Collections.singletonList("Drawable"), run("interfaces"));
+    assertEquals(Collections.singletonList("Color"), run("enums"));
+    assertEquals(Arrays.asList("Shape.name : String", "Circle.radius : double"), run("attributes"));
+    assertEquals(Collections.singletonList("Circle.setRadius(radius : double)"), run("parameters"));
+    assertEquals(Collections.singletonList("inheritance : Circle - Shape"), run("relations"));
+    assertEquals(3, run("methods").size());
+  }
+
+  /**
+   * Test of the comparisons of numbers, including the counts computed on the whole diagram.
+   */
+  @Test
+  public void testNumbers() throws Exception {
+    System.out.println("numbers");
+    assertEquals(Collections.singletonList("Circle"), run("classes where methods > 1"));
+    assertEquals(Arrays.asList("Shape", "Circle"), run("classes where methods >= 1"));
+    assertEquals(Arrays.asList("Drawable", "Color"), run("entities where attributes = 0 and methods <= 0"));
+    assertEquals(Collections.singletonList("Color"), run("entities where values == 2"));
+    assertEquals(Collections.singletonList("Shape"), run("entities where children = 1"));
+    assertEquals(Collections.singletonList("Circle"), run("entities where parents != 0"));
+    assertEquals(Arrays.asList("Shape", "Circle"), run("entities where relations <> 0"));
+    assertEquals(Arrays.asList("Shape", "Circle", "Drawable", "Color"), run("entities where views < 1"));
+  }
+
+  /**
+   * Test of the boolean properties, alone or compared.
+   */
+  @Test
+  public void testBooleans() throws Exception {
+    System.out.println("booleans");
+    assertEquals(Collections.singletonList("Shape"), run("classes where abstract"));
+    assertEquals(Collections.singletonList("Circle"), run("classes where not abstract"));
+    assertEquals(Collections.singletonList("Circle"), run("classes where abstract = FALSE"));
+    assertEquals(Collections.singletonList("Circle.radius : double"), run("attributes where static != false"));
+    assertEquals(Collections.singletonList("Shape.+ area () : double"), run("methods where abstract"));
+  }
+
+  /**
+   * Test of the comparisons of texts: without case, with wildcards or contained.
+   */
+  @Test
+  public void testTexts() throws Exception {
+    System.out.println("texts");
+    assertEquals(Collections.singletonList("Circle"), run("classes where name = circle"));
+    assertEquals(Collections.singletonList("Shape"), run("classes where name > circle"));
+    assertEquals(Collections.singletonList("Circle.- setRadius (radius : double) : void"),
+                 run("methods where name like \"SET*\""));
+    assertEquals(Arrays.asList("Shape.+ area () : double", "Circle.+ area () : double"),
+                 run("methods where name like 'ar?a'"));
+    assertEquals(Collections.emptyList(), run("methods where name like 'ar?'"));
+    assertEquals(Arrays.asList("Circle", "Color"), run("entities where name contains 'C'"));
+    assertEquals(Collections.singletonList("Drawable"), run("entities where name ~ raw"));
+    assertEquals(Collections.singletonList("Drawable"), run("entities where kind = interface"));
+    assertEquals(Collections.singletonList("Circle.- setRadius (radius : double) : void"),
+                 run("methods where visibility = private and type = \"void\""));
+  }
+
+  /**
+   * Test of the precedence of the operators: not, then and, then or.
+   */
+  @Test
+  public void testPrecedence() throws Exception {
+    System.out.println("precedence");
+    assertEquals(Collections.singletonList("Color"),
+                 run("entities where name = Color or name = Circle and attributes = 2"));
+    assertEquals(Collections.singletonList("Circle"),
+                 run("entities where (name = Color or name = Circle) and attributes = 1"));
+    assertEquals(Arrays.asList("Drawable", "Color"),
+                 run("entities where not name = Shape and not (name = Circle)"));
+    assertEquals(Arrays.asList("Shape", "Circle"), run("entities where not not relations > 0"));
+    assertEquals(Collections.singletonList("Circle"), run("CLASSES WHERE Name = 'circle' AND NOT Abstract"));
+  }
+
+  /**
+   * Test of the interruption of a running query.
+   */
+  @Test(expected = InterruptedException.class)
+  public void testInterrupted() throws Exception {
+    System.out.println("interrupted");
+    final Query query = Query.parse("entities");
+    Thread.currentThread().interrupt();
+    query.run(index);
+  }
+
+  /**
+   * Test of the messages of the invalid queries.
+   */
+  @Test
+  public void testErrors() {
+    System.out.println("errors");
+    assertError("Expected the elements to search at the end.", "  ");
+    assertError("Unknown elements: tables. Expected one of [entities, classes, interfaces, enums, attributes, " +
+                "methods, parameters, relations].", "tables");
+    assertError("Expected where, not methods.", "classes methods > 1");
+    assertError("Expected a property at the end.", "classes where");
+    assertError("Unknown property: size. Expected one of [kind, name, source, target, views].",
+                "relations where size > 1");
+    assertError("The property methods must be compared.", "classes where methods and abstract");
+    assertError("Expected a value at the end.", "classes where methods >");
+    assertError("The property methods is a number, not many.", "classes where methods > many");
+    assertError("Unknown operator for methods: like.", "classes where methods like 1");
+    assertError("Unknown operator for name: (.", "classes where name ( 1");
+    assertError("The property abstract is true or false, not yes.", "classes where abstract = yes");
+    assertError("The property abstract can only be compared with = or !=.", "classes where abstract > true");
+    assertError("Unexpected character: !", "classes where not !abstract");
+    assertError("Unterminated text: \"Circ", "classes where name = \"Circ");
+    assertError("Expected ) at the end.", "classes where (abstract");
+    assertError("Expected ), not abstract.", "classes where (methods > 1 abstract");
+    assertError("Unexpected: )", "classes where abstract)");
+  }
+
+  private static List<String> run(final String query) throws Exception {
+    final List<String> labels = new ArrayList<>();
+    for (ModelIndex.Row row : Query.parse(query).run(index))
+      labels.add(row.toString());
+    return labels;
+  }
+
+  private static void assertError(final String message, final String query) {
+    try {
+      Query.parse(query);
+      fail("Parsed: " + query);
+    } catch (QueryException e) {
+      assertEquals(message, e.getMessage());
+    }
+  }
+
+}
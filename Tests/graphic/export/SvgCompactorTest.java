@@ -0,0 +1,183 @@
+package graphic.export;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link SvgCompactor}, on small documents styled as by Batik.
+ */
+public class SvgCompactorTest {
+
+  private static final String SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\">";
+
+  public SvgCompactorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of a shape filled then outlined: a single shape, with the fill and the stroke.
+   */
+  @Test
+  public void testMergeFillAndStroke() throws Exception {
+    System.out.println("mergeFillAndStroke");
+    assertEquals(
+        SVG + style(".s0{fill:red;stroke:black;stroke-width:2;}") +
+        "<rect class=\"s0\" height=\"2\" width=\"1\"/></svg>",
+        compact(SVG + "<rect height=\"2\" style=\"fill:red; stroke:none\" width=\"1\"/>" +
+                "<rect height=\"2\" style=\"fill:none; stroke:black; stroke-width:2\" width=\"1\"/></svg>"));
+  }
+
+  /**
+   * Test of a shape filled then another shape outlined: both are kept.
+   */
+  @Test
+  public void testKeepOtherGeometry() throws Exception {
+    System.out.println("keepOtherGeometry");
+    assertEquals(
+        SVG + style(".s0{fill:red;stroke:none;}.s1{fill:none;stroke:black;}") +
+        "<rect class=\"s0\" height=\"2\" width=\"1\"/><rect class=\"s1\" height=\"3\" width=\"1\"/></svg>",
+        compact(SVG + "<rect height=\"2\" style=\"fill:red;stroke:none\" width=\"1\"/>" +
+                "<rect height=\"3\" style=\"fill:none;stroke:black\" width=\"1\"/></svg>"));
+  }
+
+  /**
+   * Test of a shape filled then outlined with styles not agreeing on another property: both are kept.
+   */
+  @Test
+  public void testKeepIncompatibleStyles() throws Exception {
+    System.out.println("keepIncompatibleStyles");
+    assertEquals(
+        SVG + style(".s0{fill:red;opacity:0.5;stroke:none;}.s1{fill:none;opacity:1;stroke:black;}") +
+        "<rect class=\"s0\" width=\"1\"/><rect class=\"s1\" width=\"1\"/></svg>",
+        compact(SVG + "<rect style=\"fill:red;stroke:none;opacity:0.5\" width=\"1\"/>" +
+                "<rect style=\"fill:none;stroke:black;opacity:1\" width=\"1\"/></svg>"));
+  }
+
+  /**
+   * Test of successive outlines with the same style: a single path, a sub-path per outline.
+   */
+  @Test
+  public void testMergeOutlines() throws Exception {
+    System.out.println("mergeOutlines");
+    assertEquals(
+        SVG + style(".s0{fill:none;stroke:black;}") +
+        "<path class=\"s0\" d=\"M0 1 L2 3 M4 5 L6 7 L8 9 M1 1 L2 1 L2 2 Z M3 3 L4 4\"/></svg>",
+        compact(SVG + "<line style=\"fill:none;stroke:black\" x1=\"0\" x2=\"2\" y1=\"1\" y2=\"3\"/>" +
+                "<polyline points=\"4,5 6,7 8,9\" style=\"fill:none;stroke:black\"/>" +
+                "<polygon points=\" 1 1 2 1 2 2 \" style=\"fill:none;stroke:black\"/>" +
+                "<path d=\" M3 3 L4 4 \" style=\"fill:none;stroke:black\"/></svg>"));
+  }
+
+  /**
+   * Test of outlines which cannot be merged: with another style, translucent, with other attributes or not next to
+   * each other.
+   */
+  @Test
+  public void testKeepOutlines() throws Exception {
+    System.out.println("keepOutlines");
+    final String line = "x1=\"0\" x2=\"1\" y1=\"0\" y2=\"1\"";
+    assertEquals(
+        SVG + style(".s0{fill:none;stroke:black;}.s1{fill:none;stroke:red;}" +
+                    ".s2{fill:none;stroke:black;stroke-opacity:0.5;}") +
+        "<line class=\"s0\" " + line + "/><line class=\"s1\" " + line + "/>" +
+        "<line class=\"s2\" " + line + "/><line class=\"s2\" " + line + "/>" +
+        "<line class=\"s0\" " + line + "/><line class=\"s0\" transform=\"scale(2)\" " + line + "/>" +
+        "<text class=\"s0\">a</text><line class=\"s0\" " + line + "/></svg>",
+        compact(SVG + "<line style=\"fill:none;stroke:black\" " + line + "/>" +
+                "<line style=\"fill:none;stroke:red\" " + line + "/>" +
+                "<line style=\"fill:none;stroke:black;stroke-opacity:0.5\" " + line + "/>" +
+                "<line style=\"fill:none;stroke:black;stroke-opacity:0.5\" " + line + "/>" +
+                "<line style=\"fill:none;stroke:black\" " + line + "/>" +
+                "<line style=\"fill:none;stroke:black\" transform=\"scale(2)\" " + line + "/>" +
+                "<text style=\"fill:none;stroke:black\">a</text>" +
+                "<line style=\"fill:none;stroke:black\" " + line + "/></svg>"));
+  }
+
+  /**
+   * Test of the outlines of a group: merged inside the group.
+   */
+  @Test
+  public void testMergeOutlinesInGroups() throws Exception {
+    System.out.println("mergeOutlinesInGroups");
+    assertEquals(
+        SVG + style(".s0{stroke-width:2;}.s1{fill:none;stroke:black;}") +
+        "<g class=\"s0\"><path class=\"s1\" d=\"M0 0 L1 1 M1 1 L2 2\"/></g></svg>",
+        compact(SVG + "<g style=\"stroke-width:2\">" +
+                "<line style=\"fill:none;stroke:black\" x1=\"0\" x2=\"1\" y1=\"0\" y2=\"1\"/>" +
+                "<line style=\"fill:none;stroke:black\" x1=\"1\" x2=\"2\" y1=\"1\" y2=\"2\"/></g></svg>"));
+  }
+
+  /**
+   * Test of the style sheet: a class per distinct style, whatever the order of its properties, added to the classes of
+   * the element.
+   */
+  @Test
+  public void testShareStyles() throws Exception {
+    System.out.println("shareStyles");
+    assertEquals(
+        SVG + style(".s0{fill:red;font-size:12px;}") +
+        "<text class=\"s0\">a</text><text class=\"title s0\">b</text><text>c</text></svg>",
+        compact(SVG + "<text style=\"fill:red;font-size:12px\">a</text>" +
+                "<text class=\"title\" style=\" font-size : 12px ; fill:red; \">b</text>" +
+                "<text style=\"\">c</text></svg>"));
+  }
+
+  /**
+   * Test of a document without style: no style sheet.
+   */
+  @Test
+  public void testNoStyle() throws Exception {
+    System.out.println("noStyle");
+    assertEquals(SVG + "<rect width=\"1\"/></svg>", compact(SVG + "<rect width=\"1\"/></svg>"));
+  }
+
+  private static String style(final String css) {
+    return "<style type=\"text/css\"><![CDATA[" + css + "]]></style>";
+  }
+
+  private static String compact(final String svg) throws Exception {
+    final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final Document document = factory.newDocumentBuilder().parse(new InputSource(new StringReader(svg)));
+
+    SvgCompactor.compact(document.getDocumentElement());
+
+    final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+    final StringWriter out = new StringWriter();
+    transformer.transform(new DOMSource(document), new StreamResult(out));
+    return out.toString();
+  }
+
+}
@@ -0,0 +1,234 @@
+package swing;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the recovery journal of {@link AutoSaver}: the sections of the checkpoints, their checksum, and the
+ * checkpoints interrupted by a crash.
+ */
+public class AutoSaverTest {
+
+  private static final String HEADER = AutoSaver.HEADER_KEY;
+  private static final String CLASS_A = AutoSaver.COMPONENT_KEY + 0;
+  private static final String CLASS_B = AutoSaver.COMPONENT_KEY + 1;
+  private static final String CLASS_C = AutoSaver.COMPONENT_KEY + 3;
+  private static final String VIEW = AutoSaver.VIEW_KEY + 2;
+
+  private Path directory;
+  private File project;
+  private File journal;
+
+  public AutoSaverTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("autosaver");
+    project = directory.resolve("project.sly").toFile();
+    journal = directory.resolve("project.slyj").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(journal.toPath());
+    Files.deleteIfExists(project.toPath());
+    Files.deleteIfExists(directory);
+  }
+
+  /**
+   * Test of readJournal method, of class AutoSaver: a checkpoint holds the changed sections only, the others are kept
+   * from the previous checkpoint, in the order of the last one.
+   */
+  @Test
+  public void testReadChangedSections() throws IOException {
+    System.out.println("readChangedSections");
+    writeJournal(first(), second());
+
+    assertEquals(Arrays.asList(HEADER + "=<model name=\"b\"/>", CLASS_A + "=<class id=\"0\"/>",
+                               CLASS_C + "=<class id=\"3\"/>", VIEW + "=<view/>"),
+                 read());
+  }
+
+  /**
+   * Test of readJournal method, of class AutoSaver, with the last checkpoint cut at each of its bytes, as written
+   * during a crash: the previous checkpoint is recovered.
+   */
+  @Test
+  public void testTruncatedTail() throws IOException {
+    System.out.println("truncatedTail");
+    final byte[] second = second();
+
+    for (int length = 0; length < second.length; ++length) {
+      writeJournal(first(), Arrays.copyOf(second, length));
+      assertEquals("Cut at " + length, expectedFirst(), read());
+    }
+  }
+
+  /**
+   * Test of readJournal method, of class AutoSaver, with a checkpoint not matching its checksum: the reading stops
+   * before it.
+   */
+  @Test
+  public void testInvalidChecksum() throws IOException {
+    System.out.println("invalidChecksum");
+    final byte[] second = second();
+    final byte[] corrupted = second.clone();
+    corrupted[new String(second, StandardCharsets.ISO_8859_1).indexOf("name=\"b\"") + 6] = 'c';
+
+    writeJournal(first(), corrupted, second);
+
+    assertEquals(expectedFirst(), read());
+  }
+
+  /**
+   * Test of readJournal method, of class AutoSaver, with a checkpoint keeping a section never written: the reading
+   * stops before it.
+   */
+  @Test
+  public void testUnknownSection() throws IOException {
+    System.out.println("unknownSection");
+    final Map<String, byte[]> sections = sections(HEADER, "<model name=\"b\"/>", CLASS_C, "<class id=\"3\"/>");
+
+    writeJournal(first(), AutoSaver.createCheckpoint(sections, Collections.singleton(HEADER)));
+
+    assertEquals(expectedFirst(), read());
+  }
+
+  /**
+   * Test of readJournal method, of class AutoSaver, with a journal of another project.
+   */
+  @Test(expected = IOException.class)
+  public void testOtherProject() throws IOException {
+    System.out.println("otherProject");
+    writeJournal(first());
+    AutoSaver.readJournal(journal, directory.resolve("other.sly").toFile());
+  }
+
+  /**
+   * Test of readJournal method, of class AutoSaver, with a journal of another version.
+   */
+  @Test(expected = IOException.class)
+  public void testOtherVersion() throws IOException {
+    System.out.println("otherVersion");
+    writeJournal(first());
+    final byte[] content = Files.readAllBytes(journal.toPath());
+    content[7] ^= 3; // The version follows the magic number.
+    Files.write(journal.toPath(), content);
+
+    read();
+  }
+
+  /**
+   * Test of readJournal method, of class AutoSaver, with a journal without a complete checkpoint.
+   */
+  @Test(expected = IOException.class)
+  public void testNoCheckpoint() throws IOException {
+    System.out.println("noCheckpoint");
+    final byte[] first = first();
+    writeJournal(Arrays.copyOf(first, first.length - 1));
+
+    read();
+  }
+
+  /**
+   * Test of recover method, of class AutoSaver: the components are written inside the element of the model, followed
+   * by the views.
+   */
+  @Test
+  public void testRecover() throws IOException {
+    System.out.println("recover");
+    final File projectJournal = AutoSaver.getJournalFile(project);
+    Files.createDirectories(projectJournal.getParentFile().toPath());
+    Files.write(project.toPath(), new byte[0]);
+    assertTrue(project.setLastModified(System.currentTimeMillis() - 60000));
+
+    journal = projectJournal;
+    writeJournal(first(), second());
+
+    assertTrue(AutoSaver.hasRecovery(project));
+    final File recovered = AutoSaver.recover(project);
+    try {
+      assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><classDiagram><model name=\"b\">" +
+                   "<class id=\"0\"/><class id=\"3\"/></model><view/></classDiagram>",
+                   new String(Files.readAllBytes(recovered.toPath()), StandardCharsets.UTF_8));
+    } finally {
+      Files.deleteIfExists(recovered.toPath());
+    }
+  }
+
+  /**
+   * @return a checkpoint with all the sections.
+   */
+  private static byte[] first() throws IOException {
+    final Map<String, byte[]> sections = sections(HEADER, "<model name=\"a\"/>", CLASS_A, "<class id=\"0\"/>",
+                                                  CLASS_B, "<class id=\"1\"/>", VIEW, "<view/>");
+    return AutoSaver.createCheckpoint(sections, sections.keySet());
+  }
+
+  private static List<String> expectedFirst() {
+    return Arrays.asList(HEADER + "=<model name=\"a\"/>", CLASS_A + "=<class id=\"0\"/>",
+                         CLASS_B + "=<class id=\"1\"/>", VIEW + "=<view/>");
+  }
+
+  /**
+   * @return a checkpoint following the first one: the header changed, a class is removed and another one added.
+   */
+  private static byte[] second() throws IOException {
+    final Map<String, byte[]> sections = sections(HEADER, "<model name=\"b\"/>", CLASS_A, null,
+                                                  CLASS_C, "<class id=\"3\"/>", VIEW, null);
+    return AutoSaver.createCheckpoint(sections, new HashSet<>(Arrays.asList(HEADER, CLASS_C)));
+  }
+
+  private static Map<String, byte[]> sections(final String... keysAndContents) {
+    final Map<String, byte[]> sections = new LinkedHashMap<>();
+    for (int i = 0; i < keysAndContents.length; i += 2)
+      sections.put(keysAndContents[i], keysAndContents[i + 1] == null ?
+          null : keysAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+    return sections;
+  }
+
+  private void writeJournal(final byte[]... checkpoints) throws IOException {
+    final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    content.write(AutoSaver.createHeader(project));
+    for (byte[] checkpoint : checkpoints)
+      content.write(checkpoint);
+    Files.write(journal.toPath(), content.toByteArray());
+  }
+
+  private List<String> read() throws IOException {
+    final List<String> sections = new ArrayList<>();
+    AutoSaver.readJournal(journal, project).forEach(
+        (key, content) -> sections.add(key + "=" + new String(content, StandardCharsets.UTF_8)));
+    return sections;
+  }
+
+}
@@ -0,0 +1,150 @@
+package swing;
+
+import classDiagram.ClassDiagram;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the compressed project format, written by {@link ProjectSaver} and read by {@link ProjectLoader}.
+ */
+public class CompressedProjectTest {
+
+  private static final File PROJECT = new File("doc/diagrammes_de_classes/metastructure.sly");
+
+  private Path directory;
+  private File file;
+
+  public CompressedProjectTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("project");
+    file = directory.resolve("project.sly").toFile();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(file.toPath());
+    Files.deleteIfExists(directory);
+  }
+
+  /**
+   * Test of a compressed project: a gzip stream, read back as the same XML.
+   */
+  @Test
+  public void testCompressedRoundTrip() throws Exception {
+    System.out.println("compressedRoundTrip");
+    final Document document = parse(PROJECT);
+
+    assertTrue(ProjectSaver.writeAtomically(document, file, true));
+    assertTrue(ProjectLoader.isCompressed(file));
+    try (InputStream in = new FileInputStream(file)) {
+      assertEquals(GZIPInputStream.GZIP_MAGIC & 0xff, in.read());
+      assertEquals(GZIPInputStream.GZIP_MAGIC >> 8, in.read());
+    }
+
+    assertSameContent(document, parse(file));
+  }
+
+  /**
+   * Test of a plain project: the XML as it is, read back the same way.
+   */
+  @Test
+  public void testPlainRoundTrip() throws Exception {
+    System.out.println("plainRoundTrip");
+    final Document document = parse(PROJECT);
+
+    assertTrue(ProjectSaver.writeAtomically(document, file, false));
+    assertFalse(ProjectLoader.isCompressed(file));
+    assertTrue(new String(Files.readAllBytes(file.toPath()), "UTF-8").contains("<classDiagram"));
+
+    assertSameContent(document, parse(file));
+  }
+
+  /**
+   * Test of a project saved compressed, then plain: the format of the file follows the last save.
+   */
+  @Test
+  public void testFormatChange() throws Exception {
+    System.out.println("formatChange");
+    final Document document = parse(PROJECT);
+
+    assertTrue(ProjectSaver.writeAtomically(document, file, true));
+    assertTrue(ProjectSaver.writeAtomically(document, file, false));
+    assertFalse(ProjectLoader.isCompressed(file));
+    assertTrue(ProjectSaver.writeAtomically(document, file, true));
+    assertTrue(ProjectLoader.isCompressed(file));
+
+    assertSameContent(document, parse(file));
+  }
+
+  /**
+   * Test of read method, of class ProjectLoader, with a compressed project.
+   */
+  @Test
+  public void testReadCompressed() throws Exception {
+    System.out.println("readCompressed");
+    assertTrue(ProjectSaver.writeAtomically(parse(PROJECT), file, true));
+
+    ProjectLoader.read(new XMLParser(new ClassDiagram()), file);
+  }
+
+  /**
+   * Test of isCompressed method, of class ProjectLoader, with a missing file.
+   */
+  @Test
+  public void testIsCompressedMissingFile() {
+    System.out.println("isCompressedMissingFile");
+    assertFalse(ProjectLoader.isCompressed(file));
+  }
+
+  private static Document parse(final File project) throws Exception {
+    try (InputStream in = ProjectLoader.openProjectContent(new FileInputStream(project))) {
+      final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+      removeIndentation(document.getDocumentElement());
+      return document;
+    }
+  }
+
+  /**
+   * Remove the blank texts between the elements, only a plain project is indented.
+   */
+  private static void removeIndentation(final Node node) {
+    for (Node child = node.getFirstChild(), next; child != null; child = next) {
+      next = child.getNextSibling();
+      if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue().trim().isEmpty()) node.removeChild(child);
+      else removeIndentation(child);
+    }
+  }
+
+  private static void assertSameContent(final Document expected, final Document actual) {
+    assertTrue(expected.getDocumentElement().isEqualNode(actual.getDocumentElement()));
+  }
+
+}
@@ -0,0 +1,176 @@
+package swing;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the writes of {@link ProjectSaver}: the unchanged content is not written again, and the files written by
+ * Slyum are recognized by their content.
+ */
+public class ProjectSaverTest {
+
+  /**
+   * Modification time set before the writes, to see if the file has been replaced.
+   */
+  private static final long PAST = 1000000000000L;
+
+  private Path directory;
+  private File file;
+
+  public ProjectSaverTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("saver");
+    file = directory.resolve("project.sly").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file.toPath());
+    Files.deleteIfExists(directory);
+  }
+
+  /**
+   * Test of writeAtomically method, of class ProjectSaver, with the content of the file: it is not written again.
+   */
+  @Test
+  public void testSkipUnchanged() throws Exception {
+    System.out.println("skipUnchanged");
+    assertTrue(ProjectSaver.writeAtomically(createDocument("a"), file, false));
+    final byte[] written = Files.readAllBytes(file.toPath());
+    assertTrue(file.setLastModified(PAST));
+
+    assertFalse(ProjectSaver.writeAtomically(createDocument("a"), file, false));
+
+    assertEquals(PAST, file.lastModified());
+    assertArrayEquals(written, Files.readAllBytes(file.toPath()));
+    assertEquals(Collections.singletonList(file.toPath()), listDirectory());
+  }
+
+  /**
+   * Test of writeAtomically method, of class ProjectSaver, with the content of the file compressed: it is not written
+   * again either.
+   */
+  @Test
+  public void testSkipUnchangedCompressed() throws Exception {
+    System.out.println("skipUnchangedCompressed");
+    assertTrue(ProjectSaver.writeAtomically(createDocument("a"), file, true));
+    assertTrue(file.setLastModified(PAST));
+
+    assertFalse(ProjectSaver.writeAtomically(createDocument("a"), file, true));
+    assertEquals(PAST, file.lastModified());
+
+    // Same XML, another format: the file changes.
+    assertTrue(ProjectSaver.writeAtomically(createDocument("a"), file, false));
+    assertFalse(ProjectLoader.isCompressed(file));
+  }
+
+  /**
+   * Test of writeAtomically method, of class ProjectSaver, with another content: the file is replaced.
+   */
+  @Test
+  public void testWriteChanged() throws Exception {
+    System.out.println("writeChanged");
+    assertTrue(ProjectSaver.writeAtomically(createDocument("a"), file, false));
+    assertTrue(file.setLastModified(PAST));
+
+    assertTrue(ProjectSaver.writeAtomically(createDocument("b"), file, false));
+
+    assertTrue(file.lastModified() != PAST);
+    assertTrue(new String(Files.readAllBytes(file.toPath()), "UTF-8").contains("name=\"b\""));
+    assertEquals(Collections.singletonList(file.toPath()), listDirectory());
+  }
+
+  /**
+   * Test of isWrittenContent method, of class ProjectSaver: the file is recognized as long as it has the content
+   * written last, skipped or not.
+   */
+  @Test
+  public void testWrittenContent() throws Exception {
+    System.out.println("writtenContent");
+    assertTrue(ProjectSaver.writeAtomically(createDocument("a"), file, false));
+    assertTrue(ProjectSaver.isWrittenContent(file.toPath()));
+
+    // Written by another application.
+    final byte[] written = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), new String(written, "UTF-8").replace("name=\"a\"", "name=\"c\"").getBytes("UTF-8"));
+    assertFalse(ProjectSaver.isWrittenContent(file.toPath()));
+
+    // Back to the content written by Slyum, as after an undo in the other application.
+    Files.write(file.toPath(), written);
+    assertTrue(ProjectSaver.isWrittenContent(file.toPath()));
+
+    assertTrue(ProjectSaver.writeAtomically(createDocument("b"), file, false));
+    Files.write(file.toPath(), written);
+    assertFalse(ProjectSaver.isWrittenContent(file.toPath()));
+
+    // The file already has the content, the write is skipped but the content is known.
+    assertFalse(ProjectSaver.writeAtomically(createDocument("a"), file, false));
+    assertTrue(ProjectSaver.isWrittenContent(file.toPath()));
+  }
+
+  /**
+   * Test of isWrittenContent method, of class ProjectSaver, with files never written or deleted.
+   */
+  @Test
+  public void testWrittenContentUnknownFile() throws Exception {
+    System.out.println("writtenContentUnknownFile");
+    assertFalse(ProjectSaver.isWrittenContent(directory.resolve("other.sly")));
+
+    assertTrue(ProjectSaver.writeAtomically(createDocument("a"), file, false));
+    Files.delete(file.toPath());
+    assertFalse(ProjectSaver.isWrittenContent(file.toPath()));
+  }
+
+  private static Document createDocument(final String name) throws Exception {
+    final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    final Element root = document.createElement("classDiagram");
+    final Element model = document.createElement("diagramElements");
+    model.setAttribute("name", name);
+    root.appendChild(model);
+    document.appendChild(root);
+    return document;
+  }
+
+  /**
+   * @return the files of the directory, the temporary files must have been removed.
+   */
+  private List<Path> listDirectory() throws IOException {
+    final List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      stream.forEach(files::add);
+    }
+    return files;
+  }
+
+}
@@ -0,0 +1,143 @@
+package swing;
+
+import change.Change;
+import classDiagram.ClassDiagram;
+import graphic.GraphicView;
+import graphic.textbox.TextBoxCommentary;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link SearchIndex}, on the notes of a view: the index follows the texts as they change.
+ */
+public class SearchIndexTest {
+
+  private GraphicView graphicView;
+
+  public SearchIndexTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+    graphicView = new GraphicView(new ClassDiagram(), false);
+  }
+
+  @After
+  public void tearDown() {
+    Change.setBlocked(false);
+  }
+
+  /**
+   * Test of search method, of class SearchIndex: the texts containing the query, whatever the case and the accents, in
+   * the order of the view.
+   */
+  @Test
+  public void testSearch() {
+    System.out.println("search");
+    final TextBoxCommentary first = addNote("Élément du modèle");
+    final TextBoxCommentary second = addNote("Second ELEMENT");
+    final TextBoxCommentary third = addNote("aaaa");
+
+    final SearchIndex index = SearchIndex.of(graphicView);
+    assertEquals(Arrays.asList(first, second), index.search("element"));
+    assertEquals(Arrays.asList(first, second), index.search("ÉLÉM"));
+    assertEquals(Collections.singletonList(first), index.search("du modele"));
+    assertEquals(Collections.singletonList(third), index.search("aaa"));
+    assertEquals(Collections.emptyList(), index.search("aaaaa"));
+    assertEquals(Collections.emptyList(), index.search("missing"));
+  }
+
+  /**
+   * Test of search method, of class SearchIndex, with a query shorter than the indexed sequences: all the texts are
+   * checked.
+   */
+  @Test
+  public void testSearchShortQuery() {
+    System.out.println("searchShortQuery");
+    final TextBoxCommentary first = addNote("abc");
+    final TextBoxCommentary second = addNote("xbz");
+
+    assertEquals(Arrays.asList(first, second), SearchIndex.of(graphicView).search("B"));
+    assertEquals(Collections.singletonList(first), SearchIndex.of(graphicView).search("ab"));
+  }
+
+  /**
+   * Test of of method, of class SearchIndex, after a text changed: the index has the new text only.
+   */
+  @Test
+  public void testChangedText() {
+    System.out.println("changedText");
+    final TextBoxCommentary first = addNote("first note");
+    final TextBoxCommentary second = addNote("second note");
+    assertEquals(Arrays.asList(first, second), SearchIndex.of(graphicView).search("note"));
+
+    first.setText("renamed");
+
+    assertEquals(Collections.singletonList(second), SearchIndex.of(graphicView).search("note"));
+    assertEquals(Collections.singletonList(first), SearchIndex.of(graphicView).search("renamed"));
+    assertEquals(Collections.emptyList(), SearchIndex.of(graphicView).search("first"));
+  }
+
+  /**
+   * Test of of method, of class SearchIndex, after components are added and removed: the positions of the others
+   * follow.
+   */
+  @Test
+  public void testAddedAndRemoved() {
+    System.out.println("addedAndRemoved");
+    final TextBoxCommentary first = addNote("note 1");
+    final TextBoxCommentary second = addNote("note 2");
+    assertEquals(Arrays.asList(first, second), SearchIndex.of(graphicView).search("note"));
+
+    final TextBoxCommentary third = addNote("note 3");
+    assertEquals(Arrays.asList(first, second, third), SearchIndex.of(graphicView).search("note"));
+
+    first.delete();
+    assertEquals(Arrays.asList(second, third), SearchIndex.of(graphicView).search("note"));
+    assertEquals(Collections.singletonList(third), SearchIndex.of(graphicView).search("note 3"));
+    assertEquals(Collections.emptyList(), SearchIndex.of(graphicView).search("note 1"));
+  }
+
+  /**
+   * Test of of method, of class SearchIndex, while the changes are blocked, as during an undo: the version does not
+   * change, the index is updated anyway.
+   */
+  @Test
+  public void testBlockedChanges() {
+    System.out.println("blockedChanges");
+    final TextBoxCommentary note = addNote("before");
+    assertEquals(Collections.singletonList(note), SearchIndex.of(graphicView).search("before"));
+
+    Change.setBlocked(true);
+    final long version = Change.getVersion();
+    note.setText("after");
+    assertEquals(version, Change.getVersion());
+
+    assertEquals(Collections.singletonList(note), SearchIndex.of(graphicView).search("after"));
+    assertEquals(Collections.emptyList(), SearchIndex.of(graphicView).search("before"));
+  }
+
+  private TextBoxCommentary addNote(final String text) {
+    final TextBoxCommentary note = new TextBoxCommentary(graphicView, text);
+    graphicView.addNotes(note);
+    Change.setHasChange(true); // The factories record the creation once the component is added.
+    return note;
+  }
+
+}
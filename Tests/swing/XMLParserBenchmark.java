@@ -0,0 +1,74 @@
+package swing;
+
+import classDiagram.ClassDiagram;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Measure the time and the memory allocated to parse sly files with {@link XMLParser}, compared to the SAX parser
+ * alone. Not a test: run it from the root of the project, with the paths of plain XML sly files.
+ */
+public class XMLParserBenchmark {
+
+  private static final int WARMUP = 300, RUNS = 2000, ROUNDS = 5;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private interface Parse {
+    void run(byte[] content) throws Exception;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0)
+      args = new String[]{"doc/diagrammes_de_classes/metastructure.sly",
+                          "doc/diagrammes_de_classes/metastructurerelation.sly"};
+
+    final SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+    final ClassDiagram classDiagram = new ClassDiagram();
+
+    for (String path : args) {
+      final byte[] content = Files.readAllBytes(Paths.get(path));
+
+      final double[] sax = measure(content, c -> parser.parse(new ByteArrayInputStream(c), new DefaultHandler()));
+      final double[] handler = measure(
+          content, c -> parser.parse(new ByteArrayInputStream(c), new XMLParser(classDiagram)));
+
+      System.out.printf("%s (%d bytes)%n", path, content.length);
+      System.out.printf("  SAX alone:  %8.1f us %10.0f bytes allocated per parse%n", sax[0], sax[1]);
+      System.out.printf("  XMLParser:  %8.1f us %10.0f bytes allocated per parse%n", handler[0], handler[1]);
+      System.out.printf("  Handler:    %8.1f us %10.0f bytes allocated per parse%n",
+                        handler[0] - sax[0], handler[1] - sax[1]);
+    }
+  }
+
+  /**
+   * @return the best time in microseconds and the bytes allocated by the current thread, per parse.
+   */
+  private static double[] measure(byte[] content, Parse parse) throws Exception {
+    for (int i = 0; i < WARMUP; ++i)
+      parse.run(content);
+
+    final long thread = Thread.currentThread().getId();
+    double time = Double.MAX_VALUE, allocated = 0;
+
+    for (int round = 0; round < ROUNDS; ++round) {
+      final long startAllocated = THREADS.getThreadAllocatedBytes(thread), start = System.nanoTime();
+
+      for (int i = 0; i < RUNS; ++i)
+        parse.run(content);
+
+      time = Math.min(time, (System.nanoTime() - start) / 1000.0 / RUNS);
+      allocated = (THREADS.getThreadAllocatedBytes(thread) - startAllocated) / (double) RUNS;
+    }
+
+    return new double[]{time, allocated};
+  }
+
+}
@@ -0,0 +1,127 @@
+package utility;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the debounce of {@link WatchDir}.
+ */
+public class WatchDirTest {
+
+  /**
+   * Time to wait for the notifications, longer than the debounce delay.
+   */
+  private static final long QUIET_DELAY = 1500;
+
+  private Path directory;
+  private Path file;
+  private Recorder recorder;
+
+  public WatchDirTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    WatchDir.shutdown();
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("watchdir");
+    file = directory.resolve("project.sly");
+    Files.write(file, "a".getBytes());
+    recorder = new Recorder();
+    WatchDir.register(file, recorder);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    WatchDir.unregister(file);
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(directory);
+  }
+
+  /**
+   * Test of the debounce: several writes in a row are notified once.
+   */
+  @Test
+  public void testDebounce() throws Exception {
+    System.out.println("debounce");
+    for (int i = 0; i < 5; ++i) {
+      Files.write(file, ("content " + i).getBytes());
+      Thread.sleep(50);
+    }
+    Thread.sleep(QUIET_DELAY);
+
+    assertEquals(Collections.singletonList("modified"), recorder.getEvents());
+  }
+
+  /**
+   * Test of a file deleted and created again, as saved atomically by an editor: it is notified as modified.
+   */
+  @Test
+  public void testDeleteThenCreate() throws Exception {
+    System.out.println("deleteThenCreate");
+    Files.delete(file);
+    Files.write(file, "b".getBytes());
+    Thread.sleep(QUIET_DELAY);
+
+    assertEquals(Collections.singletonList("modified"), recorder.getEvents());
+  }
+
+  /**
+   * Test of a deleted file.
+   */
+  @Test
+  public void testDelete() throws Exception {
+    System.out.println("delete");
+    Files.delete(file);
+    Thread.sleep(QUIET_DELAY);
+
+    assertEquals(Collections.singletonList("deleted"), recorder.getEvents());
+  }
+
+  /**
+   * Test of register method, of class WatchDir, with a file in a missing directory.
+   */
+  @Test(expected = IOException.class)
+  public void testRegisterMissingDirectory() throws IOException {
+    System.out.println("registerMissingDirectory");
+    WatchDir.register(directory.resolve("missing").resolve("project.sly"), new Recorder());
+  }
+
+  private static class Recorder implements WatchFileListener {
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    public synchronized void fileModified() {
+      events.add("modified");
+    }
+
+    @Override
+    public synchronized void fileDeleted() {
+      events.add("deleted");
+    }
+
+    synchronized List<String> getEvents() {
+      return new ArrayList<>(events);
+    }
+  }
+
+}
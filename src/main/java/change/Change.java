@@ -7,6 +7,20 @@ import java.util.LinkedList;
 
 public class Change {
 
+  /**
+   * Follows the changes of the project, on the EDT.
+   */
+  public interface Listener {
+
+    /**
+     * The project changed, by a new change, an undo or a redo.
+     *
+     * @param component the component of the change (see {@link Changeable#getAssociedComponent()}), or null if any
+     * part of the project may have changed.
+     */
+    void changed(Object component);
+  }
+
   private static Change instance;
 
   public static Change getInstance() {
@@ -21,14 +35,27 @@ public class Change {
   private boolean block = false;
   private boolean isRecord = false;
   private int pointer = 0;
+  private long version = 0;
 
   private LinkedList<Boolean> record = new LinkedList<>();
   private LinkedList<Changeable> stack = new LinkedList<>();
+  private final LinkedList<Listener> listeners = new LinkedList<>();
+
+  public static void addListener(Listener listener) {
+    getInstance().listeners.add(listener);
+  }
+
+  private void fireChanged(Object component) {
+    for (Listener listener : listeners)
+      listener.changed(component);
+  }
 
   public void _clear() {
     stack.clear();
     record.clear();
     pointer = 0;
+    version++; // Another project, or a project without its history: the same version must not be kept.
+    fireChanged(null);
     setHasChange(false);
 
     printStackState();
@@ -39,7 +66,14 @@ public class Change {
   }
 
   public void _setHasChange(boolean changed) {
+    // Nothing tells what changed.
+    if (changed) fireChanged(null);
+    updateHasChange(changed);
+  }
+
+  private void updateHasChange(boolean changed) {
     _hasChange = changed;
+    if (changed) version++;
 
     Slyum.setStarOnTitle(changed);
 
@@ -74,6 +108,16 @@ public class Change {
     return getInstance()._hasChange();
   }
 
+  /**
+   * Get the version of the project. The version is incremented each time the project is marked as changed, an
+   * unchanged version means that the project is the same.
+   *
+   * @return the current version.
+   */
+  public static long getVersion() {
+    return getInstance().version;
+  }
+
   public boolean _isBlocked() {
     return block;
   }
@@ -132,7 +176,8 @@ public class Change {
 
     checkToolbarButtonState();
 
-    setHasChange(true);
+    fireChanged(ch.getAssociedComponent());
+    updateHasChange(true);
   }
 
   public static void push(Changeable ch) {
@@ -157,16 +202,18 @@ public class Change {
 
     final int increment = pointer % 2 == 0 ? 1 : 2;
 
+    final Changeable restored = stack.get(pointer += increment);
     final boolean isBlocked = isBlocked();
     setBlocked(true);
-    stack.get(pointer += increment).restore();
+    restored.restore();
     setBlocked(isBlocked);
 
     printStackState();
 
     checkToolbarButtonState();
 
-    setHasChange(true);
+    fireChanged(restored.getAssociedComponent());
+    updateHasChange(true);
 
     if (record.get(pointer)) redo();
   }
@@ -212,14 +259,16 @@ public class Change {
 
     final int decrement = pointer % 2 > 0 ? 1 : 2;
 
+    final Changeable restored = stack.get(pointer -= decrement);
     final boolean isBlocked = isBlocked();
     setBlocked(true);
-    stack.get(pointer -= decrement).restore();
+    restored.restore();
     setBlocked(isBlocked);
 
     printStackState();
     checkToolbarButtonState();
-    setHasChange(true);
+    fireChanged(restored.getAssociedComponent());
+    updateHasChange(true);
 
     if (record.get(pointer))
       undo();
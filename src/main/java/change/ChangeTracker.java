@@ -0,0 +1,144 @@
+package change;
+
+import classDiagram.IDiagramComponent;
+import classDiagram.components.EnumEntity;
+import classDiagram.components.Method;
+import classDiagram.components.SimpleEntity;
+import classDiagram.relationships.Association;
+import classDiagram.relationships.Relation;
+import classDiagram.relationships.Role;
+import graphic.GraphicComponent;
+import graphic.GraphicView;
+import swing.MultiViewManager;
+import swing.PanelClassDiagram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the parts of the project that changed, so that only them are written again: the components of the class
+ * diagram (entities and relations) and the views.
+ * <p>
+ * A change of an attribute, a method, a parameter, an enum value or a role is a change of the component owning it, and
+ * of the views showing this component, as its size can change. A change of a graphic component is a change of its
+ * view. A change of an unknown part, as a property of the diagram, is a change of everything. Used on the EDT, like
+ * {@link Change}.
+ */
+public class ChangeTracker implements Change.Listener {
+
+  private final Set<Object> changes = Collections.newSetFromMap(new IdentityHashMap<>());
+  private boolean everything = true;
+
+  /**
+   * Component of the class diagram owning each known part. Kept after a part is removed, to find the component it was
+   * removed from.
+   */
+  private final IdentityHashMap<Object, IDiagramComponent> owners = new IdentityHashMap<>();
+
+  /**
+   * Create a tracker following the changes from now on. Everything is changed until the first call of
+   * {@link #takeChanges()}.
+   */
+  public ChangeTracker() {
+    Change.addListener(this);
+  }
+
+  /**
+   * Get the changes since the previous call.
+   *
+   * @return the components of the class diagram and the views that changed, or null if everything may have changed.
+   */
+  public Set<Object> takeChanges() {
+    final Set<Object> taken;
+    if (everything) {
+      taken = null;
+    } else {
+      taken = Collections.newSetFromMap(new IdentityHashMap<>());
+      taken.addAll(changes);
+    }
+
+    everything = false;
+    changes.clear();
+    return taken;
+  }
+
+  @Override
+  public void changed(Object component) {
+    if (everything) return;
+
+    if (component instanceof GraphicView) {
+      changes.add(component);
+    } else if (component instanceof GraphicComponent) {
+      final GraphicView graphicView = ((GraphicComponent) component).getGraphicView();
+      if (graphicView != null) changes.add(graphicView);
+      else everything = true;
+    } else if (component instanceof SimpleEntity || component instanceof EnumEntity ||
+               component instanceof Relation) {
+      componentChanged((IDiagramComponent) component);
+    } else if (component != null) {
+      partChanged(component);
+    } else {
+      everything = true;
+    }
+  }
+
+  private void componentChanged(IDiagramComponent component) {
+    changes.add(component);
+
+    for (GraphicView graphicView : MultiViewManager.getAllGraphicViews())
+      if (graphicView.displays(component)) changes.add(graphicView);
+  }
+
+  private void partChanged(Object part) {
+    final IDiagramComponent previous = owners.get(part);
+    if (previous != null && getParts(previous).contains(part)) {
+      componentChanged(previous);
+      return;
+    }
+
+    // A new part, or a part moved or removed from its component.
+    indexParts();
+    final IDiagramComponent current = owners.get(part);
+
+    if (previous == null && current == null) everything = true;
+    if (previous != null) componentChanged(previous);
+    if (current != null) componentChanged(current);
+  }
+
+  private void indexParts() {
+    final List<IDiagramComponent> components = PanelClassDiagram.getInstance().getClassDiagram().getComponents();
+
+    // The removed parts are forgotten once there are more of them than parts in the diagram.
+    if (owners.size() > 2 * components.size() + 1024) owners.clear();
+
+    for (IDiagramComponent component : components)
+      for (Object part : getParts(component))
+        owners.put(part, component);
+  }
+
+  private static List<Object> getParts(IDiagramComponent component) {
+    final List<Object> parts = new ArrayList<>();
+
+    if (component instanceof SimpleEntity) {
+      final SimpleEntity entity = (SimpleEntity) component;
+      parts.addAll(entity.getAttributes());
+      for (Method method : entity.getMethods()) {
+        parts.add(method);
+        parts.addAll(method.getParameters());
+      }
+    } else if (component instanceof EnumEntity) {
+      parts.addAll(((EnumEntity) component).getEnumValues());
+    } else if (component instanceof Association) {
+      for (Role role : ((Association) component).getRoles()) {
+        parts.add(role);
+        parts.add(role.getMultiplicity());
+      }
+    }
+
+    return parts;
+  }
+
+}
@@ -25,6 +25,8 @@ import utility.Utility;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Observable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 /**
  * This class contains all structurals UML components. Add classes, interfaces, associations, inheritances, dependecies
@@ -36,10 +38,11 @@ import java.util.Observable;
  */
 public class ClassDiagram extends Observable
     implements XmlElement, INameObserver {
-  private static int currentID = 0;
+  // Components can be created on several threads at once (loading, batch export).
+  private static final AtomicInteger currentID = new AtomicInteger();
 
   public static int getNextId() {
-    return ++currentID;
+    return currentID.incrementAndGet();
   }
 
   LinkedList<IDiagramComponent> components = new LinkedList<>();
@@ -255,7 +258,7 @@ public class ClassDiagram extends Observable
    * @param id the new id to set
    */
   public void setCurrentId(int id) {
-    currentID = id;
+    currentID.set(id);
   }
 
   public ViewEntity getDefaultViewEntities() {
@@ -348,6 +351,18 @@ public class ClassDiagram extends Observable
 
   @Override
   public Element getXmlElement(Document doc) {
+    return getXmlElement(doc, component -> true);
+  }
+
+  /**
+   * Get the XML element of the diagram with only some of its components, in the order of the diagram.
+   *
+   * @param doc the document of the element.
+   * @param written the components to write.
+   *
+   * @return the element.
+   */
+  public Element getXmlElement(Document doc, Predicate<IDiagramComponent> written) {
 
     Element classDiagram = doc.createElement(getXmlTagName());
 
@@ -361,7 +376,7 @@ public class ClassDiagram extends Observable
 
     // Components
     for (IDiagramComponent component : components)
-      classDiagram.appendChild(component.getXmlElement(doc));
+      if (written.test(component)) classDiagram.appendChild(component.getXmlElement(doc));
 
     return classDiagram;
   }
@@ -458,8 +473,8 @@ public class ClassDiagram extends Observable
    * @return true if the component has been added; false otherwise
    */
   private boolean addComponent(IDiagramComponent component) {
-    if (component.getId() > currentID)
-      setCurrentId(component.getId() + 1);
+    // Never goes back, even if another thread creates components meanwhile.
+    currentID.accumulateAndGet(component.getId(), (current, id) -> id > current ? id + 1 : current);
 
     if (!components.contains(component)) {
       components.addFirst(component);
@@ -0,0 +1,246 @@
+package classDiagram.query;
+
+import classDiagram.ClassDiagram;
+import classDiagram.IDiagramComponent;
+import classDiagram.components.AssociationClass;
+import classDiagram.components.Attribute;
+import classDiagram.components.EnumEntity;
+import classDiagram.components.Entity;
+import classDiagram.components.InterfaceEntity;
+import classDiagram.components.Method;
+import classDiagram.components.SimpleEntity;
+import classDiagram.components.Variable;
+import classDiagram.relationships.Aggregation;
+import classDiagram.relationships.Association;
+import classDiagram.relationships.Composition;
+import classDiagram.relationships.Dependency;
+import classDiagram.relationships.Inheritance;
+import classDiagram.relationships.InnerClass;
+import classDiagram.relationships.Multi;
+import classDiagram.relationships.Relation;
+import classDiagram.relationships.Role;
+import graphic.GraphicView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The elements of a class diagram as rows of properties, read at once so a {@link Query} can run on another thread
+ * than the one changing the diagram. The properties needing the whole diagram, as the children of an entity or the
+ * views displaying it, are computed here once.
+ */
+public final class ModelIndex {
+
+  /**
+   * A table of rows, with the names and the types of the properties of its rows.
+   */
+  public enum Table {
+    ENTITIES(new String[] {"name", "kind", "stereotype", "visibility", "abstract", "attributes", "methods", "values",
+                           "parents", "children", "relations", "views"},
+             new Class<?>[] {String.class, String.class, String.class, String.class, Boolean.class, Integer.class,
+                             Integer.class, Integer.class, Integer.class, Integer.class, Integer.class, Integer.class}),
+    ATTRIBUTES(new String[] {"name", "type", "visibility", "static", "const", "entity"},
+               new Class<?>[] {String.class, String.class, String.class, Boolean.class, Boolean.class, String.class}),
+    METHODS(new String[] {"name", "type", "visibility", "static", "abstract", "parameters", "entity"},
+            new Class<?>[] {String.class, String.class, String.class, Boolean.class, Boolean.class, Integer.class,
+                            String.class}),
+    PARAMETERS(new String[] {"name", "type", "method", "entity"},
+               new Class<?>[] {String.class, String.class, String.class, String.class}),
+    RELATIONS(new String[] {"kind", "name", "source", "target", "views"},
+              new Class<?>[] {String.class, String.class, String.class, String.class, Integer.class});
+
+    private final List<String> properties;
+    private final Class<?>[] types;
+
+    Table(String[] properties, Class<?>[] types) {
+      this.properties = Collections.unmodifiableList(Arrays.asList(properties));
+      this.types = types;
+    }
+
+    public List<String> getProperties() {
+      return properties;
+    }
+
+    /**
+     * @return the position of the property in the rows, -1 if the rows do not have it.
+     */
+    int indexOf(String property) {
+      return properties.indexOf(property);
+    }
+
+    Class<?> getType(int index) {
+      return types[index];
+    }
+  }
+
+  /**
+   * An element of the diagram and its properties.
+   */
+  public static final class Row {
+    private final IDiagramComponent element, owner;
+    private final String label;
+    private final Object[] values;
+
+    Row(IDiagramComponent element, IDiagramComponent owner, String label, Object... values) {
+      this.element = element;
+      this.owner = owner;
+      this.label = label;
+      this.values = values;
+    }
+
+    /**
+     * @return the element: an entity, an attribute, a method, a parameter or a relation.
+     */
+    public IDiagramComponent getElement() {
+      return element;
+    }
+
+    /**
+     * @return the entity or the relation displaying the element in the views.
+     */
+    public IDiagramComponent getOwner() {
+      return owner;
+    }
+
+    Object get(int index) {
+      return values[index];
+    }
+
+    @Override
+    public String toString() {
+      return label;
+    }
+  }
+
+  private final Map<Table, List<Row>> tables = new EnumMap<>(Table.class);
+
+  /**
+   * Read the diagram, on the thread changing it.
+   *
+   * @param classDiagram the diagram.
+   * @param views the views of the diagram, closed views included.
+   */
+  public ModelIndex(ClassDiagram classDiagram, Collection<GraphicView> views) {
+    for (Table table : Table.values())
+      tables.put(table, new ArrayList<>());
+
+    final List<Entity> entities = classDiagram.getEntities();
+    final List<Relation> relations = classDiagram.getRelations();
+    final Map<IDiagramComponent, int[]> counts = new IdentityHashMap<>(); // Parents, children, relations, views.
+    for (Entity entity : entities)
+      counts.put(entity, new int[4]);
+    for (Relation relation : relations)
+      counts.put(relation, new int[4]);
+
+    for (Relation relation : relations) {
+      if (relation instanceof Inheritance) {
+        count(counts, ((Inheritance) relation).getChild(), 0);
+        count(counts, ((Inheritance) relation).getParent(), 1);
+      }
+      if (relation instanceof Association)
+        for (Role role : ((Association) relation).getRoles())
+          count(counts, role.getEntity(), 2);
+      else {
+        count(counts, relation.getSource(), 2);
+        count(counts, relation.getTarget(), 2);
+      }
+    }
+
+    final List<IDiagramComponent> components = new ArrayList<>(counts.keySet());
+    for (GraphicView view : views)
+      for (IDiagramComponent displayed : view.displays(components))
+        count(counts, displayed, 3);
+
+    for (Entity entity : entities)
+      addEntity(entity, counts.get(entity));
+    for (Relation relation : relations)
+      addRelation(relation, counts.get(relation));
+  }
+
+  private static void count(Map<IDiagramComponent, int[]> counts, IDiagramComponent component, int index) {
+    final int[] count = counts.get(component);
+    if (count != null) ++count[index];
+  }
+
+  /**
+   * @return the rows of the table, in the order of the diagram.
+   */
+  public List<Row> getRows(Table table) {
+    return Collections.unmodifiableList(tables.get(table));
+  }
+
+  private void addEntity(Entity entity, int[] counts) {
+    final String name = entity.getName();
+    final SimpleEntity simpleEntity = entity instanceof SimpleEntity ? (SimpleEntity) entity : null;
+    final int values = entity instanceof EnumEntity ? ((EnumEntity) entity).getEnumValues().size() : 0;
+
+    tables.get(Table.ENTITIES).add(new Row(
+        entity, entity, name, name, getKind(entity), entity.getStereotype(),
+        simpleEntity == null ? "" : simpleEntity.getVisibility().getName().toLowerCase(),
+        simpleEntity != null && simpleEntity.isAbstract(),
+        simpleEntity == null ? 0 : simpleEntity.getAttributes().size(),
+        simpleEntity == null ? 0 : simpleEntity.getMethods().size(),
+        values, counts[0], counts[1], counts[2], counts[3]));
+    if (simpleEntity == null) return;
+
+    for (Attribute attribute : simpleEntity.getAttributes())
+      tables.get(Table.ATTRIBUTES).add(new Row(
+          attribute, entity, name + "." + attribute.getName() + " : " + attribute.getType().getName(),
+          attribute.getName(), attribute.getType().getName(), attribute.getVisibility().getName().toLowerCase(),
+          attribute.isStatic(), attribute.isConstant(), name));
+
+    for (Method method : simpleEntity.getMethods()) {
+      final String type = method.getReturnType() == null ? "" : method.getReturnType().getName();
+      tables.get(Table.METHODS).add(new Row(
+          method, entity, name + "." + method.getStringFromMethod(Method.ParametersViewStyle.TYPE_AND_NAME),
+          method.getName(), type, method.getVisibility().getName().toLowerCase(), method.isStatic(),
+          method.isAbstract(), method.getParameters().size(), name));
+
+      for (Variable parameter : method.getParameters())
+        tables.get(Table.PARAMETERS).add(new Row(
+            parameter, entity,
+            name + "." + method.getName() + "(" + parameter.getName() + " : " + parameter.getType().getName() + ")",
+            parameter.getName(), parameter.getType().getName(), method.getName(), name));
+    }
+  }
+
+  private void addRelation(Relation relation, int[] counts) {
+    final String kind = getKind(relation), name = getName(relation);
+    final String source = relation.getSource() == null ? "" : relation.getSource().getName(),
+        target = relation.getTarget() == null ? "" : relation.getTarget().getName();
+
+    tables.get(Table.RELATIONS).add(new Row(
+        relation, relation, kind + (name.isEmpty() ? "" : " " + name) + " : " + source + " - " + target,
+        kind, name, source, target, counts[3]));
+  }
+
+  private static String getKind(Entity entity) {
+    if (entity instanceof AssociationClass) return "association class";
+    if (entity instanceof InterfaceEntity) return "interface";
+    if (entity instanceof EnumEntity) return "enum";
+    return "class";
+  }
+
+  private static String getKind(Relation relation) {
+    if (relation instanceof Inheritance) return "inheritance";
+    if (relation instanceof InnerClass) return "inner class";
+    if (relation instanceof Dependency) return "dependency";
+    if (relation instanceof Composition) return "composition";
+    if (relation instanceof Aggregation) return "aggregation";
+    if (relation instanceof Multi) return "multi-association";
+    return "association";
+  }
+
+  private static String getName(Relation relation) {
+    final String name = relation instanceof Association ? ((Association) relation).getName() :
+        relation instanceof Dependency ? ((Dependency) relation).getLabel() : null;
+    return name == null ? "" : name;
+  }
+
+}
@@ -0,0 +1,282 @@
+package classDiagram.query;
+
+import classDiagram.query.ModelIndex.Row;
+import classDiagram.query.ModelIndex.Table;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A query over the elements of a class diagram, as:
+ * <pre>
+ * classes where methods &gt; 30
+ * methods where type like "List&lt;*&gt;"
+ * entities where views = 0
+ * interfaces where children = 0 and not abstract
+ * </pre>
+ * A query is the elements searched (entities, classes, interfaces, enums, attributes, methods, parameters or
+ * relations) followed by an optional condition on their properties (see {@link Table#getProperties()}). A condition
+ * compares a property to a value with =, !=, &lt;, &lt;=, &gt;, &gt;=, like (with the wildcards * and ?) or contains;
+ * a boolean property alone is true if the property is. Conditions are combined with and, or, not and parentheses. The
+ * texts are compared without case, and a value with spaces or symbols is quoted.
+ * <p>
+ * The query is parsed once into a predicate, then run on a {@link ModelIndex}, from any thread.
+ */
+public final class Query {
+
+  /**
+   * The elements which can be searched, as their table and the kinds of entities they are limited to.
+   */
+  private static final Map<String, Object[]> SELECTORS = new LinkedHashMap<>();
+
+  static {
+    SELECTORS.put("entities", new Object[] {Table.ENTITIES});
+    SELECTORS.put("classes", new Object[] {Table.ENTITIES, "class", "association class"});
+    SELECTORS.put("interfaces", new Object[] {Table.ENTITIES, "interface"});
+    SELECTORS.put("enums", new Object[] {Table.ENTITIES, "enum"});
+    SELECTORS.put("attributes", new Object[] {Table.ATTRIBUTES});
+    SELECTORS.put("methods", new Object[] {Table.METHODS});
+    SELECTORS.put("parameters", new Object[] {Table.PARAMETERS});
+    SELECTORS.put("relations", new Object[] {Table.RELATIONS});
+  }
+
+  /**
+   * Rows run between two checks of the interruption.
+   */
+  private static final int INTERRUPTION_CHECK = 1024;
+
+  /**
+   * Parse a query.
+   *
+   * @param query the text of the query.
+   *
+   * @return the query.
+   *
+   * @throws QueryException if the query is not valid.
+   */
+  public static Query parse(String query) throws QueryException {
+    return new Parser(query).parse();
+  }
+
+  private final Table table;
+  private final Predicate<Row> condition;
+
+  private Query(Table table, Predicate<Row> condition) {
+    this.table = table;
+    this.condition = condition;
+  }
+
+  /**
+   * Run the query.
+   *
+   * @param index the elements of the diagram.
+   *
+   * @return the rows of the elements found, in the order of the diagram.
+   *
+   * @throws InterruptedException if the thread is interrupted while running the query.
+   */
+  public List<Row> run(ModelIndex index) throws InterruptedException {
+    final List<Row> results = new ArrayList<>();
+    final List<Row> rows = index.getRows(table);
+
+    for (int i = 0; i < rows.size(); ++i) {
+      if (i % INTERRUPTION_CHECK == 0 && Thread.interrupted()) throw new InterruptedException();
+      if (condition.test(rows.get(i))) results.add(rows.get(i));
+    }
+    return results;
+  }
+
+  /**
+   * A recursive descent parser, a method per level of precedence.
+   */
+  private static final class Parser {
+
+    private static final Pattern TOKENS = Pattern.compile(
+        "\\s*(?:(\"[^\"]*\"|'[^']*')|(<=|>=|!=|<>|==|[=<>()~])|([^\\s\"'=<>()!~]+)|(\\S))");
+
+    private final List<String> tokens = new ArrayList<>();
+    private int position;
+    private Table table;
+
+    Parser(String query) throws QueryException {
+      final Matcher matcher = TOKENS.matcher(query);
+      while (matcher.lookingAt()) {
+        final String unexpected = matcher.group(4);
+        if (unexpected != null)
+          throw new QueryException(unexpected.equals("\"") || unexpected.equals("'") ?
+                                       "Unterminated text: " + query.substring(matcher.start(4)) :
+                                       "Unexpected character: " + unexpected);
+        tokens.add(matcher.group(1) != null ? matcher.group(1) :
+                       matcher.group(2) != null ? matcher.group(2) : matcher.group(3));
+        matcher.region(matcher.end(), query.length());
+      }
+    }
+
+    Query parse() throws QueryException {
+      final String selector = next("the elements to search").toLowerCase(Locale.ROOT);
+      final Object[] selection = SELECTORS.get(selector);
+      if (selection == null)
+        throw new QueryException("Unknown elements: " + selector + ". Expected one of " + SELECTORS.keySet() + ".");
+      table = (Table) selection[0];
+
+      Predicate<Row> condition = row -> true;
+      if (selection.length > 1) {
+        final int kind = table.indexOf("kind");
+        final List<Object> kinds = List.of(selection).subList(1, selection.length);
+        condition = row -> kinds.contains(row.get(kind));
+      }
+
+      if (position < tokens.size()) {
+        expectKeyword("where");
+        condition = condition.and(parseOr());
+      }
+      if (position < tokens.size()) throw new QueryException("Unexpected: " + tokens.get(position));
+
+      return new Query(table, condition);
+    }
+
+    private Predicate<Row> parseOr() throws QueryException {
+      Predicate<Row> condition = parseAnd();
+      while (isKeyword("or")) {
+        ++position;
+        condition = condition.or(parseAnd());
+      }
+      return condition;
+    }
+
+    private Predicate<Row> parseAnd() throws QueryException {
+      Predicate<Row> condition = parseNot();
+      while (isKeyword("and")) {
+        ++position;
+        condition = condition.and(parseNot());
+      }
+      return condition;
+    }
+
+    private Predicate<Row> parseNot() throws QueryException {
+      if (isKeyword("not")) {
+        ++position;
+        return parseNot().negate();
+      }
+      if (isKeyword("(")) {
+        ++position;
+        final Predicate<Row> condition = parseOr();
+        expectKeyword(")");
+        return condition;
+      }
+      return parseComparison();
+    }
+
+    private Predicate<Row> parseComparison() throws QueryException {
+      final String property = next("a property").toLowerCase(Locale.ROOT);
+      final int index = table.indexOf(property);
+      if (index == -1)
+        throw new QueryException("Unknown property: " + property + ". Expected one of " + table.getProperties() + ".");
+      final Class<?> type = table.getType(index);
+
+      // A boolean property alone.
+      if (position == tokens.size() || isKeyword("and") || isKeyword("or") || isKeyword(")")) {
+        if (type != Boolean.class) throw new QueryException("The property " + property + " must be compared.");
+        return row -> (Boolean) row.get(index);
+      }
+
+      final String operator = next("an operator").toLowerCase(Locale.ROOT);
+      final String value = unquote(next("a value"));
+
+      if (type == Integer.class) {
+        final int number;
+        try {
+          number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+          throw new QueryException("The property " + property + " is a number, not " + value + ".");
+        }
+        return compare(operator, property, row -> Integer.compare((Integer) row.get(index), number));
+      }
+
+      if (type == Boolean.class) {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false"))
+          throw new QueryException("The property " + property + " is true or false, not " + value + ".");
+        final boolean expected = Boolean.parseBoolean(value.toLowerCase(Locale.ROOT));
+        if (!operator.equals("=") && !operator.equals("==") && !operator.equals("!=") && !operator.equals("<>"))
+          throw new QueryException("The property " + property + " can only be compared with = or !=.");
+        return compare(operator, property, row -> Boolean.compare((Boolean) row.get(index), expected));
+      }
+
+      switch (operator) {
+        case "like":
+          final Pattern pattern = toPattern(value);
+          return row -> pattern.matcher((String) row.get(index)).matches();
+        case "contains":
+        case "~":
+          final String searched = value.toLowerCase(Locale.ROOT);
+          return row -> ((String) row.get(index)).toLowerCase(Locale.ROOT).contains(searched);
+        default:
+          return compare(operator, property, row -> ((String) row.get(index)).compareToIgnoreCase(value));
+      }
+    }
+
+    /**
+     * @param comparison the comparison of the property of a row to the value.
+     */
+    private static Predicate<Row> compare(String operator, String property, ToIntFunction<Row> comparison)
+        throws QueryException {
+      switch (operator) {
+        case "=":
+        case "==":
+          return row -> comparison.applyAsInt(row) == 0;
+        case "!=":
+        case "<>":
+          return row -> comparison.applyAsInt(row) != 0;
+        case "<":
+          return row -> comparison.applyAsInt(row) < 0;
+        case "<=":
+          return row -> comparison.applyAsInt(row) <= 0;
+        case ">":
+          return row -> comparison.applyAsInt(row) > 0;
+        case ">=":
+          return row -> comparison.applyAsInt(row) >= 0;
+        default:
+          throw new QueryException("Unknown operator for " + property + ": " + operator + ".");
+      }
+    }
+
+    /**
+     * @return a pattern matching a text with wildcards, without case.
+     */
+    private static Pattern toPattern(String wildcards) {
+      final StringBuilder regex = new StringBuilder();
+      for (String part : wildcards.split("(?=[*?])|(?<=[*?])"))
+        regex.append(part.equals("*") ? ".*" : part.equals("?") ? "." : Pattern.quote(part));
+      return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    private static String unquote(String token) {
+      final boolean quoted = token.length() >= 2 && (token.charAt(0) == '"' || token.charAt(0) == '\'');
+      return quoted ? token.substring(1, token.length() - 1) : token;
+    }
+
+    private boolean isKeyword(String keyword) {
+      return position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword);
+    }
+
+    private void expectKeyword(String keyword) throws QueryException {
+      if (!isKeyword(keyword))
+        throw new QueryException("Expected " + keyword + (position < tokens.size() ? ", not " + tokens.get(position) :
+            " at the end") + ".");
+      ++position;
+    }
+
+    private String next(String expected) throws QueryException {
+      if (position == tokens.size()) throw new QueryException("Expected " + expected + " at the end.");
+      return tokens.get(position++);
+    }
+  }
+
+}
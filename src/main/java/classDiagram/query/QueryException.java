@@ -0,0 +1,14 @@
+package classDiagram.query;
+
+/**
+ * A query which cannot be parsed, the message telling why.
+ */
+public class QueryException extends Exception {
+
+  private static final long serialVersionUID = 1L;
+
+  public QueryException(String message) {
+    super(message);
+  }
+
+}
@@ -20,8 +20,13 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Observable;
+import java.util.Observer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Represent a graphic component in Slyum. Graphics components can't be draw itself, it's not a Swing component. It must
@@ -39,7 +44,13 @@ public abstract class GraphicComponent extends Observable implements ActionListe
   }
 
   public static int countGraphicComponentsAssociedWith(IDiagramComponent diagramComponent) {
-    return GraphicComponent.getGraphicComponentsAssociedWith(diagramComponent).size();
+    // Views not materialized yet are counted too, without creating their components.
+    int count = 0;
+    for (GraphicView graphicView : MultiViewManager.getAllGraphicViews())
+      if (graphicView.displays(diagramComponent))
+        count++;
+
+    return count;
   }
 
   public static LinkedList<GraphicComponent> getGraphicComponentsAssociedWith(IDiagramComponent diagramComponent) {
@@ -60,7 +71,6 @@ public abstract class GraphicComponent extends Observable implements ActionListe
   protected Point mousePressed = new Point();
 
   protected GraphicView parent;
-  protected boolean pictureMode = false;
 
   protected JPopupMenu popupMenu;
   private Color color = Color.DARK_GRAY;
@@ -264,6 +274,16 @@ public abstract class GraphicComponent extends Observable implements ActionListe
     return null;
   }
 
+  /**
+   * Stop observing the model, when the components of a closed view are released (see {@link GraphicView#release()}).
+   * The components observing another part of the model than their associated component override it.
+   */
+  @SuppressWarnings("deprecation") // The model is observed through java.util.Observer, see IDiagramComponent.
+  public void stopObservingModel() {
+    final IDiagramComponent component = getAssociatedComponent();
+    if (component != null && this instanceof Observer) component.deleteObserver((Observer) this);
+  }
+
   public IDiagramComponent getAssociatedXmlElement() {
     return getAssociatedComponent();
   }
@@ -328,10 +348,6 @@ public abstract class GraphicComponent extends Observable implements ActionListe
     return mousePressed;
   }
 
-  public void setPictureMode(boolean enable) {
-    pictureMode = enable;
-  }
-
   /**
    * Get the popup menu for this component. The popup menu is shown when user make a right-click on it. Some component
    * hides this menu and don't use it.
@@ -579,17 +595,132 @@ public abstract class GraphicComponent extends Observable implements ActionListe
     return new LinkedList<>();
   }
 
-  public final LinkedList<GraphicComponent> getChildsRecursively() {
+  /**
+   * Give the direct childs of this component to the visitor, in the order of {@link #getDirectChilds()}, without
+   * building a list. A component having childs overrides both methods.
+   *
+   * @param visitor the visitor of the childs, returning false to stop the visit.
+   *
+   * @return false if the visitor stopped the visit.
+   */
+  protected boolean visitDirectChilds(Predicate<? super GraphicComponent> visitor) {
+    return true;
+  }
 
-    LinkedList<GraphicComponent> allChilds = (LinkedList<GraphicComponent>) getDirectChilds();
+  protected static boolean visitAll(Iterable<? extends GraphicComponent> components,
+                                    Predicate<? super GraphicComponent> visitor) {
+    for (GraphicComponent component : components)
+      if (!visitor.test(component))
+        return false;
+    return true;
+  }
 
-    getDirectChilds().stream().forEach((child) -> {
+  /**
+   * Get the childs of this component, recursively: its direct childs, then the childs of each one. Prefer
+   * {@link #walk(TraversalOrder, Class, ComponentVisitor)}, which builds no list and can stop at the first match.
+   *
+   * @return a new list of the childs.
+   */
+  public final LinkedList<GraphicComponent> getChildsRecursively() {
+    final LinkedList<GraphicComponent> directChilds = new LinkedList<>();
+    visitDirectChilds(directChilds::add);
+
+    final LinkedList<GraphicComponent> allChilds = new LinkedList<>(directChilds);
+    for (GraphicComponent child : directChilds)
       allChilds.addAll(child.getChildsRecursively());
-    });
 
     return allChilds;
   }
 
+  /**
+   * Walk the childs of this component, recursively, without building lists. The components tree must not change during
+   * the walk.
+   *
+   * @param order the order of the walk: a component is visited before (pre-order) or after (post-order) its childs.
+   * @param type the type of the components visited. The childs of the other components are walked too.
+   * @param visitor the visitor, deciding whether the walk goes on.
+   *
+   * @return false if the visitor stopped the walk.
+   */
+  public final <T extends GraphicComponent> boolean walk(
+      TraversalOrder order, Class<T> type, ComponentVisitor<? super T> visitor) {
+    return visitDirectChilds(new Walker<>(order, type, visitor));
+  }
+
+  /**
+   * Give each child of this component, recursively and in pre-order, to the action.
+   */
+  public final void forEachChildRecursively(Consumer<? super GraphicComponent> action) {
+    walk(TraversalOrder.PRE_ORDER, GraphicComponent.class, component -> {
+      action.accept(component);
+      return Traversal.CONTINUE;
+    });
+  }
+
+  /**
+   * Find the first child of this component, recursively and in pre-order, of the given type and matching the
+   * predicate. The walk stops at the component found.
+   *
+   * @return the component found, or null.
+   */
+  public final <T extends GraphicComponent> T findChild(Class<T> type, Predicate<? super T> predicate) {
+    final List<T> found = new ArrayList<>(1);
+    walk(TraversalOrder.PRE_ORDER, type, component -> {
+      if (!predicate.test(component)) return Traversal.CONTINUE;
+      found.add(component);
+      return Traversal.STOP;
+    });
+    return found.isEmpty() ? null : found.get(0);
+  }
+
+  /**
+   * The order of a walk of the components tree.
+   */
+  public enum TraversalOrder {
+    PRE_ORDER, POST_ORDER
+  }
+
+  /**
+   * What a walk does after a component has been visited. The childs of a component can be skipped only in pre-order.
+   */
+  public enum Traversal {
+    CONTINUE, SKIP_CHILDS, STOP
+  }
+
+  @FunctionalInterface
+  public interface ComponentVisitor<T extends GraphicComponent> {
+    Traversal visit(T component);
+  }
+
+  /**
+   * Visits the components of a walk, one instance per walk.
+   */
+  private static final class Walker<T extends GraphicComponent> implements Predicate<GraphicComponent> {
+    private final TraversalOrder order;
+    private final Class<T> type;
+    private final ComponentVisitor<? super T> visitor;
+
+    Walker(TraversalOrder order, Class<T> type, ComponentVisitor<? super T> visitor) {
+      this.order = order;
+      this.type = type;
+      this.visitor = visitor;
+    }
+
+    @Override
+    public boolean test(GraphicComponent component) {
+      final boolean visited = type.isInstance(component);
+
+      if (visited && order == TraversalOrder.PRE_ORDER) {
+        final Traversal traversal = visitor.visit(type.cast(component));
+        if (traversal != Traversal.CONTINUE) return traversal == Traversal.SKIP_CHILDS;
+      }
+
+      if (!component.visitDirectChilds(this)) return false;
+
+      return !visited || order != TraversalOrder.POST_ORDER || visitor.visit(type.cast(component)) != Traversal.STOP;
+    }
+  }
+
   public void setHighlight(boolean highlight) {
     this.highlight = highlight;
 
@@ -619,11 +750,10 @@ public abstract class GraphicComponent extends Observable implements ActionListe
   }
 
   public static void removeHighlightForAllComponents() {
-    MultiViewManager.getAllGraphicViews().stream().forEach((gv) -> {
-      gv.getChildsRecursively().stream().forEach((gc) -> {
-        gc.setHighlight(false);
+    for (GraphicView graphicView : MultiViewManager.getAllGraphicViews())
+      graphicView.forEachChildRecursively(component -> {
+        if (component.isHighlight()) component.setHighlight(false);
       });
-    });
   }
 
 }
@@ -43,10 +43,12 @@ import graphic.relations.LineView;
 import graphic.relations.MultiLineView;
 import graphic.relations.MultiView;
 import graphic.relations.RelationView;
+import graphic.textbox.TextBox;
 import graphic.textbox.TextBoxCommentary;
 import graphic.textbox.TextBoxDiagramName;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import swing.ClipboardSelection;
 import swing.IListenerComponentSelectionChanged;
 import swing.MultiViewManager;
 import swing.PanelClassDiagram;
@@ -78,18 +80,20 @@ import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.geom.Line2D;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.print.PageFormat;
-import java.awt.print.Printable;
-import java.awt.print.PrinterException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 
 /**
@@ -107,10 +111,49 @@ public class GraphicView extends GraphicComponent
     MouseWheelListener,
     IComponentsObserver,
     INameObserver,
-    Printable,
     ColoredComponent,
     Observer {
 
+  /**
+   * Content of a view whose components are not created yet. A closed view keeps its content in this form until it is
+   * opened or an operation needs its components.
+   */
+  public interface LazyContent {
+
+    /**
+     * @param component a component of the class diagram.
+     *
+     * @return true if the view displays the given component.
+     */
+    boolean references(IDiagramComponent component);
+
+    /**
+     * @return true if the view has no component.
+     */
+    boolean isEmpty();
+
+    /**
+     * @param doc the document to create the element with.
+     *
+     * @return the XML element of the view, as it has been read.
+     */
+    Element getXmlElement(Document doc);
+
+    /**
+     * Forget the given component, removed from the class diagram.
+     *
+     * @param component the removed component.
+     */
+    void remove(IDiagramComponent component);
+
+    /**
+     * Create the components of the given view.
+     *
+     * @param view the view to fill.
+     */
+    void materialize(GraphicView view);
+  }
+
   public final static boolean BACKGROUND_GRADIENT = false;
   public final static Color BASIC_COLOR = new Color(241, 241, 243);
   public final static boolean CTRL_FOR_GRIP = false;
@@ -433,9 +476,6 @@ public class GraphicView extends GraphicComponent
     return null; // no component found
   }
 
-  // use in printing
-  private final int MAX_PRINT_PAGE = 1;
-
   private final ClassDiagram classDiagram;
   // last component mouse pressed
   private GraphicComponent componentMousePressed;
@@ -444,6 +484,15 @@ public class GraphicView extends GraphicComponent
   private final LinkedList<EntityView> entities = new LinkedList<>();
   private GraphicComponent justCreatedComponent;
 
+  // Content of the view while its components are not created.
+  private LazyContent lazyContent;
+
+  // Content the components have been created from, the version of the project then and the components of the view
+  // itself, to release the view if it did not change.
+  private LazyContent materializedContent;
+  private long materializedVersion;
+  private List<GraphicComponent> ownComponents;
+
   private LinkedList<IListenerComponentSelectionChanged> lcsc = new LinkedList<>();
 
   private final LinkedList<LineView> linesView = new LinkedList<>();
@@ -1187,8 +1236,7 @@ public class GraphicView extends GraphicComponent
   }
 
   public void copyDiagramToClipboard() {
-    Toolkit.getDefaultToolkit().getSystemClipboard()
-           .setContents(new Utility.ImageSelection(getSelectedScreen()), null);
+    ClipboardSelection.copy(this);
   }
 
   public int countEntities(
@@ -1692,14 +1740,6 @@ public class GraphicView extends GraphicComponent
     paintBackgroundLast = enable;
   }
 
-  @Override
-  public void setPictureMode(boolean enable) {
-    super.setPictureMode(enable);
-
-    for (GraphicComponent c : getAllComponents())
-      c.setPictureMode(enable);
-  }
-
   public double getScale() {
     return SPanelElement.getInstance().getSliderZoom().getValue() / 100.0;
   }
@@ -1727,96 +1767,10 @@ public class GraphicView extends GraphicComponent
    * @return a picture representing the scene
    */
   public BufferedImage getScreen(int type, boolean displayName) {
+    if (getAllDiagramComponents().isEmpty()) return null;
 
-    setPictureMode(true);
-
-    final int margin = 20;
-    int marginTop = margin;
-
-    if (displayName)
-      marginTop += txtBoxDiagramName.getBounds().height;
-
-    int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = 0, maxY = 0;
-    final LinkedList<GraphicComponent> components = getAllDiagramComponents();
-
-    if (components.size() == 0)
-      return null;
-
-    // Compute the rectangle englobing all graphic components.
-    for (final GraphicComponent c : components) {
-      final Rectangle bounds = c.getBounds();
-      final Point max = new Point(bounds.x + bounds.width, bounds.y
-                                                           + bounds.height);
-
-      if (minX > bounds.x) minX = bounds.x;
-      if (minY > bounds.y) minY = bounds.y;
-      if (maxX < max.x) maxX = max.x;
-      if (maxY < max.y) maxY = max.y;
-    }
-
-    final Rectangle bounds = new Rectangle(minX, minY, maxX - minX, maxY - minY);
-
-    // Create the buffered image with margin.
-    final BufferedImage img = new BufferedImage(bounds.width + margin * 2,
-                                                bounds.height + margin + marginTop, type);
-    final Graphics2D g2 = img.createGraphics();
-    Utility.setRenderQuality(g2);
-
-    // Translate the rectangle containing all graphic components at origin.
-    g2.translate(-bounds.x + margin, -bounds.y + marginTop);
-
-    if (type == BufferedImage.TYPE_INT_RGB) {
-      g2.setColor(Color.WHITE);
-      g2.fillRect(bounds.x - margin, bounds.y - margin, bounds.width + margin
-                                                                       * 2, bounds.height + margin + marginTop);
-    }
-    // Paint all components on picture.
-    for (final GraphicComponent c : components)
-      c.paintComponent(g2);
-
-    // Paint diagram's name
-    if (displayName) {
-      g2.translate(-margin, -marginTop);
-      txtBoxDiagramName.paintComponentAt(g2, new Point(minX, minY));
-
-      if (isTitleBorderPainted()) {
-        g2.setStroke(new BasicStroke(DEFAULT_TITLE_BORDER_WIDTH));
-        g2.draw(new Rectangle2D.Float(
-            minX,
-            minY,
-            img.getWidth() - DEFAULT_TITLE_BORDER_WIDTH,
-            img.getHeight() - DEFAULT_TITLE_BORDER_WIDTH));
-      }
-    }
-
-    // Paint diagram's informations
-    if (Slyum.isDisplayedDiagramInformationOnExport()) {
-
-      final int WIDTH = 200;
-      final int HEIGHT = 100;
-
-      Rectangle informationsRectangle = new Rectangle(
-          img.getWidth() - DEFAULT_TITLE_BORDER_WIDTH - WIDTH,
-          img.getHeight() - DEFAULT_TITLE_BORDER_WIDTH - HEIGHT,
-          WIDTH, HEIGHT);
-
-      g2.setStroke(new BasicStroke(DEFAULT_TITLE_BORDER_WIDTH));
-      g2.setBackground(Color.WHITE);
-      g2.setColor(Color.BLACK);
-
-      g2.fillRect(informationsRectangle.x,
-                  informationsRectangle.y,
-                  informationsRectangle.width,
-                  informationsRectangle.height);
-
-      g2.drawRect(informationsRectangle.x,
-                  informationsRectangle.y,
-                  informationsRectangle.width,
-                  informationsRectangle.height);
-    }
-
-    setPictureMode(false);
-    return img;
+    // The picture is held in memory; files of any size are written by ExportViewPng.
+    return ExportViewImage.create(this, displayName, type).export();
   }
 
   /**
@@ -1871,46 +1825,13 @@ public class GraphicView extends GraphicComponent
   /**
    * Make a picture (BufferedImage) with the selected components.
    *
-   * @return a picture representing the scene
+   * @return a picture representing the scene, null if no component is selected
    */
   public BufferedImage getSelectedScreen() {
-    final int margin = 20;
-    int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = 0, maxY = 0;
     final LinkedList<GraphicComponent> components = getSelectedComponents();
+    if (components.isEmpty()) return null;
 
-    // Compute the rectangle englobing all selected graphic components.
-    for (final GraphicComponent c : components) {
-      final Rectangle bounds = c.getBounds();
-      final Point max = new Point(bounds.x + bounds.width, bounds.y
-                                                           + bounds.height);
-
-      if (minX > bounds.x) minX = bounds.x;
-      if (minY > bounds.y) minY = bounds.y;
-      if (maxX < max.x) maxX = max.x;
-      if (maxY < max.y) maxY = max.y;
-    }
-
-    Rectangle bounds = new Rectangle(minX, minY, maxX - minX, maxY - minY);
-
-    if (bounds.isEmpty()) return null;
-
-    // Create the buffered image with margin.
-    BufferedImage img = new BufferedImage(bounds.width + margin * 2,
-                                          bounds.height + margin * 2, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D g2 = img.createGraphics();
-    Utility.setRenderQuality(g2);
-
-    // Translate the rectangle containing all graphic components at origin.
-    g2.translate(-bounds.x + margin, -bounds.y + margin);
-
-    setPictureMode(true);
-    // Paint all components on picture.
-    for (GraphicComponent c : getAllDiagramComponents())
-      c.paintComponent(g2);
-
-    setPictureMode(false);
-
-    return img;
+    return ExportViewImage.createSelection(this, components, BufferedImage.TYPE_INT_ARGB).export();
   }
 
   public boolean getStopRepaint() {
@@ -1938,7 +1859,8 @@ public class GraphicView extends GraphicComponent
 
   @Override
   public Element getXmlElement(Document doc) {
-    Element graphicView = doc.createElement(getXmlTagName());
+    // A view never materialized is written as it has been read.
+    Element graphicView = isMaterialized() ? doc.createElement(getXmlTagName()) : lazyContent.getXmlElement(doc);
     graphicView.setAttribute("name", getName());
     graphicView.setAttribute("open", String.valueOf(isOpenInTab()));
     graphicView.setAttribute("grid", String.valueOf(getGridSize()));
@@ -2016,6 +1938,130 @@ public class GraphicView extends GraphicComponent
     return MultiViewManager.isGraphicViewOpened(this);
   }
 
+  /**
+   * @return false if the components of this view are not created yet.
+   */
+  public boolean isMaterialized() {
+    return lazyContent == null;
+  }
+
+  /**
+   * Defer the creation of the components of this view. The view does not follow the creation of components in the
+   * class diagram until it is materialized, but it forgets the removed components.
+   *
+   * @param content the content of the view.
+   */
+  public void setLazyContent(LazyContent content) {
+    if (content == null) throw new IllegalArgumentException("content is null");
+
+    lazyContent = content;
+  }
+
+  /**
+   * Create the components of this view if it is not already done. Must be called before opening the view or using its
+   * components. Creating the components is not a change of the project.
+   */
+  public void materialize() {
+    if (isMaterialized()) return;
+
+    final LazyContent content = lazyContent;
+    lazyContent = null;
+    materializedContent = content;
+    ownComponents = new ArrayList<>(othersComponents);
+
+    final boolean isBlocked = Change.isBlocked(), hasChange = Change.hasChange();
+    final boolean isXmlImportation = PanelClassDiagram.getInstance().isXmlImportation();
+    Change.setBlocked(true);
+    PanelClassDiagram.getInstance().setXmlImportation(true);
+    try {
+      content.materialize(this);
+    } finally {
+      PanelClassDiagram.getInstance().setXmlImportation(isXmlImportation);
+      Change.setBlocked(isBlocked);
+      if (Change.hasChange() != hasChange) Change.setHasChange(hasChange);
+      materializedVersion = Change.getVersion();
+    }
+  }
+
+  /**
+   * Delete the components created by {@link #materialize()} and keep the content of the view in its saved form again,
+   * if the view is closed and the project did not change since. Used once a closed view has been painted, so an export
+   * does not keep all the views of the project in memory.
+   *
+   * @return true if the view has been released.
+   */
+  public boolean release() {
+    if (materializedContent == null || isOpenInTab()) return false;
+    if (Change.getVersion() != materializedVersion) {
+      materializedContent = null; // The saved content is outdated.
+      ownComponents = null;
+      return false;
+    }
+
+    for (GraphicComponent component : getAllComponents()) {
+      if (ownComponents.contains(component)) continue;
+
+      component.stopObservingModel();
+      if (component instanceof EntityView)
+        for (TextBox textBox : ((EntityView) component).getAllTextBox())
+          textBox.stopObservingModel();
+    }
+
+    entities.clear();
+    linesView.clear();
+    multiViews.clear();
+    notes.clear();
+    othersComponents.retainAll(ownComponents);
+    componentMousePressed = justCreatedComponent = saveComponentMouseHover = null;
+
+    setLazyContent(materializedContent);
+    materializedContent = null;
+    ownComponents = null;
+    return true;
+  }
+
+  /**
+   * Check if this view has no component, without creating the components of the view.
+   *
+   * @return true if the view has no component.
+   */
+  public boolean isEmpty() {
+    return isMaterialized() ? getAllDiagramComponents().isEmpty() : lazyContent.isEmpty();
+  }
+
+  /**
+   * Check if this view displays the given component, without creating the components of the view.
+   *
+   * @param component a component of the class diagram.
+   *
+   * @return true if the view displays the component.
+   */
+  public boolean displays(IDiagramComponent component) {
+    return isMaterialized() ? searchAssociedComponent(component) != null : lazyContent.references(component);
+  }
+
+  /**
+   * Check which of the given components this view displays, without creating the components of the view. Faster than
+   * {@link #displays(IDiagramComponent)} for many components.
+   *
+   * @param components components of the class diagram.
+   *
+   * @return the given components displayed by the view.
+   */
+  public Set<IDiagramComponent> displays(Collection<? extends IDiagramComponent> components) {
+    final Set<IDiagramComponent> displayed = Collections.newSetFromMap(new IdentityHashMap<>());
+    if (isMaterialized()) {
+      final Set<IDiagramComponent> searched = Collections.newSetFromMap(new IdentityHashMap<>());
+      searched.addAll(components);
+      for (GraphicComponent c : getAllComponents())
+        if (searched.contains(c.getAssociatedComponent())) displayed.add(c.getAssociatedComponent());
+    } else {
+      for (IDiagramComponent component : components)
+        if (lazyContent.references(component)) displayed.add(component);
+    }
+    return displayed;
+  }
+
   @Override
   public void keyPressed(KeyEvent e) {
     if (e.getKeyCode() == KeyEvent.VK_ESCAPE) unselectAll();
@@ -2242,21 +2288,25 @@ public class GraphicView extends GraphicComponent
 
   @Override
   public void notifyAggregationCreation(Aggregation component) {
+    if (!isMaterialized()) return;
     addAggregation(component);
   }
 
   @Override
   public void notifyAssociationClassCreation(AssociationClass component) {
+    if (!isMaterialized()) return;
     addAssociationClass(component);
   }
 
   @Override
   public void notifyBinaryCreation(Binary component) {
+    if (!isMaterialized()) return;
     addBinary(component);
   }
 
   @Override
   public void notifyClassEntityCreation(ClassEntity component) {
+    if (!isMaterialized()) return;
     if (MultiViewManager.getSelectedGraphicView() == this ||
         PanelClassDiagram.getInstance().isXmlImportation())
       addClassEntity(component);
@@ -2264,31 +2314,37 @@ public class GraphicView extends GraphicComponent
 
   @Override
   public void notifyCompositionCreation(Composition component) {
+    if (!isMaterialized()) return;
     addComposition(component);
   }
 
   @Override
   public void notifyDependencyCreation(Dependency component) {
+    if (!isMaterialized()) return;
     addDependency(component);
   }
 
   @Override
   public void notifyInheritanceCreation(Inheritance component) {
+    if (!isMaterialized()) return;
     addInheritance(component);
   }
 
   @Override
   public void notifyInnerClassCreation(InnerClass component) {
+    if (!isMaterialized()) return;
     addInnerClass(component);
   }
 
   @Override
   public void notifyMultiCreation(Multi component) {
+    if (!isMaterialized()) return;
     addMulti(component);
   }
 
   @Override
   public void notifyEnumEntityCreation(EnumEntity component) {
+    if (!isMaterialized()) return;
     if (MultiViewManager.getSelectedGraphicView() == this ||
         PanelClassDiagram.getInstance().isXmlImportation())
       addEnumEntity(component);
@@ -2296,6 +2352,7 @@ public class GraphicView extends GraphicComponent
 
   @Override
   public void notifyInterfaceEntityCreation(InterfaceEntity component) {
+    if (!isMaterialized()) return;
     if (MultiViewManager.getSelectedGraphicView() == this ||
         PanelClassDiagram.getInstance().isXmlImportation())
       addInterfaceEntity(component);
@@ -2303,6 +2360,11 @@ public class GraphicView extends GraphicComponent
 
   @Override
   public void notifyRemoveComponent(IDiagramComponent component) {
+    if (!isMaterialized()) {
+      lazyContent.remove(component);
+      return;
+    }
+
     final GraphicComponent g = searchAssociedComponent(component);
     if (g != null)
       g.hardDelete();
@@ -2333,6 +2395,7 @@ public class GraphicView extends GraphicComponent
     if (!isVisible()) return;
 
     Utility.setRenderQuality(g2);
+    RenderContext.screen().install(g2);
 
     double scale = getScale(), inversedScale = getInversedScale();
     g2.scale(scale, scale);
@@ -2359,51 +2422,12 @@ public class GraphicView extends GraphicComponent
       paintBackground(gridSize, getBasicColor(), g2);
   }
 
-  @Override
-  public int print(Graphics g, PageFormat pageFormat, int pageIndex) throws PrinterException {
-
-    if (pageIndex >= MAX_PRINT_PAGE)
-      return NO_SUCH_PAGE;
-
-    Utility.setRenderQuality(g);
-
-    BufferedImage m_bi = ExportViewImage.create(this).export();
-    int wPage = (int) pageFormat.getImageableWidth(),
-        hPage = (int) pageFormat.getImageableHeight(),
-        wBi = m_bi.getWidth(),
-        hBi = m_bi.getHeight(),
-        wScaled = wBi,
-        hScaled = hBi;
-
-    // Compute the ratio for scaling the scene into one page.
-    float wScale = (float) wBi / wPage,
-        hScale = (float) hBi / hPage;
-
-    // If the scene overflow the page, scale it for not overbounding the page.
-    if (wScale > 1.0f || hScale > 1.0f)
-      if (wScale > hScale) {
-        wScaled = wPage;
-        hScaled /= wScale;
-      } else {
-        hScaled = hPage;
-        wScaled /= hScale;
-      }
-
-    g.translate((int) pageFormat.getImageableX(),
-                (int) pageFormat.getImageableY());
-
-    g.drawImage(m_bi, 0, 0, wScaled, hScaled, getScene());
-
-    System.gc();
-
-    return PAGE_EXISTS;
-  }
-
   /**
    * Notify obsevers of all components. This will replace and recalculate all component's location to fit at their
    * correct location.
    */
   public void refreshAllComponents() {
+    // On a copy: the observers can add or remove components while they are notified.
     for (GraphicComponent c : getAllComponents())
       c.notifyObservers();
   }
@@ -2888,4 +2912,11 @@ public class GraphicView extends GraphicComponent
     return getAllComponents();
   }
 
+  @Override
+  protected boolean visitDirectChilds(Predicate<? super GraphicComponent> visitor) {
+    // Same order as getAllComponents().
+    return visitAll(linesView, visitor) && visitAll(multiViews, visitor) && visitAll(entities, visitor) &&
+           visitAll(notes, visitor) && visitAll(othersComponents, visitor);
+  }
+
 }
@@ -0,0 +1,107 @@
+package graphic;
+
+import classDiagram.ClassDiagram;
+import graphic.textbox.TextBox;
+import swing.Slyum;
+
+import java.awt.*;
+
+/**
+ * Everything the painting of the components depends on, besides the components themselves: the font, the title
+ * border, the diagram information and whether the picture mode is on (no selection, no highlight).
+ * <p>
+ * The context travels with the {@link Graphics2D} as a rendering hint. Components read it from the graphics they paint
+ * on instead of the settings, so an export is painted with the settings taken when it was created. Painting still lays
+ * the components out: it happens on the EDT, like every change of the components (see
+ * {@link graphic.export.ExportView}).
+ */
+public final class RenderContext {
+
+  /**
+   * The rendering hint holding the context of a graphics.
+   */
+  public static final RenderingHints.Key KEY = new RenderingHints.Key(0) {
+    @Override
+    public boolean isCompatibleValue(Object value) {
+      return value instanceof RenderContext;
+    }
+  };
+
+  /**
+   * @return a context for the screen, with the current settings.
+   */
+  public static RenderContext screen() {
+    return new RenderContext(false, TextBox.getFont(), GraphicView.isTitleBorderPainted(), "");
+  }
+
+  /**
+   * Create a context for a picture of the given diagram, with the current settings. Must be called from the EDT.
+   *
+   * @param classDiagram the diagram painted.
+   *
+   * @return the context of the picture.
+   */
+  public static RenderContext picture(final ClassDiagram classDiagram) {
+    final String information = classDiagram.getInformations();
+    return new RenderContext(
+        true, TextBox.getFont(), GraphicView.isTitleBorderPainted(),
+        Slyum.isDisplayedDiagramInformationOnExport() && information != null ? information : "");
+  }
+
+  /**
+   * Get the context of the given graphics.
+   *
+   * @param g the graphics being painted.
+   *
+   * @return its context, or a context for the screen if none has been installed.
+   */
+  public static RenderContext of(final Graphics g) {
+    final Object context = ((Graphics2D) g).getRenderingHint(KEY);
+    return context instanceof RenderContext ? (RenderContext) context : screen();
+  }
+
+  private final boolean pictureMode;
+  private final Font font;
+  private final boolean titleBorderPainted;
+  private final String information;
+
+  /**
+   * @param pictureMode true to paint the components without selection nor highlight.
+   * @param font the base font of the texts.
+   * @param titleBorderPainted true to paint a border around the diagram with its title.
+   * @param information the diagram information to paint, empty to paint none.
+   */
+  public RenderContext(
+      final boolean pictureMode, final Font font, final boolean titleBorderPainted, final String information) {
+    this.pictureMode = pictureMode;
+    this.font = font;
+    this.titleBorderPainted = titleBorderPainted;
+    this.information = information;
+  }
+
+  /**
+   * Set this context to the given graphics. The components painted on it will use it.
+   *
+   * @param g2 the graphics.
+   */
+  public void install(final Graphics2D g2) {
+    g2.setRenderingHint(KEY, this);
+  }
+
+  public boolean isPictureMode() {
+    return pictureMode;
+  }
+
+  public Font getFont() {
+    return font;
+  }
+
+  public boolean isTitleBorderPainted() {
+    return titleBorderPainted;
+  }
+
+  public String getInformation() {
+    return information;
+  }
+
+}
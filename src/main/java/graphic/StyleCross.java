@@ -116,7 +116,7 @@ public class StyleCross extends GraphicComponent {
 
   @Override
   public void paintComponent(Graphics2D g2) {
-    if (pictureMode) return;
+    if (RenderContext.of(g2).isPictureMode()) return;
 
     Utility.setRenderQuality(g2);
 
@@ -12,6 +12,7 @@ import graphic.ColoredComponent;
 import graphic.GraphicComponent;
 import graphic.GraphicView;
 import graphic.MovableComponent;
+import graphic.RenderContext;
 import graphic.relations.RelationGrip;
 import graphic.textbox.TextBox;
 import graphic.textbox.TextBoxEntityName;
@@ -32,6 +33,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.function.Predicate;
 
 /**
  * Represent the view of an entity in UML structure.
@@ -47,7 +49,7 @@ public abstract class EntityView extends MovableComponent implements Observer, C
   private static Color basicColor = new Color(baseColor.getRGB());
 
   private static final Font stereotypeFontBasic = new Font(
-      Slyum.getInstance().defaultFont.getFamily(), 0, 11);
+      Slyum.DEFAULT_FONT.getFamily(), 0, 11);
 
   public static EntityView createFromEntity(
       GraphicView graphicView, Entity entity) {
@@ -338,7 +340,7 @@ public abstract class EntityView extends MovableComponent implements Observer, C
 
   @Override
   public void drawSelectedEffect(Graphics2D g2) {
-    if (pictureMode) return;
+    if (RenderContext.of(g2).isPictureMode()) return;
 
     final Color backColor = getColor();
     final Color fill = new Color(backColor.getRed(), backColor.getGreen(),
@@ -465,6 +467,11 @@ public abstract class EntityView extends MovableComponent implements Observer, C
     return (LinkedList<? extends GraphicComponent>) getAllTextBox();
   }
 
+  @Override
+  protected boolean visitDirectChilds(Predicate<? super GraphicComponent> visitor) {
+    return visitor.test(entityName);
+  }
+
   @Override
   public IDiagramComponent getAssociatedComponent() {
     return component;
@@ -502,10 +509,11 @@ public abstract class EntityView extends MovableComponent implements Observer, C
     notifyObservers();
   }
 
-  @Override
-  public Color getColor() {
-    if (pictureMode) return defaultColor;
-    return super.getColor();
+  /**
+   * @return the color painted: the color of the entity in a picture, the current (highlighted) color on screen.
+   */
+  private Color getColor(final RenderContext context) {
+    return context.isPictureMode() ? defaultColor : getColor();
   }
 
   @Override
@@ -602,13 +610,14 @@ public abstract class EntityView extends MovableComponent implements Observer, C
   public void paintComponent(Graphics2D g2) {
     if (!isVisible()) return;
 
+    final Color color = getColor(RenderContext.of(g2));
     Paint background;
     if (GraphicView.isEntityGradient())
-      background = new GradientPaint(bounds.x, bounds.y, getColor(), bounds.x
-                                                                     + bounds.width, bounds.y + bounds.height,
-                                     getColor().darker());
+      background = new GradientPaint(bounds.x, bounds.y, color, bounds.x
+                                                                + bounds.width, bounds.y + bounds.height,
+                                     color.darker());
     else
-      background = getColor();
+      background = color;
 
     String className = component.getName();
 
@@ -681,7 +690,7 @@ public abstract class EntityView extends MovableComponent implements Observer, C
     offset += paintTextBoxes(g2, bounds, textBoxHeight, offset);
 
     // is component selected? -> draw selected style
-    if (!pictureMode && parent.getSelectedComponents().contains(this))
+    if (!RenderContext.of(g2).isPictureMode() && parent.getSelectedComponents().contains(this))
       drawSelectedStyle(g2);
   }
 
@@ -4,6 +4,7 @@ import classDiagram.IDiagramComponent;
 import classDiagram.IDiagramComponent.UpdateMessage;
 import classDiagram.components.EnumEntity;
 import classDiagram.components.EnumValue;
+import graphic.GraphicComponent;
 import graphic.GraphicView;
 import graphic.textbox.TextBox;
 import graphic.textbox.TextBoxEnumValue;
@@ -21,6 +22,7 @@ import java.awt.event.MouseEvent;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Observable;
+import java.util.function.Predicate;
 
 public class EnumView extends EntityView {
 
@@ -129,6 +131,11 @@ public class EnumView extends EntityView {
     return tbs;
   }
 
+  @Override
+  protected boolean visitDirectChilds(Predicate<? super GraphicComponent> visitor) {
+    return super.visitDirectChilds(visitor) && visitAll(viewValues, visitor);
+  }
+
   @Override
   public void maybeShowPopup(MouseEvent e, JPopupMenu popupMenu) {
     if (e.isPopupTrigger()) {
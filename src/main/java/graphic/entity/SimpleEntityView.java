@@ -10,6 +10,7 @@ import classDiagram.components.Method.ParametersViewStyle;
 import classDiagram.components.PrimitiveType;
 import classDiagram.components.SimpleEntity;
 import classDiagram.components.Visibility;
+import graphic.GraphicComponent;
 import graphic.GraphicView;
 import graphic.textbox.TextBox;
 import graphic.textbox.TextBoxAttribute;
@@ -28,6 +29,7 @@ import java.awt.event.MouseEvent;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Observable;
+import java.util.function.Predicate;
 
 public abstract class SimpleEntityView extends EntityView {
 
@@ -253,6 +255,11 @@ public abstract class SimpleEntityView extends EntityView {
     return tb;
   }
 
+  @Override
+  protected boolean visitDirectChilds(Predicate<? super GraphicComponent> visitor) {
+    return super.visitDirectChilds(visitor) && visitAll(methodsView, visitor) && visitAll(attributesView, visitor);
+  }
+
   @Override
   public SimpleEntity getComponent() {
     return (SimpleEntity) super.getComponent();
@@ -285,15 +292,6 @@ public abstract class SimpleEntityView extends EntityView {
     updateHeight();
   }
 
-  @Override
-  public void setPictureMode(boolean enable) {
-    super.setPictureMode(enable);
-    for (TextBox t : methodsView)
-      t.setPictureMode(enable);
-    for (TextBox t : attributesView)
-      t.setPictureMode(enable);
-  }
-
   @Override
   public Element getXmlElement(Document doc) {
     Element entityView = super.getXmlElement(doc);
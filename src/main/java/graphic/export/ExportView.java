@@ -2,8 +2,7 @@ package graphic.export;
 
 import graphic.GraphicComponent;
 import graphic.GraphicView;
-import swing.PanelClassDiagram;
-import swing.Slyum;
+import graphic.RenderContext;
 import utility.Utility;
 
 import java.awt.*;
@@ -11,28 +10,97 @@ import java.awt.font.FontRenderContext;
 import java.awt.font.LineBreakMeasurer;
 import java.awt.font.TextLayout;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.text.AttributedCharacterIterator;
 import java.text.AttributedString;
-import java.util.LinkedList;
+import java.util.Collection;
 
 import static graphic.GraphicView.DEFAULT_TITLE_BORDER_WIDTH;
-import static graphic.GraphicView.isTitleBorderPainted;
 
+/**
+ * Paints a view for an export. The export is created on the EDT, it takes the settings at this time in its
+ * {@link RenderContext}.
+ * <p>
+ * Painting lays the components out (size of the texts, height of the entities), so the view is painted on the EDT as
+ * well, see {@link Utility#onEdt(java.util.concurrent.Callable)}. Only the painted document or picture is written or
+ * compressed on another thread.
+ */
 public abstract class ExportView<G extends Graphics2D> {
   protected static final int MARGIN = 20;
 
+  /**
+   * Resolution of the view, as in SVG and CSS.
+   */
+  public static final int PIXELS_PER_INCH = 96;
+
+  /**
+   * Points of a document for a pixel of the view, a point is 1/72 inch.
+   */
+  protected static final double POINTS_PER_PIXEL = 72.0 / PIXELS_PER_INCH;
+
+  /**
+   * How far a component can paint outside of its bounds (arrows, shadows).
+   */
+  protected static final int PAINTING_OVERFLOW = 50;
+
   protected GraphicView graphicView;
   protected Rectangle bounds;
   protected int marginTop;
 
   private boolean displayTitle;
+  private final RenderContext context;
+
+  /**
+   * The components framed by the picture.
+   */
+  private final Collection<GraphicComponent> framed;
 
   public ExportView(final GraphicView graphicView, final boolean displayTitle) {
+    this(graphicView, displayTitle, RenderContext.picture(graphicView.getClassDiagram()));
+  }
+
+  public ExportView(final GraphicView graphicView, final boolean displayTitle, final RenderContext context) {
+    this(graphicView, displayTitle, context, graphicView.getAllDiagramComponents());
+  }
+
+  /**
+   * @param framed the components framed by the picture, as a selection. The other components are painted where they
+   * overlap the picture.
+   */
+  public ExportView(final GraphicView graphicView, final boolean displayTitle,
+                    final Collection<GraphicComponent> framed) {
+    this(graphicView, displayTitle, RenderContext.picture(graphicView.getClassDiagram()), framed);
+  }
+
+  private ExportView(final GraphicView graphicView, final boolean displayTitle, final RenderContext context,
+                     final Collection<GraphicComponent> framed) {
     this.graphicView = graphicView;
     this.displayTitle = displayTitle;
+    this.context = context;
+    this.framed = framed;
+    layOut();
     initializeBounds();
   }
 
+  public RenderContext getRenderContext() {
+    return context;
+  }
+
+  /**
+   * The components compute the size of their texts when they are painted. The view is painted once, on the calling
+   * thread, so a view never shown on screen is laid out before its export, and all its paintings are the same.
+   */
+  private void layOut() {
+    final BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g2d = scratch.createGraphics();
+    Utility.setRenderQuality(g2d);
+    context.install(g2d);
+
+    for (final GraphicComponent graphicComponent : graphicView.getAllDiagramComponents())
+      graphicComponent.paintComponent(g2d);
+    g2d.dispose();
+  }
+
   private void initializeBounds() {
     marginTop = MARGIN;
 
@@ -44,8 +112,7 @@ public abstract class ExportView<G extends Graphics2D> {
         maxX = 0,
         maxY = 0;
 
-    final LinkedList<GraphicComponent> components =
-        graphicView.getAllDiagramComponents();
+    final Collection<GraphicComponent> components = framed;
 
     if (components.isEmpty())
       bounds = new Rectangle();
@@ -75,10 +142,37 @@ public abstract class ExportView<G extends Graphics2D> {
         bounds.height + marginTop + MARGIN);
   }
 
+  /**
+   * @return the size of the picture, in pixels of the view.
+   */
+  protected final Dimension getPictureSize() {
+    final Rectangle outerBounds = getOuterBounds();
+    return new Dimension(outerBounds.width + 2 * DEFAULT_TITLE_BORDER_WIDTH,
+                         outerBounds.height + 2 * DEFAULT_TITLE_BORDER_WIDTH);
+  }
+
+  /**
+   * Paint the view. The components outside of the picture, or of the clip of the graphics, are skipped.
+   *
+   * @param g2d the graphics, translated so the view is at its place in the picture.
+   *
+   * @return the graphics.
+   */
   protected final G draw(final G g2d) {
-    graphicView.setPictureMode(true);
+    return draw(g2d, graphicView.getAllDiagramComponents());
+  }
 
+  /**
+   * Paint the view with the given components only, those which can overlap the clip of the graphics.
+   *
+   * @param g2d the graphics, translated so the view is at its place in the picture.
+   * @param components the components of the view to paint, in the order of the view.
+   *
+   * @return the graphics.
+   */
+  protected final G draw(final G g2d, final Collection<GraphicComponent> components) {
     Utility.setRenderQuality(g2d);
+    context.install(g2d);
 
     // Paint diagram's name
     if (displayTitle) {
@@ -88,7 +182,7 @@ public abstract class ExportView<G extends Graphics2D> {
           g2d, new Point(outerBounds.x, outerBounds.y));
 
       // Paint border
-      if (isTitleBorderPainted()) {
+      if (context.isTitleBorderPainted()) {
         g2d.setStroke(new BasicStroke(DEFAULT_TITLE_BORDER_WIDTH));
         g2d.draw(new Rectangle2D.Float(
             outerBounds.x,
@@ -99,13 +193,20 @@ public abstract class ExportView<G extends Graphics2D> {
     }
 
     // Paint all components on picture.
-    for (final GraphicComponent graphicComponent : graphicView.getAllDiagramComponents()) {
-      graphicComponent.paintComponent(g2d);
+    Rectangle visible = getOuterBounds();
+    visible.grow(DEFAULT_TITLE_BORDER_WIDTH, DEFAULT_TITLE_BORDER_WIDTH);
+    final Rectangle clip = g2d.getClipBounds();
+    if (clip != null) visible = visible.intersection(clip);
+    visible.grow(PAINTING_OVERFLOW, PAINTING_OVERFLOW);
+
+    for (final GraphicComponent graphicComponent : components) {
+      if (visible.intersects(graphicComponent.getBounds()))
+        graphicComponent.paintComponent(g2d);
     }
 
     // Paint diagram's information
-    String information = PanelClassDiagram.getInstance().getClassDiagram().getInformations();
-    if (Slyum.isDisplayedDiagramInformationOnExport() && !information.isEmpty()) {
+    String information = context.getInformation();
+    if (!information.isEmpty()) {
 
       final int WIDTH = 250;
       final int INFORMATIONS_PADDING = 5;
@@ -185,7 +286,6 @@ public abstract class ExportView<G extends Graphics2D> {
       }
     }
 
-    graphicView.setPictureMode(false);
     return g2d;
   }
 
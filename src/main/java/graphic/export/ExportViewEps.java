@@ -1,23 +1,14 @@
 package graphic.export;
 
 import graphic.GraphicView;
-import org.apache.batik.svggen.SVGGraphics2D;
-import org.apache.batik.transcoder.Transcoder;
-import org.apache.batik.transcoder.TranscoderInput;
-import org.apache.batik.transcoder.TranscoderOutput;
-import org.apache.commons.io.input.XmlStreamReader;
-import org.apache.fop.svg.PDFTranscoder;
-
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import org.apache.xmlgraphics.java2d.GraphicContext;
+import org.apache.xmlgraphics.java2d.ps.EPSDocumentGraphics2D;
+
+import java.awt.*;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
-import java.io.Writer;
-import java.util.function.Function;
+import java.io.OutputStream;
 
-public final class ExportViewEps extends ExportViewVectorFile {
+public final class ExportViewEps extends ExportViewVectorFile<EPSDocumentGraphics2D> {
 
   public static ExportViewEps create(final GraphicView graphicView, final File file, final boolean displayTitle) {
     return new ExportViewEps(graphicView, file, displayTitle);
@@ -32,22 +23,16 @@ public final class ExportViewEps extends ExportViewVectorFile {
   }
 
   @Override
-  protected void writeToFile(final FileOutputStream fileOutputStream,
-                             final Function<SVGGraphics2D, SVGGraphics2D> draw) throws Exception {
-
-    try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-         Writer writer = new OutputStreamWriter(byteArrayOutputStream)) {
-      ExportViewSvg.createSVG(this, draw).stream(writer);
-      writer.flush();
-
-      try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-           Reader reader = new XmlStreamReader(byteArrayInputStream)) {
-        TranscoderInput transcoderInput = new TranscoderInput(reader);
-        TranscoderOutput transcoderOutput = new TranscoderOutput(fileOutputStream);
-        Transcoder transcoder = new PDFTranscoder();
-        transcoder.transcode(transcoderInput, transcoderOutput);
-      }
-    }
+  protected void writeToFile(final OutputStream out) throws Exception {
+    final Dimension pageSize = getPageSize();
+
+    // Texts are painted as shapes, to keep their font.
+    final EPSDocumentGraphics2D epsGraphics2D = new EPSDocumentGraphics2D(true);
+    epsGraphics2D.setGraphicContext(new GraphicContext());
+    epsGraphics2D.setupDocument(out, pageSize.width, pageSize.height);
+
+    drawOnPage(epsGraphics2D);
+    epsGraphics2D.finish();
   }
 
 }
@@ -1,13 +1,15 @@
 package graphic.export;
 
+import graphic.GraphicComponent;
 import graphic.GraphicView;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Collection;
 
 import static graphic.GraphicView.DEFAULT_TITLE_BORDER_WIDTH;
 
-public class ExportViewImage extends ExportView {
+public class ExportViewImage extends ExportView<Graphics2D> {
 
   int type;
 
@@ -16,6 +18,11 @@ public class ExportViewImage extends ExportView {
     this.type = type;
   }
 
+  private ExportViewImage(GraphicView graphicView, Collection<GraphicComponent> framed, int type) {
+    super(graphicView, false, framed);
+    this.type = type;
+  }
+
   public static ExportViewImage create(
       GraphicView graphicView, boolean displayTitle, int type) {
 
@@ -41,6 +48,15 @@ public class ExportViewImage extends ExportView {
         graphicView, graphicView.getTxtBoxDiagramName().isVisible(), type);
   }
 
+  /**
+   * Create a picture of the part of the view framing the given components, without title.
+   */
+  public static ExportViewImage createSelection(
+      GraphicView graphicView, Collection<GraphicComponent> components, int type) {
+
+    return new ExportViewImage(graphicView, components, type);
+  }
+
   @Override
   public BufferedImage export() {
 
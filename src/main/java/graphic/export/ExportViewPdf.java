@@ -1,24 +1,14 @@
 package graphic.export;
 
 import graphic.GraphicView;
-import org.apache.batik.svggen.SVGGraphics2D;
-import org.apache.batik.transcoder.Transcoder;
-import org.apache.batik.transcoder.TranscoderInput;
-import org.apache.batik.transcoder.TranscoderOutput;
-import org.apache.commons.io.input.XmlStreamReader;
-import org.apache.fop.svg.PDFTranscoder;
+import org.apache.fop.svg.PDFDocumentGraphics2D;
+import org.apache.xmlgraphics.java2d.GraphicContext;
 
 import java.awt.*;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
-import java.io.Writer;
-import java.util.function.Function;
+import java.io.OutputStream;
 
-public final class ExportViewPdf extends ExportViewVectorFile {
+public final class ExportViewPdf extends ExportViewVectorFile<PDFDocumentGraphics2D> {
 
   public static ExportViewPdf create(final GraphicView graphicView, final File file, final boolean displayTitle) {
     return new ExportViewPdf(graphicView, file, displayTitle);
@@ -33,32 +23,16 @@ public final class ExportViewPdf extends ExportViewVectorFile {
   }
 
   @Override
-  protected Rectangle getOuterBounds() {
-    return new Rectangle(
-        0,
-        0,
-        bounds.x + bounds.width + MARGIN,
-        bounds.y + bounds.height + MARGIN);
-  }
-
-  @Override
-  protected void writeToFile(final FileOutputStream fileOutputStream,
-                             final Function<SVGGraphics2D, SVGGraphics2D> draw) throws Exception {
-
-    try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-         Writer writer = new OutputStreamWriter(byteArrayOutputStream)) {
-      ExportViewSvg.createSVG(this, draw).stream(writer);
-      writer.flush();
+  protected void writeToFile(final OutputStream out) throws Exception {
+    final Dimension pageSize = getPageSize();
 
-      try (ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-           Reader reader = new XmlStreamReader(byteArrayInputStream)) {
-        TranscoderInput transcoderInput = new TranscoderInput(reader);
-        TranscoderOutput transcoderOutput = new TranscoderOutput(fileOutputStream);
-        Transcoder transcoder = new PDFTranscoder();
-        transcoder.transcode(transcoderInput, transcoderOutput);
-      }
-    }
+    // Texts are painted as shapes, to keep their font.
+    final PDFDocumentGraphics2D pdfGraphics2D = new PDFDocumentGraphics2D(true);
+    pdfGraphics2D.setGraphicContext(new GraphicContext());
+    pdfGraphics2D.setupDocument(out, pageSize.width, pageSize.height);
 
+    drawOnPage(pdfGraphics2D);
+    pdfGraphics2D.finish();
   }
 
 }
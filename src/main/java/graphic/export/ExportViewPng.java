@@ -0,0 +1,200 @@
+package graphic.export;
+
+import graphic.GraphicComponent;
+import graphic.GraphicView;
+import utility.SMessageDialog;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.DoubleConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static graphic.GraphicView.DEFAULT_TITLE_BORDER_WIDTH;
+
+/**
+ * Exports a view in a PNG file of any size. The picture is painted in horizontal bands, each by its own event of the
+ * EDT; each band is compressed on the writing thread, and on several threads if asked, while the next one is painted.
+ * The memory used depends on the number of threads, not on the size of the picture. The picture can be scaled up for
+ * printing, its resolution is recorded in the file.
+ */
+public final class ExportViewPng extends ExportView<Graphics2D> {
+
+  /**
+   * Maximum number of pixels of a band.
+   */
+  private static final int BAND_PIXELS = 4 * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  public static ExportViewPng create(final GraphicView graphicView, final File file) {
+    return create(graphicView, file, graphicView.getTxtBoxDiagramName().isVisible(), 1.0, 1);
+  }
+
+  /**
+   * Create the export on the EDT.
+   *
+   * @param graphicView the view to export.
+   * @param file the output file.
+   * @param displayTitle true to paint the name of the diagram.
+   * @param scale the pixels of the picture for a pixel of the view.
+   * @param threads the number of threads compressing the bands.
+   *
+   * @return the export.
+   */
+  public static ExportViewPng create(final GraphicView graphicView, final File file, final boolean displayTitle,
+                                     final double scale, final int threads) {
+    if (scale <= 0) throw new IllegalArgumentException("scale must be positive");
+    if (threads <= 0) throw new IllegalArgumentException("threads must be positive");
+    return new ExportViewPng(graphicView, file, displayTitle, scale, threads);
+  }
+
+  private final File file;
+  private final double scale;
+  private final int threads;
+  private final int width, height, bandHeight;
+
+  /**
+   * The components painted in each band, in the order of the view.
+   */
+  private final List<List<GraphicComponent>> bands = new ArrayList<>();
+
+  private ExportViewPng(final GraphicView graphicView, final File file, final boolean displayTitle,
+                        final double scale, final int threads) {
+    super(graphicView, displayTitle);
+    this.file = file;
+    this.scale = scale;
+    this.threads = threads;
+
+    final Dimension pictureSize = getPictureSize();
+    width = Math.max(1, (int) Math.ceil(pictureSize.width * scale));
+    height = Math.max(1, (int) Math.ceil(pictureSize.height * scale));
+    bandHeight = Math.max(1, Math.min(height, BAND_PIXELS / width));
+
+    for (int y = 0; y < height; y += bandHeight)
+      bands.add(new ArrayList<>());
+
+    // Each component is given to the bands it can overlap, a band does not go through all the components.
+    final Rectangle outerBounds = getOuterBounds();
+    final int top = outerBounds.y - DEFAULT_TITLE_BORDER_WIDTH;
+    for (final GraphicComponent component : graphicView.getAllDiagramComponents()) {
+      final Rectangle bounds = component.getBounds();
+      final int first = Math.max(0, getBand(bounds.y - PAINTING_OVERFLOW - top));
+      final int last = Math.min(bands.size() - 1, getBand(bounds.y + bounds.height + PAINTING_OVERFLOW - top));
+
+      for (int band = first; band <= last; ++band)
+        bands.get(band).add(component);
+    }
+  }
+
+  /**
+   * @return the band of the given row of the view, from the top of the picture.
+   */
+  private int getBand(final int row) {
+    return (int) Math.floor(row * scale / bandHeight);
+  }
+
+  /**
+   * Write the file, from another thread than the EDT. An error is shown to the user.
+   *
+   * @return the file, or null if it could not be written.
+   */
+  @Override
+  public File export() {
+
+    try {
+      write();
+      return file;
+    } catch (Exception ex) {
+      Logger.getLogger(ExportViewPng.class.getName()).log(Level.SEVERE, null, ex);
+      SwingUtilities.invokeLater(() -> SMessageDialog.showErrorMessage(ex.getMessage()));
+      return null;
+    }
+  }
+
+  public void write() throws Exception {
+    write(progress -> {
+    });
+  }
+
+  /**
+   * Paint the view in the output file, from another thread than the EDT. Each band is painted by an event of the EDT
+   * (see {@link ExportView}), while the previous one is compressed and written on the calling thread. The export stops
+   * if the calling thread is interrupted.
+   *
+   * @param progress told the part of the picture written, between 0 and 1, on the calling thread.
+   */
+  public void write(final DoubleConsumer progress) throws Exception {
+    if (SwingUtilities.isEventDispatchThread())
+      throw new IllegalStateException("The bands are painted by events of the EDT.");
+
+    // The rows are copied by the writer: two bands are painted in turn, one while the other one is written.
+    final BufferedImage[] images = {new BufferedImage(width, bandHeight, BufferedImage.TYPE_INT_ARGB),
+                                    new BufferedImage(width, bandHeight, BufferedImage.TYPE_INT_ARGB)};
+
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+         PngWriter png = new PngWriter(out, width, height, PIXELS_PER_INCH * scale, threads)) {
+      FutureTask<BufferedImage> next = paintLater(images[0], 0);
+
+      try {
+        for (int band = 0; band < bands.size(); ++band) {
+          final BufferedImage painted = next.get();
+          next = band + 1 < bands.size() ? paintLater(images[(band + 1) % 2], band + 1) : null;
+
+          png.write(painted);
+          progress.accept((double) Math.min(height, (band + 1) * bandHeight) / height);
+        }
+      } catch (ExecutionException e) {
+        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+      } finally {
+        if (next != null) next.cancel(false);
+      }
+
+      png.finish();
+    }
+  }
+
+  /**
+   * Paint a band by a later event of the EDT.
+   */
+  private FutureTask<BufferedImage> paintLater(final BufferedImage image, final int band) {
+    final int top = band * bandHeight, rows = Math.min(bandHeight, height - top);
+    final FutureTask<BufferedImage> painting = new FutureTask<>(() -> paintBand(
+        rows == bandHeight ? image : new BufferedImage(width, rows, BufferedImage.TYPE_INT_ARGB), top,
+        bands.get(band)));
+
+    SwingUtilities.invokeLater(painting);
+    return painting;
+  }
+
+  /**
+   * Paint the rows of the picture from top to the height of the band.
+   */
+  private BufferedImage paintBand(final BufferedImage band, final int top, final List<GraphicComponent> components) {
+    final Rectangle outerBounds = getOuterBounds();
+    Arrays.fill(((DataBufferInt) band.getRaster().getDataBuffer()).getData(), 0);
+    final Graphics2D g2d = band.createGraphics();
+
+    g2d.translate(0, -top);
+    g2d.clipRect(0, top, band.getWidth(), band.getHeight());
+    g2d.scale(scale, scale);
+
+    // Translate the rectangle containing all graphic components at origin.
+    g2d.translate(-(outerBounds.x - DEFAULT_TITLE_BORDER_WIDTH), -(outerBounds.y - DEFAULT_TITLE_BORDER_WIDTH));
+
+    draw(g2d, components);
+    g2d.dispose();
+    return band;
+  }
+
+}
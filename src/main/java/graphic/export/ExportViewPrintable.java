@@ -0,0 +1,131 @@
+package graphic.export;
+
+import graphic.GraphicView;
+import utility.Utility;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.print.PageFormat;
+import java.awt.print.PrinterAbortException;
+import java.awt.print.PrinterException;
+import java.awt.print.Printable;
+import java.util.concurrent.ExecutionException;
+
+import static graphic.GraphicView.DEFAULT_TITLE_BORDER_WIDTH;
+
+/**
+ * Prints a view as vectors, straight into the graphics of the printer. The view is reduced to fit on a single page, or
+ * printed at its actual size on as many pages as needed; a page is painted only with the components it shows.
+ * <p>
+ * As for any {@link ExportView}, it is created and painted on the EDT: the printer job runs on its own thread, and waits
+ * while each page is painted on the EDT.
+ */
+public final class ExportViewPrintable extends ExportView<Graphics2D> implements Printable {
+
+  /**
+   * Part of a page a view can overflow before it needs another page, as a rounding error.
+   */
+  private static final double PAGE_TOLERANCE = 0.01;
+
+  /**
+   * @param graphicView the view to print.
+   * @param tiled true to print the view at its actual size on several pages, false to fit it on a single page.
+   *
+   * @return the printable.
+   */
+  public static ExportViewPrintable create(final GraphicView graphicView, final boolean tiled) {
+    return new ExportViewPrintable(graphicView, tiled);
+  }
+
+  private final boolean tiled;
+
+  private ExportViewPrintable(final GraphicView graphicView, final boolean tiled) {
+    super(graphicView, graphicView.getTxtBoxDiagramName().isVisible());
+    this.tiled = tiled;
+  }
+
+  @Override
+  public Printable export() {
+    return this;
+  }
+
+  /**
+   * @return {@link PageFormat#LANDSCAPE} for a view wider than high, {@link PageFormat#PORTRAIT} otherwise.
+   */
+  public int getPreferredOrientation() {
+    final Dimension pictureSize = getPictureSize();
+    return pictureSize.width > pictureSize.height ? PageFormat.LANDSCAPE : PageFormat.PORTRAIT;
+  }
+
+  /**
+   * @param pageFormat the format of the pages.
+   *
+   * @return the number of pages of the printing.
+   */
+  public int getPageCount(final PageFormat pageFormat) {
+    final double scale = getScale(pageFormat);
+    return getColumns(pageFormat, scale) * getRows(pageFormat, scale);
+  }
+
+  @Override
+  public int print(final Graphics graphics, final PageFormat pageFormat, final int pageIndex) throws PrinterException {
+    try {
+      return Utility.onEdt(() -> printPage(graphics, pageFormat, pageIndex));
+    } catch (ExecutionException e) {
+      final PrinterException exception = new PrinterException("Unable to print the page " + (pageIndex + 1) + ".");
+      exception.initCause(e.getCause());
+      throw exception;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PrinterAbortException("Printing interrupted.");
+    }
+  }
+
+  private int printPage(final Graphics graphics, final PageFormat pageFormat, final int pageIndex) {
+    final double scale = getScale(pageFormat);
+    final int columns = getColumns(pageFormat, scale);
+    if (pageIndex >= columns * getRows(pageFormat, scale)) return NO_SUCH_PAGE;
+
+    final Rectangle outerBounds = getOuterBounds();
+    final double pageWidth = pageFormat.getImageableWidth(), pageHeight = pageFormat.getImageableHeight();
+    final Graphics2D g2d = (Graphics2D) graphics.create();
+
+    // The clip of the page skips the components of the other pages.
+    g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
+    g2d.clip(new Rectangle2D.Double(0, 0, pageWidth, pageHeight));
+    g2d.translate(-(pageIndex % columns) * pageWidth, -(pageIndex / columns) * pageHeight);
+    g2d.scale(scale, scale);
+
+    // Translate the rectangle containing all graphic components at origin.
+    g2d.translate(-(outerBounds.x - DEFAULT_TITLE_BORDER_WIDTH), -(outerBounds.y - DEFAULT_TITLE_BORDER_WIDTH));
+
+    draw(g2d);
+    g2d.dispose();
+    return PAGE_EXISTS;
+  }
+
+  /**
+   * @return the points of paper for a pixel of the view.
+   */
+  private double getScale(final PageFormat pageFormat) {
+    if (tiled) return POINTS_PER_PIXEL;
+
+    // A point per pixel at most, as a picture of the view.
+    final Dimension pictureSize = getPictureSize();
+    return Math.min(1.0, Math.min(pageFormat.getImageableWidth() / pictureSize.width,
+                                  pageFormat.getImageableHeight() / pictureSize.height));
+  }
+
+  private int getColumns(final PageFormat pageFormat, final double scale) {
+    return getPages(getPictureSize().width * scale / pageFormat.getImageableWidth());
+  }
+
+  private int getRows(final PageFormat pageFormat, final double scale) {
+    return getPages(getPictureSize().height * scale / pageFormat.getImageableHeight());
+  }
+
+  private static int getPages(final double pages) {
+    return Math.max(1, (int) Math.ceil(pages - PAGE_TOLERANCE));
+  }
+
+}
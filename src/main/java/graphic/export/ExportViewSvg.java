@@ -1,37 +1,83 @@
 package graphic.export;
 
+import graphic.GraphicComponent;
 import graphic.GraphicView;
 import org.apache.batik.dom.GenericDOMImplementation;
+import org.apache.batik.svggen.SVGCSSStyler;
 import org.apache.batik.svggen.SVGGeneratorContext;
 import org.apache.batik.svggen.SVGGraphics2D;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import swing.Slyum;
 
 import java.awt.*;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.util.function.Function;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 
 import static graphic.GraphicView.DEFAULT_TITLE_BORDER_WIDTH;
 
-public final class ExportViewSvg extends ExportViewVectorFile {
+/**
+ * Exports a view in a SVG file. The compact mode keeps the texts as texts, shares the styles and merges the shapes
+ * (see {@link SvgCompactor}): the file is several times smaller and faster to open, but the texts are painted with the
+ * fonts of the reader.
+ */
+public final class ExportViewSvg extends ExportViewVectorFile<SVGGraphics2D> {
 
-  public static ExportViewSvg create(final GraphicView graphicView, final File file, final boolean displayTitle) {
-    return new ExportViewSvg(graphicView, file, displayTitle);
+  /**
+   * Digits after the decimal point of the coordinates of the compact mode, a hundredth of a pixel.
+   */
+  private static final int COMPACT_PRECISION = 2;
+
+  public static ExportViewSvg create(final GraphicView graphicView, final File file, final boolean displayTitle,
+                                     final boolean compact) {
+    return new ExportViewSvg(graphicView, file, displayTitle, compact);
   }
 
   public static ExportViewSvg create(final GraphicView graphicView, final File file) {
-    return create(graphicView, file, graphicView.getTxtBoxDiagramName().isVisible());
+    return create(graphicView, file, graphicView.getTxtBoxDiagramName().isVisible(), Slyum.isCompactSvgOnExport());
+  }
+
+  /**
+   * Create a picture of the part of the view framing the given components, without title, to be written in a stream
+   * (see {@link #write(OutputStream)} and {@link #paint()}).
+   */
+  public static ExportViewSvg createSelection(final GraphicView graphicView,
+                                              final Collection<GraphicComponent> components) {
+    return new ExportViewSvg(graphicView, components, Slyum.isCompactSvgOnExport());
   }
 
-  private ExportViewSvg(final GraphicView graphicView, final File file, final boolean displayTitle) {
+  private final boolean compact;
+
+  private ExportViewSvg(final GraphicView graphicView, final File file, final boolean displayTitle,
+                        final boolean compact) {
     super(graphicView, file, displayTitle);
+    this.compact = compact;
+  }
+
+  private ExportViewSvg(final GraphicView graphicView, final Collection<GraphicComponent> framed,
+                        final boolean compact) {
+    super(graphicView, null, framed);
+    this.compact = compact;
+  }
+
+  @Override
+  protected void writeToFile(final OutputStream out) throws Exception {
+    paint().write(out);
   }
 
-  static SVGGraphics2D createSVG(final ExportViewVectorFile exportViewVectorFile,
-                                 final Function<SVGGraphics2D, SVGGraphics2D> draw) {
+  /**
+   * Paint the view in a SVG document, on the EDT (see {@link ExportView}). The document can then be written from any
+   * thread.
+   *
+   * @return the painted document.
+   */
+  public Picture paint() {
     // Get a DOMImplementation.
     DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
 
@@ -39,25 +85,59 @@ public final class ExportViewSvg extends ExportViewVectorFile {
     String svgNS = "http://www.w3.org/2000/svg";
     Document document = domImpl.createDocument(svgNS, "svg", null);
 
-    Rectangle outerBounds = exportViewVectorFile.getOuterBounds();
-    final Dimension dimension = new Dimension(outerBounds.width + 2 * DEFAULT_TITLE_BORDER_WIDTH,
-                                              outerBounds.height + 2 * DEFAULT_TITLE_BORDER_WIDTH);
-
     final SVGGeneratorContext svgGeneratorContext = SVGGeneratorContext.createDefault(document);
-    svgGeneratorContext.setPrecision(12);
+    svgGeneratorContext.setPrecision(compact ? COMPACT_PRECISION : 12);
 
     // Create an instance of the SVG Generator.
-    final SVGGraphics2D svgGraphics2D = draw.apply(new SVGGraphics2D(svgGeneratorContext, true));
-    svgGraphics2D.setSVGCanvasSize(dimension);
-    return svgGraphics2D;
+    final SVGGraphics2D svgGraphics2D = draw(new SVGGraphics2D(svgGeneratorContext, !compact));
+    svgGraphics2D.setSVGCanvasSize(getPictureSize());
+
+    final Rectangle outerBounds = getOuterBounds();
+    final Rectangle area = new Rectangle(new Point(outerBounds.x - DEFAULT_TITLE_BORDER_WIDTH,
+                                                   outerBounds.y - DEFAULT_TITLE_BORDER_WIDTH), getPictureSize());
+    return new Picture(svgGraphics2D, area, compact);
   }
 
-  @Override
-  protected void writeToFile(final FileOutputStream fileOutputStream,
-                             final Function<SVGGraphics2D, SVGGraphics2D> draw) throws Exception {
+  /**
+   * A view painted in a SVG document, not written yet.
+   */
+  public static final class Picture {
+
+    private final SVGGraphics2D svgGraphics2D;
+    private final Element root;
+    private final Rectangle area;
+    private final boolean compact;
+
+    private Picture(final SVGGraphics2D svgGraphics2D, final Rectangle area, final boolean compact) {
+      this.svgGraphics2D = svgGraphics2D;
+      this.root = svgGraphics2D.getRoot();
+      this.area = area;
+      this.compact = compact;
+    }
+
+    /**
+     * @return the part of the document framing the picture, in the coordinates of the view.
+     */
+    public Rectangle getArea() {
+      return new Rectangle(area);
+    }
 
-    try (Writer writer = new OutputStreamWriter(fileOutputStream)) {
-      createSVG(this, draw).stream(writer, true);
+    /**
+     * Write the document in the given stream, which is not closed. Can only be called once.
+     *
+     * @param out the stream.
+     *
+     * @throws IOException if the document cannot be written.
+     */
+    public void write(final OutputStream out) throws IOException {
+      final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      if (compact) {
+        SVGCSSStyler.style(root);
+        SvgCompactor.compact(root);
+        svgGraphics2D.stream(root, writer, false, false);
+      } else {
+        svgGraphics2D.stream(root, writer, true, false);
+      }
       writer.flush();
     }
   }
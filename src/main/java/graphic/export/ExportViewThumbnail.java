@@ -0,0 +1,54 @@
+package graphic.export;
+
+import graphic.GraphicView;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static graphic.GraphicView.DEFAULT_TITLE_BORDER_WIDTH;
+
+/**
+ * Paints a view reduced to fit in a given size, without its title. The view is painted at the size of the thumbnail,
+ * not painted in full and resized.
+ */
+public final class ExportViewThumbnail extends ExportView<Graphics2D> {
+
+  /**
+   * @param graphicView the view, not empty.
+   * @param maxSize the size the thumbnail must fit in. A view smaller than this size is not enlarged.
+   *
+   * @return the export.
+   */
+  public static ExportViewThumbnail create(final GraphicView graphicView, final Dimension maxSize) {
+    return new ExportViewThumbnail(graphicView, maxSize);
+  }
+
+  private final Dimension maxSize;
+
+  private ExportViewThumbnail(final GraphicView graphicView, final Dimension maxSize) {
+    super(graphicView, false);
+    this.maxSize = new Dimension(maxSize);
+  }
+
+  @Override
+  public BufferedImage export() {
+    final Rectangle outerBounds = getOuterBounds();
+    final Dimension pictureSize = getPictureSize();
+    final double scale = Math.min(1.0, Math.min((double) maxSize.width / pictureSize.width,
+                                                (double) maxSize.height / pictureSize.height));
+
+    final BufferedImage thumbnail = new BufferedImage(Math.max(1, (int) (pictureSize.width * scale)),
+                                                      Math.max(1, (int) (pictureSize.height * scale)),
+                                                      BufferedImage.TYPE_INT_ARGB);
+    final Graphics2D g2d = thumbnail.createGraphics();
+    g2d.scale(scale, scale);
+
+    // Translate the rectangle containing all graphic components at origin.
+    g2d.translate(-(outerBounds.x - DEFAULT_TITLE_BORDER_WIDTH), -(outerBounds.y - DEFAULT_TITLE_BORDER_WIDTH));
+
+    draw(g2d);
+    g2d.dispose();
+    return thumbnail;
+  }
+
+}
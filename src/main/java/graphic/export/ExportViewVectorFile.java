@@ -1,16 +1,26 @@
 package graphic.export;
 
+import graphic.GraphicComponent;
 import graphic.GraphicView;
-import org.apache.batik.svggen.SVGGraphics2D;
 import utility.SMessageDialog;
 
+import java.awt.*;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.util.function.Function;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public abstract class ExportViewVectorFile extends ExportView<SVGGraphics2D> {
+import static graphic.GraphicView.DEFAULT_TITLE_BORDER_WIDTH;
+
+/**
+ * Exports a view in a vector file. The view is painted straight into a graphics streaming the document to the file.
+ */
+public abstract class ExportViewVectorFile<G extends Graphics2D> extends ExportView<G> {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
 
   /** The output file. */
   private final File file;
@@ -20,19 +30,62 @@ public abstract class ExportViewVectorFile extends ExportView<SVGGraphics2D> {
     this.file = file;
   }
 
+  protected ExportViewVectorFile(final GraphicView graphicView, final File file,
+                                 final Collection<GraphicComponent> framed) {
+    super(graphicView, false, framed);
+    this.file = file;
+  }
+
   @Override
-  public final Object export() {
+  public final File export() {
 
-    try (FileOutputStream fileStream = new FileOutputStream(file)) {
-      writeToFile(fileStream, this::draw);
+    try {
+      write();
+      return file;
     } catch (Exception ex) {
-      Logger.getLogger(ExportViewPdf.class.getName()).log(Level.SEVERE, null, ex);
+      Logger.getLogger(ExportViewVectorFile.class.getName()).log(Level.SEVERE, null, ex);
       SMessageDialog.showErrorMessage(ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Paint the view in the output file, on the EDT (see {@link ExportView}).
+   */
+  public final void write() throws Exception {
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+      writeToFile(out);
     }
-    return null;
   }
 
-  protected abstract void writeToFile(FileOutputStream fileOutputStream,
-                                      Function<SVGGraphics2D, SVGGraphics2D> draw) throws Exception;
+  /**
+   * Paint the view in the given stream, which is not closed, on the EDT.
+   */
+  public final void write(final OutputStream out) throws Exception {
+    writeToFile(out);
+  }
+
+  protected abstract void writeToFile(OutputStream out) throws Exception;
+
+  /**
+   * @return the size of the page of a document, in points.
+   */
+  protected final Dimension getPageSize() {
+    final Dimension size = getPictureSize();
+    return new Dimension((int) Math.ceil(size.width * POINTS_PER_PIXEL),
+                         (int) Math.ceil(size.height * POINTS_PER_PIXEL));
+  }
+
+  /**
+   * Paint the view on a document page of {@link #getPageSize()}, the picture at the top left corner.
+   *
+   * @param g2d the graphics of the page.
+   */
+  protected final void drawOnPage(final G g2d) {
+    final Rectangle outerBounds = getOuterBounds();
+    g2d.scale(POINTS_PER_PIXEL, POINTS_PER_PIXEL);
+    g2d.translate(-(outerBounds.x - DEFAULT_TITLE_BORDER_WIDTH), -(outerBounds.y - DEFAULT_TITLE_BORDER_WIDTH));
+    draw(g2d);
+  }
 
 }
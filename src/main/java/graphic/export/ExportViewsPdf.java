@@ -0,0 +1,156 @@
+package graphic.export;
+
+import graphic.GraphicView;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFRoot;
+import org.apache.fop.svg.PDFDocumentGraphics2D;
+import org.apache.xmlgraphics.java2d.GraphicContext;
+import utility.SMessageDialog;
+import utility.Utility;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exports several views in a single PDF file, a page and a bookmark per view. The document and its resources are
+ * shared by all the pages, and each page is written to the file once it is painted.
+ * <p>
+ * The export is created on the EDT and written from another thread. As for {@link ExportView}, each page is painted on
+ * the EDT: a closed view is materialized for its page and released once painted, the views are not all kept in memory.
+ */
+public final class ExportViewsPdf {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * @param views the views to export, in the order of the pages, with the title of their bookmark. The empty views are
+   * skipped.
+   * @param file the output file.
+   *
+   * @return the export.
+   */
+  public static ExportViewsPdf create(final Map<GraphicView, String> views, final File file) {
+    return new ExportViewsPdf(views, file);
+  }
+
+  private final LinkedHashMap<GraphicView, String> pages = new LinkedHashMap<>();
+  private final File file;
+
+  private ExportViewsPdf(final Map<GraphicView, String> views, final File file) {
+    this.file = file;
+
+    views.forEach((graphicView, title) -> {
+      if (!graphicView.isEmpty())
+        pages.put(graphicView, title == null || title.trim().isEmpty() ? GraphicView.NO_NAMED_VIEW : title);
+    });
+  }
+
+  /**
+   * @return the number of pages of the document, the views which are not empty.
+   */
+  public int getPageCount() {
+    return pages.size();
+  }
+
+  /**
+   * Write the file, from another thread than the EDT. An error is shown to the user.
+   *
+   * @return the file, or null if it could not be written.
+   */
+  public File export() {
+
+    try {
+      write();
+      return file;
+    } catch (Exception ex) {
+      Logger.getLogger(ExportViewsPdf.class.getName()).log(Level.SEVERE, null, ex);
+      SwingUtilities.invokeLater(() -> SMessageDialog.showErrorMessage(ex.getMessage()));
+      return null;
+    }
+  }
+
+  /**
+   * Paint the views in the output file, from another thread than the EDT.
+   */
+  public void write() throws Exception {
+    if (pages.isEmpty()) throw new IllegalStateException("No view to export.");
+    if (SwingUtilities.isEventDispatchThread())
+      throw new IllegalStateException("The pages are painted by events of the EDT.");
+
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+      final PagesGraphics2D pdfGraphics2D = new PagesGraphics2D();
+      final PDFDocument document = pdfGraphics2D.getPDFDocument();
+      pdfGraphics2D.setGraphicContext(new GraphicContext());
+
+      boolean first = true;
+      for (final Map.Entry<GraphicView, String> page : pages.entrySet()) {
+        final GraphicView graphicView = page.getKey();
+        final boolean firstPage = first;
+        first = false;
+
+        // The labels of a materialized view are placed by a later event.
+        Utility.onEdt(() -> {
+          graphicView.materialize();
+          return null;
+        });
+
+        final ExportViewPdf export = Utility.onEdt(() -> {
+          final ExportViewPdf created = ExportViewPdf.create(graphicView, file);
+          final Dimension pageSize = created.getPageSize();
+          if (firstPage) {
+            pdfGraphics2D.setupDocument(out, pageSize.width, pageSize.height);
+            document.getRoot().setPageMode(PDFRoot.PAGEMODE_USEOUTLINES);
+          } else {
+            pdfGraphics2D.nextPage(pageSize.width, pageSize.height);
+          }
+          return created;
+        });
+
+        // Write the previous page, so the document does not grow in memory.
+        if (!firstPage) document.output(out);
+
+        Utility.onEdt(() -> {
+          final Dimension pageSize = export.getPageSize();
+          pdfGraphics2D.beginPage();
+          document.getFactory().makeOutline(
+              document.getOutlineRoot(), page.getValue(),
+              pdfGraphics2D.getPDFContext().getCurrentPage().referencePDF(), pageSize.height, false);
+
+          final AffineTransform transform = pdfGraphics2D.getTransform();
+          export.drawOnPage(pdfGraphics2D);
+          pdfGraphics2D.setTransform(transform);
+
+          graphicView.release();
+          return null;
+        });
+      }
+
+      pdfGraphics2D.finish();
+    }
+  }
+
+  /**
+   * A PDF graphics starting its pages on demand. A page is otherwise started by its first drawing, which resets the
+   * transform set for the view.
+   */
+  private static final class PagesGraphics2D extends PDFDocumentGraphics2D {
+
+    PagesGraphics2D() {
+      super(true); // Texts are painted as shapes, to keep their font.
+    }
+
+    void beginPage() {
+      preparePainting();
+    }
+  }
+
+}
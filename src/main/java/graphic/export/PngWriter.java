@@ -0,0 +1,253 @@
+package graphic.export;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes a RGBA PNG image row by row, so the whole image never has to be in memory. The rows are given in bands, from
+ * the top of the image to the bottom.
+ * <p>
+ * The bands can be compressed on several threads while the next ones are painted. Each band is deflated on its own,
+ * with the end of the previous band as dictionary, and flushed to a byte boundary: the compressed bands follow each
+ * other in a single deflate stream, as pigz does.
+ */
+final class PngWriter implements AutoCloseable {
+
+  private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+  private static final int BIT_DEPTH = 8;
+  private static final int COLOR_TYPE_RGBA = 6;
+  private static final int FILTER_SUB = 1;
+  private static final int BYTES_PER_PIXEL = 4;
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+  private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9c};
+  private static final double INCHES_PER_METER = 1 / 0.0254;
+
+  private final DataOutputStream out;
+  private final int width;
+  private final int height;
+  private final int threads;
+  private final ChunkOutputStream chunks = new ChunkOutputStream();
+  private final Adler32 checksum = new Adler32();
+  private final ExecutorService compressors;
+
+  /**
+   * Bands being compressed, in the order of the image.
+   */
+  private final LinkedList<Future<byte[]>> compressed = new LinkedList<>();
+  private byte[] dictionary = null;
+  private int rowsWritten = 0;
+
+  /**
+   * Write the header of the image.
+   *
+   * @param out the stream of the PNG file, not closed by the writer.
+   * @param width the width of the image, in pixels.
+   * @param height the height of the image, in pixels.
+   * @param pixelsPerInch the resolution recorded in the image.
+   * @param threads the number of threads compressing the bands, 1 to compress them on the calling thread.
+   */
+  PngWriter(final OutputStream out, final int width, final int height, final double pixelsPerInch, final int threads)
+      throws IOException {
+    this.out = new DataOutputStream(out);
+    this.width = width;
+    this.height = height;
+    this.threads = threads;
+
+    this.out.write(SIGNATURE);
+
+    final ByteArrayOutputStream header = new ByteArrayOutputStream();
+    final DataOutputStream headerData = new DataOutputStream(header);
+    headerData.writeInt(width);
+    headerData.writeInt(height);
+    headerData.writeByte(BIT_DEPTH);
+    headerData.writeByte(COLOR_TYPE_RGBA);
+    headerData.writeByte(0); // Compression: deflate.
+    headerData.writeByte(0); // Filter method: adaptive.
+    headerData.writeByte(0); // No interlace.
+    writeChunk("IHDR", header.toByteArray(), header.size());
+
+    final int pixelsPerMeter = (int) Math.round(pixelsPerInch * INCHES_PER_METER);
+    header.reset();
+    headerData.writeInt(pixelsPerMeter);
+    headerData.writeInt(pixelsPerMeter);
+    headerData.writeByte(1); // Unit: meter.
+    writeChunk("pHYs", header.toByteArray(), header.size());
+
+    chunks.write(ZLIB_HEADER, 0, ZLIB_HEADER.length);
+
+    compressors = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "Slyum-png");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Encode the next rows of the image. The band is filtered on the calling thread and can be reused once the method
+   * returns; at most one band per thread is waiting to be compressed.
+   *
+   * @param band the rows, a {@link BufferedImage#TYPE_INT_ARGB} image as wide as the PNG image.
+   */
+  void write(final BufferedImage band) throws IOException {
+    if (band.getType() != BufferedImage.TYPE_INT_ARGB || band.getWidth() != width)
+      throw new IllegalArgumentException("The band must be an ARGB image of width " + width + ".");
+    if (rowsWritten + band.getHeight() > height)
+      throw new IllegalStateException("Too many rows for the image.");
+
+    final int[] pixels = ((DataBufferInt) band.getRaster().getDataBuffer()).getData();
+    final int rowLength = 1 + width * BYTES_PER_PIXEL;
+    final byte[] data = new byte[band.getHeight() * rowLength];
+
+    for (int y = 0, offset = 0, start = 0; y < band.getHeight(); ++y, offset += width, start += rowLength) {
+      data[start] = FILTER_SUB;
+      for (int x = 0, i = start + 1; x < width; ++x, i += BYTES_PER_PIXEL) {
+        final int argb = pixels[offset + x];
+        data[i] = (byte) (argb >> 16);
+        data[i + 1] = (byte) (argb >> 8);
+        data[i + 2] = (byte) argb;
+        data[i + 3] = (byte) (argb >> 24);
+      }
+
+      // Each byte becomes its difference with the same byte of the previous pixel, from the end of the row.
+      for (int i = start + rowLength - 1; i > start + BYTES_PER_PIXEL; --i)
+        data[i] -= data[i - BYTES_PER_PIXEL];
+    }
+
+    rowsWritten += band.getHeight();
+    checksum.update(data);
+
+    final byte[] previous = dictionary;
+    final boolean last = rowsWritten == height;
+    dictionary = Arrays.copyOfRange(data, Math.max(0, data.length - DICTIONARY_SIZE), data.length);
+
+    if (compressors == null) {
+      chunks.write(compress(data, previous, last));
+      return;
+    }
+
+    compressed.add(compressors.submit(() -> compress(data, previous, last)));
+    while (compressed.size() > threads)
+      writeOldest();
+  }
+
+  /**
+   * Write the end of the image. All the rows must have been written.
+   */
+  void finish() throws IOException {
+    if (rowsWritten != height)
+      throw new IllegalStateException(rowsWritten + " rows written out of " + height + ".");
+
+    while (!compressed.isEmpty())
+      writeOldest();
+
+    final long adler = checksum.getValue();
+    chunks.write(new byte[]{(byte) (adler >> 24), (byte) (adler >> 16), (byte) (adler >> 8), (byte) adler});
+    chunks.flush();
+    writeChunk("IEND", new byte[0], 0);
+    out.flush();
+  }
+
+  /**
+   * Stop the compression threads, after {@link #finish()} or if the image cannot be written.
+   */
+  @Override
+  public void close() {
+    if (compressors != null) compressors.shutdownNow();
+  }
+
+  private void writeOldest() throws IOException {
+    try {
+      chunks.write(compressed.removeFirst().get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("PNG compression interrupted.");
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Deflate a band without zlib header. The stream ends with the last band, the others end on a byte boundary.
+   */
+  private static byte[] compress(final byte[] data, final byte[] dictionary, final boolean last) {
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      if (dictionary != null) deflater.setDictionary(dictionary);
+      deflater.setInput(data);
+      if (last) deflater.finish();
+
+      final ByteArrayOutputStream result = new ByteArrayOutputStream(data.length / 4 + 64);
+      final byte[] buffer = new byte[CHUNK_SIZE];
+      for (; ; ) {
+        final int count = deflater.deflate(buffer, 0, buffer.length, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+        result.write(buffer, 0, count);
+
+        if (last ? deflater.finished() : count < buffer.length) return result.toByteArray();
+      }
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void writeChunk(final String type, final byte[] content, final int length) throws IOException {
+    final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+    final CRC32 crc = new CRC32();
+    crc.update(typeBytes);
+    crc.update(content, 0, length);
+
+    out.writeInt(length);
+    out.write(typeBytes);
+    out.write(content, 0, length);
+    out.writeInt((int) crc.getValue());
+  }
+
+  /**
+   * Cuts the compressed data in IDAT chunks.
+   */
+  private class ChunkOutputStream extends OutputStream {
+
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+    private int count = 0;
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        final int copied = Math.min(len, buffer.length - count);
+        System.arraycopy(b, off, buffer, count, copied);
+        count += copied;
+        off += copied;
+        len -= copied;
+        if (count == buffer.length) flush();
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (count == 0) return;
+      writeChunk("IDAT", buffer, count);
+      count = 0;
+    }
+  }
+
+}
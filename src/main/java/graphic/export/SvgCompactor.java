@@ -0,0 +1,249 @@
+package graphic.export;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Makes a SVG document generated by Batik smaller, without changing its rendering:
+ * <ul>
+ * <li>a shape filled then outlined, as the boxes and the heads of the relations, becomes a single element;</li>
+ * <li>the successive outlines with the same style, as the segments of the relations, become a single path, a sub-path
+ * per outline;</li>
+ * <li>the styles are written once, in a style sheet, and the elements refer to them by class.</li>
+ * </ul>
+ * The styles must be in the style attributes, see {@link org.apache.batik.svggen.SVGCSSStyler}.
+ */
+final class SvgCompactor {
+
+  private static final String SVG_NAMESPACE = "http://www.w3.org/2000/svg";
+  private static final String STYLE = "style";
+  private static final String CLASS = "class";
+  private static final String FILL = "fill";
+  private static final String STROKE = "stroke";
+  private static final String NONE = "none";
+
+  /**
+   * The attributes giving the geometry of the outlines which can be merged in a path.
+   */
+  private static final Map<String, Set<String>> OUTLINES = new LinkedHashMap<>();
+
+  static {
+    OUTLINES.put("line", new HashSet<>(Arrays.asList("x1", "y1", "x2", "y2")));
+    OUTLINES.put("polyline", new HashSet<>(Arrays.asList("points")));
+    OUTLINES.put("polygon", new HashSet<>(Arrays.asList("points")));
+    OUTLINES.put("path", new HashSet<>(Arrays.asList("d")));
+  }
+
+  private SvgCompactor() { }
+
+  /**
+   * Compact the given document.
+   *
+   * @param root the svg element of the document.
+   */
+  static void compact(final Element root) {
+    compactChildren(root);
+    shareStyles(root);
+  }
+
+  private static void compactChildren(final Element parent) {
+    for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+      if (child instanceof Element) compactChildren((Element) child);
+
+    mergeFillsAndStrokes(parent);
+    mergeOutlines(parent);
+  }
+
+  /**
+   * Replace a shape filled without stroke followed by the same shape stroked without fill by a single shape.
+   */
+  private static void mergeFillsAndStrokes(final Element parent) {
+    Node node = parent.getFirstChild();
+    while (node != null) {
+      final Node next = node.getNextSibling();
+      if (node instanceof Element && next instanceof Element) {
+        final Element filled = (Element) node, stroked = (Element) next;
+        final Map<String, String> fillStyle = parseStyle(filled), strokeStyle = parseStyle(stroked);
+
+        if (filled.getTagName().equals(stroked.getTagName()) && !filled.hasChildNodes() &&
+            !stroked.hasChildNodes() && NONE.equals(fillStyle.get(STROKE)) && NONE.equals(strokeStyle.get(FILL)) &&
+            getGeometry(filled).equals(getGeometry(stroked))) {
+          final Map<String, String> style = new TreeMap<>(strokeStyle);
+          style.remove(FILL);
+          fillStyle.remove(STROKE);
+
+          // Both styles must agree on all but the fill and the stroke.
+          boolean compatible = true;
+          for (Map.Entry<String, String> entry : fillStyle.entrySet()) {
+            final String value = style.putIfAbsent(entry.getKey(), entry.getValue());
+            compatible &= value == null || value.equals(entry.getValue());
+          }
+
+          if (compatible) {
+            filled.setAttribute(STYLE, formatStyle(style));
+            parent.removeChild(stroked);
+            node = filled.getNextSibling();
+            continue;
+          }
+        }
+      }
+      node = next;
+    }
+  }
+
+  /**
+   * Replace the successive outlines with the same style by a path. Each outline is a sub-path, with its own caps, so
+   * the rendering does not change.
+   */
+  private static void mergeOutlines(final Element parent) {
+    final List<Element> run = new ArrayList<>();
+    String runStyle = null;
+
+    for (Node node = parent.getFirstChild(); node != null; ) {
+      final Node next = node.getNextSibling();
+      final String style = node instanceof Element ? getOutlineStyle((Element) node) : null;
+
+      if (style == null || !style.equals(runStyle)) {
+        mergeRun(parent, run);
+        runStyle = style;
+      }
+      if (style != null) run.add((Element) node);
+      node = next;
+    }
+    mergeRun(parent, run);
+  }
+
+  private static void mergeRun(final Element parent, final List<Element> run) {
+    if (run.size() > 1) {
+      final StringBuilder d = new StringBuilder();
+      for (Element outline : run) {
+        if (d.length() > 0) d.append(' ');
+        appendPathData(d, outline);
+      }
+
+      final Element path = parent.getOwnerDocument().createElementNS(SVG_NAMESPACE, "path");
+      path.setAttribute("d", d.toString());
+      path.setAttribute(STYLE, run.get(0).getAttribute(STYLE));
+      parent.replaceChild(path, run.get(0));
+      for (Element outline : run.subList(1, run.size()))
+        parent.removeChild(outline);
+    }
+    run.clear();
+  }
+
+  /**
+   * @return the style of the given element if it is an outline which can be merged, null otherwise.
+   */
+  private static String getOutlineStyle(final Element element) {
+    final Set<String> geometry = OUTLINES.get(element.getTagName());
+    if (geometry == null || element.hasChildNodes()) return null;
+
+    final NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0; i < attributes.getLength(); ++i) {
+      final String name = attributes.item(i).getNodeName();
+      if (!name.equals(STYLE) && !geometry.contains(name)) return null;
+    }
+
+    // Overlapping translucent outlines would be painted once in a path.
+    final Map<String, String> style = parseStyle(element);
+    if (!NONE.equals(style.get(FILL)) || !style.getOrDefault("stroke-opacity", "1").equals("1") ||
+        style.containsKey("opacity"))
+      return null;
+
+    return element.getAttribute(STYLE);
+  }
+
+  private static void appendPathData(final StringBuilder d, final Element outline) {
+    switch (outline.getTagName()) {
+      case "line":
+        d.append('M').append(outline.getAttribute("x1")).append(' ').append(outline.getAttribute("y1"))
+         .append(" L").append(outline.getAttribute("x2")).append(' ').append(outline.getAttribute("y2"));
+        break;
+      case "polyline":
+      case "polygon":
+        final String[] coordinates = outline.getAttribute("points").trim().split("[\\s,]+");
+        for (int i = 0; i + 1 < coordinates.length; i += 2)
+          d.append(i == 0 ? "M" : " L").append(coordinates[i]).append(' ').append(coordinates[i + 1]);
+        if (outline.getTagName().equals("polygon")) d.append(" Z");
+        break;
+      default:
+        d.append(outline.getAttribute("d").trim());
+    }
+  }
+
+  /**
+   * Move the styles in a style sheet, a class per distinct style.
+   */
+  private static void shareStyles(final Element root) {
+    final Map<String, String> classes = new LinkedHashMap<>();
+    shareStyles(root, classes);
+    if (classes.isEmpty()) return;
+
+    final StringBuilder css = new StringBuilder();
+    classes.forEach((style, name) -> css.append('.').append(name).append('{').append(style).append('}'));
+
+    final Element styleSheet = root.getOwnerDocument().createElementNS(SVG_NAMESPACE, STYLE);
+    styleSheet.setAttribute("type", "text/css");
+    styleSheet.appendChild(root.getOwnerDocument().createCDATASection(css.toString()));
+    root.insertBefore(styleSheet, root.getFirstChild());
+  }
+
+  private static void shareStyles(final Element element, final Map<String, String> classes) {
+    if (element.hasAttribute(STYLE)) {
+      final String style = formatStyle(parseStyle(element));
+      element.removeAttribute(STYLE);
+
+      if (!style.isEmpty()) {
+        final String name = classes.computeIfAbsent(style, s -> "s" + Integer.toString(classes.size(), 36));
+        final String previous = element.getAttribute(CLASS);
+        element.setAttribute(CLASS, previous.isEmpty() ? name : previous + " " + name);
+      }
+    }
+
+    for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+      if (child instanceof Element) shareStyles((Element) child, classes);
+  }
+
+  /**
+   * @return the attributes of the element but its style.
+   */
+  private static Map<String, String> getGeometry(final Element element) {
+    final Map<String, String> geometry = new TreeMap<>();
+    final NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0; i < attributes.getLength(); ++i) {
+      final Node attribute = attributes.item(i);
+      if (!attribute.getNodeName().equals(STYLE)) geometry.put(attribute.getNodeName(), attribute.getNodeValue());
+    }
+    return geometry;
+  }
+
+  /**
+   * @return the properties of the style of the element, sorted by name so the same style is always written the same.
+   */
+  private static Map<String, String> parseStyle(final Element element) {
+    final Map<String, String> style = new TreeMap<>();
+    for (String declaration : element.getAttribute(STYLE).split(";")) {
+      final int colon = declaration.indexOf(':');
+      if (colon > 0)
+        style.put(declaration.substring(0, colon).trim(), declaration.substring(colon + 1).trim());
+    }
+    return style;
+  }
+
+  private static String formatStyle(final Map<String, String> style) {
+    final StringBuilder css = new StringBuilder();
+    style.forEach((name, value) -> css.append(name).append(':').append(value).append(';'));
+    return css.toString();
+  }
+
+}
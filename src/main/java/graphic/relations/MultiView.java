@@ -12,6 +12,7 @@ import graphic.ColoredComponent;
 import graphic.GraphicComponent;
 import graphic.GraphicView;
 import graphic.MovableComponent;
+import graphic.RenderContext;
 import graphic.entity.ClassView;
 import graphic.entity.EntityView;
 import org.w3c.dom.Document;
@@ -172,7 +173,7 @@ public class MultiView extends MovableComponent implements Observer, ColoredComp
    * @param g2 the graphic context
    */
   public void drawGhost(Graphics2D g2) {
-    if (pictureMode) return;
+    if (RenderContext.of(g2).isPictureMode()) return;
 
     final Polygon polygon = getPolygonFromBounds(ghost);
     final Color color = getColor();
@@ -297,7 +298,7 @@ public class MultiView extends MovableComponent implements Observer, ColoredComp
 
     if (!ghost.isEmpty()) drawGhost(g2);
 
-    if (!pictureMode && isSelected()) {
+    if (!RenderContext.of(g2).isPictureMode() && isSelected()) {
       final int PADDING = 3;
 
       g2.setColor(Color.DARK_GRAY);
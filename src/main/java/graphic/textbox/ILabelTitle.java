@@ -16,6 +16,14 @@ public interface ILabelTitle {
    */
   public void addObserver(Observer o);
 
+  /**
+   * Remove an observer.
+   *
+   * @param o observer
+   */
+  @SuppressWarnings("deprecation") // Same Observer as addObserver, implemented by java.util.Observable.
+  public void deleteObserver(Observer o);
+
   /**
    * Get the label for this component.
    *
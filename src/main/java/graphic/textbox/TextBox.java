@@ -2,6 +2,7 @@ package graphic.textbox;
 
 import graphic.GraphicComponent;
 import graphic.GraphicView;
+import graphic.RenderContext;
 import swing.PropertyLoader;
 import swing.Slyum;
 import swing.slyumCustomizedComponents.PopupTextField;
@@ -92,9 +93,11 @@ public abstract class TextBox extends GraphicComponent {
   /**
    * This method is called just before the String in the TextBox is draw. Redefine this method for personnalize the font
    * in subclasses.
+   *
+   * @param font the base font, from the render context.
    */
-  protected void createEffectivFont() {
-    effectivFont = getFont();
+  protected void createEffectivFont(Font font) {
+    effectivFont = font;
   }
 
   /**
@@ -249,7 +252,8 @@ public abstract class TextBox extends GraphicComponent {
 
     final String name = getText();
 
-    createEffectivFont();
+    final RenderContext context = RenderContext.of(g2);
+    createEffectivFont(context.getFont());
     effectivFont = effectivFont.deriveFont(effectivFont.getSize()
                                            * parent.getZoom());
     final FontMetrics metrics = g2.getFontMetrics(effectivFont);
@@ -258,7 +262,7 @@ public abstract class TextBox extends GraphicComponent {
 
     g2.setStroke(new BasicStroke());
     // Draw mouseHover style (same as selected style)
-    if (!pictureMode && mustPaintSelectedStyle()) paintSelectedStyle(g2);
+    if (!context.isPictureMode() && mustPaintSelectedStyle()) paintSelectedStyle(g2);
 
     g2.setColor(Color.DARK_GRAY);
     g2.setFont(effectivFont);
@@ -275,7 +279,7 @@ public abstract class TextBox extends GraphicComponent {
                                                    - metrics.getDescent());
     }
 
-    if (!pictureMode && isHighlight())
+    if (!context.isPictureMode() && isHighlight())
       paintSelectedStyle(g2, new Color(76, 175, 80), new Color(76, 175, 80, 150));
   }
 
@@ -60,8 +60,8 @@ public class TextBoxAttribute extends TextBox implements Observer {
   }
 
   @Override
-  public void createEffectivFont() {
-    effectivFont = getFont();
+  public void createEffectivFont(Font font) {
+    effectivFont = font;
   }
 
   @Override
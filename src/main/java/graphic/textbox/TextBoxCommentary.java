@@ -9,6 +9,7 @@ import graphic.ColoredComponent;
 import graphic.GraphicComponent;
 import graphic.GraphicView;
 import graphic.MovableComponent;
+import graphic.RenderContext;
 import graphic.entity.EntityView;
 import graphic.relations.LineCommentary;
 import graphic.relations.LineView;
@@ -181,7 +182,7 @@ public class TextBoxCommentary extends MovableComponent implements ColoredCompon
 
   @Override
   public void drawSelectedEffect(Graphics2D g2) {
-    if (pictureMode) return;
+    if (RenderContext.of(g2).isPictureMode()) return;
 
     Color backColor = parent.getColor();
     Color fill = getColor();
@@ -317,6 +318,7 @@ public class TextBoxCommentary extends MovableComponent implements ColoredCompon
 
     final Rectangle bounds = getBounds();
 
+    final boolean pictureMode = RenderContext.of(g2).isPictureMode();
     if (!pictureMode && isSelected()) {
       final BasicStroke borderStroke = new BasicStroke(1.0f,
                                                        BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f,
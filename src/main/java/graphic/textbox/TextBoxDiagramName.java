@@ -7,6 +7,7 @@ package graphic.textbox;
 
 import classDiagram.INameObserver;
 import graphic.GraphicView;
+import graphic.RenderContext;
 import graphic.entity.EntityView;
 
 import java.awt.*;
@@ -69,8 +70,8 @@ public class TextBoxDiagramName extends TextBox implements Observer {
   }
 
   @Override
-  protected void createEffectivFont() {
-    super.createEffectivFont();
+  protected void createEffectivFont(Font font) {
+    super.createEffectivFont(font);
     effectivFont = effectivFont.deriveFont(16f);
   }
 
@@ -83,7 +84,7 @@ public class TextBoxDiagramName extends TextBox implements Observer {
   public void paintComponent(Graphics2D g2) {
 
     // Compute text width.
-    createEffectivFont();
+    createEffectivFont(RenderContext.of(g2).getFont());
     FontMetrics metrics = g2.getFontMetrics(effectivFont);
     int adv = metrics.stringWidth(getText());
 
@@ -96,7 +97,8 @@ public class TextBoxDiagramName extends TextBox implements Observer {
   @Override
   public void paintComponentAt(Graphics2D g2, Point location) {
 
-    if (!isVisible())
+    // An empty name is not painted on pictures.
+    if (!isVisible() || RenderContext.of(g2).isPictureMode() && isEmpty())
       return;
 
     // Compute locations
@@ -131,11 +133,6 @@ public class TextBoxDiagramName extends TextBox implements Observer {
                            new Point(origin.x + bounds.x, origin.y + bounds.y));
   }
 
-  @Override
-  public boolean isVisible() {
-    return !(pictureMode && isEmpty()) && super.isVisible();
-  }
-
   @Override
   public void setBounds(Rectangle bounds) {
     if (bounds == null) throw new IllegalArgumentException("bounds is null");
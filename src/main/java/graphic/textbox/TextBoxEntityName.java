@@ -35,12 +35,12 @@ public class TextBoxEntityName extends TextBox {
   }
 
   @Override
-  public void createEffectivFont() {
+  public void createEffectivFont(Font font) {
     int style = Font.BOLD;
 
     if (entity.isNameItalic()) style |= Font.ITALIC;
 
-    effectivFont = getFont().deriveFont(style);
+    effectivFont = font.deriveFont(style);
   }
 
   @Override
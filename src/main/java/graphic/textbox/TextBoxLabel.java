@@ -4,6 +4,7 @@ import change.BufferDeplacement;
 import change.Change;
 import change.Changeable;
 import graphic.GraphicView;
+import graphic.RenderContext;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
@@ -60,8 +61,8 @@ public abstract class TextBoxLabel extends TextBox implements Observer {
   }
 
   @Override
-  public void createEffectivFont() {
-    effectivFont = getFont().deriveFont(14.0f);
+  public void createEffectivFont(Font font) {
+    effectivFont = font.deriveFont(14.0f);
   }
 
   @Override
@@ -123,7 +124,7 @@ public abstract class TextBoxLabel extends TextBox implements Observer {
   @Override
   public void paintComponent(Graphics2D g2) {
     super.paintComponent(g2);
-    if (!pictureMode && (mouseHover || isSelected())) paintLink(g2);
+    if (!RenderContext.of(g2).isPictureMode() && (mouseHover || isSelected())) paintLink(g2);
   }
 
   public void paintLink(Graphics2D g2) {
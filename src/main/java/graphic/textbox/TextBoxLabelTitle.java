@@ -56,6 +56,11 @@ public class TextBoxLabelTitle extends TextBoxLabel {
     reinitializeLocation();
   }
 
+  @Override
+  public void stopObservingModel() {
+    label.deleteObserver(this);
+  }
+
   @Override
   public void reinitializeLocation() {
 
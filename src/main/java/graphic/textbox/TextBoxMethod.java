@@ -41,11 +41,11 @@ public class TextBoxMethod extends TextBox implements Observer {
   }
 
   @Override
-  public void createEffectivFont() {
+  public void createEffectivFont(Font font) {
     if (method.isAbstract())
-      effectivFont = getFont().deriveFont(Font.ITALIC);
+      effectivFont = font.deriveFont(Font.ITALIC);
     else
-      effectivFont = getFont();
+      effectivFont = font;
   }
 
   @Override
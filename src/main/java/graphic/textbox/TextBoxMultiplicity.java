@@ -118,6 +118,11 @@ public class TextBoxMultiplicity extends TextBoxLabel {
     multiplicity.addObserver(this);
   }
 
+  @Override
+  public void stopObservingModel() {
+    multiplicity.deleteObserver(this);
+  }
+
   @Override
   public void reinitializeLocation() {
 
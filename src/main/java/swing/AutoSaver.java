@@ -0,0 +1,450 @@
+package swing;
+
+import change.Change;
+import change.ChangeTracker;
+import classDiagram.ClassDiagram;
+import classDiagram.IDiagramComponent;
+import graphic.GraphicView;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.swing.*;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Autosave of the current project in a recovery journal, stored in the application directory.
+ * <p>
+ * A checkpoint is taken when the project changed since the previous one. The XML of the project is split in sections:
+ * the properties of the class diagram, each of its components and each view. The changes followed by a
+ * {@link ChangeTracker} tell which sections are built again on the EDT; they are serialized and appended to the journal
+ * on a background thread. When the journal exceeds its size cap, it is compacted into a single checkpoint holding all
+ * the sections. Each checkpoint ends with a checksum: a checkpoint interrupted by a crash is ignored when the journal
+ * is read.
+ * <p>
+ * The journal of a project is deleted when the project is saved or its changes are discarded. A journal more recent
+ * than its project file is therefore a recovery point, proposed when the project is opened.
+ */
+public class AutoSaver {
+
+  private static final String JOURNAL_DIRECTORY = "recovery";
+  private static final String JOURNAL_EXTENSION = ".slyj";
+  private static final String RECOVERED_FILE = "recovered." + Slyum.EXTENTION;
+  private static final int MAGIC = 0x534c594a; // "SLYJ"
+  private static final int VERSION = 2;
+  private static final byte CHECKPOINT = 1;
+  private static final String ROOT_TAG = "classDiagram";
+  static final String HEADER_KEY = "h", COMPONENT_KEY = "m", VIEW_KEY = "v";
+
+  private static final AutoSaver instance = new AutoSaver();
+
+  /**
+   * Start the autosave with the interval defined in the properties, or stop it if the autosave is disabled. Called
+   * again when the properties change.
+   */
+  public static void start() {
+    instance._start();
+  }
+
+  /**
+   * Delete the journal of the given project. Called when the project is saved or when its changes are discarded.
+   *
+   * @param project the project file, can be null.
+   */
+  public static void discard(File project) {
+    instance._discard(project);
+  }
+
+  /**
+   * Block until the journal writes are done. Used before leaving the application.
+   */
+  public static void awaitPendingWrites() {
+    instance._awaitPendingWrites();
+  }
+
+  /**
+   * @param project the project file.
+   *
+   * @return true if the journal of the project is more recent than the project file.
+   */
+  public static boolean hasRecovery(File project) {
+    final File journal = getJournalFile(project);
+    return journal.isFile() && journal.lastModified() > project.lastModified();
+  }
+
+  /**
+   * Rebuild the project from its journal, in a file of the application directory.
+   *
+   * @param project the project file.
+   *
+   * @return the file containing the recovered project.
+   *
+   * @throws IOException if the journal cannot be read.
+   */
+  public static File recover(File project) throws IOException {
+    final LinkedHashMap<String, byte[]> sections = readJournal(getJournalFile(project), project);
+    final File recovered = new File(getJournalDirectory(), RECOVERED_FILE);
+
+    // The header is the element of the model without its components: they are written inside it.
+    String header = new String(sections.get(HEADER_KEY), StandardCharsets.UTF_8).trim();
+    final String modelTag = header.substring(1).split("[\\s/>]", 2)[0];
+    if (header.endsWith("/>")) header = header.substring(0, header.length() - 2) + ">";
+    else header = header.substring(0, header.length() - ("</" + modelTag + ">").length());
+
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(recovered))) {
+      out.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?><" + ROOT_TAG + ">").getBytes(StandardCharsets.UTF_8));
+      out.write(header.getBytes(StandardCharsets.UTF_8));
+      for (Map.Entry<String, byte[]> section : sections.entrySet())
+        if (section.getKey().startsWith(COMPONENT_KEY)) out.write(section.getValue());
+      out.write(("</" + modelTag + ">").getBytes(StandardCharsets.UTF_8));
+      for (Map.Entry<String, byte[]> section : sections.entrySet())
+        if (section.getKey().startsWith(VIEW_KEY)) out.write(section.getValue());
+      out.write(("</" + ROOT_TAG + ">").getBytes(StandardCharsets.UTF_8));
+    }
+
+    return recovered;
+  }
+
+  private static File getJournalDirectory() {
+    return new File(Slyum.getPathAppDir() + Slyum.FILE_SEPARATOR + JOURNAL_DIRECTORY);
+  }
+
+  static File getJournalFile(File project) {
+    final String path = project.getAbsolutePath();
+    final String name = UUID.nameUUIDFromBytes(path.getBytes(StandardCharsets.UTF_8)).toString();
+    return new File(getJournalDirectory(), name + JOURNAL_EXTENSION);
+  }
+
+  /**
+   * Read the journal and apply its checkpoints in order. The reading stops at the first incomplete checkpoint.
+   *
+   * @return the sections of the last complete checkpoint, in the order of the project.
+   */
+  static LinkedHashMap<String, byte[]> readJournal(File journal, File project) throws IOException {
+    LinkedHashMap<String, byte[]> sections = new LinkedHashMap<>();
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(project.getAbsolutePath()))
+        throw new IOException("Invalid recovery journal.");
+
+      try {
+        while (in.readByte() == CHECKPOINT) {
+          final ByteArrayOutputStream record = new ByteArrayOutputStream();
+          final DataOutputStream recordOut = new DataOutputStream(record);
+          final LinkedHashMap<String, byte[]> next = new LinkedHashMap<>();
+          boolean complete = true;
+
+          final int sectionCount = in.readInt();
+          recordOut.writeInt(sectionCount);
+          for (int i = 0; i < sectionCount; i++) {
+            final String key = in.readUTF();
+            final boolean included = in.readBoolean();
+            recordOut.writeUTF(key);
+            recordOut.writeBoolean(included);
+
+            if (included) {
+              final byte[] section = new byte[in.readInt()];
+              in.readFully(section);
+              recordOut.writeInt(section.length);
+              recordOut.write(section);
+              next.put(key, section);
+            } else {
+              complete &= sections.containsKey(key);
+              next.put(key, sections.get(key));
+            }
+          }
+
+          final CRC32 crc = new CRC32();
+          crc.update(record.toByteArray());
+          if (in.readLong() != crc.getValue() || !complete) break;
+
+          sections = next;
+        }
+      } catch (EOFException | NegativeArraySizeException e) {
+        /* Incomplete checkpoint, written during a crash. */
+      }
+    }
+
+    if (!sections.containsKey(HEADER_KEY)) throw new IOException("Empty recovery journal.");
+    return sections;
+  }
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Slyum-autosave");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Timer timer = new Timer(0, e -> checkpoint());
+
+  // State of the checkpoints, only accessed by the EDT.
+  private ChangeTracker changeTracker;
+  private long checkpointVersion = -1;
+  private File checkpointProject;
+  private IdentityHashMap<Object, String> sectionKeys = new IdentityHashMap<>();
+  private long nextSectionKey;
+
+  /**
+   * Set by the autosave thread when a checkpoint failed: the next one is built with all the sections.
+   */
+  private volatile boolean checkpointFailed;
+
+  // State of the journal, only accessed by the autosave thread.
+  private File journalProject;
+  private final HashMap<String, byte[]> journalSections = new HashMap<>();
+  private long journalLength;
+
+  private AutoSaver() { }
+
+  private void _start() {
+    final int interval = Slyum.getAutosaveInterval();
+    timer.stop();
+
+    if (interval > 0) {
+      if (changeTracker == null) changeTracker = new ChangeTracker();
+      timer.setDelay(interval * 1000);
+      timer.setInitialDelay(interval * 1000);
+      timer.start();
+    }
+  }
+
+  private void _discard(final File project) {
+    checkpointVersion = Change.getVersion();
+    checkpointProject = null;
+    if (project == null) return;
+
+    executor.execute(() -> {
+      try {
+        Files.deleteIfExists(getJournalFile(project).toPath());
+      } catch (IOException e) {
+        Logger.getLogger(AutoSaver.class.getName()).log(Level.WARNING, "Unable to delete the recovery journal.", e);
+      }
+      if (project.equals(journalProject)) journalProject = null;
+    });
+  }
+
+  private void _awaitPendingWrites() {
+    try {
+      executor.submit(() -> { }).get();
+    } catch (Exception e) {
+      Logger.getLogger(AutoSaver.class.getName()).log(Level.WARNING, "Interrupted while autosaving.", e);
+    }
+  }
+
+  /**
+   * EDT: take a checkpoint if the project changed since the previous one. Only the elements of the components and
+   * the views that changed are built, the journal is written in background.
+   */
+  private void checkpoint() {
+    final File project = PanelClassDiagram.getFileOpen();
+    if (project == null || !Change.hasChange() || Change.getVersion() == checkpointVersion ||
+        PanelClassDiagram.getInstance().isXmlImportation())
+      return;
+
+    checkpointVersion = Change.getVersion();
+
+    final Set<Object> changes = changeTracker.takeChanges();
+    final boolean full = changes == null || !project.equals(checkpointProject) || checkpointFailed;
+    checkpointProject = project;
+    checkpointFailed = false;
+
+    final ClassDiagram classDiagram = PanelClassDiagram.getInstance().getClassDiagram();
+    final Document document = XmlFactory.createDocument();
+    final LinkedHashMap<String, Element> sections = new LinkedHashMap<>();
+    final IdentityHashMap<Object, String> keys = new IdentityHashMap<>();
+
+    sections.put(HEADER_KEY, classDiagram.getXmlElement(document, component -> false));
+    for (IDiagramComponent component : classDiagram.getComponents())
+      putSection(sections, keys, COMPONENT_KEY, component, full || changes.contains(component) ?
+          component.getXmlElement(document) : null);
+    for (GraphicView graphicView : MultiViewManager.getAllGraphicViews())
+      putSection(sections, keys, VIEW_KEY, graphicView, full || changes.contains(graphicView) ?
+          graphicView.getXmlElement(document) : null);
+
+    sectionKeys = keys; // The keys of the removed components and views are forgotten.
+
+    executor.execute(() -> {
+      try {
+        writeCheckpoint(project, sections);
+      } catch (IOException | TransformerException e) {
+        journalProject = null; // The next checkpoint rewrites the whole journal.
+        checkpointFailed = true;
+        Logger.getLogger(AutoSaver.class.getName()).log(Level.WARNING, "Unable to autosave the project.", e);
+      }
+    });
+  }
+
+  /**
+   * Add the section of a component or a view under its key, kept from a checkpoint to the next one.
+   *
+   * @param element the element of the section, or null if it did not change.
+   */
+  private void putSection(Map<String, Element> sections, Map<Object, String> keys, String prefix, Object part,
+                          Element element) {
+    String key = sectionKeys.get(part);
+    if (key == null) key = prefix + nextSectionKey++;
+
+    keys.put(part, key);
+    sections.put(key, element);
+  }
+
+  private void writeCheckpoint(File project, LinkedHashMap<String, Element> elements)
+      throws IOException, TransformerException {
+    final File journal = getJournalFile(project);
+    final boolean continued = project.equals(journalProject) && journal.isFile();
+    if (!continued) journalSections.clear();
+
+    final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+    transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+
+    // Serialize the elements built on the EDT, the others are kept from the previous checkpoint.
+    final LinkedHashMap<String, byte[]> sections = new LinkedHashMap<>();
+    final HashSet<String> changed = new HashSet<>();
+    long changedLength = 0;
+    for (Map.Entry<String, Element> entry : elements.entrySet()) {
+      final String key = entry.getKey();
+      byte[] section = journalSections.get(key);
+
+      if (entry.getValue() != null) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(entry.getValue()), new StreamResult(out));
+        final byte[] serialized = out.toByteArray();
+
+        if (section == null || !Arrays.equals(section, serialized)) {
+          section = serialized;
+          changed.add(key);
+          changedLength += section.length;
+        }
+      } else if (section == null) {
+        throw new IOException("Missing section in the recovery journal: " + key + ".");
+      }
+
+      sections.put(key, section);
+    }
+
+    final long cap = Slyum.getAutosaveJournalSize() * 1024L * 1024L;
+    if (continued && journalLength + changedLength <= cap) {
+      if (changed.isEmpty() && sections.keySet().equals(journalSections.keySet())) return;
+      appendCheckpoint(journal, sections, changed);
+    } else {
+      compact(journal, project, sections);
+    }
+
+    journalProject = project;
+    journalSections.clear();
+    journalSections.putAll(sections);
+  }
+
+  private void appendCheckpoint(File journal, Map<String, byte[]> sections, Set<String> changed) throws IOException {
+    final byte[] record = createCheckpoint(sections, changed);
+    try (FileOutputStream out = new FileOutputStream(journal, true)) {
+      out.write(record);
+      out.getFD().sync();
+    }
+    journalLength += record.length;
+  }
+
+  /**
+   * Replace the journal by a new one holding a single checkpoint with all the sections.
+   */
+  private void compact(File journal, File project, Map<String, byte[]> sections) throws IOException {
+    final File directory = getJournalDirectory();
+    if (!directory.isDirectory()) Files.createDirectories(directory.toPath());
+
+    final Path temp = Files.createTempFile(directory.toPath(), "journal", ".tmp");
+    try {
+      try (FileOutputStream fileStream = new FileOutputStream(temp.toFile());
+           DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileStream))) {
+        out.write(createHeader(project));
+        out.write(createCheckpoint(sections, sections.keySet()));
+        out.flush();
+        fileStream.getFD().sync();
+      }
+
+      try {
+        Files.move(temp, journal.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, journal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+
+    journalLength = journal.length();
+  }
+
+  /**
+   * Create the beginning of a journal: its format and the path of its project.
+   */
+  static byte[] createHeader(File project) throws IOException {
+    final ByteArrayOutputStream header = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(header);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeUTF(project.getAbsolutePath());
+    return header.toByteArray();
+  }
+
+  /**
+   * Create a checkpoint: the keys of all the sections, in the order of the project, with the content of the changed
+   * ones.
+   */
+  static byte[] createCheckpoint(Map<String, byte[]> sections, Set<String> changed) throws IOException {
+    final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(record);
+    out.writeInt(sections.size());
+    for (Map.Entry<String, byte[]> section : sections.entrySet()) {
+      final boolean included = changed.contains(section.getKey());
+      out.writeUTF(section.getKey());
+      out.writeBoolean(included);
+      if (included) {
+        out.writeInt(section.getValue().length);
+        out.write(section.getValue());
+      }
+    }
+
+    final CRC32 crc = new CRC32();
+    crc.update(record.toByteArray());
+
+    final ByteArrayOutputStream checkpoint = new ByteArrayOutputStream(record.size() + 9);
+    final DataOutputStream checkpointOut = new DataOutputStream(checkpoint);
+    checkpointOut.writeByte(CHECKPOINT);
+    record.writeTo(checkpointOut);
+    checkpointOut.writeLong(crc.getValue());
+    return checkpoint.toByteArray();
+  }
+
+}
@@ -0,0 +1,578 @@
+package swing;
+
+import change.Change;
+import classDiagram.ClassDiagram;
+import graphic.GraphicView;
+import graphic.export.ExportViewEps;
+import graphic.export.ExportViewImage;
+import graphic.export.ExportViewPdf;
+import graphic.export.ExportViewPng;
+import graphic.export.ExportViewSvg;
+import graphic.export.ExportViewVectorFile;
+import graphic.export.ExportViewsPdf;
+import utility.Utility;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports the views of projects from the command line, without opening any window:
+ * <pre>
+ * java -Djava.awt.headless=true -jar slyum.jar -export png,pdf [-views name,...] [-output dir] [-threads n]
+ *      [-scale s] [-merge] [-compact] a.sly ...
+ * </pre>
+ * The model and the views are singletons, and painting lays out Swing components, so the projects are created and
+ * their views painted one after the other on the EDT, an event per file. The rest runs on a pool of worker threads:
+ * the next files are read while a project is created, and the painted views are encoded, compressed and written while
+ * the next views are painted. The files found in the {@link ExportCache} are copied first: only the views with a
+ * missing file are materialized and painted, and released afterwards.
+ */
+public class BatchExporter {
+
+  public static final String ARGUMENT_EXPORT = "-export";
+  private static final String ARGUMENT_VIEWS = "-views";
+  private static final String ARGUMENT_OUTPUT = "-output";
+  private static final String ARGUMENT_THREADS = "-threads";
+  private static final String ARGUMENT_SCALE = "-scale";
+  private static final String ARGUMENT_MERGE = "-merge";
+  private static final String ARGUMENT_COMPACT = "-compact";
+
+  private static final double MAX_SCALE = 100;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final List<String> FORMATS = Arrays.asList("png", "jpg", "gif", "svg", "pdf", "eps");
+
+  public static final int EXIT_SUCCESS = 0;
+  public static final int EXIT_FAILURE = 1;
+  public static final int EXIT_USAGE = 2;
+
+  /**
+   * Entry point forcing the headless mode. {@link Slyum#main(String[])} also accepts the export arguments, the JVM
+   * must then be started headless to run without display.
+   *
+   * @param args the export arguments.
+   */
+  public static void main(final String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    Locale.setDefault(Locale.ENGLISH);
+    System.exit(run(args));
+  }
+
+  /**
+   * @param args the command line arguments.
+   *
+   * @return true if the arguments ask for a batch export.
+   */
+  public static boolean isRequested(final String[] args) {
+    return Arrays.asList(args).contains(ARGUMENT_EXPORT);
+  }
+
+  /**
+   * Export the projects given in the arguments.
+   *
+   * @param args the command line arguments.
+   *
+   * @return the exit status: {@link #EXIT_SUCCESS}, {@link #EXIT_FAILURE} if a file could not be exported, or
+   * {@link #EXIT_USAGE} if the arguments are invalid.
+   */
+  public static int run(final String[] args) {
+    final BatchExporter exporter = new BatchExporter();
+    try {
+      exporter.parseArguments(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      printUsage();
+      return EXIT_USAGE;
+    }
+
+    return exporter.exportAll() ? EXIT_SUCCESS : EXIT_FAILURE;
+  }
+
+  private static void printUsage() {
+    System.err.println(
+        "Usage: " + ARGUMENT_EXPORT + " <formats> [" + ARGUMENT_VIEWS + " <names>] [" + ARGUMENT_OUTPUT +
+        " <directory>] [" + ARGUMENT_THREADS + " <count>] [" + ARGUMENT_SCALE + " <factor>] [" + ARGUMENT_MERGE +
+        "] [" + ARGUMENT_COMPACT + "] <file" + Slyum.FULL_EXTENTION + ">...\n" +
+        "  formats    comma separated list of " + String.join(", ", FORMATS) + "\n" +
+        "  names      comma separated names of the views to export, all views by default\n" +
+        "  directory  where to write the files, next to each project by default\n" +
+        "  count      number of worker threads, one per core by default\n" +
+        "  factor     scale of the png pictures, 2 for 192 dpi, 1 by default\n" +
+        "  " + ARGUMENT_MERGE + "     export the views of a project in a single pdf file, a page per view\n" +
+        "  " + ARGUMENT_COMPACT + "   compact svg files, with the texts as texts, as set in the properties by default");
+  }
+
+  private static String getFileName(final String name) {
+    return name.trim().replaceAll("[^\\w.-]+", "_");
+  }
+
+  private static String getMessage(final Throwable throwable) {
+    final Throwable cause = throwable instanceof ExecutionException && throwable.getCause() != null ?
+        throwable.getCause() : throwable;
+    return cause.getLocalizedMessage() != null ? cause.getLocalizedMessage() : cause.toString();
+  }
+
+  private final Set<String> formats = new LinkedHashSet<>();
+  private final List<File> files = new ArrayList<>();
+  private Set<String> views = null;
+  private File output = null;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private double scale = 1.0;
+  private boolean merge = false;
+  private boolean compact = Slyum.isCompactSvgOnExport();
+
+  /**
+   * Written files, in the order of the exports. Only the oldest ones can still be running.
+   */
+  private final LinkedList<Future<File>> writes = new LinkedList<>();
+  private boolean success = true;
+
+  private BatchExporter() { }
+
+  private void parseArguments(final String[] args) {
+    for (int i = 0; i < args.length; ++i) {
+      switch (args[i]) {
+        case ARGUMENT_EXPORT:
+          for (String format : getValue(args, ++i).toLowerCase().split(","))
+            if (FORMATS.contains(format)) formats.add(format);
+            else throw new IllegalArgumentException("Unsupported format: " + format);
+          break;
+        case ARGUMENT_VIEWS:
+          views = new HashSet<>(Arrays.asList(getValue(args, ++i).split(",")));
+          break;
+        case ARGUMENT_OUTPUT:
+          output = new File(getValue(args, ++i));
+          if (!output.isDirectory() && !output.mkdirs())
+            throw new IllegalArgumentException("Unable to create the directory " + output + ".");
+          break;
+        case ARGUMENT_THREADS:
+          try {
+            threads = Integer.parseInt(getValue(args, ++i));
+          } catch (NumberFormatException e) {
+            threads = 0;
+          }
+          if (threads <= 0) throw new IllegalArgumentException("Invalid thread count: " + args[i]);
+          break;
+        case ARGUMENT_SCALE:
+          try {
+            scale = Double.parseDouble(getValue(args, ++i));
+          } catch (NumberFormatException e) {
+            scale = 0;
+          }
+          if (!(scale > 0 && scale <= MAX_SCALE)) throw new IllegalArgumentException("Invalid scale: " + args[i]);
+          break;
+        case ARGUMENT_MERGE:
+          merge = true;
+          break;
+        case ARGUMENT_COMPACT:
+          compact = true;
+          break;
+        default:
+          if (args[i].startsWith("-"))
+            throw new IllegalArgumentException("Unknown argument: " + args[i]);
+          files.add(new File(args[i]));
+      }
+    }
+
+    if (files.isEmpty()) throw new IllegalArgumentException("No file to export.");
+  }
+
+  private String getValue(final String[] args, final int index) {
+    if (index >= args.length)
+      throw new IllegalArgumentException("Missing value after " + args[index - 1] + ".");
+    return args[index];
+  }
+
+  private boolean exportAll() {
+    final ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "Slyum-export");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try {
+      final ClassDiagram classDiagram = Utility.onEdt(() -> {
+        Change.setBlocked(true);
+        return PanelClassDiagram.getInstance().getClassDiagram();
+      });
+
+      // The files are read ahead, at most one per worker thread.
+      final LinkedList<Future<XMLParser>> reads = new LinkedList<>();
+      int nextRead = 0;
+
+      for (final File file : files) {
+        while (nextRead < files.size() && reads.size() < threads) {
+          final File toRead = files.get(nextRead++);
+          reads.add(workers.submit(() -> {
+            final XMLParser handler = new XMLParser(classDiagram);
+            ProjectLoader.read(handler, toRead);
+            return handler;
+          }));
+        }
+
+        // The painted views are kept in memory until they are written, their number is bounded.
+        while (writes.size() > threads) awaitOldestWrite();
+
+        final Map<GraphicView, List<Target>> targets;
+        final Target merged;
+        try {
+          final XMLParser handler = reads.removeFirst().get();
+          final Map<GraphicView, String> created = Utility.onEdt(() -> create(file, handler));
+
+          // Separate event: the labels placed by a later event of the creation are now in place. The keys are computed
+          // from the saved content of the closed views.
+          targets = Utility.onEdt(() -> getTargets(created));
+          merged = merge && formats.contains("pdf") && !created.isEmpty() ?
+              Utility.onEdt(() -> getMergedTarget(file, created)) : null;
+        } catch (ExecutionException e) {
+          fail(file, e);
+          continue;
+        }
+
+        try {
+          // Only the views with a file missing from the cache are materialized and painted.
+          restore(workers, targets);
+          Utility.onEdt(() -> {
+            targets.keySet().forEach(GraphicView::materialize);
+            return null;
+          });
+
+          // Separate event, for the labels of the materialized views.
+          final List<Target> paintings = Utility.onEdt(() -> prepare(targets));
+
+          // Each file is painted by its own event, the painted files are written meanwhile.
+          for (Target target : paintings) {
+            try {
+              final Future<File> write = workers.submit(Utility.onEdt(target.painting));
+              writes.add(write);
+
+              // The bands of a png picture are painted by events posted from its writing thread, and compressed
+              // meanwhile. Painting lays the view out for its graphics: no other file is painted until the picture is
+              // written.
+              if (target.format.equals("png")) awaitWrite(write);
+            } catch (ExecutionException e) {
+              fail(file, e);
+            }
+          }
+
+          // The pages of the merged file are painted on the EDT, once the views are no longer painted elsewhere.
+          if (merged != null) {
+            try {
+              writes.add(workers.submit(workers.submit(merged.painting).get()));
+            } catch (ExecutionException e) {
+              fail(file, e);
+            }
+          }
+        } catch (ExecutionException e) {
+          fail(file, e);
+        } finally {
+          Utility.onEdt(() -> {
+            MultiViewManager.getAllGraphicViews().forEach(GraphicView::release);
+            return null;
+          });
+        }
+      }
+
+      while (!writes.isEmpty()) awaitOldestWrite();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      success = false;
+    } catch (ExecutionException e) {
+      System.err.println("Unable to initialize the export: " + getMessage(e));
+      success = false;
+    } finally {
+      workers.shutdownNow();
+    }
+
+    return success;
+  }
+
+  private static void awaitWrite(final Future<File> write) throws InterruptedException {
+    try {
+      write.get();
+    } catch (ExecutionException e) {
+      // Reported with the other writes.
+    }
+  }
+
+  private void awaitOldestWrite() throws InterruptedException {
+    try {
+      System.out.println(writes.removeFirst().get());
+    } catch (ExecutionException e) {
+      System.err.println("Unable to write a file: " + getMessage(e));
+      success = false;
+    }
+  }
+
+  private void fail(final File file, final Throwable throwable) {
+    System.err.println("Unable to export " + file + ": " + getMessage(throwable));
+    success = false;
+  }
+
+  /**
+   * EDT: create the project read by the handler, with the views to export.
+   *
+   * @return the views to export, with the path of their files without extension.
+   */
+  private Map<GraphicView, String> create(final File file, final XMLParser handler) throws Exception {
+    final PanelClassDiagram panel = PanelClassDiagram.getInstance();
+    panel.cleanApplication();
+
+    panel.setXmlImportation(true);
+    try {
+      handler.createDiagram();
+    } finally {
+      panel.setXmlImportation(false);
+    }
+
+    final String project = getOutputPath(file);
+    final Set<String> names = new HashSet<>();
+    final Set<String> found = new HashSet<>();
+    final Map<GraphicView, String> created = new LinkedHashMap<>();
+
+    int index = 0;
+    for (final GraphicView graphicView : MultiViewManager.getAllGraphicViews()) {
+      final String viewName = MultiViewManager.getViewName(graphicView);
+      ++index;
+
+      if (views != null && !views.contains(viewName)) continue;
+      found.add(viewName);
+
+      if (graphicView.isEmpty()) {
+        System.err.println(file + ": view \"" + viewName + "\" is empty, not exported.");
+        continue;
+      }
+
+      String name = getFileName(viewName);
+      if (name.isEmpty()) name = "view" + index;
+      if (!names.add(name)) name += "-" + index;
+
+      created.put(graphicView, project + "-" + name);
+    }
+
+    if (views != null)
+      for (String view : views)
+        if (!found.contains(view)) System.err.println(file + ": no view named \"" + view + "\".");
+
+    return created;
+  }
+
+  /**
+   * @return the path of the files exported from the given project, without the view name and the extension.
+   */
+  private String getOutputPath(final File file) {
+    final File directory = output != null ? output : file.getAbsoluteFile().getParentFile();
+    return new File(directory, file.getName().replaceFirst("\\." + Slyum.EXTENTION + "$", "")).getPath();
+  }
+
+  /**
+   * EDT: get the files of each view, with their key in the {@link ExportCache}. The views are not materialized.
+   *
+   * @return for each view, the files to export.
+   */
+  private Map<GraphicView, List<Target>> getTargets(final Map<GraphicView, String> created) {
+    final Map<GraphicView, List<Target>> targets = new LinkedHashMap<>();
+    final boolean merged = merge && formats.contains("pdf");
+
+    created.forEach((graphicView, path) -> {
+      final List<Target> files = new ArrayList<>();
+      for (final String format : formats) {
+        if (merged && format.equals("pdf")) continue;
+
+        final double pictureScale = format.equals("png") ? scale : 1.0;
+        final boolean compactSvg = format.equals("svg") && compact;
+        files.add(new Target(new File(path + "." + format), format, ExportCache.getKey(
+            format, ExportCache.getFingerprint(graphicView), pictureScale, compactSvg)));
+      }
+      targets.put(graphicView, files);
+    });
+
+    return targets;
+  }
+
+  /**
+   * EDT: get the pdf file of all the views, painted page by page on the EDT.
+   */
+  private Target getMergedTarget(final File file, final Map<GraphicView, String> created) {
+    final Map<GraphicView, String> titles = new LinkedHashMap<>();
+    for (GraphicView graphicView : created.keySet())
+      titles.put(graphicView, MultiViewManager.getViewName(graphicView));
+
+    final File pdf = new File(getOutputPath(file) + ".pdf");
+    final Target target = new Target(pdf, "pdf", PanelClassDiagram.getAllViewsKey(titles));
+    final ExportViewsPdf export = ExportViewsPdf.create(titles, pdf);
+    target.painting = cached(target.key, pdf, () -> {
+      export.write();
+      return () -> pdf;
+    });
+    return target;
+  }
+
+  /**
+   * Copy the cached files from the {@link ExportCache}, on the worker threads. The restored files and the views
+   * without any other file are removed from the targets.
+   */
+  private static void restore(final ExecutorService workers, final Map<GraphicView, List<Target>> targets)
+      throws InterruptedException {
+    final List<Future<Boolean>> restorations = new ArrayList<>();
+    targets.values().forEach(files -> files.forEach(
+        target -> restorations.add(workers.submit(() -> ExportCache.restore(target.key, target.file)))));
+
+    final Iterator<Future<Boolean>> restored = restorations.iterator();
+    for (List<Target> files : targets.values()) {
+      for (Iterator<Target> target = files.iterator(); target.hasNext(); ) {
+        final File cached = target.next().file;
+        try {
+          if (restored.next().get()) {
+            target.remove();
+            System.out.println(cached);
+          }
+        } catch (ExecutionException e) {
+          // Painted again.
+        }
+      }
+    }
+
+    targets.values().removeIf(List::isEmpty);
+  }
+
+  /**
+   * EDT: prepare the export of the views, once materialized. The exports take the settings now.
+   *
+   * @return the files to export, with the task painting each of them on the EDT. A painting returns the task writing
+   * its file on a worker thread.
+   */
+  private List<Target> prepare(final Map<GraphicView, List<Target>> targets) {
+    final List<Target> paintings = new ArrayList<>();
+
+    targets.forEach((graphicView, files) -> {
+      for (final Target target : files) {
+        target.painting = stored(target.key, prepareExport(graphicView, target.file, target.format));
+        paintings.add(target);
+      }
+    });
+
+    return paintings;
+  }
+
+  private Callable<Callable<File>> prepareExport(final GraphicView graphicView, final File file, final String format) {
+    switch (format) {
+      case "svg":
+        final ExportViewSvg svg =
+            ExportViewSvg.create(graphicView, file, graphicView.getTxtBoxDiagramName().isVisible(), compact);
+        return () -> {
+          final ExportViewSvg.Picture picture = svg.paint();
+          return () -> {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE)) {
+              picture.write(out);
+            }
+            return file;
+          };
+        };
+      case "pdf":
+        return prepare(ExportViewPdf.create(graphicView, file), file);
+      case "eps":
+        return prepare(ExportViewEps.create(graphicView, file), file);
+      case "png":
+        // The pictures are written one after the other, their bands are compressed in parallel.
+        final ExportViewPng png =
+            ExportViewPng.create(graphicView, file, graphicView.getTxtBoxDiagramName().isVisible(), scale, threads);
+        return () -> () -> {
+          png.write();
+          return file;
+        };
+      default:
+        final ExportViewImage export = ExportViewImage.create(graphicView, BufferedImage.TYPE_INT_RGB);
+
+        return () -> {
+          final BufferedImage image = export.export();
+          return () -> {
+            if (!ImageIO.write(image, format, file)) throw new IOException("No writer for " + format + ".");
+            return file;
+          };
+        };
+    }
+  }
+
+  /**
+   * Worker thread: copy the file from the {@link ExportCache} if the export is cached, otherwise paint and write it and
+   * keep it in the cache.
+   */
+  private static Callable<Callable<File>> cached(final String key, final File file,
+                                                 final Callable<Callable<File>> painting) {
+    return () -> {
+      if (ExportCache.restore(key, file)) return () -> file;
+      return stored(key, painting).call();
+    };
+  }
+
+  /**
+   * Paint and write the file, and keep it in the {@link ExportCache} once written.
+   */
+  private static Callable<Callable<File>> stored(final String key, final Callable<Callable<File>> painting) {
+    return () -> {
+      final Callable<File> write = painting.call();
+      return () -> {
+        final File written = write.call();
+        ExportCache.store(key, written);
+        return written;
+      };
+    };
+  }
+
+  /**
+   * The pdf and eps documents are painted in memory, then copied in their file.
+   */
+  private Callable<Callable<File>> prepare(final ExportViewVectorFile<?> export, final File file) {
+    return () -> {
+      final ByteArrayOutputStream document = new ByteArrayOutputStream();
+      export.write(document);
+      return () -> {
+        try (OutputStream out = new FileOutputStream(file)) {
+          document.writeTo(out);
+        }
+        return file;
+      };
+    };
+  }
+
+  /**
+   * A file to export, with its key in the {@link ExportCache}.
+   */
+  private static final class Target {
+    final File file;
+    final String format;
+    final String key;
+    Callable<Callable<File>> painting;
+
+    Target(final File file, final String format, final String key) {
+      this.file = file;
+      this.format = format;
+      this.key = key;
+    }
+  }
+
+}
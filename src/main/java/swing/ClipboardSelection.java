@@ -0,0 +1,172 @@
+package swing;
+
+import graphic.GraphicComponent;
+import graphic.GraphicView;
+import graphic.export.ExportViewSvg;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.batik.transcoder.image.ImageTranscoder;
+import org.w3c.dom.Document;
+
+import javax.imageio.ImageIO;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.awt.*;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * The selection of a view copied to the clipboard, as a picture (raster and PNG), as SVG (document and text) and as a
+ * Slyum document the selection can be read from.
+ * <p>
+ * The selection is painted in a SVG document on the EDT when it is copied, so it shows the view as it was. Each flavor
+ * is only written when an application asks for it: the SVG text is streamed from the document, the raster picture is
+ * rendered from the SVG text and the PNG is encoded from the picture.
+ */
+public class ClipboardSelection implements Transferable, ClipboardOwner {
+
+  /**
+   * A Slyum document with the copied components and the model elements they show.
+   */
+  public static final DataFlavor SLYUM_FLAVOR = createFlavor("application/x-slyum+xml;class=java.io.InputStream");
+
+  private static final DataFlavor SVG_FLAVOR = createFlavor("image/svg+xml;class=java.io.InputStream");
+  private static final DataFlavor PNG_FLAVOR = createFlavor("image/png;class=java.io.InputStream");
+
+  private static final DataFlavor[] FLAVORS = {
+      SLYUM_FLAVOR, PNG_FLAVOR, DataFlavor.imageFlavor, SVG_FLAVOR, DataFlavor.stringFlavor};
+
+  /**
+   * Copy the selected components of a view to the system clipboard. Nothing is copied if no component is selected.
+   *
+   * @param graphicView the view, on the EDT.
+   */
+  public static void copy(GraphicView graphicView) {
+    final LinkedList<GraphicComponent> selected = graphicView.getSelectedComponents();
+    if (selected.isEmpty()) return;
+
+    final ClipboardSelection selection = new ClipboardSelection(graphicView, selected);
+    Toolkit.getDefaultToolkit().getSystemClipboard().setContents(selection, selection);
+  }
+
+  private static DataFlavor createFlavor(String mimeType) {
+    try {
+      return new DataFlavor(mimeType);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final ExportViewSvg.Picture picture;
+  private final Document document;
+  private byte[] svg, png, xml;
+  private BufferedImage image;
+
+  private ClipboardSelection(GraphicView graphicView, LinkedList<GraphicComponent> selected) {
+    picture = ExportViewSvg.createSelection(graphicView, selected).paint();
+    document = XmlFactory.getSelectionDocument(graphicView, selected);
+  }
+
+  @Override
+  public DataFlavor[] getTransferDataFlavors() {
+    return FLAVORS.clone();
+  }
+
+  @Override
+  public boolean isDataFlavorSupported(DataFlavor flavor) {
+    return Arrays.asList(FLAVORS).contains(flavor);
+  }
+
+  @Override
+  public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+    if (SLYUM_FLAVOR.equals(flavor)) return new ByteArrayInputStream(getXml());
+    if (PNG_FLAVOR.equals(flavor)) return new ByteArrayInputStream(getPng());
+    if (DataFlavor.imageFlavor.equals(flavor)) return getImage();
+    if (SVG_FLAVOR.equals(flavor)) return new ByteArrayInputStream(getSvg());
+    if (DataFlavor.stringFlavor.equals(flavor)) return new String(getSvg(), StandardCharsets.UTF_8);
+    throw new UnsupportedFlavorException(flavor);
+  }
+
+  @Override
+  public void lostOwnership(Clipboard clipboard, Transferable contents) {
+    // Nothing is written in advance.
+  }
+
+  private synchronized byte[] getSvg() throws IOException {
+    if (svg == null) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      picture.write(out);
+      svg = out.toByteArray();
+    }
+    return svg;
+  }
+
+  private synchronized BufferedImage getImage() throws IOException {
+    if (image == null) {
+      final ImageTranscoder transcoder = new ImageTranscoder() {
+        @Override
+        public BufferedImage createImage(int width, int height) {
+          return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        @Override
+        public void writeImage(BufferedImage rendered, TranscoderOutput output) {
+          image = rendered;
+        }
+      };
+
+      // The document is not translated: the framed part of the view is rendered at the origin of the picture.
+      final Rectangle area = picture.getArea();
+      transcoder.addTranscodingHint(ImageTranscoder.KEY_AOI, area);
+      transcoder.addTranscodingHint(ImageTranscoder.KEY_WIDTH, (float) area.width);
+      transcoder.addTranscodingHint(ImageTranscoder.KEY_HEIGHT, (float) area.height);
+
+      try {
+        transcoder.transcode(new TranscoderInput(new ByteArrayInputStream(getSvg())), null);
+      } catch (TranscoderException e) {
+        throw new IOException("Unable to paint the selection.", e);
+      }
+    }
+    return image;
+  }
+
+  private synchronized byte[] getPng() throws IOException {
+    if (png == null) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ImageIO.write(getImage(), "png", out);
+      png = out.toByteArray();
+    }
+    return png;
+  }
+
+  private synchronized byte[] getXml() throws IOException {
+    if (xml == null) {
+      try {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        transformer.transform(new DOMSource(document), new StreamResult(out));
+        xml = out.toByteArray();
+      } catch (TransformerException e) {
+        throw new IOException("Unable to write the selection.", e);
+      }
+    }
+    return xml;
+  }
+
+}
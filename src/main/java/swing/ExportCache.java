@@ -0,0 +1,275 @@
+package swing;
+
+import change.Change;
+import change.ChangeTracker;
+import classDiagram.ClassDiagram;
+import classDiagram.IDiagramComponent;
+import graphic.GraphicView;
+import graphic.RenderContext;
+import graphic.entity.EntityView;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the exported files on disk, so exporting a view that did not change since a previous export is a copy.
+ * <p>
+ * A file is found by a key made of the fingerprint of the view, the format and the options of the export. The
+ * fingerprint is a hash of everything the picture depends on: the view with the geometry and the colors of its
+ * components, the model elements it displays and the settings of the painting. It combines a digest of the view and a
+ * digest of each element, kept until a {@link ChangeTracker} reports a change of this view or element. A closed view is
+ * fingerprinted from its saved content, without creating its components. The least recently used files are removed
+ * when the cache exceeds its size.
+ */
+public class ExportCache {
+
+  private static final String CACHE_DIRECTORY = "exports";
+  private static final String TEMP_EXTENSION = ".tmp";
+  private static final long MAX_SIZE = 128L * 1024 * 1024;
+
+  private static final ExportCache instance = new ExportCache();
+
+  /**
+   * Compute the fingerprint of the given view, open or closed. Must be called from the EDT.
+   *
+   * @param graphicView the view.
+   *
+   * @return the fingerprint of the view, in hexadecimal.
+   */
+  public static String getFingerprint(GraphicView graphicView) {
+    return instance._getFingerprint(graphicView);
+  }
+
+  /**
+   * Make the key of an export.
+   *
+   * @param format the format of the file.
+   * @param parts the fingerprints of the exported views and the options of the export.
+   *
+   * @return the key of the file in the cache.
+   */
+  public static String getKey(String format, Object... parts) {
+    return hash(format, parts) + "." + format;
+  }
+
+  /**
+   * Copy the cached file of the given key to the given file, from any thread.
+   *
+   * @param key the key of the export.
+   * @param file the file to write.
+   *
+   * @return true if the file has been written from the cache, false if the export is not cached.
+   */
+  public static boolean restore(String key, File file) {
+    return instance._restore(key, file);
+  }
+
+  /**
+   * Keep a copy of an exported file in the cache, from any thread. A failure is only logged.
+   *
+   * @param key the key of the export.
+   * @param file the exported file.
+   */
+  public static void store(String key, File file) {
+    instance._store(key, file);
+  }
+
+  private static String hash(String first, Object... others) {
+    final MessageDigest digest = ProjectCache.newDigest();
+    digest.update(first.getBytes(StandardCharsets.UTF_8));
+    for (Object other : others) {
+      digest.update((byte) 0);
+      digest.update(String.valueOf(other).getBytes(StandardCharsets.UTF_8));
+    }
+    return toHex(digest.digest());
+  }
+
+  private static String toHex(byte[] bytes) {
+    final StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes)
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    return hex.toString();
+  }
+
+  // Digests of the XML of the views and of the components of the class diagram, only used on the EDT. A digest is
+  // dropped when its view or component changes.
+  private ChangeTracker changeTracker;
+  private final Map<GraphicView, String> viewDigests = new WeakHashMap<>();
+  private final Map<IDiagramComponent, String> componentDigests = new WeakHashMap<>();
+
+  private ExportCache() { }
+
+  private File getDirectory() {
+    return new File(Slyum.getPathAppDir() + Slyum.FILE_SEPARATOR + CACHE_DIRECTORY);
+  }
+
+  private String _getFingerprint(GraphicView graphicView) {
+    // While the changes are blocked (loading, undo), they are not notified: the digests are not kept.
+    final boolean cached = !Change.isBlocked();
+    if (cached) dropChangedDigests();
+
+    final ClassDiagram classDiagram = graphicView.getClassDiagram();
+    final Set<IDiagramComponent> displayed = graphicView.displays(classDiagram.getComponents());
+    final ArrayList<String> digests = new ArrayList<>(displayed.size() + 2);
+    digests.add(getSettings(graphicView));
+    digests.add(getDigest(viewDigests, graphicView, cached, this::computeViewDigest));
+
+    // In the order of the class diagram, so the fingerprint does not depend on the order of the view.
+    for (IDiagramComponent component : classDiagram.getComponents())
+      if (displayed.contains(component))
+        digests.add(getDigest(componentDigests, component, cached, c -> computeDigest(c.getXmlElement(newDocument()))));
+
+    return hash("view", digests.toArray());
+  }
+
+  private void dropChangedDigests() {
+    if (changeTracker == null) changeTracker = new ChangeTracker();
+
+    final Set<Object> changes = changeTracker.takeChanges();
+    if (changes == null) {
+      viewDigests.clear();
+      componentDigests.clear();
+    } else {
+      for (Object changed : changes) {
+        viewDigests.remove(changed);
+        componentDigests.remove(changed);
+      }
+    }
+  }
+
+  private static <T> String getDigest(Map<T, String> digests, T key, boolean cached, Function<T, String> compute) {
+    String digest = cached ? digests.get(key) : null;
+    if (digest == null) {
+      digest = compute.apply(key);
+      if (cached) digests.put(key, digest);
+    }
+    return digest;
+  }
+
+  /**
+   * @return the settings the painting of the view depends on.
+   */
+  private String getSettings(GraphicView graphicView) {
+    final RenderContext context = RenderContext.picture(graphicView.getClassDiagram());
+    return String.join(
+        "\0",
+        MultiViewManager.getViewName(graphicView),
+        String.valueOf(graphicView.getTxtBoxDiagramName().isVisible()),
+        String.valueOf(context.getFont()),
+        String.valueOf(context.isTitleBorderPainted()),
+        context.getInformation(),
+        String.valueOf(GraphicView.isEntityGradient()),
+        String.valueOf(EntityView.getBasicColor()),
+        String.valueOf(Slyum.isShowIntersectionLine()),
+        String.valueOf(Slyum.getSizeIntersectionLine()));
+  }
+
+  /**
+   * Hash the XML of the view, read from its saved content if the view is closed.
+   */
+  private String computeViewDigest(GraphicView graphicView) {
+    // The state of the tab and the grid are not painted in the exports.
+    final Element view = graphicView.getXmlElement(newDocument());
+    view.removeAttribute("open");
+    view.removeAttribute("grid");
+    return computeDigest(view);
+  }
+
+  private static String computeDigest(Element element) {
+    if (element == null) return "";
+
+    final MessageDigest digest = ProjectCache.newDigest();
+    try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+      final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+      transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+      transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+      transformer.transform(new DOMSource(element), new StreamResult(out));
+    } catch (IOException | TransformerException e) {
+      throw new IllegalStateException("Unable to compute the fingerprint of the view.", e);
+    }
+
+    return toHex(digest.digest());
+  }
+
+  private static Document newDocument() {
+    return XmlFactory.createDocument();
+  }
+
+  private boolean _restore(String key, File file) {
+    final Path cached = new File(getDirectory(), key).toPath();
+    try {
+      Files.copy(cached, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+      return true;
+    } catch (IOException e) {
+      return false; // Not cached, or removed in the meantime.
+    }
+  }
+
+  private void _store(String key, File file) {
+    final File directory = getDirectory();
+    try {
+      Files.createDirectories(directory.toPath());
+
+      // Copied beside, then moved in place: a file in the cache is always complete.
+      final Path temp = Files.createTempFile(directory.toPath(), "export", TEMP_EXTENSION);
+      try {
+        Files.copy(file.toPath(), temp, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temp, new File(directory, key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+
+      evict(directory);
+    } catch (IOException e) {
+      Logger.getLogger(ExportCache.class.getName()).log(Level.WARNING, "Unable to cache the export.", e);
+    }
+  }
+
+  /**
+   * Remove the least recently used files until the cache fits in its size.
+   */
+  private synchronized void evict(File directory) {
+    final File[] files = directory.listFiles(file -> file.isFile() && !file.getName().endsWith(TEMP_EXTENSION));
+    if (files == null) return;
+
+    long size = 0;
+    for (File file : files)
+      size += file.length();
+    if (size <= MAX_SIZE) return;
+
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for (File file : files) {
+      if (size <= MAX_SIZE) break;
+      final long length = file.length();
+      if (file.delete()) size -= length;
+    }
+  }
+
+}
@@ -1,32 +1,19 @@
 package swing;
 
+import change.Change;
 import classDiagram.ClassDiagram;
 import classDiagram.components.Entity;
 import graphic.GraphicComponent;
 import graphic.GraphicView;
 import graphic.entity.EntityView;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.xml.sax.SAXException;
 import swing.dialog.DialogDeleteView;
 import swing.hierarchicalView.HierarchicalView;
 import utility.SMessageDialog;
-import utility.WatchDir;
 
 import javax.swing.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * @author David Miserez
@@ -36,6 +23,9 @@ public class MultiViewManager {
   // Static stuff
   private static MultiViewManager instance;
 
+  /** Delay (ms) before the views state is written, so several tab changes are grouped in one save. */
+  private static final int PERSIST_VIEWS_DELAY = 1000;
+
   public static void initialize(
       ClassDiagram classDiagram, HierarchicalView hierarchicalView) {
     instance = new MultiViewManager(classDiagram, hierarchicalView);
@@ -102,7 +92,7 @@ public class MultiViewManager {
     newGraphicView.notifyObservers();
 
     if (!isXmlImportation())
-      addNewViewInFile(newGraphicView);
+      persistViewsState(true);
 
     return newGraphicView;
   }
@@ -131,10 +121,11 @@ public class MultiViewManager {
       return null;
 
     if (!graphicView.isOpenInTab()) {
+      graphicView.materialize();
       STab.getInstance().openTab(graphicView);
 
       if (!isXmlImportation())
-        changeViewStatInFile(graphicView, true);
+        persistViewsState(false);
     }
 
     setSelectedGraphicView(graphicView);
@@ -159,9 +150,6 @@ public class MultiViewManager {
   }
 
   public static GraphicView closeView(GraphicView graphicView) {
-    if (!isXmlImportation())
-      changeViewStatInFile(graphicView, false);
-
     JTabbedPane pane = STab.getInstance();
     int selectedIndex = pane.getSelectedIndex();
     int index = pane.indexOfComponent(graphicView.getScrollPane());
@@ -170,6 +158,10 @@ public class MultiViewManager {
         selectedIndex == index ?
             index - (index == pane.getTabCount() - 1 ? 1 : 0) :
             (selectedIndex > index ? selectedIndex - 1 : selectedIndex));
+
+    if (!isXmlImportation())
+      persistViewsState(false);
+
     return graphicView;
   }
 
@@ -191,6 +183,9 @@ public class MultiViewManager {
       throw new IllegalArgumentException(
           "You cannot remove the main graphic view. ");
 
+    // The components only displayed in this view are removed with it.
+    graphicView.materialize();
+
     // Ask the user if he realy want to delete the view.
     if (!DialogDeleteView.show(
         graphicView.getName(),
@@ -202,8 +197,8 @@ public class MultiViewManager {
 
     cleanViewBeforeDelete(graphicView);
     instance.hierarchicalView.removeView(graphicView);
-    removeViewInFile(graphicView);
     instance.graphicViews.remove(graphicView);
+    persistViewsState(true);
   }
 
   private static String[] getArrayNameComponents(List<EntityView> components) {
@@ -243,81 +238,56 @@ public class MultiViewManager {
     }
   }
 
-  public static void changeViewStatInFile(GraphicView graphicView, boolean open) {
-    if (getCurrentFile() == null)
+  /**
+   * Persist the views state (opened, closed, added or removed views). The writes are delayed a little, so that several
+   * changes are written once.
+   * <p>
+   * Opening or closing a view patches the open attribute of the view in the project file (see
+   * {@link ProjectSaver#saveViewsState(File)}), even if the project has pending changes: they are not written, and the
+   * state survives if they are discarded. Adding or removing a view changes the structure of the project: the project
+   * is saved in background if it has no pending change, otherwise the views are written with the pending changes at
+   * the next save.
+   *
+   * @param structure true if a view has been added or removed.
+   */
+  private static void persistViewsState(boolean structure) {
+    if (PanelClassDiagram.getFileOpen() == null)
       return;
 
-    WatchDir.stopWatchingFile(getCurrentPath(), true);
-    try {
-
-      String strOpen = String.valueOf(open);
-      Document doc = getDocumentFromCurrentFile();
-
-      Node nodeUmlView = doc.getElementsByTagName("umlView").item(
-          instance.graphicViews.indexOf(graphicView));
-
-      // Update the open attribute of the umlView node.
-      Node openNode = nodeUmlView.getAttributes().getNamedItem("open");
-
-      if (openNode == null)
-        ((Element) nodeUmlView).setAttribute("open", strOpen);
-      else
-        openNode.setTextContent(strOpen);
-
-      saveDocumentInCurrentFile(doc);
-
-    } catch (TransformerException | ParserConfigurationException | SAXException | IOException ex) {
-      Logger.getLogger(PanelClassDiagram.class.getName()).log(Level.SEVERE, null, ex);
-    }
-    SwingUtilities.invokeLater(() -> WatchDir.stopWatchingFile(getCurrentPath(), false));
+    instance.viewsStructureChanged |= structure;
+    instance.persistViewsTimer.restart();
   }
 
-  private static Path getCurrentPath() {
-    return PanelClassDiagram.getInstance().getCurrentPath();
+  /**
+   * Write the views state now if it is waiting to be written. Called before leaving or closing the project.
+   */
+  public static void flushViewsState() {
+    if (instance.persistViewsTimer.isRunning()) {
+      instance.persistViewsTimer.stop();
+      saveViewsState();
+    }
   }
 
-  private static File getCurrentFile() {
-    return PanelClassDiagram.getInstance().getCurrentFile();
+  /**
+   * Forget the views state waiting to be written, when the project is saved with it.
+   */
+  public static void viewsStateSaved() {
+    instance.persistViewsTimer.stop();
+    instance.viewsStructureChanged = false;
   }
 
-  private static void removeViewInFile(GraphicView graphicView) {
-    if (getCurrentFile() == null)
-      return;
-    try {
-      int viewIndex = instance.graphicViews.indexOf(graphicView);
-      Document doc = getDocumentFromCurrentFile();
+  private static void saveViewsState() {
+    final File file = PanelClassDiagram.getFileOpen();
+    final boolean structure = instance.viewsStructureChanged;
+    instance.viewsStructureChanged = false;
 
-      doc.getFirstChild().removeChild(doc.getElementsByTagName("umlView").item(viewIndex));
-      saveDocumentInCurrentFile(doc);
-    } catch (ParserConfigurationException | SAXException | IOException | TransformerException ex) {
-      Logger.getLogger(PanelClassDiagram.class.getName()).log(Level.SEVERE, null, ex);
-    }
-  }
-
-  private static void addNewViewInFile(GraphicView graphicView) {
-    if (getCurrentFile() == null)
+    if (file == null || isXmlImportation())
       return;
-    try {
-      Document doc = getDocumentFromCurrentFile();
-
-      doc.getFirstChild().appendChild(graphicView.getXmlElement(doc));
-      saveDocumentInCurrentFile(doc);
-    } catch (ParserConfigurationException | SAXException | IOException | TransformerException ex) {
-      Logger.getLogger(PanelClassDiagram.class.getName()).log(Level.SEVERE, null, ex);
-    }
-  }
-
-  private static Document getDocumentFromCurrentFile()
-      throws ParserConfigurationException, SAXException, IOException {
-    String filepath = getCurrentFile().getAbsolutePath();
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-    return docBuilder.parse(filepath);
-  }
 
-  private static void saveDocumentInCurrentFile(Document doc)
-      throws TransformerConfigurationException, TransformerException {
-    PanelClassDiagram.saveDocumentInCurrentFile(doc, PanelClassDiagram.getFileOpen());
+    if (structure && !Change.hasChange())
+      ProjectSaver.save(XmlFactory.getDocument(), file, PanelClassDiagram.getInstance().isCompressedFile());
+    else
+      ProjectSaver.saveViewsState(file);
   }
 
   private static boolean isXmlImportation() {
@@ -327,6 +297,8 @@ public class MultiViewManager {
   private ClassDiagram classDiagram;
   private HierarchicalView hierarchicalView;
   private LinkedList<GraphicView> graphicViews = new LinkedList<>();
+  private Timer persistViewsTimer = new Timer(PERSIST_VIEWS_DELAY, e -> saveViewsState());
+  private boolean viewsStructureChanged = false;
 
   private MultiViewManager(
       ClassDiagram classDiagram, HierarchicalView hierarchicalView) {
@@ -336,6 +308,7 @@ public class MultiViewManager {
 
     this.classDiagram = classDiagram;
     this.hierarchicalView = hierarchicalView;
+    persistViewsTimer.setRepeats(false);
 
     STab.initialize(rootGraphicView);
   }
@@ -15,8 +15,9 @@ import graphic.entity.EntityView;
 import graphic.export.ExportViewEps;
 import graphic.export.ExportViewImage;
 import graphic.export.ExportViewPdf;
+import graphic.export.ExportViewPng;
 import graphic.export.ExportViewSvg;
-import org.w3c.dom.Document;
+import graphic.export.ExportViewsPdf;
 import org.xml.sax.SAXException;
 import swing.hierarchicalView.HierarchicalView;
 import swing.propretiesView.DiagramPropreties;
@@ -32,15 +33,6 @@ import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import java.awt.*;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
@@ -48,15 +40,23 @@ import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.image.BufferedImage;
-import java.awt.print.PrinterException;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -71,6 +71,12 @@ public class PanelClassDiagram extends JPanel {
 
   private static PanelClassDiagram instance = new PanelClassDiagram();
 
+  private static final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Slyum-export");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   public static void setCurrentDiagramName(String name) {
     getInstance().setDiagramName(name);
     getInstance().getClassDiagram().notifyObservers();
@@ -99,6 +105,7 @@ public class PanelClassDiagram extends JPanel {
 
   private ClassDiagram classDiagram;
   private File currentFile = null;
+  private boolean compressedFile = false;
   private boolean disabledUpdate = false;
   private WatchEvent.Kind<Path> fileChanged;
   private HierarchicalView hierarchicalView;
@@ -121,7 +128,10 @@ public class PanelClassDiagram extends JPanel {
 
       @Override
       public void fileModified() {
-        fileChanged = StandardWatchEventKinds.ENTRY_MODIFY;
+        // Our own saves are recognized by their content.
+        final Path path = getCurrentPath();
+        if (path != null && !ProjectSaver.isWrittenContent(path))
+          fileChanged = StandardWatchEventKinds.ENTRY_MODIFY;
       }
 
       @Override
@@ -219,6 +229,7 @@ public class PanelClassDiagram extends JPanel {
         break;
 
       case JOptionPane.NO_OPTION:
+        AutoSaver.discard(currentFile);
         break;
     }
 
@@ -236,6 +247,7 @@ public class PanelClassDiagram extends JPanel {
   }
 
   public void cleanApplication() {
+    MultiViewManager.flushViewsState();
     setDiagramName("");
     classDiagram.clean();
     DiagramPropreties.clearDiagramsInformation();
@@ -333,6 +345,63 @@ public class PanelClassDiagram extends JPanel {
     }
   }
 
+  /**
+   * Ask for a PDF file and export all the views of the project in it, a page per view.
+   */
+  public void exportAllViewsAsPdf() {
+    final JFileChooser fc = new JFileChooser(Slyum.getCurrentDirectoryFileChooser());
+    fc.setDialogTitle("Save all views as PDF");
+    fc.setAcceptAllFileFilterUsed(false);
+    fc.addChoosableFileFilter(createChoosableFileFilter("pdf"));
+
+    if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+    File file = fc.getSelectedFile();
+    if (Utility.getExtension(file) == null) file = new File(file.getPath() + ".pdf");
+
+    if (file.exists() &&
+        SMessageDialog.showQuestionMessageOkCancel(file + " already exists. Overwrite?") == JOptionPane.CANCEL_OPTION)
+      return;
+
+    exportAllViewsTo(file);
+  }
+
+  /**
+   * Export all the views of the project in the given PDF file, a page per view. The key of the export is computed from
+   * the saved content of the closed views, a closed view is only materialized to paint its page.
+   *
+   * @param file the PDF file.
+   */
+  public void exportAllViewsTo(final File file) {
+    final LinkedHashMap<GraphicView, String> views = new LinkedHashMap<>();
+    for (GraphicView graphicView : MultiViewManager.getAllGraphicViews())
+      views.put(graphicView, MultiViewManager.getViewName(graphicView));
+
+    final String key = getAllViewsKey(views);
+    final ExportViewsPdf export = ExportViewsPdf.create(views, file);
+    if (export.getPageCount() == 0) {
+      SMessageDialog.showErrorMessage("Class diagram is empty. Empty class diagramm can't be export.");
+      return;
+    }
+
+    // The pages are painted by events of the EDT, while the file is written from the export thread.
+    exportExecutor.execute(() -> {
+      if (!ExportCache.restore(key, file) && export.export() != null) ExportCache.store(key, file);
+    });
+  }
+
+  /**
+   * @return the key of the export of the given views, with their titles, in a single PDF file.
+   */
+  static String getAllViewsKey(final Map<GraphicView, String> views) {
+    final List<String> parts = new ArrayList<>();
+    views.forEach((graphicView, title) -> {
+      parts.add(ExportCache.getFingerprint(graphicView));
+      parts.add(title);
+    });
+    return ExportCache.getKey("pdf", parts.toArray());
+  }
+
   /**
    * Save a picture of the diagram in the given file.
    *
@@ -346,22 +415,30 @@ public class PanelClassDiagram extends JPanel {
                              JOptionPane.CANCEL_OPTION) return;
 
       GraphicView graphicView = MultiViewManager.getSelectedGraphicView();
+
+      // Nothing changed since this view has been exported in this format: copy the previous export.
+      final String key = ExportCache.getKey(extension, ExportCache.getFingerprint(graphicView), 1.0,
+                                            extension.equals("svg") && Slyum.isCompactSvgOnExport());
+      if (ExportCache.restore(key, file)) return;
+
+      boolean exported = false;
       switch (extension) {
         case "png":
-          ImageIO.write(ExportViewImage.create(graphicView).export(), extension, file);
-          break;
+          exportPngTo(graphicView, file, key);
+          return;
         case "jpg":
         case "gif":
-          ImageIO.write(ExportViewImage.create(graphicView, BufferedImage.TYPE_INT_RGB).export(), extension, file);
+          exported = ImageIO.write(
+              ExportViewImage.create(graphicView, BufferedImage.TYPE_INT_RGB).export(), extension, file);
           break;
         case "pdf":
-          ExportViewPdf.create(graphicView, file).export();
+          exported = ExportViewPdf.create(graphicView, file).export() != null;
           break;
         case "svg":
-          ExportViewSvg.create(graphicView, file).export();
+          exported = ExportViewSvg.create(graphicView, file).export() != null;
           break;
         case "eps":
-          ExportViewEps.create(graphicView, file).export();
+          exported = ExportViewEps.create(graphicView, file).export() != null;
           break;
         default:
           SMessageDialog.showErrorMessage(
@@ -369,11 +446,49 @@ public class PanelClassDiagram extends JPanel {
           break;
       }
 
+      if (exported) ExportCache.store(key, file);
+
     } catch (final Exception e) {
       SMessageDialog.showErrorMessage("Class diagram is empty. Empty class diagramm can't be export.");
     }
   }
 
+  /**
+   * Export the view in a PNG file from the export thread, with the progression in a dialog. The bands of the picture
+   * are painted by events of the EDT, and compressed and written by the export thread.
+   */
+  private void exportPngTo(final GraphicView graphicView, final File file, final String key) {
+    final ExportViewPng export = ExportViewPng.create(graphicView, file, graphicView.getTxtBoxDiagramName().isVisible(),
+                                                      1.0, Runtime.getRuntime().availableProcessors());
+    final AtomicReference<Future<?>> task = new AtomicReference<>();
+    final ProgressDialog dialog = new ProgressDialog("Slyum - Export", "Exporting " + file.getName() + "...",
+                                                     () -> task.get().cancel(true));
+
+    // Done once written, failed or cancelled, even before running.
+    final FutureTask<Void> writing = new FutureTask<Void>(() -> {
+      try {
+        export.write(progress -> SwingUtilities.invokeLater(() -> dialog.setProgress(progress)));
+        ExportCache.store(key, file);
+      } catch (InterruptedException | InterruptedIOException e) {
+        // Cancelled.
+        file.delete();
+      } catch (Exception e) {
+        Logger.getLogger(PanelClassDiagram.class.getName()).log(Level.SEVERE, null, e);
+        file.delete();
+        SwingUtilities.invokeLater(() -> SMessageDialog.showErrorMessage(e.getMessage()));
+      }
+    }, null) {
+      @Override
+      protected void done() {
+        SwingUtilities.invokeLater(dialog::dispose);
+      }
+    };
+
+    task.set(writing);
+    exportExecutor.execute(writing);
+    dialog.setVisible(true); // Blocks until the dialog is disposed, the bands are painted meanwhile.
+  }
+
   /**
    * Get the class diagram from project.
    *
@@ -392,10 +507,17 @@ public class PanelClassDiagram extends JPanel {
     return currentFile;
   }
 
+  /**
+   * @return true if the current file is saved in the compressed format.
+   */
+  public boolean isCompressedFile() {
+    return compressedFile;
+  }
+
   public void setCurrentFile(File file) {
     WatchDir.unregister(getCurrentPath());
     currentFile = file;
-    Slyum.getInstance().getMenuItemLocate().setEnabled(file != null);
+    if (Slyum.getInstance() != null) Slyum.getInstance().getMenuItemLocate().setEnabled(file != null);
 
     if (Slyum.isCleanAtOpeningEnable()) PanelClassDiagram.cleanComponents();
 
@@ -493,12 +615,17 @@ public class PanelClassDiagram extends JPanel {
     final JFileChooser fc = new JFileChooser(Slyum.getCurrentDirectoryFileChooser());
     fc.setAcceptAllFileFilterUsed(false);
 
-    fc.addChoosableFileFilter(new SlyFileChooser());
+    final SlyFileChooser plainFilter = new SlyFileChooser(false);
+    final SlyFileChooser compressedFilter = new SlyFileChooser(true);
+    fc.addChoosableFileFilter(plainFilter);
+    fc.addChoosableFileFilter(compressedFilter);
+    fc.setFileFilter(compressedFile ? compressedFilter : plainFilter);
 
     final int result = fc.showSaveDialog(this);
 
     if (result == JFileChooser.APPROVE_OPTION) {
       File file = fc.getSelectedFile();
+      final boolean compressed = fc.getFileFilter() == compressedFilter;
 
       String extension = Utility.getExtension(file);
 
@@ -520,6 +647,7 @@ public class PanelClassDiagram extends JPanel {
       }
 
       setCurrentFile(file);
+      compressedFile = compressed;
       return true;
     }
 
@@ -527,18 +655,10 @@ public class PanelClassDiagram extends JPanel {
   }
 
   /**
-   * http://www.javafaq.nu/java-bookpage-33-2.html
-   * <p>
-   * Launch a new printing.
+   * Launch a new printing of the selected view, in the background (see {@link SlyumPrinterJob}).
    */
   public void initPrinting() {
-    new Thread(new Runnable() {
-
-      @Override
-      public void run() {
-        print();
-      }
-    }).start();
+    SlyumPrinterJob.print(MultiViewManager.getSelectedGraphicView());
   }
 
   public boolean isDisabledUpdate() {
@@ -568,7 +688,6 @@ public class PanelClassDiagram extends JPanel {
 
   public void openFromXML(final File file) {
     final String extension = Utility.getExtension(file);
-    final SAXParserFactory factory = SAXParserFactory.newInstance();
 
     if (!file.exists()) {
       SMessageDialog.showErrorMessage("File not found. Please select an existing file...");
@@ -580,6 +699,24 @@ public class PanelClassDiagram extends JPanel {
       return;
     }
 
+    // An autosave more recent than the file remains from a crash.
+    File source = file;
+    if (AutoSaver.hasRecovery(file)) {
+      if (SMessageDialog.showQuestionMessageYesNo(
+          "An autosave of " + file.getName() + " more recent than the file exists.\nRecover it?") ==
+          JOptionPane.YES_OPTION) {
+        try {
+          source = AutoSaver.recover(file);
+        } catch (IOException e) {
+          Logger.getLogger(PanelClassDiagram.class.getName()).log(Level.SEVERE, "Unable to recover the project.", e);
+          SMessageDialog.showErrorMessage("Unable to recover the project.\nMessage : " + e.getLocalizedMessage());
+        }
+      } else {
+        AutoSaver.discard(file);
+      }
+    }
+    final boolean recovered = source != file;
+
     cleanApplication();
 
     final GraphicView rootGraphicView = MultiViewManager.getSelectedGraphicView();
@@ -591,11 +728,10 @@ public class PanelClassDiagram extends JPanel {
     setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
     setXmlImportation(true);
 
+    boolean cancelled = false;
     try {
-      SAXParser parser = factory.newSAXParser();
-      XMLParser handler = new XMLParser(classDiagram);
-      parser.parse(file, handler);
-      handler.createDiagram();
+      // A recovered project is loaded once, it has no snapshot.
+      cancelled = !ProjectLoader.load(new XMLParser(classDiagram), source, !recovered);
     } catch (SyntaxeNameException | IOException | ParserConfigurationException | SAXException e) {
       showErrorImportationMessage(e);
 
@@ -607,11 +743,19 @@ public class PanelClassDiagram extends JPanel {
     setXmlImportation(false);
 
     Change.setBlocked(isBlocked);
+    setCursor(null);
 
-    setCurrentFile(file);
-    Change.setHasChange(false);
+    if (cancelled) {
+      // Don't keep a partially created diagram.
+      cleanApplication();
+      Change.setHasChange(false);
+      return;
+    }
 
-    setCursor(null);
+    setCurrentFile(file);
+    compressedFile = ProjectLoader.isCompressed(file);
+    Change.setHasChange(recovered);
+    ProjectSaver.setViewsInFile(file, recovered ? null : MultiViewManager.getAllGraphicViews());
 
     RecentProjectManager.addhistoryEntry(file.getAbsolutePath());
 
@@ -644,7 +788,7 @@ public class PanelClassDiagram extends JPanel {
 
     final JFileChooser fc = new JFileChooser(Slyum.getCurrentDirectoryFileChooser());
     fc.setAcceptAllFileFilterUsed(false);
-    fc.addChoosableFileFilter(new SlyFileChooser());
+    fc.addChoosableFileFilter(new SlyFileChooser(false));
 
     final int result = fc.showOpenDialog(this);
     if (result == JFileChooser.APPROVE_OPTION) openFromXML(fc.getSelectedFile());
@@ -655,21 +799,6 @@ public class PanelClassDiagram extends JPanel {
     openFromXML(file);
   }
 
-  /**
-   * Print a picture of the diagram.
-   */
-  public void print() {
-    setCursor(new Cursor(Cursor.WAIT_CURSOR));
-    try {
-      if (SlyumPrinterJob.print(MultiViewManager.getSelectedGraphicView()))
-        SMessageDialog.showInformationMessage("Print completed successfully");
-    } catch (PrinterException ex) {
-      Logger.getLogger(PanelClassDiagram.class.getName()).log(Level.SEVERE, null, ex);
-      SMessageDialog.showInformationMessage("An error occurs while printing.");
-    }
-    setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
-  }
-
   public void saveSplitLocationInProperties() {
     Properties properties = PropertyLoader.getInstance().getProperties();
     float dividerLocationBottom, dividerLocationLeft;
@@ -693,44 +822,19 @@ public class PanelClassDiagram extends JPanel {
   public void saveToXML(boolean selectFile) {
     if (selectFile || currentFile == null || !currentFile.exists()) if (!initCurrentSaveFile()) return;
 
-    // Création et configuration du Transformer. Sauvegarde du fichier.
-    try {
-      PanelClassDiagram.saveDocumentInCurrentFile(XmlFactory.getDocument(), getCurrentFile());
-    } catch (TransformerException e) {
-      Logger.getGlobal().log(Level.SEVERE, "Unable to save file.", e);
-      SMessageDialog.showErrorMessage(e.getLocalizedMessage());
-    }
-    Change.setHasChange(false);
+    // The document is the snapshot of the project, the file is written in background. The project stays changed until
+    // the file is written, and after if it has been modified in the meantime.
+    final File file = getCurrentFile();
+    final long version = Change.getVersion();
+    MultiViewManager.viewsStateSaved();
+    ProjectSaver.save(XmlFactory.getDocument(), file, compressedFile, () -> {
+      if (Change.getVersion() != version || !file.equals(currentFile)) return;
+      Change.setHasChange(false);
+      AutoSaver.discard(file);
+    });
     RecentProjectManager.addhistoryEntry(currentFile.getAbsolutePath());
   }
 
-  public static void saveDocumentInCurrentFile(Document document, File currentFile) throws
-      TransformerConfigurationException, TransformerException {
-
-    Path currentPath = currentFile.toPath();
-
-    //WatchDir.stopWatchingFile(currentPath, true);
-    WatchDir.unregister(currentPath);
-
-    // write the content into xml file
-    TransformerFactory transformerFactory = TransformerFactory.newInstance();
-    Transformer transformer = transformerFactory.newTransformer();
-    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-    transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-    transformer.setOutputProperty(OutputKeys.ENCODING, "iso-8859-15");
-
-    DOMSource source = new DOMSource(document);
-    StreamResult result = new StreamResult(currentFile);
-    transformer.transform(source, result);
-
-    //SwingUtilities.invokeLater(() -> WatchDir.stopWatchingFile(currentPath, false));
-    try {
-      WatchDir.register(currentPath, getInstance().watchFileListener);
-    } catch (IOException ioe) {
-      Logger.getLogger(PanelClassDiagram.class.getName()).log(Level.SEVERE, "Unable to register file", ioe);
-    }
-  }
-
   public HierarchicalView getHierarchicalView() {
     return hierarchicalView;
   }
@@ -836,13 +940,20 @@ public class PanelClassDiagram extends JPanel {
   }
 
   /**
-   * Use for choosing a .sly file.
+   * Use for choosing a .sly file. Both formats use the same extension, the compressed one is only distinguished when
+   * saving.
    *
    * @author David Miserez
    * @date 6 déc. 2011
    */
   private class SlyFileChooser extends FileFilter {
 
+    private final boolean compressed;
+
+    SlyFileChooser(boolean compressed) {
+      this.compressed = compressed;
+    }
+
     @Override
     public boolean accept(File f) {
       if (f.isDirectory()) return true;
@@ -856,7 +967,8 @@ public class PanelClassDiagram extends JPanel {
 
     @Override
     public String getDescription() {
-      return "Fichiers " + Slyum.EXTENTION.toUpperCase() + " (*." + Slyum.EXTENTION + ")";
+      return "Fichiers " + Slyum.EXTENTION.toUpperCase() + (compressed ? " compressés" : "") +
+             " (*." + Slyum.EXTENTION + ")";
     }
 
   }
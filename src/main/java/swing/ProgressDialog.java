@@ -0,0 +1,67 @@
+package swing;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+/**
+ * Modal dialog displaying the progression of a long operation, with a button to cancel it.
+ */
+public class ProgressDialog extends JDialog {
+
+  private static final long serialVersionUID = -4518229672931855013L;
+
+  private static final int PRECISION = 1000;
+
+  private final JLabel lblMessage;
+  private final JProgressBar progressBar = new JProgressBar(0, PRECISION);
+  private final JButton btnCancel = new JButton("Cancel");
+
+  /**
+   * Create the dialog. It is displayed with setVisible(true), which blocks until the dialog is disposed.
+   *
+   * @param title the title of the dialog.
+   * @param message the message displayed above the progress bar.
+   * @param cancelAction the action executed when the user cancels the operation.
+   */
+  public ProgressDialog(String title, String message, final Runnable cancelAction) {
+    super(Slyum.getInstance(), title, true);
+
+    lblMessage = new JLabel(message);
+    progressBar.setStringPainted(true);
+    progressBar.setPreferredSize(new Dimension(350, 20));
+
+    btnCancel.addActionListener(e -> {
+      btnCancel.setEnabled(false);
+      lblMessage.setText("Cancelling...");
+      cancelAction.run();
+    });
+
+    JPanel buttonPane = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    buttonPane.add(btnCancel);
+
+    JPanel contentPanel = new JPanel(new BorderLayout(0, 5));
+    contentPanel.setBorder(new EmptyBorder(10, 10, 5, 10));
+    contentPanel.add(lblMessage, BorderLayout.NORTH);
+    contentPanel.add(progressBar, BorderLayout.CENTER);
+    contentPanel.add(buttonPane, BorderLayout.SOUTH);
+
+    setContentPane(contentPanel);
+    setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+    setResizable(false);
+    pack();
+    setLocationRelativeTo(Slyum.getInstance());
+  }
+
+  /**
+   * @param progress the progression, between 0 and 1.
+   */
+  public void setProgress(double progress) {
+    progressBar.setValue((int) (Math.max(0.0, Math.min(1.0, progress)) * PRECISION));
+  }
+
+  public void setMessage(String message) {
+    if (btnCancel.isEnabled()) lblMessage.setText(message);
+  }
+
+}
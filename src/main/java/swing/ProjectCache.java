@@ -0,0 +1,416 @@
+package swing;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary snapshots of the recently opened projects, stored in the application directory.
+ * <p>
+ * A snapshot holds the records decoded by the {@link XMLParser} from the project file: the model elements, the
+ * geometry of the views and the content of the closed views. It is written once the file has been parsed and read
+ * back the next time the project is opened, without decoding, decompressing nor parsing the XML.
+ * <p>
+ * The project file stays the source of truth: a snapshot is only used if the path, the size, the modification date and
+ * the SHA-256 of the file still match the ones recorded with it. The size and the date reject most outdated snapshots
+ * without reading the file; the hash is always compared, as a file can change without changing its size and date (a
+ * change in the same tick of the file system clock, a date restored by a copy or a version control tool).
+ * <p>
+ * The snapshot holds the values read in the file, not the values resolved when the diagram is created: a value
+ * missing from the file, as a default taken from the preferences, stays missing in the snapshot.
+ */
+public class ProjectCache {
+
+  private static final String CACHE_DIRECTORY = "cache";
+  private static final String CACHE_EXTENSION = ".slyc";
+  private static final int MAGIC = 0x534c5943; // "SLYC"
+  private static final int VERSION = 4;
+  private static final int HASH_LENGTH = 32;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Check if a valid snapshot of the given project exists. Reads the header of the snapshot, and the project file if
+   * its size and modification date match the snapshot.
+   *
+   * @param project the project file.
+   *
+   * @return true if the snapshot can be used instead of the file.
+   */
+  public static boolean isValid(File project) {
+    final File cache = getCacheFile(project);
+    if (!cache.isFile()) return false;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+      return readHeader(in, project);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Read the snapshot of the given project in the parser, as if it had parsed the project file. A snapshot that cannot
+   * be read is deleted, the project file will be parsed the next time.
+   *
+   * @param project the project file.
+   * @param parser the parser receiving the records.
+   * @param progress receives the progression of the reading, between 0 and 1.
+   * @param cancelled stops the reading when it returns true.
+   */
+  public static void load(File project, XMLParser parser, DoubleConsumer progress, BooleanSupplier cancelled)
+      throws IOException {
+    final File cache = getCacheFile(project);
+    boolean loaded = false;
+
+    try (Input in = new Input(new ProgressInputStream(new FileInputStream(cache), cache.length(), progress,
+                                                      cancelled))) {
+      if (!readHeader(in, project)) throw new IOException("Invalid project snapshot.");
+
+      parser.readSnapshot(in);
+      if (in.readInt() != MAGIC) throw new IOException("Corrupted project snapshot.");
+      loaded = true;
+    } catch (EOFException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new IOException("Corrupted project snapshot.", e);
+    } finally {
+      if (!loaded && !cancelled.getAsBoolean()) cache.delete();
+    }
+  }
+
+  /**
+   * Start the recording of a snapshot of the given project. The raw content of the project file must be read through
+   * {@link Recorder#digest(InputStream)}.
+   *
+   * @param project the project file.
+   *
+   * @return the recorder, to commit once the file has been parsed.
+   */
+  public static Recorder record(File project) {
+    return new Recorder(project);
+  }
+
+  private static File getCacheDirectory() {
+    return new File(Slyum.getPathAppDir() + Slyum.FILE_SEPARATOR + CACHE_DIRECTORY);
+  }
+
+  private static File getCacheFile(File project) {
+    final String path = project.getAbsolutePath();
+    final String name = UUID.nameUUIDFromBytes(path.getBytes(StandardCharsets.UTF_8)).toString();
+    return new File(getCacheDirectory(), name + CACHE_EXTENSION);
+  }
+
+  private static boolean readHeader(DataInputStream in, File project) throws IOException {
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+
+    final long size = in.readLong(), lastModified = in.readLong();
+    final byte[] recorded = new byte[HASH_LENGTH];
+    in.readFully(recorded);
+
+    return in.readUTF().equals(project.getAbsolutePath()) && size == project.length() &&
+           lastModified == project.lastModified() && Arrays.equals(recorded, hash(project));
+  }
+
+  /**
+   * @return the SHA-256 of the content of the given file.
+   */
+  static byte[] hash(File project) throws IOException {
+    try (InputStream in = new DigestInputStream(new FileInputStream(project), newDigest())) {
+      final byte[] chunk = new byte[BUFFER_SIZE];
+      while (in.read(chunk) >= 0) {
+        /* Only hashed. */
+      }
+      return ((DigestInputStream) in).getMessageDigest().digest();
+    }
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // Every JVM must support SHA-256.
+    }
+  }
+
+  /**
+   * Keep only the snapshots of the most recent projects.
+   */
+  private static void prune() {
+    final File[] snapshots = getCacheDirectory().listFiles((dir, name) -> name.endsWith(CACHE_EXTENSION));
+    if (snapshots == null || snapshots.length <= RecentProjectManager.HISTORY_SIZE) return;
+
+    Arrays.sort(snapshots, Comparator.comparingLong(File::lastModified).reversed());
+    for (int i = RecentProjectManager.HISTORY_SIZE; i < snapshots.length; i++)
+      snapshots[i].delete();
+  }
+
+  /**
+   * Hashes the project file while it is parsed, then writes the records of the parser in the snapshot of the project.
+   */
+  public static class Recorder {
+
+    private final File project;
+    private final long size, lastModified;
+    private final MessageDigest digest = newDigest();
+
+    private Recorder(File project) {
+      this.project = project;
+
+      // Taken before reading: if the file changes in the meantime, the snapshot will not match it.
+      size = project.length();
+      lastModified = project.lastModified();
+    }
+
+    /**
+     * @param in the raw content of the project file.
+     *
+     * @return the same content, hashed while it is read.
+     */
+    public InputStream digest(InputStream in) {
+      return new DigestInputStream(in, digest);
+    }
+
+    /**
+     * Write the records of the parser as the snapshot of the project. Must be called once the whole file has been
+     * parsed, before the diagram is created. If the snapshot cannot be written, the project is simply parsed again
+     * the next time.
+     *
+     * @param parser the parser that read the project file.
+     */
+    public void commit(XMLParser parser) {
+      Path temp = null;
+      try {
+        final File directory = getCacheDirectory();
+        if (!directory.isDirectory()) Files.createDirectories(directory.toPath());
+
+        temp = Files.createTempFile(directory.toPath(), "snapshot", ".tmp");
+        try (Output out = new Output(Files.newOutputStream(temp))) {
+          out.writeInt(MAGIC);
+          out.writeInt(VERSION);
+          out.writeLong(size);
+          out.writeLong(lastModified);
+          out.write(digest.digest());
+          out.writeUTF(project.getAbsolutePath());
+
+          parser.writeSnapshot(out);
+          out.writeInt(MAGIC);
+        }
+
+        final Path target = getCacheFile(project).toPath();
+        try {
+          Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        prune();
+      } catch (IOException e) {
+        Logger.getLogger(ProjectCache.class.getName()).log(Level.WARNING, "Unable to write project snapshot.", e);
+        try {
+          if (temp != null) Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+          /* Do nothing, the temporary file will be overwritten later. */
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the records of a snapshot. The numbers are written in a variable length, the strings in UTF-8 and the
+   * names (tags, attributes, enum constants) once, then referenced by their index.
+   */
+  static class Output extends DataOutputStream {
+
+    private final HashMap<String, Integer> names = new HashMap<>();
+
+    Output(OutputStream out) {
+      super(new BufferedOutputStream(out, BUFFER_SIZE));
+    }
+
+    void writeNumber(int value) throws IOException {
+      int zigzag = (value << 1) ^ (value >> 31);
+      while ((zigzag & ~0x7f) != 0) {
+        writeByte((zigzag & 0x7f) | 0x80);
+        zigzag >>>= 7;
+      }
+      writeByte(zigzag);
+    }
+
+    /**
+     * @param value the string to write, can be null.
+     */
+    void writeString(String value) throws IOException {
+      if (value == null) {
+        writeNumber(-1);
+        return;
+      }
+
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeNumber(bytes.length);
+      write(bytes);
+    }
+
+    void writeName(String name) throws IOException {
+      final Integer index = names.get(name);
+      if (index != null) {
+        writeNumber(index);
+      } else {
+        writeNumber(names.size());
+        names.put(name, names.size());
+        writeString(name);
+      }
+    }
+
+    /**
+     * @param value the value to write, can be null.
+     */
+    void writeOptionalBoolean(Boolean value) throws IOException {
+      writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    /**
+     * @param value the constant to write, can be null.
+     */
+    void writeEnum(Enum<?> value) throws IOException {
+      writeName(value == null ? "" : value.name());
+    }
+
+    void writeRectangle(Rectangle rectangle) throws IOException {
+      writeNumber(rectangle.x);
+      writeNumber(rectangle.y);
+      writeNumber(rectangle.width);
+      writeNumber(rectangle.height);
+    }
+
+    void writePoint(Point point) throws IOException {
+      writeNumber(point.x);
+      writeNumber(point.y);
+    }
+  }
+
+  /**
+   * Reads the records written by an {@link Output}.
+   */
+  static class Input extends DataInputStream {
+
+    private final ArrayList<String> names = new ArrayList<>();
+
+    Input(InputStream in) {
+      super(new BufferedInputStream(in, BUFFER_SIZE));
+    }
+
+    int readNumber() throws IOException {
+      int zigzag = 0;
+      for (int shift = 0; ; shift += 7) {
+        final byte b = readByte();
+        zigzag |= (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) return (zigzag >>> 1) ^ -(zigzag & 1);
+      }
+    }
+
+    String readString() throws IOException {
+      final int length = readNumber();
+      if (length < 0) return null;
+
+      final byte[] bytes = new byte[length];
+      readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    String readName() throws IOException {
+      final int index = readNumber();
+      if (index < names.size()) return names.get(index);
+
+      final String name = readString();
+      names.add(name);
+      return name;
+    }
+
+    Boolean readOptionalBoolean() throws IOException {
+      final byte value = readByte();
+      return value < 0 ? null : value != 0;
+    }
+
+    <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+      final String name = readName();
+      return name.isEmpty() ? null : Enum.valueOf(type, name);
+    }
+
+    Rectangle readRectangle() throws IOException {
+      return new Rectangle(readNumber(), readNumber(), readNumber(), readNumber());
+    }
+
+    Point readPoint() throws IOException {
+      return new Point(readNumber(), readNumber());
+    }
+  }
+
+  /**
+   * Reports the progression of the reading and stops it when the loading is cancelled.
+   */
+  private static class ProgressInputStream extends FilterInputStream {
+
+    private static final int PROGRESS_STEP = 64 * 1024;
+
+    private final long length;
+    private final DoubleConsumer progress;
+    private final BooleanSupplier cancelled;
+    private long bytesRead, nextProgress;
+
+    ProgressInputStream(InputStream in, long length, DoubleConsumer progress, BooleanSupplier cancelled) {
+      super(in);
+      this.length = Math.max(1, length);
+      this.progress = progress;
+      this.cancelled = cancelled;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = super.read();
+      if (b >= 0) count(1);
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int count = super.read(b, off, len);
+      if (count > 0) count(count);
+      return count;
+    }
+
+    private void count(int count) throws InterruptedIOException {
+      bytesRead += count;
+      if (bytesRead < nextProgress) return;
+
+      if (cancelled.getAsBoolean()) throw new InterruptedIOException("Loading cancelled.");
+      progress.accept((double) bytesRead / length);
+      nextProgress = bytesRead + PROGRESS_STEP;
+    }
+  }
+
+}
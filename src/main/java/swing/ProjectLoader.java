@@ -0,0 +1,264 @@
+package swing;
+
+import classDiagram.verifyName.SyntaxeNameException;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.swing.*;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads a project in two phases. The file is parsed on a worker thread, then the diagram and its views are built on
+ * the EDT in time slices, so the interface keeps painting. A modal dialog reports the progression and lets the user
+ * cancel the loading.
+ */
+public class ProjectLoader {
+
+  /**
+   * Maximum time spent building the diagram before giving the hand back to the EDT.
+   */
+  private static final long SLICE_DURATION = TimeUnit.MILLISECONDS.toNanos(30);
+  private static final int TICK_DELAY = 10;
+
+  /**
+   * Part of the progress bar used by the parsing, the rest is used by the creation of the diagram.
+   */
+  private static final double PARSING_PART = 0.5;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Parse the file with the given handler and create the diagram. Must be called from the EDT. The method returns
+   * once the loading is over; events are dispatched in the meantime.
+   *
+   * @param handler the parser creating the diagram.
+   * @param file the file to load.
+   *
+   * @return true if the diagram has been created, false if the user cancelled the loading. In that case the diagram
+   * can be partially created.
+   */
+  public static boolean load(XMLParser handler, File file)
+      throws IOException, SAXException, ParserConfigurationException, SyntaxeNameException {
+    return load(handler, file, true);
+  }
+
+  /**
+   * Same as {@link #load(XMLParser, File)}.
+   *
+   * @param cached false to always parse the file, without reading nor recording its snapshot.
+   */
+  public static boolean load(XMLParser handler, File file, boolean cached)
+      throws IOException, SAXException, ParserConfigurationException, SyntaxeNameException {
+    return new ProjectLoader(handler, file, cached).run();
+  }
+
+  /**
+   * Read the file in the given handler on the calling thread, from its snapshot if it is valid. Nothing is created in
+   * the diagram, {@link XMLParser#createDiagram()} must be called on the EDT afterwards. Several files can be read at
+   * the same time, each one with its own handler.
+   *
+   * @param handler the parser storing the content of the file.
+   * @param file the file to read.
+   */
+  public static void read(XMLParser handler, File file)
+      throws IOException, SAXException, ParserConfigurationException {
+    if (ProjectCache.isValid(file)) {
+      ProjectCache.load(file, handler, progress -> { }, () -> false);
+      return;
+    }
+
+    try (InputStream in = openProjectContent(new FileInputStream(file))) {
+      InputSource source = new InputSource(in);
+      source.setSystemId(file.toURI().toString());
+      SAXParserFactory.newInstance().newSAXParser().parse(source, handler);
+    }
+  }
+
+  /**
+   * Check if the given project file is written in the compressed format.
+   *
+   * @param file the project file.
+   *
+   * @return true if the file is a gzip stream.
+   */
+  public static boolean isCompressed(File file) {
+    try (InputStream in = new FileInputStream(file)) {
+      return isGzip(in);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Open the XML content of a project, compressed or not.
+   *
+   * @param in the raw content of the project file.
+   *
+   * @return a stream on the XML content.
+   */
+  public static InputStream openProjectContent(InputStream in) throws IOException {
+    final BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+    buffered.mark(2);
+    final boolean gzip = isGzip(buffered);
+    buffered.reset();
+
+    return gzip ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+  }
+
+  private static boolean isGzip(InputStream in) throws IOException {
+    return in.read() == (GZIPInputStream.GZIP_MAGIC & 0xff) && in.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+  }
+
+  private final XMLParser handler;
+  private final File file;
+  private final boolean cached;
+  private final ProgressDialog dialog;
+  private final Timer ticker = new Timer(TICK_DELAY, e -> tick());
+
+  private volatile boolean cancelled = false;
+  private volatile boolean parsed = false;
+  private volatile double readProgress = 0;
+  private volatile Exception failure;
+  private boolean building = false;
+
+  private ProjectLoader(XMLParser handler, File file, boolean cached) {
+    this.handler = handler;
+    this.file = file;
+    this.cached = cached;
+    dialog = new ProgressDialog("Slyum - Opening", "Reading " + file.getName() + "...", () -> cancelled = true);
+  }
+
+  private boolean run() throws IOException, SAXException, ParserConfigurationException, SyntaxeNameException {
+    Thread worker = new Thread(this::parse, "Slyum-load");
+    worker.setDaemon(true);
+    worker.start();
+
+    ticker.start();
+    dialog.setVisible(true); // Blocks until the dialog is disposed by finish().
+
+    if (failure instanceof IOException) throw (IOException) failure;
+    if (failure instanceof SAXException) throw (SAXException) failure;
+    if (failure instanceof ParserConfigurationException) throw (ParserConfigurationException) failure;
+    if (failure instanceof SyntaxeNameException) throw (SyntaxeNameException) failure;
+    if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+
+    return !cancelled;
+  }
+
+  /**
+   * Worker thread: read the file. The handler only stores the content, nothing is created in the diagram yet.
+   */
+  private void parse() {
+    if (cached && ProjectCache.isValid(file)) loadSnapshot();
+    else parseFile();
+  }
+
+  /**
+   * Parse the project file, and record its snapshot for the next time.
+   */
+  private void parseFile() {
+    final ProjectCache.Recorder recorder = cached ? ProjectCache.record(file) : null;
+
+    // The progression is counted on the bytes of the file, before decompression.
+    try (InputStream raw = new FileInputStream(file);
+         InputStream in = openProjectContent(new ProgressInputStream(recorder != null ? recorder.digest(raw) : raw))) {
+      InputSource source = new InputSource(in);
+      source.setSystemId(file.toURI().toString());
+      SAXParserFactory.newInstance().newSAXParser().parse(source, handler);
+      if (recorder != null) recorder.commit(handler);
+      parsed = true;
+    } catch (IOException | SAXException | ParserConfigurationException | RuntimeException e) {
+      if (!cancelled) failure = e;
+    }
+  }
+
+  /**
+   * Read the project from its snapshot instead of parsing the file.
+   */
+  private void loadSnapshot() {
+    try {
+      ProjectCache.load(file, handler, progress -> readProgress = progress, () -> cancelled);
+      parsed = true;
+    } catch (IOException | RuntimeException e) {
+      if (!cancelled) failure = e;
+    }
+  }
+
+  /**
+   * EDT: follow the parsing, then create the diagram slice by slice.
+   */
+  private void tick() {
+    if (cancelled || failure != null) {
+      finish();
+      return;
+    }
+
+    if (!building) {
+      dialog.setProgress(PARSING_PART * readProgress);
+
+      if (!parsed) return;
+
+      building = true;
+      dialog.setMessage("Creating diagram...");
+      handler.prepareDiagram();
+    }
+
+    try {
+      boolean done = handler.runNextSteps(SLICE_DURATION);
+      dialog.setProgress(PARSING_PART + (1.0 - PARSING_PART) * handler.getCreationProgress());
+
+      if (done) finish();
+    } catch (SyntaxeNameException | SAXException | RuntimeException e) {
+      failure = e;
+      finish();
+    }
+  }
+
+  private void finish() {
+    ticker.stop();
+    dialog.dispose();
+  }
+
+  /**
+   * Counts the bytes read for the progression and stops the parsing when the loading is cancelled.
+   */
+  private class ProgressInputStream extends FilterInputStream {
+
+    private final long length = Math.max(1, file.length());
+    private long bytesRead = 0;
+
+    ProgressInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      checkCancelled();
+      int b = super.read();
+      if (b >= 0) readProgress = (double) ++bytesRead / length;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      checkCancelled();
+      int count = super.read(b, off, len);
+      if (count > 0) readProgress = (double) (bytesRead += count) / length;
+      return count;
+    }
+
+    private void checkCancelled() throws InterruptedIOException {
+      if (cancelled) throw new InterruptedIOException("Loading cancelled.");
+    }
+  }
+
+}
@@ -0,0 +1,502 @@
+package swing;
+
+import change.Change;
+import graphic.GraphicView;
+import org.w3c.dom.Document;
+import utility.SMessageDialog;
+
+import javax.swing.*;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.DigestOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes projects to disk on a background thread.
+ * <p>
+ * The caller builds the XML document on the EDT (this is the consistent snapshot of the model and the views), the
+ * serialization happens on a worker thread into a temporary file which is synced and then atomically moved over the
+ * project file. A crash during the write therefore never leaves a half written project behind. If several saves are
+ * requested while a write is running, only the most recent snapshot is written.
+ * <p>
+ * A project can be written compressed: the same XML, not indented, in a gzip stream. {@link ProjectLoader} detects the
+ * format when reading.
+ * <p>
+ * The SHA-256 of the output is computed while it is written. If the project file already has this content, it is left
+ * untouched. The hash of the last content written in each file is kept, so that the file watcher can tell our own
+ * writes from the modifications of other programs.
+ * <p>
+ * The open state of the views can be written alone, as a patch of the open attributes of the views in the file: the
+ * rest of the file keeps its content, even if the project has changes not saved yet. The views written in each file
+ * are remembered to find the element of each view; a patch older than the last write of the file is dropped.
+ */
+public class ProjectSaver {
+
+  private static final ProjectSaver instance = new ProjectSaver();
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final byte[] UML_VIEW_TAG = "<umlView".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] OPEN_ATTRIBUTE = "open".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * SHA-256 of the last content written in each file.
+   */
+  private static final ConcurrentHashMap<Path, byte[]> writtenContents = new ConcurrentHashMap<>();
+
+  /**
+   * Queue the given document to be written in the given file. Must be called from the EDT.
+   *
+   * @param document the snapshot of the project.
+   * @param file the project file.
+   * @param compressed true to write the project in the compressed format.
+   */
+  public static void save(final Document document, final File file, final boolean compressed) {
+    save(document, file, compressed, null);
+  }
+
+  /**
+   * Queue the given document to be written in the given file. Must be called from the EDT.
+   *
+   * @param document the snapshot of the project.
+   * @param file the project file.
+   * @param compressed true to write the project in the compressed format.
+   * @param onSaved called on the EDT once the document is on disk, can be null. Not called if the write fails, or if a
+   * more recent snapshot replaces this one before it is written (the callback of the latter is called instead).
+   */
+  public static void save(final Document document, final File file, final boolean compressed,
+                          final Runnable onSaved) {
+    instance._save(document, file, compressed, onSaved);
+  }
+
+  /**
+   * Queue a patch of the open state of the views in the given file. The views not written in the file, as the views
+   * added since, are ignored. Must be called from the EDT.
+   *
+   * @param file the project file.
+   */
+  public static void saveViewsState(final File file) {
+    instance._saveViewsState(file);
+  }
+
+  /**
+   * Set the views written in the given project file, in their order in the file. Called when a project is loaded, the
+   * saves set it themselves. Must be called from the EDT.
+   *
+   * @param file the project file.
+   * @param views the views of the file, or null if they are unknown, as for a recovered project.
+   */
+  public static void setViewsInFile(final File file, final List<GraphicView> views) {
+    instance._setViewsInFile(file, views);
+  }
+
+  /**
+   * Block until all queued saves are written on disk. Used before leaving the application.
+   *
+   * @return false if the last queued save failed.
+   */
+  public static boolean awaitPendingSaves() {
+    return instance._awaitPendingSaves();
+  }
+
+  /**
+   * @return true if a save is queued or currently being written.
+   */
+  public static boolean isSaving() {
+    return instance.pending.get() != null || instance.running;
+  }
+
+  /**
+   * Check if the given file has the content of our last write in it. Used to ignore the watch events caused by our
+   * own saves.
+   *
+   * @param file the file to check.
+   *
+   * @return true if the file content is the last one written by Slyum.
+   */
+  public static boolean isWrittenContent(final Path file) {
+    final byte[] written = writtenContents.get(file.toAbsolutePath());
+
+    try {
+      return written != null && Arrays.equals(written, ProjectCache.hash(file.toFile()));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Serialize the document in a temporary file next to the target, sync it and move it over the target. If the target
+   * already has the same content, it is not modified.
+   *
+   * @param document the document to write.
+   * @param file the destination.
+   * @param compressed true to write the project in the compressed format.
+   *
+   * @return true if the file has been written, false if its content was the same.
+   *
+   * @throws IOException if the file cannot be written or moved.
+   * @throws TransformerException if the document cannot be serialized.
+   */
+  public static boolean writeAtomically(final Document document, final File file, final boolean compressed)
+      throws IOException, TransformerException {
+    // Nobody reads a compressed file, the indentation would only cost time and space.
+    return writeAtomically(file, compressed,
+                           out -> createTransformer(!compressed).transform(new DOMSource(document), new StreamResult(out)));
+  }
+
+  private static boolean writeAtomically(final File file, final boolean compressed, final Content content)
+      throws IOException, TransformerException {
+
+    synchronized (instance) {
+      final Path target = file.toPath().toAbsolutePath();
+      final Path temp = createTempFile(target);
+
+      try {
+        final DigestOutputStream digestStream = new DigestOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temp.toFile()), BUFFER_SIZE), ProjectCache.newDigest());
+
+        // The hash is the one of the bytes on disk, after compression.
+        try (OutputStream out = compressed ? new GZIPOutputStream(digestStream, BUFFER_SIZE) : digestStream) {
+          content.writeTo(out);
+        }
+
+        final byte[] hash = digestStream.getMessageDigest().digest();
+        if (hasContent(target, Files.size(temp), hash)) {
+          writtenContents.put(target, hash);
+          return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+          channel.force(true);
+        }
+
+        // Known before the move, the watch event of the move will be recognized.
+        writtenContents.put(target, hash);
+        try {
+          Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.getParent());
+        return true;
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  /**
+   * Create the temporary file next to the target. It gets the permissions of the target, or the default permissions of
+   * a new file if there is no target yet: the file replaces the target, Files.createTempFile would make it readable by
+   * its owner only.
+   */
+  private static Path createTempFile(final Path target) throws IOException {
+    Path temp;
+    for (; ; ) {
+      temp = target.resolveSibling(
+          "." + target.getFileName() + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+      try {
+        Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+        break;
+      } catch (FileAlreadyExistsException e) {
+        /* Try another name. */
+      }
+    }
+
+    if (Files.isRegularFile(target) &&
+        Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class))
+      Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+
+    return temp;
+  }
+
+  /**
+   * Compare the file with the given content. The file is only read if its size matches.
+   */
+  private static boolean hasContent(final Path file, final long length, final byte[] hash) {
+    try {
+      return Files.isRegularFile(file) && Files.size(file) == length &&
+             Arrays.equals(hash, ProjectCache.hash(file.toFile()));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static Transformer createTransformer(boolean indent) throws TransformerException {
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    if (indent) {
+      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+      transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+    }
+    transformer.setOutputProperty(OutputKeys.ENCODING, "iso-8859-15");
+    return transformer;
+  }
+
+  /**
+   * Make the rename durable. Not all platforms allow to open a directory, in which case this is a no-op.
+   */
+  private static void syncDirectory(final Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      /* Do nothing, not supported on this platform. */
+    }
+  }
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Slyum-save");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final AtomicReference<SaveRequest> pending = new AtomicReference<>();
+  private volatile boolean running = false;
+  private volatile boolean failed = false;
+
+  /**
+   * Number of the last save or patch queued, incremented on the EDT.
+   */
+  private long lastSequence = 0;
+
+  /**
+   * Views written in each file and number of the last write of each file. Only used by the save thread.
+   */
+  private final HashMap<Path, List<GraphicView>> viewsInFiles = new HashMap<>();
+  private final HashMap<Path, Long> fileSequences = new HashMap<>();
+
+  private ProjectSaver() { }
+
+  private void _save(final Document document, final File file, final boolean compressed, final Runnable onSaved) {
+    // Only the last snapshot is kept if a previous one has not been written yet.
+    failed = false;
+    final SaveRequest request =
+        new SaveRequest(document, file, compressed, MultiViewManager.getAllGraphicViews(), ++lastSequence, onSaved);
+    if (pending.getAndSet(request) == null) {
+      SPanelFileComponent.getInstance().showActivity("Saving...");
+      executor.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    running = true;
+    SaveRequest request;
+    while ((request = pending.getAndSet(null)) != null) {
+      try {
+        if (!writeAtomically(request.document, request.file, request.compressed))
+          Logger.getLogger(ProjectSaver.class.getName()).log(Level.FINE, "Project unchanged, not written.");
+        failed = false;
+        setViewsInFile(request.file, request.views, request.sequence);
+        if (request.onSaved != null) SwingUtilities.invokeLater(request.onSaved);
+      } catch (IOException | TransformerException e) {
+        failed = true;
+        Logger.getLogger(ProjectSaver.class.getName()).log(Level.SEVERE, "Unable to save file.", e);
+        SwingUtilities.invokeLater(() -> {
+          Change.setHasChange(true);
+          SMessageDialog.showErrorMessage("Unable to save the project.\nMessage : " + e.getLocalizedMessage());
+        });
+      }
+    }
+    running = false;
+
+    SwingUtilities.invokeLater(() -> {
+      if (!isSaving())
+        SPanelFileComponent.getInstance().hideActivity();
+    });
+  }
+
+  private void _saveViewsState(final File file) {
+    final IdentityHashMap<GraphicView, Boolean> states = new IdentityHashMap<>();
+    for (GraphicView view : MultiViewManager.getAllGraphicViews())
+      states.put(view, view.isOpenInTab());
+
+    final long sequence = ++lastSequence;
+    executor.execute(() -> {
+      final Path target = file.toPath().toAbsolutePath();
+      final List<GraphicView> views = viewsInFiles.get(target);
+      if (views == null || fileSequences.getOrDefault(target, 0L) > sequence) return;
+
+      final Boolean[] opens = new Boolean[views.size()];
+      for (int i = 0; i < opens.length; ++i)
+        opens[i] = states.get(views.get(i));
+
+      try {
+        final byte[] content;
+        try (InputStream in = ProjectLoader.openProjectContent(new FileInputStream(file))) {
+          content = readAll(in);
+        }
+
+        writeAtomically(file, ProjectLoader.isCompressed(file), out -> patchViewsState(content, opens, out));
+        fileSequences.put(target, sequence);
+      } catch (IOException | TransformerException e) {
+        Logger.getLogger(ProjectSaver.class.getName()).log(Level.WARNING, "Unable to save the views state.", e);
+      }
+    });
+  }
+
+  private void _setViewsInFile(final File file, final List<GraphicView> views) {
+    final long sequence = ++lastSequence;
+    executor.execute(() -> setViewsInFile(file, views, sequence));
+  }
+
+  private void setViewsInFile(final File file, final List<GraphicView> views, final long sequence) {
+    final Path target = file.toPath().toAbsolutePath();
+    if (views == null) viewsInFiles.remove(target);
+    else viewsInFiles.put(target, views);
+    fileSequences.put(target, sequence);
+  }
+
+  private static byte[] readAll(final InputStream in) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    int read;
+    while ((read = in.read(buffer)) != -1)
+      out.write(buffer, 0, read);
+    return out.toByteArray();
+  }
+
+  /**
+   * Write the XML content with the open attribute of each umlView element set to the given state. The encodings of the
+   * project files keep the markup in ASCII, the content is patched as bytes.
+   *
+   * @param content the XML content of the project file.
+   * @param opens the open state of each umlView element, in the order of the file; null to keep it.
+   * @param out the stream receiving the patched content.
+   */
+  static void patchViewsState(final byte[] content, final Boolean[] opens, final OutputStream out)
+      throws IOException {
+    int written = 0, view = 0;
+
+    for (int i = indexOf(content, UML_VIEW_TAG, 0); i != -1 && view < opens.length;
+         i = indexOf(content, UML_VIEW_TAG, i + 1)) {
+      final int nameEnd = i + UML_VIEW_TAG.length;
+      if (nameEnd >= content.length || !isTagNameEnd(content[nameEnd])) continue;
+
+      final Boolean open = opens[view++];
+      if (open == null) continue;
+
+      // The attributes of the tag, as name="value" pairs, until the end of the tag.
+      int position = nameEnd, valueStart = -1, valueEnd = -1;
+      while (position < content.length && content[position] != '>' && content[position] != '/') {
+        if (Character.isWhitespace(content[position])) {
+          ++position;
+          continue;
+        }
+
+        final int attributeStart = position;
+        while (content[position] != '=' && !Character.isWhitespace(content[position])) ++position;
+        final boolean isOpen = position - attributeStart == OPEN_ATTRIBUTE.length &&
+                               Arrays.equals(Arrays.copyOfRange(content, attributeStart, position), OPEN_ATTRIBUTE);
+        while (content[position] != '"' && content[position] != '\'') ++position;
+
+        final byte quote = content[position];
+        final int start = ++position;
+        while (content[position] != quote) ++position;
+        if (isOpen) {
+          valueStart = start;
+          valueEnd = position;
+        }
+        ++position;
+      }
+
+      final byte[] value = String.valueOf(open).getBytes(StandardCharsets.US_ASCII);
+      if (valueStart == -1) {
+        // No open attribute, it is added at the end of the tag.
+        out.write(content, written, position - written);
+        out.write(' ');
+        out.write(OPEN_ATTRIBUTE);
+        out.write('=');
+        out.write('"');
+        out.write(value);
+        out.write('"');
+        written = position;
+      } else {
+        out.write(content, written, valueStart - written);
+        out.write(value);
+        written = valueEnd;
+      }
+      i = position;
+    }
+
+    out.write(content, written, content.length - written);
+  }
+
+  private static boolean isTagNameEnd(byte b) {
+    return b == '>' || b == '/' || Character.isWhitespace(b);
+  }
+
+  private static int indexOf(final byte[] content, final byte[] pattern, final int from) {
+    outer:
+    for (int i = from; i <= content.length - pattern.length; ++i) {
+      for (int j = 0; j < pattern.length; ++j)
+        if (content[i + j] != pattern[j]) continue outer;
+      return i;
+    }
+    return -1;
+  }
+
+  private boolean _awaitPendingSaves() {
+    try {
+      // The executor is single threaded: once this task runs, all previously queued writes are done.
+      executor.submit(() -> { }).get();
+    } catch (Exception e) {
+      Logger.getLogger(ProjectSaver.class.getName()).log(Level.WARNING, "Interrupted while saving.", e);
+    }
+    return !failed;
+  }
+
+  /**
+   * Content of a file, written by the save thread.
+   */
+  private interface Content {
+    void writeTo(OutputStream out) throws IOException, TransformerException;
+  }
+
+  private static class SaveRequest {
+    private final Document document;
+    private final File file;
+    private final boolean compressed;
+    private final List<GraphicView> views;
+    private final long sequence;
+    private final Runnable onSaved;
+
+    SaveRequest(final Document document, final File file, final boolean compressed, final List<GraphicView> views,
+                final long sequence, final Runnable onSaved) {
+      this.document = document;
+      this.file = file;
+      this.compressed = compressed;
+      this.views = views;
+      this.sequence = sequence;
+      this.onSaved = onSaved;
+    }
+  }
+
+}
@@ -0,0 +1,355 @@
+package swing;
+
+import change.Change;
+import classDiagram.ClassDiagram;
+import classDiagram.IDiagramComponent;
+import classDiagram.components.Attribute;
+import classDiagram.components.EnumEntity;
+import classDiagram.components.EnumValue;
+import classDiagram.components.Entity;
+import classDiagram.components.Method;
+import classDiagram.components.SimpleEntity;
+import classDiagram.relationships.Association;
+import classDiagram.relationships.Dependency;
+import classDiagram.relationships.Relation;
+import classDiagram.relationships.Role;
+import graphic.GraphicComponent;
+import graphic.GraphicView;
+import graphic.textbox.TextBoxAttribute;
+import graphic.textbox.TextBoxCommentary;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Searches a text in the whole project: the elements of the model (entities, attributes, methods, enumeration values,
+ * relations and roles) and the notes of the views. The results are grouped by view, the closed views included, an
+ * element being found in each view displaying it.
+ * <p>
+ * The texts and the content of the views are read on the EDT, once per version of the project (see
+ * {@link Change#getVersion()}). A search starts on a background thread once the query has not changed for a while, and
+ * is cancelled by the next one; its groups of results are given on the EDT as soon as they are found. The notes of the
+ * closed views are not searched, their components being created only when the view is opened.
+ */
+public class ProjectSearch {
+
+  /**
+   * Receives the results of the searches, on the EDT.
+   */
+  public interface Listener {
+
+    /**
+     * A new search starts, the previous results are obsolete.
+     */
+    void searchStarted();
+
+    void groupFound(Group group);
+
+    /**
+     * @param results the number of results, in all the groups.
+     */
+    void searchDone(int results);
+  }
+
+  /**
+   * Time the query must not change before the search starts, in milliseconds.
+   */
+  private static final int DEBOUNCE_DELAY = 200;
+
+  private static final ProjectSearch instance = new ProjectSearch();
+
+  /**
+   * Search the given query once it does not change for a while. The search in progress, if any, is cancelled.
+   *
+   * @param query the query. An empty query cancels the search.
+   * @param listener the receiver of the results.
+   */
+  public static void search(String query, Listener listener) {
+    instance._search(query, listener);
+  }
+
+  /**
+   * Open the view of a result and center it on the component found.
+   *
+   * @param group the group of the result.
+   * @param result the result.
+   */
+  public static void show(Group group, Result result) {
+    instance._show(group, result);
+  }
+
+  private final ExecutorService searcher = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Slyum-search");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Timer debounce = new Timer(DEBOUNCE_DELAY, e -> start());
+
+  private String query = "";
+  private Listener listener;
+  private Future<?> running;
+  private int generation;
+  private Snapshot snapshot;
+
+  private ProjectSearch() {
+    debounce.setRepeats(false);
+  }
+
+  private void _search(String query, Listener listener) {
+    this.query = query;
+    this.listener = listener;
+    cancel();
+
+    if (query.isEmpty()) {
+      debounce.stop();
+      listener.searchStarted();
+      listener.searchDone(0);
+    } else {
+      debounce.restart();
+    }
+  }
+
+  private void cancel() {
+    ++generation; // The results still published are dropped.
+    if (running != null) running.cancel(true);
+    running = null;
+  }
+
+  private void start() {
+    final Snapshot snapshot = getSnapshot();
+    final String normalizedQuery = SearchIndex.normalize(query);
+    final Listener listener = this.listener;
+    final int generation = this.generation;
+
+    listener.searchStarted();
+    running = searcher.submit(() -> {
+      try {
+        final int results =
+            snapshot.search(normalizedQuery, group -> publish(generation, () -> listener.groupFound(group)));
+        publish(generation, () -> listener.searchDone(results));
+      } catch (InterruptedException e) {
+        // Cancelled by another search.
+      } catch (RuntimeException e) {
+        Logger.getLogger(ProjectSearch.class.getName()).log(Level.WARNING, "Unable to search the project.", e);
+        publish(generation, () -> listener.searchDone(0));
+      }
+    });
+  }
+
+  private void publish(int generation, Runnable task) {
+    SwingUtilities.invokeLater(() -> {
+      if (generation == this.generation) task.run();
+    });
+  }
+
+  private Snapshot getSnapshot() {
+    // While the changes are blocked (loading, undo), the version does not follow the changes.
+    if (Change.isBlocked() || snapshot == null || snapshot.version != Change.getVersion())
+      snapshot = new Snapshot(PanelClassDiagram.getInstance().getClassDiagram(), MultiViewManager.getAllGraphicViews());
+    return snapshot;
+  }
+
+  private void _show(Group group, Result result) {
+    final GraphicView graphicView = group.getView();
+    if (graphicView == null || !MultiViewManager.getAllGraphicViews().contains(graphicView)) return;
+    MultiViewManager.openView(graphicView);
+
+    // The component of an attribute or a method, or else of its entity.
+    GraphicComponent found = result.component;
+    if (found == null && result.element != null)
+      found = graphicView.findChild(GraphicComponent.class, c -> c.getAssociatedComponent() == result.element);
+    if (found == null) found = graphicView.searchAssociedComponent(result.owner);
+    if (found == null) return;
+
+    // Highlighted, so centered on screen, once the view just opened is laid out.
+    final GraphicComponent component = found;
+    GraphicComponent.removeHighlightForAllComponents();
+    SwingUtilities.invokeLater(() -> component.setHighlight(true));
+  }
+
+  /**
+   * The results found in a view.
+   */
+  public static final class Group {
+    private final GraphicView view;
+    private final String title;
+    private final List<Result> results;
+
+    Group(GraphicView view, String title, List<Result> results) {
+      this.view = view;
+      this.title = title;
+      this.results = results;
+    }
+
+    /**
+     * @return the view, null for the elements displayed by no view.
+     */
+    public GraphicView getView() {
+      return view;
+    }
+
+    public List<Result> getResults() {
+      return Collections.unmodifiableList(results);
+    }
+
+    @Override
+    public String toString() {
+      return title + " (" + results.size() + ")";
+    }
+  }
+
+  /**
+   * A text found: an element of the model, or a note of a view.
+   */
+  public static final class Result {
+    private final String text;
+    private final IDiagramComponent element, owner;
+    private final GraphicComponent component;
+    private String normalized;
+
+    Result(String text, IDiagramComponent element, IDiagramComponent owner, GraphicComponent component) {
+      this.text = text;
+      this.element = element;
+      this.owner = owner;
+      this.component = component;
+    }
+
+    @Override
+    public String toString() {
+      return text;
+    }
+  }
+
+  /**
+   * The texts of the project and the content of its views, as they were at a version of the project. Read on the EDT,
+   * searched on the background thread.
+   */
+  private static final class Snapshot {
+    private final long version = Change.getVersion();
+    private final List<Result> elements = new ArrayList<>();
+    private final List<ViewContent> views = new ArrayList<>();
+
+    Snapshot(ClassDiagram classDiagram, List<GraphicView> graphicViews) {
+      final List<IDiagramComponent> owners = new ArrayList<>();
+
+      for (Entity entity : classDiagram.getEntities()) {
+        owners.add(entity);
+        add(entity.getName(), entity, entity);
+
+        if (entity instanceof SimpleEntity) {
+          for (Attribute attribute : ((SimpleEntity) entity).getAttributes())
+            add(TextBoxAttribute.getStringFromAttribute(attribute), attribute, entity);
+          for (Method method : ((SimpleEntity) entity).getMethods())
+            add(method.getStringFromMethod(Method.ParametersViewStyle.TYPE_AND_NAME), method, entity);
+        }
+        if (entity instanceof EnumEntity)
+          for (EnumValue value : ((EnumEntity) entity).getEnumValues())
+            add(value.getValue(), value, entity);
+      }
+
+      for (Relation relation : classDiagram.getRelations()) {
+        owners.add(relation);
+        if (relation instanceof Association) {
+          add(((Association) relation).getName(), relation, relation);
+          for (Role role : ((Association) relation).getRoles())
+            add(role.getName(), role, relation);
+        }
+        if (relation instanceof Dependency)
+          add(((Dependency) relation).getLabel(), relation, relation);
+      }
+
+      for (GraphicView graphicView : graphicViews)
+        views.add(new ViewContent(graphicView, owners));
+    }
+
+    private void add(String text, IDiagramComponent element, IDiagramComponent owner) {
+      if (text != null && !text.isEmpty()) elements.add(new Result(text, element, owner, null));
+    }
+
+    /**
+     * @return the number of results.
+     */
+    int search(String normalizedQuery, Consumer<Group> groups) throws InterruptedException {
+      final List<Result> found = new ArrayList<>();
+      for (Result element : elements)
+        if (matches(element, normalizedQuery)) found.add(element);
+
+      int results = 0;
+      final Set<Result> displayed = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (ViewContent view : views) {
+        if (Thread.interrupted()) throw new InterruptedException();
+
+        final List<Result> inView = new ArrayList<>();
+        for (Result element : found)
+          if (view.owners.contains(element.owner)) inView.add(element);
+        displayed.addAll(inView);
+        for (Result note : view.notes)
+          if (matches(note, normalizedQuery)) inView.add(note);
+
+        if (!inView.isEmpty()) {
+          groups.accept(new Group(view.graphicView, view.name, inView));
+          results += inView.size();
+        }
+      }
+
+      final List<Result> notDisplayed = new ArrayList<>();
+      for (Result element : found)
+        if (!displayed.contains(element)) notDisplayed.add(element);
+      if (!notDisplayed.isEmpty()) {
+        groups.accept(new Group(null, "Not in any view", notDisplayed));
+        results += notDisplayed.size();
+      }
+
+      return results;
+    }
+
+    private static boolean matches(Result result, String normalizedQuery) {
+      if (result.normalized == null) result.normalized = SearchIndex.normalize(result.text);
+      return result.normalized.contains(normalizedQuery);
+    }
+  }
+
+  /**
+   * The model elements displayed by a view, and its notes.
+   */
+  private static final class ViewContent {
+    private final GraphicView graphicView;
+    private final String name;
+    private final Set<IDiagramComponent> owners;
+    private final List<Result> notes = new ArrayList<>();
+
+    ViewContent(GraphicView graphicView, List<IDiagramComponent> modelOwners) {
+      this.graphicView = graphicView;
+      name = getName(graphicView);
+
+      owners = graphicView.displays(modelOwners);
+
+      // The components of a closed view are not created to search its notes.
+      if (graphicView.isMaterialized())
+        for (GraphicComponent c : graphicView.getAllDiagramComponents())
+          if (c instanceof TextBoxCommentary && !((TextBoxCommentary) c).getText().isEmpty())
+            notes.add(new Result(((TextBoxCommentary) c).getText(), null, null, c));
+    }
+
+    /**
+     * @return the name of the tab of the view, or else of the view.
+     */
+    private static String getName(GraphicView graphicView) {
+      for (String name : new String[] {MultiViewManager.getViewName(graphicView), graphicView.getName()})
+        if (name != null && !name.trim().isEmpty()) return name;
+      return GraphicView.NO_NAMED_VIEW;
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+package swing;
+
+import utility.Utility;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Dialog searching a text in the whole project (see {@link ProjectSearch}). The results are listed by view while they
+ * are found; a double click, or enter, on a result opens its view and centers it on the result.
+ */
+public class ProjectSearchDialog extends JDialog implements ProjectSearch.Listener {
+
+  private static final long serialVersionUID = 6842177301958361204L;
+
+  private static ProjectSearchDialog instance;
+
+  /**
+   * Show the dialog, the query selected.
+   */
+  public static void open() {
+    if (instance == null) instance = new ProjectSearchDialog();
+
+    instance.txtFieldQuery.selectAll();
+    instance.setVisible(true);
+    instance.txtFieldQuery.requestFocusInWindow();
+  }
+
+  private final JTextField txtFieldQuery = new JTextField();
+  private final JLabel lblStatus = new JLabel(" ");
+  private final DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+  private final DefaultTreeModel treeModel = new DefaultTreeModel(root);
+  private final JTree tree = new JTree(treeModel);
+
+  private ProjectSearchDialog() {
+    super(Slyum.getInstance(), "Search in project", false);
+
+    Utility.setRootPaneActionOnEsc(getRootPane(), new AbstractAction() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        setVisible(false);
+      }
+    });
+
+    txtFieldQuery.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+        ProjectSearch.search(txtFieldQuery.getText(), ProjectSearchDialog.this);
+      }
+
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+        ProjectSearch.search(txtFieldQuery.getText(), ProjectSearchDialog.this);
+      }
+
+      @Override
+      public void changedUpdate(DocumentEvent e) { }
+    });
+
+    tree.setRootVisible(false);
+    tree.setShowsRootHandles(true);
+    tree.addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        if (e.getClickCount() == 2) showResult(tree.getPathForLocation(e.getX(), e.getY()));
+      }
+    });
+    tree.addKeyListener(new KeyAdapter() {
+      @Override
+      public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_ENTER) showResult(tree.getSelectionPath());
+      }
+    });
+
+    JPanel contentPanel = new JPanel(new BorderLayout(0, 5));
+    contentPanel.setBorder(new EmptyBorder(10, 10, 5, 10));
+    contentPanel.add(txtFieldQuery, BorderLayout.NORTH);
+    contentPanel.add(new JScrollPane(tree), BorderLayout.CENTER);
+    contentPanel.add(lblStatus, BorderLayout.SOUTH);
+
+    setContentPane(contentPanel);
+    setDefaultCloseOperation(HIDE_ON_CLOSE);
+    setSize(400, 500);
+    setLocationRelativeTo(Slyum.getInstance());
+  }
+
+  @Override
+  public void searchStarted() {
+    root.removeAllChildren();
+    treeModel.reload();
+    lblStatus.setText(txtFieldQuery.getText().isEmpty() ? " " : "Searching...");
+  }
+
+  @Override
+  public void groupFound(ProjectSearch.Group group) {
+    final DefaultMutableTreeNode node = new DefaultMutableTreeNode(group);
+    for (ProjectSearch.Result result : group.getResults())
+      node.add(new DefaultMutableTreeNode(result, false));
+
+    treeModel.insertNodeInto(node, root, root.getChildCount());
+    tree.expandPath(new TreePath(node.getPath()));
+  }
+
+  @Override
+  public void searchDone(int results) {
+    lblStatus.setText(txtFieldQuery.getText().isEmpty() ? " " : results + " result" + (results > 1 ? "s" : ""));
+  }
+
+  private void showResult(TreePath path) {
+    if (path == null || path.getPathCount() != 3) return;
+
+    final DefaultMutableTreeNode group = (DefaultMutableTreeNode) path.getPathComponent(1),
+        result = (DefaultMutableTreeNode) path.getPathComponent(2);
+    ProjectSearch.show((ProjectSearch.Group) group.getUserObject(), (ProjectSearch.Result) result.getUserObject());
+  }
+
+}
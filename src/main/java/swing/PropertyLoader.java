@@ -40,6 +40,7 @@ public class PropertyLoader {
   public static final String VIEW_ENUM = "ViewEnum";
   public static final String VIEW_TITLE_ON_EXPORT = "ViewTitleOnExport";
   public static final String DISPLAY_DIAGRAM_INFORMATIONS_ON_EXPORT = "DisplayDiagramInformationsOnExpert";
+  public static final String COMPACT_SVG_ON_EXPORT = "CompactSvgOnExport";
   public static final String PAINT_TITLE_BORDER = "PaintTitleBorder";
   public static final String CHECK_UPDATE_AT_LAUNCH = "CheckUpdateAtLaunch";
   public static final String FULL_SCREEN_MODE = "FullScreenMode";
@@ -48,6 +49,8 @@ public class PropertyLoader {
   public static final String RECENT_COLORS_SIZE = "RecentColorsSize";
   public static final String SHOW_INTERSECTION_LINE = "ShowIntersectionLine";
   public static final String SIZE_INTERSECTION_LINE = "SizeIntersectionLine";
+  public static final String AUTOSAVE_INTERVAL = "AutosaveInterval";
+  public static final String AUTOSAVE_JOURNAL_SIZE = "AutosaveJournalSize";
 
   public static final String filename = Slyum.getPathAppDir()
                                         + Slyum.FILE_SEPARATOR + "config.properties";
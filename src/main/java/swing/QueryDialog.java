@@ -0,0 +1,188 @@
+package swing;
+
+import change.Change;
+import classDiagram.IDiagramComponent;
+import classDiagram.query.ModelIndex;
+import classDiagram.query.Query;
+import classDiagram.query.QueryException;
+import graphic.GraphicComponent;
+import graphic.GraphicView;
+import utility.Utility;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dialog running a {@link Query} over the model, as "classes where methods &gt; 30". The query runs on a background
+ * thread, on an index of the model read once per version of the project (see {@link Change#getVersion()}). The
+ * elements found can be selected or highlighted in the selected view.
+ */
+public class QueryDialog extends JDialog {
+
+  private static final long serialVersionUID = -2730455866271940698L;
+
+  private static final String EXAMPLES =
+      "<html>classes where methods &gt; 30<br>methods where type like \"List&lt;*&gt;\"<br>entities where views = 0"
+      + "<br>interfaces where children = 0</html>";
+
+  private static QueryDialog instance;
+
+  /**
+   * Show the dialog, the query selected.
+   */
+  public static void open() {
+    if (instance == null) instance = new QueryDialog();
+
+    instance.txtFieldQuery.selectAll();
+    instance.setVisible(true);
+    instance.txtFieldQuery.requestFocusInWindow();
+  }
+
+  private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Slyum-query");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final JTextField txtFieldQuery = new JTextField();
+  private final JLabel lblStatus = new JLabel(" ");
+  private final DefaultListModel<ModelIndex.Row> results = new DefaultListModel<>();
+  private final JList<ModelIndex.Row> list = new JList<>(results);
+
+  private Future<?> running;
+  private int generation;
+  private ModelIndex index;
+  private long indexVersion;
+
+  private QueryDialog() {
+    super(Slyum.getInstance(), "Query the model", false);
+
+    Utility.setRootPaneActionOnEsc(getRootPane(), new AbstractAction() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        setVisible(false);
+      }
+    });
+
+    txtFieldQuery.setToolTipText(EXAMPLES);
+    txtFieldQuery.addActionListener(e -> run());
+
+    final JButton btnSelect = new JButton("Select in view");
+    btnSelect.addActionListener(e -> showInView(false));
+    final JButton btnHighlight = new JButton("Highlight in view");
+    btnHighlight.addActionListener(e -> showInView(true));
+
+    JPanel buttonPane = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    buttonPane.add(btnSelect);
+    buttonPane.add(btnHighlight);
+
+    JPanel southPanel = new JPanel(new BorderLayout());
+    southPanel.add(lblStatus, BorderLayout.CENTER);
+    southPanel.add(buttonPane, BorderLayout.SOUTH);
+
+    JPanel contentPanel = new JPanel(new BorderLayout(0, 5));
+    contentPanel.setBorder(new EmptyBorder(10, 10, 5, 10));
+    contentPanel.add(txtFieldQuery, BorderLayout.NORTH);
+    contentPanel.add(new JScrollPane(list), BorderLayout.CENTER);
+    contentPanel.add(southPanel, BorderLayout.SOUTH);
+
+    setContentPane(contentPanel);
+    setDefaultCloseOperation(HIDE_ON_CLOSE);
+    setSize(450, 500);
+    setLocationRelativeTo(Slyum.getInstance());
+  }
+
+  private void run() {
+    final int generation = ++this.generation; // The results of a previous query are dropped.
+    if (running != null) running.cancel(true);
+    results.clear();
+
+    final Query query;
+    try {
+      query = Query.parse(txtFieldQuery.getText());
+    } catch (QueryException e) {
+      lblStatus.setText(e.getMessage());
+      return;
+    }
+
+    // While the changes are blocked (loading, undo), the version does not follow the changes.
+    if (Change.isBlocked() || index == null || indexVersion != Change.getVersion()) {
+      index = new ModelIndex(PanelClassDiagram.getInstance().getClassDiagram(), MultiViewManager.getAllGraphicViews());
+      indexVersion = Change.getVersion();
+    }
+
+    final ModelIndex index = this.index;
+    lblStatus.setText("Running...");
+    running = runner.submit(() -> {
+      try {
+        final List<ModelIndex.Row> rows = query.run(index);
+        SwingUtilities.invokeLater(() -> {
+          if (generation != this.generation) return;
+          rows.forEach(results::addElement);
+          lblStatus.setText(rows.size() + " result" + (rows.size() > 1 ? "s" : ""));
+        });
+      } catch (InterruptedException e) {
+        // Cancelled by another query.
+      } catch (RuntimeException e) {
+        Logger.getLogger(QueryDialog.class.getName()).log(Level.WARNING, "Unable to run the query.", e);
+        SwingUtilities.invokeLater(() -> {
+          if (generation == this.generation) lblStatus.setText("Unable to run the query.");
+        });
+      }
+    });
+  }
+
+  /**
+   * Select, or highlight, the components of the selected results in the selected view, or of all the results if none
+   * is selected.
+   */
+  private void showInView(boolean highlight) {
+    final GraphicView graphicView = MultiViewManager.getSelectedGraphicView();
+    final List<ModelIndex.Row> rows = list.isSelectionEmpty() ? new ArrayList<>() : list.getSelectedValuesList();
+    if (rows.isEmpty())
+      for (int i = 0; i < results.size(); ++i)
+        rows.add(results.get(i));
+
+    // An attribute, a method or a parameter is shown by its text box, or else by its entity.
+    final Map<IDiagramComponent, GraphicComponent> components = new IdentityHashMap<>();
+    graphicView.forEachChildRecursively(c -> {
+      if (c.getAssociatedComponent() != null) components.putIfAbsent(c.getAssociatedComponent(), c);
+    });
+
+    final Set<GraphicComponent> shown = new LinkedHashSet<>();
+    int missing = 0;
+    for (ModelIndex.Row row : rows) {
+      final GraphicComponent component = highlight && components.containsKey(row.getElement()) ?
+          components.get(row.getElement()) : components.get(row.getOwner());
+      if (component == null) ++missing;
+      else shown.add(component);
+    }
+    final List<GraphicComponent> found = new ArrayList<>(shown);
+
+    if (highlight) {
+      GraphicComponent.removeHighlightForAllComponents();
+      // Highlighting centers on the component: the first one found ends centered.
+      for (int i = found.size() - 1; i >= 0; --i)
+        found.get(i).setHighlight(true);
+    } else {
+      graphicView.unselectAll();
+      graphicView.selectComponents(found);
+    }
+
+    lblStatus.setText((rows.size() - missing) + " shown in the view, " + missing + " not in this view");
+  }
+
+}
@@ -19,6 +19,11 @@ public class RecentProjectManager {
                                         + Slyum.FILE_SEPARATOR + "history.properties";
   final static Charset ENCODING = StandardCharsets.ISO_8859_1;
 
+  /**
+   * Number of projects kept in the history.
+   */
+  public static final int HISTORY_SIZE = 5;
+
   private static RecentProjectManager instance;
 
   public static RecentProjectManager getInstance() {
@@ -94,7 +99,7 @@ public class RecentProjectManager {
   }
 
   private List<String> checkSize(List<String> list) {
-    if (list.size() > 5) list.remove(0);
+    if (list.size() > HISTORY_SIZE) list.remove(0);
 
     return list;
   }
@@ -27,6 +27,7 @@ public class SPanelFileComponent extends SToolBar implements ActionListener {
                                          + Utility.keystrokeToString(Slyum.KEY_PRINT);
 
   private SButton newProject, open, save, export, klipper, print;
+  private JProgressBar activity;
 
   private static SPanelFileComponent instance;
 
@@ -82,6 +83,28 @@ public class SPanelFileComponent extends SToolBar implements ActionListener {
     add(print = createSButton(
         PersonalizedIcon.createImageIcon("print.png"),
         Slyum.ACTION_PRINT, Color.BLUE, TT_PRINT));
+
+    activity = new JProgressBar();
+    activity.setIndeterminate(true);
+    activity.setStringPainted(true);
+    activity.setMaximumSize(new Dimension(150, 20));
+    activity.setVisible(false);
+    add(Box.createHorizontalStrut(10));
+    add(activity);
+  }
+
+  /**
+   * Show the activity indicator with the given message. Used by background jobs like saving.
+   *
+   * @param message the message displayed in the indicator.
+   */
+  public void showActivity(String message) {
+    activity.setString(message);
+    activity.setVisible(true);
+  }
+
+  public void hideActivity() {
+    activity.setVisible(false);
   }
 
   private SButton createSButton(ImageIcon ii, String a, Color c, String tt) {
@@ -47,6 +47,7 @@ public class SProperties extends JDialog {
   private JCheckBox chckbxViewEnum;
   private JCheckBox chckbxViewTitleOnExport;
   private JCheckBox chckbxDisplayDiagramInformationsOnExport;
+  private JCheckBox chckbxCompactSvgOnExport;
   private JCheckBox chckbxViewTypes;
   private JCheckBox ckbBackgroundGradient;
   private JCheckBox ckbEntityGradient;
@@ -60,6 +61,8 @@ public class SProperties extends JDialog {
   private JComboBox<ViewEntity> listViewEntities;
   private JComboBox<ParametersViewStyle> listViewMethods;
   private JComboBox<Integer> listRecentColorsSize;
+  private JComboBox<Integer> listAutosaveInterval;
+  private JComboBox<Integer> listAutosaveJournalSize;
   private JComboBox<IntersectionLineSize> listIntersectionLineSize;
   private JPanel panelLabelAlert;
   private JPanel panel_Grid;
@@ -791,13 +794,25 @@ public class SProperties extends JDialog {
             panelInnerGeneral.add(chckbxDisplayDiagramInformationsOnExport,
                                   gbc_chckbxDiagramInformationsOnExport);
           }
+          {
+            chckbxCompactSvgOnExport =
+                new SCheckBox("Export compact SVG (texts as texts)");
+            GridBagConstraints gbc_chckbxCompactSvgOnExport =
+                new GridBagConstraints();
+            gbc_chckbxCompactSvgOnExport.insets = new Insets(0, 5, 0, 0);
+            gbc_chckbxCompactSvgOnExport.anchor = GridBagConstraints.WEST;
+            gbc_chckbxCompactSvgOnExport.gridx = 0;
+            gbc_chckbxCompactSvgOnExport.gridy = 6;
+            panelInnerGeneral.add(chckbxCompactSvgOnExport,
+                                  gbc_chckbxCompactSvgOnExport);
+          }
           {
             chckbxViewEnum = new SCheckBox("View enum values");
             GridBagConstraints gbc_chckbxViewEnum = new GridBagConstraints();
             gbc_chckbxViewEnum.insets = new Insets(0, 5, 0, 0);
             gbc_chckbxViewEnum.anchor = GridBagConstraints.WEST;
             gbc_chckbxViewEnum.gridx = 0;
-            gbc_chckbxViewEnum.gridy = 6;
+            gbc_chckbxViewEnum.gridy = 7;
             panelInnerGeneral.add(chckbxViewEnum, gbc_chckbxViewEnum);
           }
           {
@@ -806,7 +821,7 @@ public class SProperties extends JDialog {
             gbc_chckbxViewTypes.insets = new Insets(0, 5, 0, 0);
             gbc_chckbxViewTypes.anchor = GridBagConstraints.WEST;
             gbc_chckbxViewTypes.gridx = 0;
-            gbc_chckbxViewTypes.gridy = 7;
+            gbc_chckbxViewTypes.gridy = 8;
             panelInnerGeneral.add(chckbxViewTypes, gbc_chckbxViewTypes);
           }
           {
@@ -815,7 +830,7 @@ public class SProperties extends JDialog {
             gbc_ckbCleanDiagramAtOpening.insets = new Insets(0, 5, 0, 0);
             gbc_ckbCleanDiagramAtOpening.anchor = GridBagConstraints.WEST;
             gbc_ckbCleanDiagramAtOpening.gridx = 0;
-            gbc_ckbCleanDiagramAtOpening.gridy = 8;
+            gbc_ckbCleanDiagramAtOpening.gridy = 9;
             panelInnerGeneral.add(ckbCleanDiagramAtOpening, gbc_ckbCleanDiagramAtOpening);
           }
           {
@@ -824,7 +839,7 @@ public class SProperties extends JDialog {
             gbc_chckbxIntersectionLine.insets = new Insets(0, 5, 0, 0);
             gbc_chckbxIntersectionLine.anchor = GridBagConstraints.WEST;
             gbc_chckbxIntersectionLine.gridx = 0;
-            gbc_chckbxIntersectionLine.gridy = 9;
+            gbc_chckbxIntersectionLine.gridy = 10;
             panelInnerGeneral.add(ckbShowIntersectionLine, gbc_chckbxIntersectionLine);
 
             ckbShowIntersectionLine.addChangeListener(e -> checkDisplayIntersectionLine());
@@ -844,11 +859,11 @@ public class SProperties extends JDialog {
             gbc_chckbxIntersectionLineSize.insets = new Insets(0, 22, 0, 0);
             gbc_chckbxIntersectionLineSize.anchor = GridBagConstraints.WEST;
             gbc_chckbxIntersectionLineSize.gridx = 0;
-            gbc_chckbxIntersectionLineSize.gridy = 10;
+            gbc_chckbxIntersectionLineSize.gridy = 11;
             panelInnerGeneral.add(p, gbc_chckbxIntersectionLineSize);
           }
           {
-            JPanel panelViews = new JPanel(new GridLayout(3, 2, 10, 10));
+            JPanel panelViews = new JPanel(new GridLayout(5, 2, 10, 10));
             panelViews.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 
             ParametersViewStyle[] values = {
@@ -857,6 +872,8 @@ public class SProperties extends JDialog {
                 ParametersViewStyle.NOTHING};
 
             Integer[] sizeValues = {3, 4, 5, 6, 7};
+            Integer[] autosaveIntervalValues = {0, 30, 60, 120, 300, 600};
+            Integer[] autosaveJournalSizeValues = {1, 2, 5, 10, 20, 50};
 
             GridBagConstraints gbc_panelViews = new GridBagConstraints();
 
@@ -865,6 +882,8 @@ public class SProperties extends JDialog {
             listViewEntities = new SComboBox<>(new DefaultComboBoxModel<>(
                 ViewEntity.values()));
             listRecentColorsSize = new SComboBox<>(new DefaultComboBoxModel<>(sizeValues));
+            listAutosaveInterval = new SComboBox<>(new DefaultComboBoxModel<>(autosaveIntervalValues));
+            listAutosaveJournalSize = new SComboBox<>(new DefaultComboBoxModel<>(autosaveJournalSizeValues));
 
             panelViews.add(new JLabel("Entities view type:"));
             panelViews.add(listViewEntities);
@@ -872,11 +891,15 @@ public class SProperties extends JDialog {
             panelViews.add(listViewMethods);
             panelViews.add(new JLabel("Recent colors history size:"));
             panelViews.add(listRecentColorsSize);
+            panelViews.add(new JLabel("Autosave interval (s, 0 to disable):"));
+            panelViews.add(listAutosaveInterval);
+            panelViews.add(new JLabel("Autosave journal size (MB):"));
+            panelViews.add(listAutosaveJournalSize);
 
             gbc_panelViews.insets = new Insets(0, 5, 0, 0);
             gbc_panelViews.anchor = GridBagConstraints.WEST;
             gbc_panelViews.gridx = 0;
-            gbc_panelViews.gridy = 11;
+            gbc_panelViews.gridy = 12;
             panelInnerGeneral.add(panelViews, gbc_panelViews);
           }
           panelGeneral.add(panelInnerGeneral);
@@ -938,6 +961,8 @@ public class SProperties extends JDialog {
                              String.valueOf(chckbxViewTitleOnExport.isSelected()));
               properties.put(PropertyLoader.DISPLAY_DIAGRAM_INFORMATIONS_ON_EXPORT,
                              String.valueOf(chckbxDisplayDiagramInformationsOnExport.isSelected()));
+              properties.put(PropertyLoader.COMPACT_SVG_ON_EXPORT,
+                             String.valueOf(chckbxCompactSvgOnExport.isSelected()));
               properties.put(PropertyLoader.PAINT_TITLE_BORDER,
                              String.valueOf(chckbxPaintTitleBorder.isSelected()));
               properties.put(PropertyLoader.CHECK_UPDATE_AT_LAUNCH,
@@ -954,6 +979,10 @@ public class SProperties extends JDialog {
                                    .toUpperCase().replace(' ', '_'));
               properties.put(PropertyLoader.RECENT_COLORS_SIZE,
                              String.valueOf(listRecentColorsSize.getSelectedItem()));
+              properties.put(PropertyLoader.AUTOSAVE_INTERVAL,
+                             String.valueOf(listAutosaveInterval.getSelectedItem()));
+              properties.put(PropertyLoader.AUTOSAVE_JOURNAL_SIZE,
+                             String.valueOf(listAutosaveJournalSize.getSelectedItem()));
               properties.put(PropertyLoader.VIEW_TYPES,
                              String.valueOf(chckbxViewTypes.isSelected()));
               properties.put(PropertyLoader.CLEAN_AT_OPENING,
@@ -985,6 +1014,7 @@ public class SProperties extends JDialog {
               PropertyLoader.getInstance().push();
 
               GraphicView.setGridSize(sliderGridSize.getValue());
+              AutoSaver.start();
             } catch (Exception e1) {
               e1.printStackTrace();
             }
@@ -1129,6 +1159,7 @@ public class SProperties extends JDialog {
     chckbxViewEnum.setSelected(GraphicView.getDefaultViewEnum());
     chckbxViewTitleOnExport.setSelected(Slyum.isViewTitleOnExport());
     chckbxDisplayDiagramInformationsOnExport.setSelected(Slyum.isDisplayedDiagramInformationOnExport());
+    chckbxCompactSvgOnExport.setSelected(Slyum.isCompactSvgOnExport());
     chckbxPaintTitleBorder.setSelected(GraphicView.isTitleBorderPainted());
     chckbxCheckUpdateAtLaunch.setSelected(UpdateInfo.isUpdateCheckedAtLaunch());
     chckbxEnableGrid.setSelected(GraphicView.isGridEnable());
@@ -1136,6 +1167,8 @@ public class SProperties extends JDialog {
     listViewMethods.setSelectedItem(GraphicView.getDefaultViewMethods());
     listViewEntities.setSelectedItem(GraphicView.getDefaultViewEntities());
     listRecentColorsSize.setSelectedItem(Slyum.getRecentColorsSize());
+    listAutosaveInterval.setSelectedItem(Slyum.getAutosaveInterval());
+    listAutosaveJournalSize.setSelectedItem(Slyum.getAutosaveJournalSize());
 
     if (GraphicView.isAutomatiqueGridColor())
       rdbtnAutomaticcolor.setSelected(true);
@@ -2,15 +2,14 @@ package swing;
 
 import graphic.GraphicComponent;
 import graphic.GraphicView;
-import utility.Utility;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class SearchEngine {
-  private static List<GraphicComponent> searchResults = new LinkedList<>();
+  private static List<GraphicComponent> searchResults = new ArrayList<>();
   private static GraphicComponent current = null;
+  private static int currentIndex = -1;
 
   public static GraphicComponent initialize(String searchQuery) {
     return SearchEngine.initialize(searchQuery, MultiViewManager.getSelectedGraphicView());
@@ -22,20 +21,12 @@ public class SearchEngine {
       return null;
     }
 
-    searchResults = graphicView.getChildsRecursively().stream().filter(c ->
-                                                                           Utility.stripAccents(
-                                                                                      c.getFullString().toLowerCase())
-                                                                                  .contains(
-                                                                                      Utility.stripAccents(
-                                                                                          searchQuery.toLowerCase())))
-                               .collect(Collectors.toList());
-
-    if (!searchResults.isEmpty()) {
-      if (current == null || !searchResults.contains(current))
-        current = searchResults.get(0);
-    } else {
-      current = null;
-    }
+    searchResults = SearchIndex.of(graphicView).search(searchQuery);
+
+    currentIndex = current == null ? -1 : searchResults.indexOf(current);
+    if (currentIndex == -1 && !searchResults.isEmpty())
+      currentIndex = 0;
+    current = currentIndex == -1 ? null : searchResults.get(currentIndex);
 
     return current;
   }
@@ -48,16 +39,16 @@ public class SearchEngine {
     if (searchResults.isEmpty())
       return null;
 
-    return current = searchResults.get((searchResults.indexOf(current) + 1) % searchResults.size());
+    currentIndex = (currentIndex + 1) % searchResults.size();
+    return current = searchResults.get(currentIndex);
   }
 
   public static GraphicComponent previous() {
     if (searchResults.isEmpty())
       return null;
 
-    int currentIndex = searchResults.indexOf(current);
-
-    return current = searchResults.get(currentIndex == 0 ? searchResults.size() - 1 : currentIndex - 1);
+    currentIndex = currentIndex <= 0 ? searchResults.size() - 1 : currentIndex - 1;
+    return current = searchResults.get(currentIndex);
   }
 
 }
@@ -0,0 +1,155 @@
+package swing;
+
+import change.Change;
+import graphic.GraphicComponent;
+import graphic.GraphicView;
+import utility.Utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * An index of the texts of the components of a view, for the search as you type (see {@link SearchEngine}).
+ * <p>
+ * The texts are kept normalized, in lower case and without accents, and each sequence of three characters of a text
+ * refers to the components having it: a query only checks the components having its rarest sequence. The index
+ * follows the changes of the project (see {@link Change#getVersion()}): the components are then walked again, and only
+ * the texts which changed are normalized again. Only used on the EDT.
+ */
+final class SearchIndex {
+
+  /**
+   * Length of the indexed sequences. A shorter query checks all the texts.
+   */
+  private static final int GRAM_LENGTH = 3;
+
+  private static final WeakHashMap<GraphicView, SearchIndex> indexes = new WeakHashMap<>();
+
+  /**
+   * @param graphicView the view.
+   *
+   * @return the index of the view, up to date.
+   */
+  static SearchIndex of(GraphicView graphicView) {
+    final SearchIndex index = indexes.computeIfAbsent(graphicView, SearchIndex::new);
+    index.update();
+    return index;
+  }
+
+  /**
+   * Normalize a text as the indexed texts.
+   */
+  static String normalize(String text) {
+    return Utility.stripAccents(text.toLowerCase());
+  }
+
+  private final GraphicView graphicView;
+  private long version = -1;
+
+  /**
+   * The components in the order of the view, and their normalized text at the same position.
+   */
+  private GraphicComponent[] components = new GraphicComponent[0];
+  private String[] texts = new String[0];
+
+  /**
+   * The last text read of each component, and its normalization.
+   */
+  private Map<GraphicComponent, String[]> normalized = new IdentityHashMap<>();
+
+  /**
+   * The positions of the components having each sequence, in increasing order.
+   */
+  private final Map<String, Postings> postings = new HashMap<>();
+
+  private SearchIndex(GraphicView graphicView) {
+    this.graphicView = graphicView;
+  }
+
+  /**
+   * Search the components whose text contains the given query.
+   *
+   * @param query the query, not empty.
+   *
+   * @return the components found, in the order of the view.
+   */
+  List<GraphicComponent> search(String query) {
+    final String normalizedQuery = normalize(query);
+    final List<GraphicComponent> results = new ArrayList<>();
+
+    if (normalizedQuery.length() < GRAM_LENGTH) {
+      for (int i = 0; i < texts.length; ++i)
+        if (texts[i].contains(normalizedQuery)) results.add(components[i]);
+      return results;
+    }
+
+    // The rarest sequence of the query gives the fewest candidates.
+    Postings candidates = null;
+    for (int i = 0; i + GRAM_LENGTH <= normalizedQuery.length(); ++i) {
+      final Postings gram = postings.get(normalizedQuery.substring(i, i + GRAM_LENGTH));
+      if (gram == null) return results;
+      if (candidates == null || gram.size < candidates.size) candidates = gram;
+    }
+
+    for (int i = 0; i < candidates.size; ++i) {
+      final int position = candidates.positions[i];
+      if (texts[position].contains(normalizedQuery)) results.add(components[position]);
+    }
+    return results;
+  }
+
+  private void update() {
+    // While the changes are blocked (loading, undo), the version does not follow the changes.
+    if (!Change.isBlocked() && version == Change.getVersion()) return;
+    version = Change.getVersion();
+
+    // The previous walk gives the expected size.
+    final Map<GraphicComponent, String[]> read = new IdentityHashMap<>(components.length);
+    final List<GraphicComponent> indexed = new ArrayList<>(components.length);
+    final List<String> indexedTexts = new ArrayList<>(components.length);
+
+    graphicView.forEachChildRecursively(component -> {
+      if (read.containsKey(component)) return; // Found once per view.
+
+      final String text = component.getFullString();
+      String[] entry = normalized.get(component);
+      if (entry == null || !entry[0].equals(text)) entry = new String[] {text, normalize(text)};
+
+      read.put(component, entry);
+      indexed.add(component);
+      indexedTexts.add(entry[1]);
+    });
+
+    // The removed components are forgotten.
+    normalized = read;
+    components = indexed.toArray(new GraphicComponent[0]);
+    texts = indexedTexts.toArray(new String[0]);
+
+    postings.clear();
+    for (int position = 0; position < texts.length; ++position) {
+      final String text = texts[position];
+      for (int i = 0; i + GRAM_LENGTH <= text.length(); ++i)
+        postings.computeIfAbsent(text.substring(i, i + GRAM_LENGTH), gram -> new Postings()).add(position);
+    }
+  }
+
+  /**
+   * A growing list of positions, without boxing.
+   */
+  private static final class Postings {
+    int[] positions = new int[4];
+    int size;
+
+    void add(int position) {
+      if (size > 0 && positions[size - 1] == position) return; // A sequence found twice in a text.
+      if (size == positions.length) positions = Arrays.copyOf(positions, size * 2);
+      positions[size++] = position;
+    }
+  }
+
+}
@@ -11,6 +11,7 @@ import utility.POMReader;
 import utility.PersonalizedIcon;
 import utility.SMessageDialog;
 import utility.Utility;
+import utility.WatchDir;
 
 import javax.swing.*;
 import java.awt.*;
@@ -81,6 +82,7 @@ public class Slyum extends JFrame
   public final static String ACTION_EXPORT_IMAGE = "ExportImage";
 
   public static final String ACTION_EXPORT_PDF = "ExportPdf";
+  public static final String ACTION_EXPORT_ALL_PDF = "ExportAllPdf";
   public static final String ACTION_EXPORT_SVG = "ExportSvg";
   public static final String ACTION_FULL_SCREEN = "fullScreen";
   public final static String ACTION_HELP = "Help";
@@ -225,6 +227,7 @@ public class Slyum extends JFrame
   public static final String KEY_NEW_WINDOW = "ctrl shit W";
 
   public final static String KEY_SEARCH = "ctrl F";
+  public final static String KEY_SEARCH_PROJECT = "ctrl shift F";
   public final static String KEY_SEARCH_NEXT = "F3";
   public final static String KEY_SEARCH_NEXT_OSX = "meta G";
   public final static String KEY_SEARCH_PREVIOUS = "shift F3";
@@ -244,6 +247,9 @@ public class Slyum extends JFrame
   public static final Semver VERSION = POMReader.getInstance().getVersion();
   public static final boolean VIEW_TITLE_ON_EXPORT_DEFAULT = true;
   public static final boolean DISPLAY_DIAGRAM_INFORMATIONS_ON_EXPERT_DEFAULT = true;
+  public static final boolean COMPACT_SVG_ON_EXPORT_DEFAULT = false;
+  public static final int AUTOSAVE_INTERVAL_DEFAULT = 60; // seconds
+  public static final int AUTOSAVE_JOURNAL_SIZE_DEFAULT = 5; // MB
   public static final int WINDOWS_MAXIMIZED = Frame.MAXIMIZED_BOTH;
   public static final Dimension WINDOWS_SIZE = new Dimension(DEFAULT_SIZE.x, DEFAULT_SIZE.y);
   private static final String ARGUMENT_EXIT_WITHOUT_ASK = "-exitWithoutAsk";
@@ -251,7 +257,7 @@ public class Slyum extends JFrame
   private static final String ARGUMENT_OPEN_NEW_PROJECT = "-newProject";
   public static final String URL_ISSUES_PAGE = "https://github.com/Slyum/slyum/issues";
   public static final String URL_PROJECT_PAGE = "https://github.com/Slyum/slyum";
-  private static String[] arguments;
+  private static String[] arguments = new String[0];
 
   private static Slyum instance;
   private static JCheckBoxMenuItem menuItemFullScreen;
@@ -376,12 +382,12 @@ public class Slyum extends JFrame
 
   public static void setEnableRedoButtons(boolean enable) {
     PanelClassDiagram.getInstance().getRedoButton().setEnabled(enable);
-    redo.setEnabled(enable);
+    if (redo != null) redo.setEnabled(enable);
   }
 
   public static void setEnableUndoButtons(boolean enable) {
     PanelClassDiagram.getInstance().getUndoButton().setEnabled(enable);
-    undo.setEnabled(enable);
+    if (undo != null) undo.setEnabled(enable);
   }
 
   public static Slyum getInstance() {
@@ -465,6 +471,30 @@ public class Slyum extends JFrame
     return size;
   }
 
+  /**
+   * @return the interval between two autosaves, in seconds. 0 if the autosave is disabled.
+   */
+  public static int getAutosaveInterval() {
+    String prop = PropertyLoader.getInstance().getProperties().getProperty(PropertyLoader.AUTOSAVE_INTERVAL);
+    int interval = AUTOSAVE_INTERVAL_DEFAULT;
+
+    if (prop != null) interval = Integer.parseInt(prop);
+
+    return interval;
+  }
+
+  /**
+   * @return the size of the recovery journal, in MB, above which it is compacted.
+   */
+  public static int getAutosaveJournalSize() {
+    String prop = PropertyLoader.getInstance().getProperties().getProperty(PropertyLoader.AUTOSAVE_JOURNAL_SIZE);
+    int size = AUTOSAVE_JOURNAL_SIZE_DEFAULT;
+
+    if (prop != null) size = Integer.parseInt(prop);
+
+    return size;
+  }
+
   public static void initRecentColors() {
     String prop = PropertyLoader.getInstance().getProperties().getProperty(PropertyLoader.RECENT_COLORS);
 
@@ -578,9 +608,23 @@ public class Slyum extends JFrame
     return enable;
   }
 
+  /**
+   * @return true if the SVG exports are compact, with the texts as texts (see {@link graphic.export.ExportViewSvg}).
+   */
+  public static boolean isCompactSvgOnExport() {
+    String prop = PropertyLoader.getInstance().getProperties().getProperty(PropertyLoader.COMPACT_SVG_ON_EXPORT);
+    boolean enable = COMPACT_SVG_ON_EXPORT_DEFAULT;
+    if (prop != null) enable = Boolean.parseBoolean(prop);
+    return enable;
+  }
+
   public static void main(final String[] args) {
     Locale.setDefault(Locale.ENGLISH);
     arguments = args;
+
+    // Batch export from the command line, no window is created.
+    if (BatchExporter.isRequested(args)) System.exit(BatchExporter.run(args));
+
     setUIProperties();
 
     try {
@@ -616,7 +660,7 @@ public class Slyum extends JFrame
 
   public static void updateWindowTitle(final File projectName) {
     windowTitle = APP_NAME + (projectName == null ? "" : " - " + projectName.getPath());
-    Slyum.getInstance().setTitle(windowTitle);
+    if (Slyum.getInstance() != null) Slyum.getInstance().setTitle(windowTitle);
   }
 
   public static boolean isCleanAtOpeningEnable() {
@@ -797,6 +841,9 @@ public class Slyum extends JFrame
       case ACTION_EXPORT_PDF:
         PanelClassDiagram.getInstance().exportAsVectoriel("pdf", new String[] {"pdf", "svg", "eps"});
         break;
+      case ACTION_EXPORT_ALL_PDF:
+        PanelClassDiagram.getInstance().exportAllViewsAsPdf();
+        break;
       case ACTION_EXPORT_SVG:
         PanelClassDiagram.getInstance().exportAsVectoriel("svg", new String[] {"pdf", "svg", "eps"});
         break;
@@ -901,10 +948,16 @@ public class Slyum extends JFrame
 
       case JOptionPane.YES_OPTION:
         p.saveToXML(false);
+
+        // The callback of the save cannot run on the EDT before leaving. If the save failed, the error is reported
+        // and the application stays open.
+        if (!ProjectSaver.awaitPendingSaves()) return false;
+        AutoSaver.discard(p.getCurrentFile());
         _exit();
         break;
 
       case JOptionPane.NO_OPTION:
+        AutoSaver.discard(p.getCurrentFile());
         _exit();
         break;
     }
@@ -941,6 +994,8 @@ public class Slyum extends JFrame
     if (!argumentOpenWithNewProject() && file == null) file = RecentProjectManager.getMoreRecentFile();
 
     if (file != null) PanelClassDiagram.openSlyFile(file);
+
+    AutoSaver.start();
   }
 
   /**
@@ -986,6 +1041,12 @@ public class Slyum extends JFrame
   }
 
   private void _exit() {
+    // Wait for the background save to be written on disk.
+    MultiViewManager.flushViewsState();
+    ProjectSaver.awaitPendingSaves();
+    AutoSaver.awaitPendingWrites();
+    WatchDir.shutdown();
+
     // Save properties before closing.
     PanelClassDiagram.getInstance().saveSplitLocationInProperties();
     saveRecentColors();
@@ -1062,6 +1123,10 @@ public class Slyum extends JFrame
         menuItem = createMenuItem("As PDF...", "pdf-16", KeyEvent.VK_P, KEY_EXPORT_PDF, ACTION_EXPORT_PDF);
         subMenu.add(menuItem);
 
+        // Menu item Export all views as PDF...
+        menuItem = createMenuItem("All Views as PDF...", "pdf-16", KeyEvent.VK_A, null, ACTION_EXPORT_ALL_PDF);
+        subMenu.add(menuItem);
+
         // Menu item Export as SVG...
         menuItem = createMenuItem("As SVG...", "svg-16", KeyEvent.VK_S, KEY_EXPORT_SVG, ACTION_EXPORT_SVG);
         subMenu.add(menuItem);
@@ -1322,6 +1387,25 @@ public class Slyum extends JFrame
         }
       });
 
+      menu.add(new AbstractAction("Search in project...") {
+        {
+          putValue(Action.ACCELERATOR_KEY,
+                   KeyStroke.getKeyStroke(Utility.adaptOSKeyStroke(Slyum.KEY_SEARCH_PROJECT)));
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+          ProjectSearchDialog.open();
+        }
+      });
+
+      menu.add(new AbstractAction("Query the model...") {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+          QueryDialog.open();
+        }
+      });
+
       actionSearchNext = new AbstractAction("Search next") {
         {
           putValue(Action.ACCELERATOR_KEY, KeyStroke.getKeyStroke(Slyum.KEY_SEARCH_NEXT));
@@ -1,17 +1,23 @@
 package swing;
 
 import graphic.GraphicView;
-import graphic.export.ExportViewImage;
+import graphic.export.ExportViewPrintable;
+import utility.SMessageDialog;
 
-import java.awt.*;
-import java.awt.image.BufferedImage;
+import javax.swing.*;
 import java.awt.print.PageFormat;
 import java.awt.print.Paper;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Customized implementation of PrinterJob for needs of Slyum.
+ * Customized implementation of PrinterJob for needs of Slyum. The views are printed as vectors (see
+ * {@link ExportViewPrintable}). The printer job runs on a background thread, the pages are painted on the EDT; one
+ * printing runs at a time.
  *
  * @author David Miserez
  */
@@ -26,14 +32,13 @@ public class SlyumPrinterJob {
     return instance;
   }
 
-  public static boolean print(GraphicView graphicView) throws PrinterException {
-    PrinterJob prnJob = getSlyumPrinterJob().printerJob;
-    prnJob.setPrintable(graphicView, SlyumPrinterJob.getSlyumPrinterJob().getPageFormat(graphicView));
-
-    if (!prnJob.printDialog()) return false;
-
-    prnJob.print();
-    return true;
+  /**
+   * Ask how to print the given view, then print it in the background. Must be called from the EDT.
+   *
+   * @param graphicView the view to print.
+   */
+  public static void print(GraphicView graphicView) {
+    getSlyumPrinterJob()._print(graphicView);
   }
 
   public static void pageDialog(GraphicView graphicView) {
@@ -46,6 +51,12 @@ public class SlyumPrinterJob {
 
   private PrinterJob printerJob = PrinterJob.getPrinterJob();
   private PageFormat pageFormat = null;
+  private boolean printing = false;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "Slyum-print");
+    thread.setDaemon(true);
+    return thread;
+  });
 
   private SlyumPrinterJob() {
 
@@ -59,11 +70,42 @@ public class SlyumPrinterJob {
    * @return PageFormat.PORTRAIT or PageFormat.LANDSCAPE.
    */
   public static int getPreferredOrientation(GraphicView graphicView) {
-    BufferedImage bi = ExportViewImage.create(graphicView).export();
-    Dimension sceneSize = new Dimension(bi.getWidth(), bi.getHeight());
+    return ExportViewPrintable.create(graphicView, false).getPreferredOrientation();
+  }
+
+  private void _print(GraphicView graphicView) {
+    if (printing) {
+      SMessageDialog.showInformationMessage("A printing is already in progress.");
+      return;
+    }
+
+    final PageFormat pf = getPageFormat(graphicView);
+    ExportViewPrintable printable = ExportViewPrintable.create(graphicView, true);
+    final int pages = printable.getPageCount(pf);
+
+    if (pages > 1) {
+      final int answer = SMessageDialog.showQuestionMessageYesNoCancel(
+          "The diagram needs " + pages + " pages at its actual size.\n" +
+          "Print it on " + pages + " pages? Otherwise it is reduced to fit on a single page.");
+      if (answer == JOptionPane.CANCEL_OPTION || answer == JOptionPane.CLOSED_OPTION) return;
+      if (answer == JOptionPane.NO_OPTION) printable = ExportViewPrintable.create(graphicView, false);
+    }
 
-    if (sceneSize.width > sceneSize.height) return PageFormat.LANDSCAPE;
-    else return PageFormat.PORTRAIT;
+    printerJob.setPrintable(printable, pf);
+    if (!printerJob.printDialog()) return;
+
+    printing = true;
+    executor.execute(() -> {
+      try {
+        printerJob.print();
+        SwingUtilities.invokeLater(() -> SMessageDialog.showInformationMessage("Print completed successfully"));
+      } catch (PrinterException ex) {
+        Logger.getLogger(SlyumPrinterJob.class.getName()).log(Level.SEVERE, null, ex);
+        SwingUtilities.invokeLater(() -> SMessageDialog.showInformationMessage("An error occurs while printing."));
+      } finally {
+        SwingUtilities.invokeLater(() -> printing = false);
+      }
+    });
   }
 
   private PageFormat getPageFormat(GraphicView graphicView) {
@@ -0,0 +1,85 @@
+package swing;
+
+import graphic.GraphicView;
+import graphic.export.ExportViewThumbnail;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a thumbnail per view. A thumbnail is painted by a later event of the EDT at the requested size, and kept until
+ * the view, the painting settings or the size change: it is found by the fingerprint of the view (see
+ * {@link ExportCache#getFingerprint(GraphicView)}). A closed view is materialized for its thumbnail and released once
+ * it is painted. Only used on the EDT.
+ */
+public class ThumbnailCache {
+
+  private static final ThumbnailCache instance = new ThumbnailCache();
+
+  /**
+   * Get the thumbnail of a view. If it is not painted yet, or the view changed since, it is painted by a later event
+   * and the given task is run once it is ready.
+   *
+   * @param graphicView the view, open or closed, not empty.
+   * @param maxSize the size the thumbnail must fit in.
+   * @param onReady the task run once the thumbnail is painted, as a repaint.
+   *
+   * @return the thumbnail, or null while it is painted.
+   */
+  public static BufferedImage getThumbnail(GraphicView graphicView, Dimension maxSize, Runnable onReady) {
+    return instance._getThumbnail(graphicView, maxSize, onReady);
+  }
+
+  private final WeakHashMap<GraphicView, Thumbnail> thumbnails = new WeakHashMap<>();
+
+  private ThumbnailCache() { }
+
+  private BufferedImage _getThumbnail(GraphicView graphicView, Dimension maxSize, Runnable onReady) {
+    final String key = ExportCache.getFingerprint(graphicView) + " " + maxSize.width + "x" + maxSize.height;
+    final Thumbnail thumbnail = thumbnails.get(graphicView);
+    if (thumbnail != null && thumbnail.key.equals(key)) return thumbnail.image; // Null while painted.
+
+    final Thumbnail painted = new Thumbnail(key);
+    thumbnails.put(graphicView, painted);
+
+    // A closed view is materialized by a first event, its labels are placed by the next ones.
+    SwingUtilities.invokeLater(() -> {
+      if (thumbnails.get(graphicView) != painted) return; // Outdated.
+
+      final boolean closed = !graphicView.isMaterialized();
+      graphicView.materialize();
+      SwingUtilities.invokeLater(() -> paint(graphicView, maxSize, painted, onReady, closed));
+    });
+
+    return null;
+  }
+
+  private void paint(GraphicView graphicView, Dimension maxSize, Thumbnail painted, Runnable onReady,
+                     boolean closed) {
+    try {
+      if (thumbnails.get(graphicView) != painted) return;
+
+      painted.image = ExportViewThumbnail.create(graphicView, maxSize).export();
+      onReady.run();
+    } catch (RuntimeException e) {
+      Logger.getLogger(ThumbnailCache.class.getName()).log(Level.WARNING, "Unable to paint a thumbnail.", e);
+      thumbnails.remove(graphicView, painted); // Painted again next time.
+    } finally {
+      if (closed) graphicView.release();
+    }
+  }
+
+  private static class Thumbnail {
+    final String key;
+    BufferedImage image;
+
+    Thumbnail(String key) {
+      this.key = key;
+    }
+  }
+
+}
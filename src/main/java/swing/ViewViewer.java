@@ -1,8 +1,6 @@
 package swing;
 
 import graphic.GraphicView;
-import graphic.export.ExportViewImage;
-import org.imgscalr.Scalr;
 
 import javax.swing.*;
 import java.awt.*;
@@ -118,9 +116,9 @@ public class ViewViewer
 
     g2d.translate(DiagramName.DIAGRAM_NAME_WIDTH + 1, 0);
 
-    BufferedImage image = currentHover.getImageOverview();
+    BufferedImage thumbnail = currentHover.getImageOverview(new Dimension(CONTENT_WIDTH, CONTENT_HEIGHT));
 
-    if (image == null) {
+    if (thumbnail == null) {
       final String EMPTY_DIAGRAM_MESSAGE = currentHover.getNoImageOverviewMessage();
 
       g2d.setColor(Color.black);
@@ -134,26 +132,6 @@ public class ViewViewer
       return;
     }
 
-    int imgWidth = image.getWidth(),
-        imgHeight = image.getHeight();
-
-    if (imgWidth > CONTENT_WIDTH) {
-      imgHeight = (CONTENT_WIDTH * imgHeight) / imgWidth;
-      imgWidth = CONTENT_WIDTH;
-    }
-
-    if (imgHeight > CONTENT_HEIGHT) {
-      imgWidth = (CONTENT_HEIGHT * imgWidth) / imgHeight;
-      imgHeight = CONTENT_HEIGHT;
-    }
-
-    BufferedImage thumbnail = Scalr.resize(
-        image,
-        Scalr.Method.ULTRA_QUALITY,
-        Scalr.Mode.AUTOMATIC,
-        imgWidth,
-        imgHeight);
-
     int thumbX = (CONTENT_WIDTH - thumbnail.getWidth()) / 2,
         thumbY = (CONTENT_HEIGHT - thumbnail.getHeight()) / 2;
 
@@ -210,7 +188,10 @@ public class ViewViewer
 
   @Override
   public void mouseMoved(MouseEvent e) {
-    currentHover = getLeftButtonAtLocation(e.getPoint());
+    LeftButton hover = getLeftButtonAtLocation(e.getPoint());
+    if (hover == currentHover) return;
+
+    currentHover = hover;
     repaint();
   }
 
@@ -269,7 +250,12 @@ public class ViewViewer
       return new Color(219, 25, 25);
     }
 
-    protected BufferedImage getImageOverview() {
+    /**
+     * @param maxSize the size the overview must fit in.
+     *
+     * @return the overview, or null to display the message.
+     */
+    protected BufferedImage getImageOverview(Dimension maxSize) {
       return null;
     }
 
@@ -282,6 +268,7 @@ public class ViewViewer
   private class DiagramName extends LeftButton {
 
     static final String NO_IMAGE_MESSAGE = "empty diagram";
+    static final String PAINTING_MESSAGE = "loading...";
 
     private GraphicView graphicView;
 
@@ -302,15 +289,15 @@ public class ViewViewer
     }
 
     @Override
-    protected BufferedImage getImageOverview() {
-      if (graphicView.getAllDiagramComponents().isEmpty())
+    protected BufferedImage getImageOverview(Dimension maxSize) {
+      if (graphicView.isEmpty())
         return null;
-      return ExportViewImage.create(graphicView, false).export();
+      return ThumbnailCache.getThumbnail(graphicView, maxSize, ViewViewer.this::repaint);
     }
 
     @Override
     protected String getNoImageOverviewMessage() {
-      return NO_IMAGE_MESSAGE;
+      return graphicView.isEmpty() ? NO_IMAGE_MESSAGE : PAINTING_MESSAGE;
     }
 
   }
@@ -38,19 +38,30 @@ import graphic.textbox.TextBox;
 import graphic.textbox.TextBoxCommentary;
 import graphic.textbox.TextBoxLabel;
 import graphic.textbox.TextBoxRole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXNotRecognizedException;
 import org.xml.sax.helpers.DefaultHandler;
 import swing.propretiesView.DiagramPropreties;
+import utility.Utility;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 
 /**
  * This class read the XML file and create the diagram UML structured from this.
+ * <p>
+ * The file is parsed on a worker thread into small records, then the records are imported on the EDT. The model can
+ * not be built while parsing: its observers create the views, which only exist on the EDT once the views' section,
+ * written after the model, has been read. The records are also what a project snapshot stores, see
+ * {@link ProjectCache}. Each record of the model is released once it has been imported.
  *
  * @author David Miserez
  * @version 1.0 - 25.07.2011
@@ -60,9 +71,7 @@ public class XMLParser extends DefaultHandler {
     AGGREGATE, COMPOSE, MULTI, NONE
   }
 
-  ;
-
-  private class Association {
+  private static class Association {
     int id = -1;
     LinkedList<Role> role = new LinkedList<>();
     Aggregation aggregation = Aggregation.NONE;
@@ -71,34 +80,32 @@ public class XMLParser extends DefaultHandler {
 
   }
 
-  ;
-
-  private class ClassDiagram {
+  private static class ClassDiagram {
     LinkedList<UMLView> uMLView = new LinkedList<>();
-    DiagramElements diagrameElement = null;
 
     String name = "";
     String informations = "";
 
-    classDiagram.ClassDiagram.ViewEntity defaultViewEntities = GraphicView.getDefaultViewEntities();
-
-    ParametersViewStyle defaultViewMethods = GraphicView.getDefaultViewMethods();
-
-    boolean defaultViewEnum = GraphicView.getDefaultViewEnum();
-    boolean defaultVisibleTypes = GraphicView.getDefaultVisibleTypes();
+    // The display options as written in the file, null if missing: the preferences give them when the diagram is
+    // created.
+    ViewEntity defaultViewEntities;
+    ParametersViewStyle defaultViewMethods;
+    Boolean defaultViewEnum;
+    Boolean defaultVisibleTypes;
 
   }
 
-  private class ComponentView {
+  private static class ComponentView {
     int color = 0;
     int componentId = -1;
-    boolean displayAttributes = true, displayMethods = true, displayDefault = true;
-    TypeEnumDisplay typeEnumDisplay = TypeEnumDisplay.DEFAULT;
+    // Null if missing from the file.
+    Boolean displayAttributes, displayMethods, displayDefault;
+    TypeEnumDisplay typeEnumDisplay;
     Rectangle geometry = new Rectangle();
 
   }
 
-  private class Dependency {
+  private static class Dependency {
     int id = -1;
     int source = -1;
     int target = -1;
@@ -106,15 +113,7 @@ public class XMLParser extends DefaultHandler {
 
   }
 
-  private class DiagramElements {
-    LinkedList<Association> association = new LinkedList<>();
-    LinkedList<Dependency> dependency = new LinkedList<>();
-    LinkedList<Entity> entity = new LinkedList<>();
-    LinkedList<Inheritance> inheritance = new LinkedList<>();
-
-  }
-
-  private class Entity {
+  private static class Entity {
     int id = -1;
     int associationClassID = -1;
     boolean isAbstract = false;
@@ -123,7 +122,7 @@ public class XMLParser extends DefaultHandler {
     EntityType entityType = null;
     LinkedList<Variable> attribute = new LinkedList<>();
     LinkedList<Operation> method = new LinkedList<>();
-    LinkedList<EnumValue> enums = new LinkedList<>();
+    LinkedList<String> enums = new LinkedList<>();
 
   }
 
@@ -131,7 +130,7 @@ public class XMLParser extends DefaultHandler {
     ASSOCIATION_CLASS, CLASS, INTERFACE, ENUM
   }
 
-  private class Inheritance {
+  private static class Inheritance {
     int id = -1;
     int child = -1;
     int parent = -1;
@@ -139,7 +138,7 @@ public class XMLParser extends DefaultHandler {
 
   }
 
-  private class MultiView {
+  private static class MultiView {
     int color = 0;
     int relationId = -1;
     Rectangle multiViewBounds = new Rectangle();
@@ -147,7 +146,7 @@ public class XMLParser extends DefaultHandler {
 
   }
 
-  private class Note {
+  private static class Note {
     int color = 0;
     String content;
     Rectangle bounds = new Rectangle();
@@ -155,7 +154,7 @@ public class XMLParser extends DefaultHandler {
 
   }
 
-  private class Operation {
+  private static class Operation {
     boolean isAbstract = false;
     boolean isStatic = false;
     String name = null;
@@ -167,69 +166,228 @@ public class XMLParser extends DefaultHandler {
 
   }
 
-  private class RelationView {
+  private static class RelationView {
     int relationId = -1;
     int color = 0;
-    Rectangle labelAssociation = new Rectangle();
+    Rectangle labelAssociation; // Null if missing from the file.
     LinkedList<Point> line = new LinkedList<>();
     LinkedList<Rectangle> multipliciteAssociations = new LinkedList<>();
     LinkedList<Rectangle> roleAssociations = new LinkedList<>();
 
   }
 
-  private class Role {
+  private static class Role {
     int componentId = -1;
     String name = null;
-    Multiplicity multiplicity = null;
+    int lowerBound = -1, upperBound = -1;
     Visibility visibility = Visibility.PUBLIC;
 
   }
 
-  private class UMLView {
+  private static class UMLView {
 
     GraphicView graphicView;
     String name = null;
     boolean open = true;
 
+    /**
+     * True for a closed view, whose components are created when the view is materialized.
+     */
+    boolean lazy = false;
+
+    /**
+     * The component views, relation views, multi views and notes, in the order of the file.
+     */
+    LinkedList<Object> elements = new LinkedList<>();
     LinkedList<Note> notes = new LinkedList<>();
 
     HashMap<Integer, ComponentView> componentView = new HashMap<>();
     HashMap<Integer, MultiView> multiView = new HashMap<>();
     HashMap<Integer, RelationView> relationView = new HashMap<>();
 
-    public UMLView() {
-      graphicView = MultiViewManager.getSelectedGraphicView();
-    }
-
     public UMLView(String name, boolean open) {
       this.name = name;
+      this.open = open;
+    }
+
+    void add(Object element) {
+      elements.add(element);
+
+      if (element instanceof ComponentView)
+        componentView.put(((ComponentView) element).componentId, (ComponentView) element);
+      else if (element instanceof RelationView)
+        relationView.put(((RelationView) element).relationId, (RelationView) element);
+      else if (element instanceof MultiView)
+        multiView.put(((MultiView) element).relationId, (MultiView) element);
+      else
+        notes.add((Note) element);
+    }
+
+    /**
+     * @return true if the view displays the component with the given id.
+     */
+    boolean displays(int id) {
+      return componentView.containsKey(id) || relationView.containsKey(id) || multiView.containsKey(id);
+    }
+
+    /**
+     * Forget the component with the given id, removed from the class diagram: its id can be given to a new component.
+     */
+    void remove(int id) {
+      componentView.remove(id);
+      relationView.remove(id);
+      multiView.remove(id);
+
+      elements.removeIf(element -> element instanceof ComponentView && ((ComponentView) element).componentId == id ||
+                                   element instanceof RelationView && ((RelationView) element).relationId == id ||
+                                   element instanceof MultiView && ((MultiView) element).relationId == id);
+
+      for (final Note note : notes)
+        note.line.removeIf(line -> line.relationId == id);
+    }
 
-      if (open) graphicView = MultiViewManager.addAndOpenNewView(name);
+    /**
+     * Create the graphic view of this UML view. The first view of the file is the root graphic view.
+     *
+     * @param isRoot if this view is the root view.
+     */
+    void createGraphicView(boolean isRoot) {
+      if (isRoot) graphicView = MultiViewManager.getSelectedGraphicView();
+      else if (open) graphicView = MultiViewManager.addAndOpenNewView(name);
       else graphicView = MultiViewManager.addNewView(name);
+
+      graphicView.setName(name);
+
+      if (lazy) graphicView.setLazyContent(new LazyView(this));
+    }
+
+  }
+
+  /**
+   * The tags of a sly file. SAX reports the name of each element as a String, it is resolved once into a constant to
+   * dispatch on it.
+   */
+  private enum Tag {
+    CLASS_DIAGRAM("classDiagram"),
+    DIAGRAM_ELEMENTS("diagramElements"),
+    ENTITY("entity"),
+    ATTRIBUTE("attribute"),
+    METHOD("method"),
+    VARIABLE("variable"),
+    ENUM_VALUE("EnumValue"),
+    ASSOCIATION_CLASS_ID("associationClassID"),
+    ASSOCIATION("association"),
+    ROLE("role"),
+    MULTIPLICITY("multiplicity"),
+    MIN("min"),
+    MAX("max"),
+    INHERITANCE("inheritance"),
+    CHILD("child"),
+    PARENT("parent"),
+    DEPENDENCY("dependency"),
+    SOURCE("source"),
+    TARGET("target"),
+    UML_VIEW("umlView"),
+    COMPONENT_VIEW("componentView"),
+    GEOMETRY("geometry"),
+    RELATION_VIEW("relationView"),
+    MULTI_VIEW("multiView"),
+    MULTI_LINE_VIEW("multiLineView"),
+    MULTI_VIEW_BOUNDS("multiViewBounds"),
+    LINE("line"),
+    POINT("point"),
+    LABEL_ASSOCIATION("labelAssociation"),
+    ROLE_ASSOCIATION("roleAssociation"),
+    MULTIPLICITE_ASSOCIATION("multipliciteAssociation"),
+    NOTE("note"),
+    NOTE_GEOMETRY("noteGeometry"),
+    NOTE_LINE("noteLine"),
+    X("x"),
+    Y("y"),
+    W("w"),
+    H("h"),
+    UNKNOWN(null);
+
+    /**
+     * The tags by a perfect hash of their name: no two tags have the same hash, a name is resolved with one comparison.
+     */
+    private static final Tag[] TAGS = new Tag[128];
+
+    static {
+      for (Tag tag : values()) {
+        if (tag.xmlName == null) continue;
+
+        final int index = hash(tag.xmlName);
+        if (TAGS[index] != null) throw new IllegalStateException(tag + " and " + TAGS[index] + " have the same hash.");
+        TAGS[index] = tag;
+      }
+    }
+
+    private final String xmlName;
+
+    Tag(String xmlName) {
+      this.xmlName = xmlName;
+    }
+
+    private static int hash(String name) {
+      return (2 * name.charAt(0) + 36 * name.charAt(name.length() - 1) + name.length()) & (TAGS.length - 1);
     }
 
+    static Tag of(String qName) {
+      if (qName.isEmpty()) return UNKNOWN;
+
+      final Tag tag = TAGS[hash(qName)];
+      return tag != null && tag.xmlName.equals(qName) ? tag : UNKNOWN;
+    }
   }
 
   // UML STRUCTURE
-  private class Variable {
-    @SuppressWarnings("unused") int collection = 0;
+  private static class Variable {
     boolean constant = false;
     String defaultValue = null;
     boolean isStatic = false;
     String name = null;
-    Type type = null;
+    String type = null;
     Visibility visibility = null;
 
   }
 
-  LinkedList<AssociationClass> associationClassEntities = new LinkedList<>();
-  LinkedList<Association> associations = new LinkedList<>();
-  private StringBuffer buffer;
+  /**
+   * A small unit of work of the diagram creation.
+   */
+  private interface ImportStep {
+    void run() throws SyntaxeNameException, SAXNotRecognizedException;
+  }
+
+  private final LinkedList<ImportStep> importSteps = new LinkedList<>();
+
+  /**
+   * Records of the model elements (entities, associations, inheritances and dependencies), in the order of the file.
+   */
+  private final LinkedList<Object> modelRecords = new LinkedList<>();
+
+  /**
+   * Steps waiting for the creation of the component with the given id (forward references).
+   */
+  private final HashMap<Integer, LinkedList<ImportStep>> pendingReferences = new HashMap<>();
+
+  private final LinkedHashSet<Entity> waitingAssociationClasses = new LinkedHashSet<>();
+
+  /**
+   * Components created by this import, by id.
+   */
+  private final HashMap<Integer, IDiagramComponent> importedComponents = new HashMap<>();
+  private final LinkedList<Runnable> labelPlacements = new LinkedList<>();
+  private int totalSteps, doneSteps;
+
+  /**
+   * Content of the current text element, reused for all the elements.
+   */
+  private final StringBuilder text = new StringBuilder();
+  private boolean readingText = false;
 
   private final classDiagram.ClassDiagram classDiagram;
 
-  LinkedList<ClassEntity> classEntities = new LinkedList<>();
-  // LinkedList<InnerCLass> innerCLass = new LinkedList<InnerCLass>();
   Association currentAssociation;
   ComponentView currentComponentView;
   Dependency currentDependency;
@@ -241,10 +399,6 @@ public class XMLParser extends DefaultHandler {
 
   Operation currentMethod;
   int currentMin, currentMax;
-  // InnerClass currentInnerClass;
-
-  Multiplicity currentMultiplicity;
-
   MultiView currentMultiView;
 
   Note currentNote;
@@ -255,17 +409,11 @@ public class XMLParser extends DefaultHandler {
 
   Role currentRole;
 
-  LinkedList<Dependency> dependency = new LinkedList<>();
-
-  LinkedList<Inheritance> inheritance = new LinkedList<>();
-
   private boolean inMultiViewBounds;
 
   boolean inRelationView = false, inComponentView = false, inNoteGeometry = false, inNoteRelation = false,
       inLabelAssociation = false;
 
-  LinkedList<InterfaceEntity> interfaceEntities = new LinkedList<>();
-
   private ClassDiagram umlClassDiagram;
 
   public XMLParser(classDiagram.ClassDiagram classDiagram) {
@@ -278,9 +426,63 @@ public class XMLParser extends DefaultHandler {
 
   @Override
   public void characters(char[] ch, int start, int length) throws SAXException {
-    final String reader = new String(ch, start, length);
+    if (readingText) text.append(ch, start, length);
+  }
 
-    if (buffer != null) buffer.append(reader);
+  private void startText() {
+    text.setLength(0);
+    readingText = true;
+  }
+
+  private String textValue() {
+    readingText = false;
+    return text.toString();
+  }
+
+  /**
+   * Parse the content of the current text element without creating a String.
+   */
+  private int textIntValue() throws SAXException {
+    readingText = false;
+
+    int begin = 0, end = text.length();
+    while (begin < end && Character.isWhitespace(text.charAt(begin))) begin++;
+    while (end > begin && Character.isWhitespace(text.charAt(end - 1))) end--;
+
+    return parseInt(text, begin, end);
+  }
+
+  /**
+   * Parse the value of an int attribute, without looking for its value twice.
+   */
+  private static int intAttribute(Attributes attributes, String name) throws SAXException {
+    final String value = attributes.getValue(name);
+    if (value == null) throw new SAXException("Missing attribute " + name + ".");
+
+    return parseInt(value, 0, value.length());
+  }
+
+  /**
+   * Parse a decimal int in the given characters. A malformed number is reported as a SAXException, without creating a
+   * NumberFormatException first.
+   */
+  private static int parseInt(CharSequence chars, int begin, int end) throws SAXException {
+    final boolean negative = begin < end && chars.charAt(begin) == '-';
+    int i = begin < end && (negative || chars.charAt(begin) == '+') ? begin + 1 : begin;
+    if (i == end) throw new SAXException("Invalid number \"" + chars.subSequence(begin, end) + "\".");
+
+    // Accumulated negatively, as Integer.parseInt: Integer.MIN_VALUE has no positive counterpart.
+    int value = 0;
+    for (; i < end; i++) {
+      final int digit = chars.charAt(i) - '0';
+      if (digit < 0 || digit > 9 || value < (Integer.MIN_VALUE + digit) / 10)
+        throw new SAXException("Invalid number \"" + chars.subSequence(begin, end) + "\".");
+      value = value * 10 - digit;
+    }
+
+    if (!negative && value == Integer.MIN_VALUE)
+      throw new SAXException("Invalid number \"" + chars.subSequence(begin, end) + "\".");
+    return negative ? value : -value;
   }
 
   private void createEntity(Entity e) throws SyntaxeNameException, SAXNotRecognizedException {
@@ -315,7 +517,7 @@ public class XMLParser extends DefaultHandler {
 
       case ASSOCIATION_CLASS:
 
-        final Binary b = (Binary) classDiagram.searchComponentById(e.associationClassID);
+        final Binary b = (Binary) importedComponents.get(e.associationClassID);
         if (b == null) // création d'une classe normale.
         {
           ce = new ClassEntity(e.name, e.visibility, e.id);
@@ -337,7 +539,8 @@ public class XMLParser extends DefaultHandler {
 
       SimpleEntity se = (SimpleEntity) ce;
       for (Variable v : e.attribute) {
-        Attribute a = new Attribute(VariableName.verifyAndAskNewName(v.name), v.type);
+        Attribute a = new Attribute(VariableName.verifyAndAskNewName(v.name),
+                                    new Type(TypeName.verifyAndAskNewName(v.type)));
 
         se.addAttribute(a);
         se.notifyObservers(UpdateMessage.ADD_ATTRIBUTE_NO_EDIT);
@@ -363,20 +566,21 @@ public class XMLParser extends DefaultHandler {
 
         for (Variable v : o.variable) {
           classDiagram.components.Variable va = new classDiagram.components.Variable(
-              VariableName.verifyAndAskNewName(v.name), v.type);
+              VariableName.verifyAndAskNewName(v.name), new Type(TypeName.verifyAndAskNewName(v.type)));
           m.addParameter(va);
         }
         m.notifyObservers();
       }
     } else {
       EnumEntity ee = (EnumEntity) ce;
-      for (EnumValue v : e.enums) {
-        ee.addEnumValue(v);
+      for (String v : e.enums) {
+        ee.addEnumValue(new EnumValue(v));
         ee.notifyObservers(UpdateMessage.ADD_ENUM_NO_EDIT);
       }
     }
 
     ce.notifyObservers();
+    componentImported(ce);
   }
 
   @Override
@@ -384,151 +588,221 @@ public class XMLParser extends DefaultHandler {
 
   }
 
+  /**
+   * Create the whole diagram at once. Must be called from the EDT, once the file has been parsed.
+   */
   public void createDiagram() throws SyntaxeNameException, SAXNotRecognizedException {
+    prepareDiagram();
+    runNextSteps(Long.MAX_VALUE);
+  }
+
+  /**
+   * Split the creation of the parsed diagram in small steps, executed with {@link #runNextSteps(long)}. This allows
+   * to build a large diagram on the EDT without freezing the interface.
+   */
+  public void prepareDiagram() {
+    importSteps.clear();
+    labelPlacements.clear();
+    doneSteps = 0;
+
+    importSteps.add(this::importDiagramProperties);
+
+    // Single pass in the order of the file. An element referencing a component not created yet is imported as soon
+    // as this component is created.
+    for (final Object record : modelRecords)
+      importSteps.add(importStepOf(record));
+    modelRecords.clear();
+    importSteps.add(this::importUnresolvedReferences);
+
+    importSteps.add(() -> {
+      GraphicView rootGraphicView = MultiViewManager.getSelectedGraphicView();
+      rootGraphicView.setPaintBackgroundLast(true);
+      rootGraphicView.goRepaint();
+    });
+
+    // The components of closed views are created when they are used.
+    for (final UMLView umlView : umlClassDiagram.uMLView) {
+      if (umlView.lazy) continue;
+      importSteps.add(() -> locateComponentBounds(umlView));
+      importSteps.add(() -> locateLines(umlView));
+      importSteps.add(() -> locateMultiViews(umlView));
+    }
+
+    for (final UMLView umlView : umlClassDiagram.uMLView)
+      if (!umlView.lazy) importSteps.add(() -> importNotes(umlView));
+
+    importSteps.add(this::placeLabels);
+
+    totalSteps = importSteps.size();
+  }
+
+  /**
+   * Run the next steps of the diagram creation until all steps are done or the given time is elapsed. At least one
+   * step is executed. Must be called from the EDT.
+   *
+   * @param maxNanos the maximum time to spend, in nanoseconds.
+   *
+   * @return true if the diagram is completely created.
+   */
+  public boolean runNextSteps(long maxNanos) throws SyntaxeNameException, SAXNotRecognizedException {
+    final long start = System.nanoTime();
+
+    while (!importSteps.isEmpty()) {
+      importSteps.removeFirst().run();
+      doneSteps++;
+
+      if (System.nanoTime() - start >= maxNanos) break;
+    }
+
+    return importSteps.isEmpty();
+  }
+
+  /**
+   * @return the progression of the diagram creation, between 0 and 1.
+   */
+  public double getCreationProgress() {
+    return totalSteps == 0 ? 1.0 : (double) doneSteps / totalSteps;
+  }
+
+  private ImportStep importStepOf(Object record) {
+    if (record instanceof Entity) return () -> importEntity((Entity) record);
+    if (record instanceof Association) return () -> importAssociation((Association) record);
+    if (record instanceof Inheritance) return () -> importInheritance((Inheritance) record);
+    return () -> importDependency((Dependency) record);
+  }
 
+  private void importDiagramProperties() {
     MultiViewManager.setSelectedGraphicView(0);
 
-    GraphicView rootGraphicView = MultiViewManager.getSelectedGraphicView();
+    boolean isRoot = true;
+    for (UMLView umlView : umlClassDiagram.uMLView) {
+      umlView.createGraphicView(isRoot);
+      isRoot = false;
+    }
+
     classDiagram.setName(umlClassDiagram.name);
     classDiagram.setInformation(umlClassDiagram.informations);
     DiagramPropreties.setDiagramsInformations(umlClassDiagram.informations);
-    classDiagram.setViewEntity(umlClassDiagram.defaultViewEntities);
-    classDiagram.setDefaultViewMethods(umlClassDiagram.defaultViewMethods);
-    classDiagram.setDefaultViewEnum(umlClassDiagram.defaultViewEnum);
-    classDiagram.setVisibleType(umlClassDiagram.defaultVisibleTypes);
+    classDiagram.setViewEntity(umlClassDiagram.defaultViewEntities != null ?
+                                   umlClassDiagram.defaultViewEntities : GraphicView.getDefaultViewEntities());
+    classDiagram.setDefaultViewMethods(umlClassDiagram.defaultViewMethods != null ?
+                                           umlClassDiagram.defaultViewMethods : GraphicView.getDefaultViewMethods());
+    classDiagram.setDefaultViewEnum(umlClassDiagram.defaultViewEnum != null ?
+                                        umlClassDiagram.defaultViewEnum : GraphicView.getDefaultViewEnum());
+    classDiagram.setVisibleType(umlClassDiagram.defaultVisibleTypes != null ?
+                                    umlClassDiagram.defaultVisibleTypes : GraphicView.getDefaultVisibleTypes());
     classDiagram.notifyObservers();
-
-    // Don't change the order !!
-    importClassesAndInterfaces(); // <- need nothing :D
-
-    importAssociations(); // <- need importation classes
-    importAssociationClass(); // <- need importation classes and associations
-    importAssociations(); // Import associations that cannot be imported first
-    // time
-    importInheritances(); // <- ...
-    importDepedency();
-
-    rootGraphicView.setPaintBackgroundLast(true);
-    rootGraphicView.goRepaint();
-
-    locateComponentBounds();
   }
 
   @Override
   public void endElement(String uri, String localName, String qName) throws SAXException {
-    switch (qName) {
-      case "entity":
+    switch (Tag.of(qName)) {
+      case ENTITY:
         currentEntity = null;
         break;
-      case "method":
+      case METHOD:
         currentMethod = null;
         break;
-      case "EnumValue":
-        currentEntity.enums.add(new EnumValue(buffer.toString()));
-        buffer = null;
+      case ENUM_VALUE:
+        currentEntity.enums.add(textValue());
         break;
-      case "associationClassID":
-        currentEntity.associationClassID = Integer.parseInt(buffer.toString());
+      case ASSOCIATION_CLASS_ID:
+        currentEntity.associationClassID = textIntValue();
         break;
-      case "association":
+      case ASSOCIATION:
         currentAssociation = null;
         break;
-      case "role":
+      case ROLE:
         currentRole = null;
         break;
-      case "multiplicity":
-        currentRole.multiplicity = new Multiplicity(currentMin, currentMax);
+      case MULTIPLICITY:
+        currentRole.lowerBound = currentMin;
+        currentRole.upperBound = currentMax;
         break;
-      case "min":
-        currentMin = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case MIN:
+        currentMin = textIntValue();
         break;
-      case "max":
-        currentMax = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case MAX:
+        currentMax = textIntValue();
         break;
-      case "child":
-        currentInheritance.child = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case CHILD:
+        currentInheritance.child = textIntValue();
         break;
-      case "parent":
-        currentInheritance.parent = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case PARENT:
+        currentInheritance.parent = textIntValue();
         break;
-      case "source":
-        currentDependency.source = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case SOURCE:
+        currentDependency.source = textIntValue();
         break;
-      case "target":
-        currentDependency.target = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case TARGET:
+        currentDependency.target = textIntValue();
         break;
-      case "relationView":
+      case RELATION_VIEW:
         inRelationView = false;
-        currentUMLView.relationView.put(currentRelationView.relationId, currentRelationView);
+        currentUMLView.add(currentRelationView);
         break;
-      case "multiLineView":
+      case MULTI_LINE_VIEW:
         inRelationView = false;
         currentMultiView.multiLineView.add(currentRelationView);
         break;
-      case "multiView":
-        currentUMLView.multiView.put(currentMultiView.relationId, currentMultiView);
+      case MULTI_VIEW:
+        currentUMLView.add(currentMultiView);
         break;
-      case "geometry":
+      case GEOMETRY:
         inNoteGeometry = false;
         currentComponentView.geometry = currentGeometry;
         currentGeometry = null;
         break;
-      case "noteGeometry":
+      case NOTE_GEOMETRY:
         inNoteGeometry = false;
         currentNote.bounds = currentGeometry;
         currentGeometry = null;
         break;
-      case "componentView":
+      case COMPONENT_VIEW:
         inComponentView = false;
-        currentUMLView.componentView.put(currentComponentView.componentId, currentComponentView);
+        currentUMLView.add(currentComponentView);
         break;
-      case "note":
-        currentUMLView.notes.add(currentNote);
+      case NOTE:
+        currentUMLView.add(currentNote);
         currentNote = null;
         break;
-      case "multiViewBounds":
+      case MULTI_VIEW_BOUNDS:
         inMultiViewBounds = false;
         currentMultiView.multiViewBounds = currentGeometry;
         currentGeometry = null;
         break;
-      case "line":
+      case LINE:
         currentRelationView.line = currentLine;
         currentLine = null;
         break;
-      case "noteLine":
+      case NOTE_LINE:
         inNoteRelation = false;
         currentRelationView.line = currentLine;
         currentNote.line.addLast(currentRelationView);
         currentLine = null;
         currentRelationView = null;
         break;
-      case "point":
+      case POINT:
         currentLine.add(currentPoint);
         currentPoint = null;
         break;
-      case "labelAssociation":
+      case LABEL_ASSOCIATION:
         currentRelationView.labelAssociation = currentGeometry;
         currentGeometry = null;
         inLabelAssociation = false;
         break;
-      case "roleAssociation":
+      case ROLE_ASSOCIATION:
         currentRelationView.roleAssociations.add(currentGeometry);
         currentGeometry = null;
         inLabelAssociation = false;
         break;
-      case "multipliciteAssociation":
+      case MULTIPLICITE_ASSOCIATION:
         currentRelationView.multipliciteAssociations.add(currentGeometry);
         currentGeometry = null;
         inLabelAssociation = false;
         break;
-      case "x":
-        final int x = Integer.parseInt(buffer.toString());
+      case X:
+        final int x = textIntValue();
         if (inComponentView || inNoteGeometry || inLabelAssociation || inMultiViewBounds)
 
           currentGeometry.x = x;
@@ -536,10 +810,9 @@ public class XMLParser extends DefaultHandler {
         else if (inRelationView || inNoteRelation)
 
           currentPoint.x = x;
-        buffer = null;
         break;
-      case "y":
-        final int y = Integer.parseInt(buffer.toString());
+      case Y:
+        final int y = textIntValue();
         if (inComponentView || inNoteGeometry || inLabelAssociation || inMultiViewBounds)
 
           currentGeometry.y = y;
@@ -547,345 +820,379 @@ public class XMLParser extends DefaultHandler {
         else if (inRelationView || inNoteRelation)
 
           currentPoint.y = y;
-        buffer = null;
         break;
-      case "w":
-        currentGeometry.width = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case W:
+        currentGeometry.width = textIntValue();
         break;
-      case "h":
-        currentGeometry.height = Integer.parseInt(buffer.toString());
-        buffer = null;
+      case H:
+        currentGeometry.height = textIntValue();
         break;
     }
   }
 
-  private void importAssociationClass() throws SyntaxeNameException, SAXNotRecognizedException {
-    for (final Entity e : umlClassDiagram.diagrameElement.entity)
-      if (e.entityType == EntityType.ASSOCIATION_CLASS) createEntity(e);
+  /**
+   * Create the entity, or wait for its association if it is an association class.
+   */
+  private void importEntity(Entity e) throws SyntaxeNameException, SAXNotRecognizedException {
+    if (e.entityType == EntityType.ASSOCIATION_CLASS && waitFor(e.associationClassID, () -> importEntity(e))) {
+      waitingAssociationClasses.add(e);
+      return;
+    }
+
+    waitingAssociationClasses.remove(e);
+    createEntity(e);
   }
 
-  public void importAssociations() {
-    final LinkedList<Association> associationsNotAdded = new LinkedList<>();
+  private void importAssociation(Association a) {
+    classDiagram.relationships.Association ac = null;
 
-    for (final Association a : umlClassDiagram.diagrameElement.association) {
-      classDiagram.relationships.Association ac = null;
+    if (a.role.size() < 2) throw new IllegalArgumentException("An association must have at least two roles.");
 
-      if (a.role.size() < 2) throw new IllegalArgumentException("An association must have at least two roles.");
+    for (final Role role : a.role)
+      if (waitFor(role.componentId, () -> importAssociation(a))) return;
 
-      final classDiagram.components.Entity source = (classDiagram.components.Entity) classDiagram.searchComponentById(
-          a.role.getFirst().componentId);
-      final classDiagram.components.Entity target = (classDiagram.components.Entity) classDiagram.searchComponentById(
-          a.role.getLast().componentId);
+    final classDiagram.components.Entity source = (classDiagram.components.Entity) importedComponents.get(
+        a.role.getFirst().componentId);
+    final classDiagram.components.Entity target = (classDiagram.components.Entity) importedComponents.get(
+        a.role.getLast().componentId);
 
-      if (source == null || target == null) {
-        associationsNotAdded.add(a);
-        continue;
-      }
+    switch (a.aggregation) {
+      case NONE:
+        ac = new Binary(source, target, a.direction, a.id);
+        classDiagram.addBinary((Binary) ac);
 
-      switch (a.aggregation) {
-        case NONE:
-          ac = new Binary(source, target, a.direction, a.id);
-          classDiagram.addBinary((Binary) ac);
+        break;
 
-          break;
+      case AGGREGATE:
+        ac = new classDiagram.relationships.Aggregation(source, target, a.direction, a.id);
+        classDiagram.addAggregation((classDiagram.relationships.Aggregation) ac);
 
-        case AGGREGATE:
-          ac = new classDiagram.relationships.Aggregation(source, target, a.direction, a.id);
-          classDiagram.addAggregation((classDiagram.relationships.Aggregation) ac);
+        break;
 
-          break;
+      case COMPOSE:
+        ac = new Composition(source, target, a.direction, a.id);
+        classDiagram.addComposition((Composition) ac);
+        break;
 
-        case COMPOSE:
-          ac = new Composition(source, target, a.direction, a.id);
-          classDiagram.addComposition((Composition) ac);
-          break;
+      case MULTI:
+        final LinkedList<classDiagram.components.ClassEntity> entities = new LinkedList<>();
 
-        case MULTI:
-          final LinkedList<classDiagram.components.ClassEntity> entities = new LinkedList<>();
+        for (final Role role : a.role)
 
-          for (final Role role : a.role)
+          entities.add((classDiagram.components.ClassEntity) importedComponents.get(role.componentId));
 
-            entities.add((classDiagram.components.ClassEntity) classDiagram.searchComponentById(role.componentId));
+        ac = new Multi(entities, a.id);
+        classDiagram.addMulti((Multi) ac);
+        break;
+    }
 
-          ac = new Multi(entities, a.id);
-          classDiagram.addMulti((Multi) ac);
-          break;
-      }
+    for (int i = 0; i < a.role.size(); i++) {
+      final Role role = a.role.get(i);
+      ac.getRoles().get(i).setName(role.name);
+      ac.getRoles().get(i).setVisibility(role.visibility);
+      if (role.lowerBound >= 0)
+        ac.getRoles().get(i).setMultiplicity(new Multiplicity(role.lowerBound, role.upperBound));
 
-      for (int i = 0; i < a.role.size(); i++) {
-        ac.getRoles().get(i).setName(a.role.get(i).name);
-        ac.getRoles().get(i).setVisibility(a.role.get(i).visibility);
-        ac.getRoles().get(i).setMultiplicity(a.role.get(i).multiplicity);
+      ac.getRoles().get(i).notifyObservers();
+      ac.getRoles().get(i).getMultiplicity().notifyObservers();
+    }
 
-        ac.getRoles().get(i).notifyObservers();
-        ac.getRoles().get(i).getMultiplicity().notifyObservers();
-      }
+    ac.setName(a.name);
 
-      ac.setName(a.name);
+    ac.notifyObservers();
+    componentImported(ac);
+  }
 
-      ac.notifyObservers();
-    }
+  private void importDependency(Dependency d) {
+    if (waitFor(d.source, () -> importDependency(d)) || waitFor(d.target, () -> importDependency(d))) return;
 
-    umlClassDiagram.diagrameElement.association = associationsNotAdded;
-  }
+    classDiagram.components.Entity source = (classDiagram.components.Entity) importedComponents.get(d.source);
+    classDiagram.components.Entity target = (classDiagram.components.Entity) importedComponents.get(d.target);
+    classDiagram.relationships.Dependency dr = new classDiagram.relationships.Dependency(source, target, d.id);
+    classDiagram.addDependency(dr);
 
-  private void importClassesAndInterfaces() throws SyntaxeNameException, SAXNotRecognizedException {
-    for (final Entity e : umlClassDiagram.diagrameElement.entity)
-      if (!(e.entityType == EntityType.ASSOCIATION_CLASS)) createEntity(e);
+    dr.setLabel(d.label);
+    dr.notifyObservers();
+    componentImported(dr);
+  }
 
+  /**
+   * Check if the component with the given id is created. If not, the step is executed once it will be.
+   *
+   * @param id the id of the referenced component.
+   * @param step the step to execute once the component is created.
+   *
+   * @return true if the step has to wait.
+   */
+  private boolean waitFor(int id, ImportStep step) {
+    if (importedComponents.containsKey(id)) return false;
+
+    pendingReferences.computeIfAbsent(id, k -> new LinkedList<>()).add(step);
+    return true;
   }
 
-  public void importDepedency() {
-    for (final Dependency d : umlClassDiagram.diagrameElement.dependency) {
-      classDiagram.components.Entity source = (classDiagram.components.Entity) classDiagram.searchComponentById(
-          d.source);
-      classDiagram.components.Entity target = (classDiagram.components.Entity) classDiagram.searchComponentById(
-          d.target);
-      classDiagram.relationships.Dependency dr = new classDiagram.relationships.Dependency(source, target, d.id);
-      classDiagram.addDependency(dr);
+  /**
+   * Register the created component and queue the steps that were waiting for it, right after the current step.
+   */
+  private void componentImported(IDiagramComponent component) {
+    importedComponents.put(component.getId(), component);
 
-      dr.setLabel(d.label);
-      dr.notifyObservers();
+    final LinkedList<ImportStep> waiting = pendingReferences.remove(component.getId());
+    if (waiting != null) {
+      importSteps.addAll(0, waiting);
+      totalSteps += waiting.size();
     }
   }
 
+  /**
+   * Some references can never be resolved, in corrupted or old files. Association classes without association are
+   * created as normal classes, the relations referencing a missing component are ignored.
+   */
+  private void importUnresolvedReferences() throws SyntaxeNameException, SAXNotRecognizedException {
+    for (Entity e : new LinkedList<>(waitingAssociationClasses))
+      createEntity(e);
+
+    pendingReferences.clear();
+  }
+
   // view
 
-  public void importInheritances() {
-    for (final Inheritance h : umlClassDiagram.diagrameElement.inheritance) {
+  private void importInheritance(Inheritance h) {
+    if (waitFor(h.child, () -> importInheritance(h)) || waitFor(h.parent, () -> importInheritance(h))) return;
 
-      if (h.innerClass) {
-        final classDiagram.components.Entity child = (classDiagram.components.Entity) classDiagram.searchComponentById(
-            h.child);
+    if (h.innerClass) {
+      final classDiagram.components.Entity child = (classDiagram.components.Entity) importedComponents.get(h.child);
 
-        final classDiagram.components.Entity parent = (classDiagram.components.Entity) classDiagram.searchComponentById(
-            h.parent);
+      final classDiagram.components.Entity parent = (classDiagram.components.Entity) importedComponents.get(h.parent);
 
-        final classDiagram.relationships.InnerClass innerClass = new classDiagram.relationships.InnerClass(child,
-                                                                                                           parent,
-                                                                                                           h.id);
+      final classDiagram.relationships.InnerClass innerClass = new classDiagram.relationships.InnerClass(child,
+                                                                                                         parent,
+                                                                                                         h.id);
 
-        classDiagram.addInnerClass(innerClass);
-        innerClass.notifyObservers();
+      classDiagram.addInnerClass(innerClass);
+      innerClass.notifyObservers();
+      componentImported(innerClass);
 
-      } else {
-        final classDiagram.components.SimpleEntity child =
-            (classDiagram.components.SimpleEntity) classDiagram.searchComponentById(
-                h.child);
-
-        final classDiagram.components.SimpleEntity parent =
-            (classDiagram.components.SimpleEntity) classDiagram.searchComponentById(
-                h.parent);
-
-        final classDiagram.relationships.Inheritance i = new classDiagram.relationships.Inheritance(child, parent,
-                                                                                                    h.id);
-        classDiagram.addInheritance(i);
-        i.notifyObservers();
-      }
+    } else {
+      final classDiagram.components.SimpleEntity child =
+          (classDiagram.components.SimpleEntity) importedComponents.get(h.child);
+
+      final classDiagram.components.SimpleEntity parent =
+          (classDiagram.components.SimpleEntity) importedComponents.get(h.parent);
+
+      final classDiagram.relationships.Inheritance i = new classDiagram.relationships.Inheritance(child, parent,
+                                                                                                  h.id);
+      classDiagram.addInheritance(i);
+      i.notifyObservers();
+      componentImported(i);
     }
   }
 
-  private void importNotes() {
-    for (UMLView umlView : umlClassDiagram.uMLView) {
-      GraphicView graphicView = umlView.graphicView;
-      for (final Note note : umlView.notes) {
-        final TextBoxCommentary noteView = new TextBoxCommentary(graphicView, note.content);
-
-        noteView.setBounds(note.bounds);
+  private void importNotes(UMLView umlView) {
+    GraphicView graphicView = umlView.graphicView;
+    for (final Note note : umlView.notes) {
+      final TextBoxCommentary noteView = new TextBoxCommentary(graphicView, note.content);
 
-        for (final RelationView rv : note.line) {
-          GraphicComponent component = graphicView.searchAssociedComponent(
-              classDiagram.searchComponentById(rv.relationId));
+      noteView.setBounds(new Rectangle(note.bounds));
 
-          if (rv.relationId == -1) component = graphicView;
+      for (final RelationView rv : note.line) {
+        GraphicComponent component = graphicView.searchAssociedComponent(
+            importedComponents.get(rv.relationId));
 
-          if (LineCommentary.checkCreate(noteView, component, false)) {
-            final LineCommentary lc = new LineCommentary(graphicView, noteView, component, rv.line.getFirst(),
-                                                         rv.line.getLast(), false);
+        if (rv.relationId == -1) component = graphicView;
 
-            for (int i = 1; i < rv.line.size() - 1; i++) {
-              final RelationGrip rg = new RelationGrip(graphicView, lc);
-              rg.setAnchor(rv.line.get(i));
-              lc.addGrip(rg, i);
-            }
+        if (LineCommentary.checkCreate(noteView, component, false)) {
+          final LineCommentary lc = new LineCommentary(graphicView, noteView, component, rv.line.getFirst(),
+                                                       rv.line.getLast(), false);
 
-            lc.getFirstPoint().setAnchor(rv.line.getFirst());
-            lc.getLastPoint().setAnchor(rv.line.getLast());
-            lc.setColor(rv.color);
-            graphicView.addLineView(lc);
+          for (int i = 1; i < rv.line.size() - 1; i++) {
+            final RelationGrip rg = new RelationGrip(graphicView, lc);
+            rg.setAnchor(rv.line.get(i));
+            lc.addGrip(rg, i);
           }
-        }
 
-        noteView.setColor(note.color);
-        graphicView.addNotes(noteView);
+          lc.getFirstPoint().setAnchor(rv.line.getFirst());
+          lc.getLastPoint().setAnchor(rv.line.getLast());
+          lc.setColor(rv.color);
+          graphicView.addLineView(lc);
+        }
       }
+
+      noteView.setColor(note.color);
+      graphicView.addNotes(noteView);
     }
   }
 
-  public void locateComponentBounds() {
-
-    for (UMLView umlView : umlClassDiagram.uMLView) {
+  private void locateComponentBounds(UMLView umlView) {
+    GraphicView graphicView = umlView.graphicView;
 
-      GraphicView graphicView = umlView.graphicView;
-      graphicView.setName(umlView.name);
+    // Generals bounds
+    for (GraphicComponent g : graphicView.getAllComponents()) {
+      IDiagramComponent component = g.getAssociatedComponent();
 
-      // Generals bounds
-      for (GraphicComponent g : graphicView.getAllComponents()) {
-        IDiagramComponent component = g.getAssociatedComponent();
+      if (component != null) {
+        ComponentView cv = umlView.componentView.get(component.getId());
 
-        if (component != null) {
-          ComponentView cv = umlView.componentView.get(component.getId());
+        if (cv != null) {
+          g.setBounds(new Rectangle(cv.geometry));
+          g.setColor(cv.color);
 
-          if (cv != null) {
-            g.setBounds(cv.geometry);
-            g.setColor(cv.color);
-
-            // Gestion des entités
-            if (g instanceof SimpleEntityView) {
-              SimpleEntityView entityView = (SimpleEntityView) g;
-              entityView.setDisplayAttributes(cv.displayAttributes);
-              entityView.setDisplayMethods(cv.displayMethods);
-              entityView.setDisplayDefault(cv.displayDefault);
-            } else if (g instanceof EnumView) {
-              ((EnumView) g).setTypeEnumDisplay(cv.typeEnumDisplay);
-            }
-          } else {
-            if (g instanceof EntityView) g.lightDelete();
+          // Gestion des entités
+          if (g instanceof SimpleEntityView) {
+            SimpleEntityView entityView = (SimpleEntityView) g;
+            entityView.setDisplayAttributes(cv.displayAttributes == null || cv.displayAttributes);
+            entityView.setDisplayMethods(cv.displayMethods == null || cv.displayMethods);
+            entityView.setDisplayDefault(cv.displayDefault == null || cv.displayDefault);
+          } else if (g instanceof EnumView) {
+            ((EnumView) g).setTypeEnumDisplay(cv.typeEnumDisplay != null ? cv.typeEnumDisplay : TypeEnumDisplay.DEFAULT);
           }
+        } else {
+          if (g instanceof EntityView) g.lightDelete();
         }
       }
+    }
+  }
 
-      // Associations
-      for (LineView l : graphicView.getLinesView()) {
-        IDiagramComponent component = l.getAssociatedXmlElement();
+  private void locateLines(UMLView umlView) {
+    GraphicView graphicView = umlView.graphicView;
 
-        if (component != null) {
-          final RelationView rl = umlView.relationView.get(component.getId());
-          if (rl == null) continue;
+    // Associations
+    for (LineView l : graphicView.getLinesView()) {
+      IDiagramComponent component = l.getAssociatedXmlElement();
 
-          LinkedList<Point> points = rl.line;
+      if (component != null) {
+        final RelationView rl = umlView.relationView.get(component.getId());
+        if (rl == null) continue;
 
-          for (int i = 1; i < points.size() - 1; i++) {
-            final RelationGrip rg = new RelationGrip(graphicView, l);
-            rg.setAnchor(points.get(i));
-            rg.notifyObservers();
-            l.addGrip(rg, i);
-          }
+        LinkedList<Point> points = rl.line;
 
-          RelationGrip first = l.getFirstPoint(), last = l.getLastPoint();
+        for (int i = 1; i < points.size() - 1; i++) {
+          final RelationGrip rg = new RelationGrip(graphicView, l);
+          rg.setAnchor(points.get(i));
+          rg.notifyObservers();
+          l.addGrip(rg, i);
+        }
 
-          first.setAnchor(points.getFirst());
-          last.setAnchor(points.getLast());
+        RelationGrip first = l.getFirstPoint(), last = l.getLastPoint();
 
-          first.notifyObservers();
-          last.notifyObservers();
+        first.setAnchor(points.getFirst());
+        last.setAnchor(points.getLast());
 
-          l.setColor(rl.color);
-          final LinkedList<TextBox> tb = l.getTextBoxRole();
+        first.notifyObservers();
+        last.notifyObservers();
 
-          SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-              if (tb.size() >= 1) {
-                ((TextBoxLabel) tb.getFirst()).computeDeplacement(
-                    new Point(rl.labelAssociation.x, rl.labelAssociation.y));
+        l.setColor(rl.color);
+        final LinkedList<TextBox> tb = l.getTextBoxRole();
 
-                if (tb.size() >= 3) {
-                  ((TextBoxLabel) tb.get(1)).computeDeplacement(
-                      new Point(rl.roleAssociations.get(0).x, rl.roleAssociations.get(0).y));
-                  ((TextBoxLabel) tb.get(2)).computeDeplacement(
-                      new Point(rl.roleAssociations.get(1).x, rl.roleAssociations.get(1).y));
+        final Rectangle label = rl.labelAssociation != null ? rl.labelAssociation : new Rectangle();
 
-                  ((TextBoxRole) tb.get(1)).getTextBoxMultiplicity()
-                                           .computeDeplacement(new Point(rl.multipliciteAssociations.get(0).x,
-                                                                         rl.multipliciteAssociations.get(0).y));
-                  ((TextBoxRole) tb.get(2)).getTextBoxMultiplicity()
-                                           .computeDeplacement(new Point(rl.multipliciteAssociations.get(1).x,
-                                                                         rl.multipliciteAssociations.get(1).y));
-                }
-              }
-            }
-          });
+        labelPlacements.add(() -> {
+          if (tb.size() >= 1) {
+            ((TextBoxLabel) tb.getFirst()).computeDeplacement(new Point(label.x, label.y));
+            if (tb.size() >= 3) {
+              ((TextBoxLabel) tb.get(1)).computeDeplacement(
+                  new Point(rl.roleAssociations.get(0).x, rl.roleAssociations.get(0).y));
+              ((TextBoxLabel) tb.get(2)).computeDeplacement(
+                  new Point(rl.roleAssociations.get(1).x, rl.roleAssociations.get(1).y));
 
-        }
+              ((TextBoxRole) tb.get(1)).getTextBoxMultiplicity()
+                                       .computeDeplacement(new Point(rl.multipliciteAssociations.get(0).x,
+                                                                     rl.multipliciteAssociations.get(0).y));
+              ((TextBoxRole) tb.get(2)).getTextBoxMultiplicity()
+                                       .computeDeplacement(new Point(rl.multipliciteAssociations.get(1).x,
+                                                                     rl.multipliciteAssociations.get(1).y));
+            }
+          }
+        });
       }
+    }
+  }
 
-      // Multi-association
-      for (final graphic.relations.MultiView mv : graphicView.getMultiView()) {
-        final IDiagramComponent component = mv.getAssociatedXmlElement();
-
-        if (component != null) {
-          final MultiView xmlMV = umlView.multiView.get(component.getId());
+  private void locateMultiViews(UMLView umlView) {
+    GraphicView graphicView = umlView.graphicView;
 
-          final LinkedList<MultiLineView> multiLinesView = mv.getMultiLinesView();
+    // Multi-association
+    for (final graphic.relations.MultiView mv : graphicView.getMultiView()) {
+      final IDiagramComponent component = mv.getAssociatedXmlElement();
 
-          mv.setBounds(xmlMV.multiViewBounds);
+      if (component != null) {
+        final MultiView xmlMV = umlView.multiView.get(component.getId());
 
-          for (int j = 0; j < multiLinesView.size(); j++) {
-            final RelationView rl = xmlMV.multiLineView.get(j);
-            final LinkedList<Point> points = rl.line;
-            final MultiLineView mlv = multiLinesView.get(j);
+        final LinkedList<MultiLineView> multiLinesView = mv.getMultiLinesView();
 
-            for (int i = 1; i < points.size() - 1; i++) {
-              final RelationGrip rg = new RelationGrip(graphicView, mlv);
-              rg.setAnchor(points.get(i));
-              rg.notifyObservers();
-              mlv.addGrip(rg, i);
-            }
+        mv.setBounds(new Rectangle(xmlMV.multiViewBounds));
 
-            RelationGrip first = mlv.getFirstPoint(), last = mlv.getLastPoint();
+        for (int j = 0; j < multiLinesView.size(); j++) {
+          final RelationView rl = xmlMV.multiLineView.get(j);
+          final LinkedList<Point> points = rl.line;
+          final MultiLineView mlv = multiLinesView.get(j);
 
-            first.setAnchor(points.getFirst());
-            last.setAnchor(points.getLast());
+          for (int i = 1; i < points.size() - 1; i++) {
+            final RelationGrip rg = new RelationGrip(graphicView, mlv);
+            rg.setAnchor(points.get(i));
+            rg.notifyObservers();
+            mlv.addGrip(rg, i);
+          }
 
-            first.notifyObservers();
-            last.notifyObservers();
+          RelationGrip first = mlv.getFirstPoint(), last = mlv.getLastPoint();
 
-            // Role
-            final LinkedList<TextBox> tb = mlv.getTextBoxRole();
+          first.setAnchor(points.getFirst());
+          last.setAnchor(points.getLast());
 
-            SwingUtilities.invokeLater(new Runnable() {
+          first.notifyObservers();
+          last.notifyObservers();
 
-              @Override
-              public void run() {
-                if (tb.size() == 1) {
-                  ((TextBoxLabel) tb.getFirst()).computeDeplacement(
-                      new Point(rl.roleAssociations.get(0).x, rl.roleAssociations.get(0).y));
+          // Role
+          final LinkedList<TextBox> tb = mlv.getTextBoxRole();
 
-                  ((TextBoxRole) tb.getFirst()).getTextBoxMultiplicity()
-                                               .computeDeplacement(new Point(rl.multipliciteAssociations.get(0).x,
-                                                                             rl.multipliciteAssociations.get(0).y));
-                }
-              }
-            });
-          }
+          labelPlacements.add(() -> {
+            if (tb.size() == 1) {
+              ((TextBoxLabel) tb.getFirst()).computeDeplacement(
+                  new Point(rl.roleAssociations.get(0).x, rl.roleAssociations.get(0).y));
 
-          mv.setColor(xmlMV.color);
-          mv.setBounds(xmlMV.multiViewBounds);
+              ((TextBoxRole) tb.getFirst()).getTextBoxMultiplicity()
+                                           .computeDeplacement(new Point(rl.multipliciteAssociations.get(0).x,
+                                                                         rl.multipliciteAssociations.get(0).y));
+            }
+          });
         }
+
+        mv.setColor(xmlMV.color);
+        mv.setBounds(new Rectangle(xmlMV.multiViewBounds));
       }
     }
+  }
 
-    importNotes();
+  /**
+   * The labels are placed once all the lines of all the views are created and laid out, in a single event instead
+   * of one event per line.
+   */
+  private void placeLabels() {
+    final LinkedList<Runnable> placements = new LinkedList<>(labelPlacements);
+    labelPlacements.clear();
+
+    SwingUtilities.invokeLater(() -> {
+      for (Runnable placement : placements)
+        placement.run();
+    });
   }
 
   @Override
   public void startElement(String uri, String localName, String qName, Attributes attributes) throws
       SAXException {
-    switch (qName) {
-      case "classDiagram":
+    switch (Tag.of(qName)) {
+      case CLASS_DIAGRAM:
         try {
           umlClassDiagram = new ClassDiagram();
         } catch (final Exception e) {
           throw new SAXException(e);
         }
         break;
-      case "diagramElements":
-        umlClassDiagram.diagrameElement = new DiagramElements();
-
+      case DIAGRAM_ELEMENTS:
         umlClassDiagram.name = attributes.getValue("name");
-        umlClassDiagram.informations = attributes.getValue("informations");
+
+        if (attributes.getValue("informations") != null)
+          umlClassDiagram.informations = attributes.getValue("informations");
 
         if (attributes.getValue("defaultViewEntities") != null)
           umlClassDiagram.defaultViewEntities = ViewEntity.valueOf(attributes.getValue("defaultViewEntities"));
@@ -900,30 +1207,26 @@ public class XMLParser extends DefaultHandler {
           umlClassDiagram.defaultVisibleTypes = Boolean.valueOf(attributes.getValue("defaultVisibleTypes"));
 
         break;
-      case "entity":
-        try {
-          currentEntity = new Entity();
-          currentEntity.id = Integer.parseInt(attributes.getValue("id"));
-          currentEntity.name = attributes.getValue("name");
+      case ENTITY:
+        currentEntity = new Entity();
+        currentEntity.id = intAttribute(attributes, "id");
+        currentEntity.name = attributes.getValue("name");
 
-          String currentAttributeValue = attributes.getValue("entityType");
-          if (currentAttributeValue != null)
-            currentEntity.entityType = EntityType.valueOf(attributes.getValue("entityType"));
+        String currentAttributeValue = attributes.getValue("entityType");
+        if (currentAttributeValue != null)
+          currentEntity.entityType = EntityType.valueOf(attributes.getValue("entityType"));
 
-          currentAttributeValue = attributes.getValue("visibility");
-          if (currentAttributeValue != null)
-            currentEntity.visibility = Visibility.valueOf(attributes.getValue("visibility"));
+        currentAttributeValue = attributes.getValue("visibility");
+        if (currentAttributeValue != null)
+          currentEntity.visibility = Visibility.valueOf(attributes.getValue("visibility"));
 
-          currentAttributeValue = attributes.getValue("isAbstract");
-          if (currentAttributeValue != null)
-            currentEntity.isAbstract = Boolean.parseBoolean(attributes.getValue("isAbstract"));
+        currentAttributeValue = attributes.getValue("isAbstract");
+        if (currentAttributeValue != null)
+          currentEntity.isAbstract = Boolean.parseBoolean(attributes.getValue("isAbstract"));
 
-          umlClassDiagram.diagrameElement.entity.add(currentEntity);
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
+        modelRecords.add(currentEntity);
         break;
-      case "method":
+      case METHOD:
         try {
           currentMethod = new Operation();
           currentMethod.name = attributes.getValue("name");
@@ -943,98 +1246,74 @@ public class XMLParser extends DefaultHandler {
           throw new SAXException(e);
         }
         break;
-      case "variable":
-        try {
-          final Variable variable = new Variable();
-          variable.name = attributes.getValue("name");
-          variable.type = new Type(TypeName.verifyAndAskNewName(attributes.getValue("type")));
-          variable.constant = Boolean.parseBoolean(attributes.getValue("const"));
+      case VARIABLE: {
+        final Variable variable = new Variable();
+        variable.name = attributes.getValue("name");
+        variable.type = attributes.getValue("type");
+        variable.constant = Boolean.parseBoolean(attributes.getValue("const"));
 
-          currentMethod.variable.add(variable);
-        } catch (final SyntaxeNameException e) {
-          throw new SAXException(e);
-        }
+        currentMethod.variable.add(variable);
         break;
-      case "attribute":
-        try {
-          final Variable variable = new Variable();
-          variable.name = attributes.getValue("name");
-          variable.type = new Type(TypeName.verifyAndAskNewName(attributes.getValue("type")));
-          variable.constant = Boolean.parseBoolean(attributes.getValue("const"));
-          variable.visibility = Visibility.valueOf(attributes.getValue("visibility"));
-          variable.defaultValue = attributes.getValue("defaultValue");
-          // variable.collection =
-          // Integer.parseInt(attributes.getValue("collection"));
-          variable.isStatic = Boolean.parseBoolean(attributes.getValue("isStatic"));
-
-          currentEntity.attribute.add(variable);
-        } catch (final SyntaxeNameException e) {
-          throw new SAXException(e);
-        }
+      }
+      case ATTRIBUTE: {
+        final Variable variable = new Variable();
+        variable.name = attributes.getValue("name");
+        variable.type = attributes.getValue("type");
+        variable.constant = Boolean.parseBoolean(attributes.getValue("const"));
+        variable.visibility = Visibility.valueOf(attributes.getValue("visibility"));
+        variable.defaultValue = attributes.getValue("defaultValue");
+        variable.isStatic = Boolean.parseBoolean(attributes.getValue("isStatic"));
+
+        currentEntity.attribute.add(variable);
         break;
-      case "association":
+      }
+      case ASSOCIATION:
+        currentAssociation = new Association();
+        currentAssociation.id = intAttribute(attributes, "id");
+        currentAssociation.name = attributes.getValue("name");
         try {
-          currentAssociation = new Association();
-          currentAssociation.id = Integer.parseInt(attributes.getValue("id"));
-          currentAssociation.name = attributes.getValue("name");
-          try {
-            currentAssociation.direction = NavigateDirection.valueOf(attributes.getValue("direction"));
-          } catch (IllegalArgumentException e) {
-            // For older version of sly file. Convert boolean value to
-            // navigability.
-            if (Boolean.parseBoolean(attributes.getValue("direction")))
-              currentAssociation.direction = NavigateDirection.FIRST_TO_SECOND;
-            else currentAssociation.direction = NavigateDirection.BIDIRECTIONAL;
+          currentAssociation.direction = NavigateDirection.valueOf(attributes.getValue("direction"));
+        } catch (IllegalArgumentException e) {
+          // For older version of sly file. Convert boolean value to
+          // navigability.
+          if (Boolean.parseBoolean(attributes.getValue("direction")))
+            currentAssociation.direction = NavigateDirection.FIRST_TO_SECOND;
+          else currentAssociation.direction = NavigateDirection.BIDIRECTIONAL;
 
-          }
-          currentAssociation.aggregation = Aggregation.valueOf(attributes.getValue("aggregation"));
-
-          umlClassDiagram.diagrameElement.association.add(currentAssociation);
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
         }
+        currentAssociation.aggregation = Aggregation.valueOf(attributes.getValue("aggregation"));
+
+        modelRecords.add(currentAssociation);
         break;
-      case "role":
-        try {
-          currentRole = new Role();
-          currentRole.name = attributes.getValue("name");
-          currentRole.componentId = Integer.parseInt(attributes.getValue("componentId"));
-          currentRole.visibility = Visibility.valueOf(attributes.getValue("visibility"));
+      case ROLE:
+        currentRole = new Role();
+        currentRole.name = attributes.getValue("name");
+        currentRole.componentId = intAttribute(attributes, "componentId");
+        currentRole.visibility = Visibility.valueOf(attributes.getValue("visibility"));
 
-          currentAssociation.role.add(currentRole);
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
+        currentAssociation.role.add(currentRole);
         break;
-      case "multiplicity":
+      case MULTIPLICITY:
         break;
-      case "inheritance":
-        try {
-          currentInheritance = new Inheritance();
-          currentInheritance.id = Integer.parseInt(attributes.getValue("id"));
-          currentInheritance.innerClass = Boolean.parseBoolean(attributes.getValue("innerClass"));
+      case INHERITANCE:
+        currentInheritance = new Inheritance();
+        currentInheritance.id = intAttribute(attributes, "id");
+        currentInheritance.innerClass = Boolean.parseBoolean(attributes.getValue("innerClass"));
 
-          buffer = new StringBuffer();
+        startText();
 
-          umlClassDiagram.diagrameElement.inheritance.add(currentInheritance);
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
+        modelRecords.add(currentInheritance);
         break;
-      case "dependency":
-        try {
-          currentDependency = new Dependency();
-          currentDependency.id = Integer.parseInt(attributes.getValue("id"));
-          currentDependency.label = attributes.getValue("label");
+      case DEPENDENCY:
+        currentDependency = new Dependency();
+        currentDependency.id = intAttribute(attributes, "id");
+        currentDependency.label = attributes.getValue("label");
 
-          buffer = new StringBuffer();
+        startText();
 
-          umlClassDiagram.diagrameElement.dependency.add(currentDependency);
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
+        modelRecords.add(currentDependency);
         break;
-      case "umlView":
+      case UML_VIEW:
         try {
           UMLView newUMLView;
           boolean open = true;
@@ -1042,7 +1321,7 @@ public class XMLParser extends DefaultHandler {
           if (attributes.getValue("open") != null) open = Boolean.valueOf(attributes.getValue("open"));
 
           if (umlClassDiagram.uMLView.size() == 0) // root graphic view
-            newUMLView = new UMLView();
+            newUMLView = new UMLView(null, open);
           else // new view
             newUMLView = new UMLView(attributes.getValue("name"), open);
 
@@ -1051,102 +1330,607 @@ public class XMLParser extends DefaultHandler {
         } catch (final Exception e) {
           throw new SAXException(e);
         }
+
+        // The components of a closed view are only created when it is materialized.
+        currentUMLView.lazy = !currentUMLView.open && umlClassDiagram.uMLView.size() > 1;
         break;
-      case "componentView":
-        try {
-          inComponentView = true;
-          currentComponentView = new ComponentView();
-          currentComponentView.componentId = Integer.parseInt(attributes.getValue("componentID"));
-          currentComponentView.color = Integer.parseInt(attributes.getValue("color"));
+      case COMPONENT_VIEW:
+        inComponentView = true;
+        currentComponentView = new ComponentView();
+        currentComponentView.componentId = intAttribute(attributes, "componentID");
+        currentComponentView.color = intAttribute(attributes, "color");
 
-          if (attributes.getValue("displayAttributes") != null)
-            currentComponentView.displayAttributes = Boolean.parseBoolean(attributes.getValue("displayAttributes"));
+        if (attributes.getValue("displayAttributes") != null)
+          currentComponentView.displayAttributes = Boolean.parseBoolean(attributes.getValue("displayAttributes"));
 
-          if (attributes.getValue("displayMethods") != null)
-            currentComponentView.displayMethods = Boolean.parseBoolean(attributes.getValue("displayMethods"));
+        if (attributes.getValue("displayMethods") != null)
+          currentComponentView.displayMethods = Boolean.parseBoolean(attributes.getValue("displayMethods"));
 
-          if (attributes.getValue("displayDefault") != null)
-            currentComponentView.displayDefault = Boolean.parseBoolean(attributes.getValue("displayDefault"));
+        if (attributes.getValue("displayDefault") != null)
+          currentComponentView.displayDefault = Boolean.parseBoolean(attributes.getValue("displayDefault"));
 
-          if (attributes.getValue("enumValuesVisible") != null)
-            currentComponentView.typeEnumDisplay = TypeEnumDisplay.valueOf(attributes.getValue("enumValuesVisible"));
+        if (attributes.getValue("enumValuesVisible") != null)
+          currentComponentView.typeEnumDisplay = TypeEnumDisplay.valueOf(attributes.getValue("enumValuesVisible"));
 
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
         break;
-      case "geometry":
-      case "noteGeometry":
+      case GEOMETRY:
+      case NOTE_GEOMETRY:
         inNoteGeometry = true;
         currentGeometry = new Rectangle();
         break;
-      case "relationView":
-      case "multiLineView":
-        try {
-          inRelationView = true;
-          currentRelationView = new RelationView();
-          currentRelationView.relationId = Integer.parseInt(attributes.getValue("relationId"));
-          currentRelationView.color = Integer.parseInt(attributes.getValue("color"));
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
+      case RELATION_VIEW:
+      case MULTI_LINE_VIEW:
+        inRelationView = true;
+        currentRelationView = new RelationView();
+        currentRelationView.relationId = intAttribute(attributes, "relationId");
+        currentRelationView.color = intAttribute(attributes, "color");
         break;
-      case "multiView":
-        try {
-          currentMultiView = new MultiView();
-          currentMultiView.relationId = Integer.parseInt(attributes.getValue("relationId"));
-          currentMultiView.color = Integer.parseInt(attributes.getValue("color"));
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
+      case MULTI_VIEW:
+        currentMultiView = new MultiView();
+        currentMultiView.relationId = intAttribute(attributes, "relationId");
+        currentMultiView.color = intAttribute(attributes, "color");
         break;
-      case "multiViewBounds":
+      case MULTI_VIEW_BOUNDS:
         inMultiViewBounds = true;
         currentGeometry = new Rectangle();
         break;
-      case "line":
+      case LINE:
         currentLine = new LinkedList<>();
         break;
-      case "noteLine":
+      case NOTE_LINE:
         inNoteRelation = true;
         currentLine = new LinkedList<>();
         currentRelationView = new RelationView();
-        currentRelationView.relationId = Integer.parseInt(attributes.getValue("relationId"));
-        currentRelationView.color = Integer.parseInt(attributes.getValue("color"));
+        currentRelationView.relationId = intAttribute(attributes, "relationId");
+        currentRelationView.color = intAttribute(attributes, "color");
         break;
-      case "point":
+      case POINT:
         currentPoint = new Point();
         break;
-      case "labelAssociation":
-      case "roleAssociation":
-      case "multipliciteAssociation":
+      case LABEL_ASSOCIATION:
+      case ROLE_ASSOCIATION:
+      case MULTIPLICITE_ASSOCIATION:
         currentGeometry = new Rectangle();
         inLabelAssociation = true;
         break;
-      case "note":
-        try {
-          currentNote = new Note();
-          currentNote.content = attributes.getValue("content");
-          currentNote.color = Integer.parseInt(attributes.getValue("color"));
-        } catch (final NumberFormatException e) {
-          throw new SAXException(e);
-        }
+      case NOTE:
+        currentNote = new Note();
+        currentNote.content = attributes.getValue("content");
+        currentNote.color = intAttribute(attributes, "color");
         break;
-      case "EnumValue":
-      case "min":
-      case "max":
-      case "associationClassID":
-      case "child":
-      case "parent":
-      case "source":
-      case "target":
-      case "x":
-      case "y":
-      case "w":
-      case "h":
-        buffer = new StringBuffer();
+      case ENUM_VALUE:
+      case MIN:
+      case MAX:
+      case ASSOCIATION_CLASS_ID:
+      case CHILD:
+      case PARENT:
+      case SOURCE:
+      case TARGET:
+      case X:
+      case Y:
+      case W:
+      case H:
+        startText();
         break;
     }
   }
 
+  /**
+   * Create the components of the given view from the records read in the file. The components of the class diagram
+   * must be created.
+   *
+   * @param graphicView the view to fill.
+   * @param umlView the records of the view.
+   */
+  private void materializeView(GraphicView graphicView, UMLView umlView) {
+    umlView.graphicView = graphicView;
+
+    // Same order as the importation: in the order of creation of the components.
+    final Iterator<IDiagramComponent> components = classDiagram.getComponents().descendingIterator();
+    while (components.hasNext()) {
+      final IDiagramComponent component = components.next();
+      importedComponents.put(component.getId(), component);
+
+      if (!(component instanceof classDiagram.components.Entity) ||
+          umlView.componentView.containsKey(component.getId()))
+        addComponent(graphicView, component);
+    }
+
+    locateComponentBounds(umlView);
+    locateLines(umlView);
+    locateMultiViews(umlView);
+    importNotes(umlView);
+    placeLabels();
+  }
+
+  private static void addComponent(GraphicView graphicView, IDiagramComponent component) {
+    if (component instanceof AssociationClass)
+      graphicView.addAssociationClass((AssociationClass) component);
+    else if (component instanceof ClassEntity)
+      graphicView.addClassEntity((ClassEntity) component);
+    else if (component instanceof InterfaceEntity)
+      graphicView.addInterfaceEntity((InterfaceEntity) component);
+    else if (component instanceof EnumEntity)
+      graphicView.addEnumEntity((EnumEntity) component);
+    else if (component instanceof classDiagram.relationships.Aggregation)
+      graphicView.addAggregation((classDiagram.relationships.Aggregation) component);
+    else if (component instanceof Composition)
+      graphicView.addComposition((Composition) component);
+    else if (component instanceof Binary)
+      graphicView.addBinary((Binary) component);
+    else if (component instanceof Multi)
+      graphicView.addMulti((Multi) component);
+    else if (component instanceof classDiagram.relationships.Dependency)
+      graphicView.addDependency((classDiagram.relationships.Dependency) component);
+    else if (component instanceof classDiagram.relationships.Inheritance)
+      graphicView.addInheritance((classDiagram.relationships.Inheritance) component);
+    else if (component instanceof classDiagram.relationships.InnerClass)
+      graphicView.addInnerClass((classDiagram.relationships.InnerClass) component);
+  }
+
+  private static final byte ENTITY_RECORD = 0, ASSOCIATION_RECORD = 1, INHERITANCE_RECORD = 2, DEPENDENCY_RECORD = 3;
+  private static final byte COMPONENT_VIEW_RECORD = 0, RELATION_VIEW_RECORD = 1, MULTI_VIEW_RECORD = 2, NOTE_RECORD = 3;
+
+  /**
+   * Write the records read in the file in a snapshot of the project. Must be called once the file has been parsed,
+   * before the diagram is created.
+   *
+   * @param out the snapshot being written.
+   */
+  void writeSnapshot(ProjectCache.Output out) throws IOException {
+    out.writeString(umlClassDiagram.name);
+    out.writeString(umlClassDiagram.informations);
+    out.writeEnum(umlClassDiagram.defaultViewEntities);
+    out.writeEnum(umlClassDiagram.defaultViewMethods);
+    out.writeOptionalBoolean(umlClassDiagram.defaultViewEnum);
+    out.writeOptionalBoolean(umlClassDiagram.defaultVisibleTypes);
+
+    out.writeNumber(modelRecords.size());
+    for (final Object record : modelRecords) {
+      if (record instanceof Entity) {
+        out.writeByte(ENTITY_RECORD);
+        writeEntity(out, (Entity) record);
+      } else if (record instanceof Association) {
+        out.writeByte(ASSOCIATION_RECORD);
+        writeAssociation(out, (Association) record);
+      } else if (record instanceof Inheritance) {
+        final Inheritance inheritance = (Inheritance) record;
+        out.writeByte(INHERITANCE_RECORD);
+        out.writeNumber(inheritance.id);
+        out.writeNumber(inheritance.child);
+        out.writeNumber(inheritance.parent);
+        out.writeBoolean(inheritance.innerClass);
+      } else {
+        final Dependency dependency = (Dependency) record;
+        out.writeByte(DEPENDENCY_RECORD);
+        out.writeNumber(dependency.id);
+        out.writeNumber(dependency.source);
+        out.writeNumber(dependency.target);
+        out.writeString(dependency.label);
+      }
+    }
+
+    out.writeNumber(umlClassDiagram.uMLView.size());
+    for (final UMLView umlView : umlClassDiagram.uMLView)
+      writeView(out, umlView);
+  }
+
+  /**
+   * Read the records of a snapshot written by {@link #writeSnapshot(ProjectCache.Output)}, instead of parsing the
+   * file.
+   *
+   * @param in the snapshot being read.
+   */
+  void readSnapshot(ProjectCache.Input in) throws IOException {
+    umlClassDiagram = new ClassDiagram();
+    umlClassDiagram.name = in.readString();
+    umlClassDiagram.informations = in.readString();
+    umlClassDiagram.defaultViewEntities = in.readEnum(ViewEntity.class);
+    umlClassDiagram.defaultViewMethods = in.readEnum(ParametersViewStyle.class);
+    umlClassDiagram.defaultViewEnum = in.readOptionalBoolean();
+    umlClassDiagram.defaultVisibleTypes = in.readOptionalBoolean();
+
+    for (int count = in.readNumber(); count > 0; count--) {
+      switch (in.readByte()) {
+        case ENTITY_RECORD:
+          modelRecords.add(readEntity(in));
+          break;
+        case ASSOCIATION_RECORD:
+          modelRecords.add(readAssociation(in));
+          break;
+        case INHERITANCE_RECORD:
+          final Inheritance inheritance = new Inheritance();
+          inheritance.id = in.readNumber();
+          inheritance.child = in.readNumber();
+          inheritance.parent = in.readNumber();
+          inheritance.innerClass = in.readBoolean();
+          modelRecords.add(inheritance);
+          break;
+        case DEPENDENCY_RECORD:
+          final Dependency dependency = new Dependency();
+          dependency.id = in.readNumber();
+          dependency.source = in.readNumber();
+          dependency.target = in.readNumber();
+          dependency.label = in.readString();
+          modelRecords.add(dependency);
+          break;
+        default:
+          throw new IOException("Unknown record in project snapshot.");
+      }
+    }
+
+    for (int count = in.readNumber(); count > 0; count--)
+      umlClassDiagram.uMLView.add(readView(in));
+  }
+
+  private void writeEntity(ProjectCache.Output out, Entity entity) throws IOException {
+    out.writeNumber(entity.id);
+    out.writeNumber(entity.associationClassID);
+    out.writeBoolean(entity.isAbstract);
+    out.writeString(entity.name);
+    out.writeEnum(entity.visibility);
+    out.writeEnum(entity.entityType);
+
+    out.writeNumber(entity.attribute.size());
+    for (final Variable attribute : entity.attribute)
+      writeVariable(out, attribute);
+
+    out.writeNumber(entity.method.size());
+    for (final Operation method : entity.method) {
+      out.writeBoolean(method.isAbstract);
+      out.writeBoolean(method.isStatic);
+      out.writeBoolean(method.isConstructor);
+      out.writeString(method.name);
+      out.writeEnum(method.view);
+      out.writeString(method.returnType);
+      out.writeEnum(method.visibility);
+
+      out.writeNumber(method.variable.size());
+      for (final Variable parameter : method.variable)
+        writeVariable(out, parameter);
+    }
+
+    out.writeNumber(entity.enums.size());
+    for (final String value : entity.enums)
+      out.writeString(value);
+  }
+
+  private Entity readEntity(ProjectCache.Input in) throws IOException {
+    final Entity entity = new Entity();
+    entity.id = in.readNumber();
+    entity.associationClassID = in.readNumber();
+    entity.isAbstract = in.readBoolean();
+    entity.name = in.readString();
+    entity.visibility = in.readEnum(Visibility.class);
+    entity.entityType = in.readEnum(EntityType.class);
+
+    for (int count = in.readNumber(); count > 0; count--)
+      entity.attribute.add(readVariable(in));
+
+    for (int count = in.readNumber(); count > 0; count--) {
+      final Operation method = new Operation();
+      method.isAbstract = in.readBoolean();
+      method.isStatic = in.readBoolean();
+      method.isConstructor = in.readBoolean();
+      method.name = in.readString();
+      method.view = in.readEnum(ParametersViewStyle.class);
+      method.returnType = in.readString();
+      method.visibility = in.readEnum(Visibility.class);
+
+      for (int parameters = in.readNumber(); parameters > 0; parameters--)
+        method.variable.add(readVariable(in));
+
+      entity.method.add(method);
+    }
+
+    for (int count = in.readNumber(); count > 0; count--)
+      entity.enums.add(in.readString());
+
+    return entity;
+  }
+
+  private void writeVariable(ProjectCache.Output out, Variable variable) throws IOException {
+    out.writeBoolean(variable.constant);
+    out.writeBoolean(variable.isStatic);
+    out.writeString(variable.name);
+    out.writeString(variable.type);
+    out.writeString(variable.defaultValue);
+    out.writeEnum(variable.visibility);
+  }
+
+  private Variable readVariable(ProjectCache.Input in) throws IOException {
+    final Variable variable = new Variable();
+    variable.constant = in.readBoolean();
+    variable.isStatic = in.readBoolean();
+    variable.name = in.readString();
+    variable.type = in.readString();
+    variable.defaultValue = in.readString();
+    variable.visibility = in.readEnum(Visibility.class);
+    return variable;
+  }
+
+  private void writeAssociation(ProjectCache.Output out, Association association) throws IOException {
+    out.writeNumber(association.id);
+    out.writeString(association.name);
+    out.writeEnum(association.aggregation);
+    out.writeEnum(association.direction);
+
+    out.writeNumber(association.role.size());
+    for (final Role role : association.role) {
+      out.writeNumber(role.componentId);
+      out.writeString(role.name);
+      out.writeNumber(role.lowerBound);
+      out.writeNumber(role.upperBound);
+      out.writeEnum(role.visibility);
+    }
+  }
+
+  private Association readAssociation(ProjectCache.Input in) throws IOException {
+    final Association association = new Association();
+    association.id = in.readNumber();
+    association.name = in.readString();
+    association.aggregation = in.readEnum(Aggregation.class);
+    association.direction = in.readEnum(NavigateDirection.class);
+
+    for (int count = in.readNumber(); count > 0; count--) {
+      final Role role = new Role();
+      role.componentId = in.readNumber();
+      role.name = in.readString();
+      role.lowerBound = in.readNumber();
+      role.upperBound = in.readNumber();
+      role.visibility = in.readEnum(Visibility.class);
+      association.role.add(role);
+    }
+
+    return association;
+  }
+
+  private void writeView(ProjectCache.Output out, UMLView umlView) throws IOException {
+    out.writeString(umlView.name);
+    out.writeBoolean(umlView.open);
+    out.writeBoolean(umlView.lazy);
+
+    out.writeNumber(umlView.elements.size());
+    for (final Object record : umlView.elements) {
+      if (record instanceof ComponentView) {
+        final ComponentView componentView = (ComponentView) record;
+        out.writeByte(COMPONENT_VIEW_RECORD);
+        out.writeNumber(componentView.componentId);
+        out.writeNumber(componentView.color);
+        out.writeOptionalBoolean(componentView.displayAttributes);
+        out.writeOptionalBoolean(componentView.displayMethods);
+        out.writeOptionalBoolean(componentView.displayDefault);
+        out.writeEnum(componentView.typeEnumDisplay);
+        out.writeRectangle(componentView.geometry);
+      } else if (record instanceof RelationView) {
+        out.writeByte(RELATION_VIEW_RECORD);
+        writeRelationView(out, (RelationView) record);
+      } else if (record instanceof MultiView) {
+        final MultiView multiView = (MultiView) record;
+        out.writeByte(MULTI_VIEW_RECORD);
+        out.writeNumber(multiView.relationId);
+        out.writeNumber(multiView.color);
+        out.writeRectangle(multiView.multiViewBounds);
+
+        out.writeNumber(multiView.multiLineView.size());
+        for (final RelationView relationView : multiView.multiLineView)
+          writeRelationView(out, relationView);
+      } else {
+        final Note note = (Note) record;
+        out.writeByte(NOTE_RECORD);
+        out.writeNumber(note.color);
+        out.writeString(note.content);
+        out.writeRectangle(note.bounds);
+
+        out.writeNumber(note.line.size());
+        for (final RelationView relationView : note.line)
+          writeRelationView(out, relationView);
+      }
+    }
+  }
+
+  private UMLView readView(ProjectCache.Input in) throws IOException {
+    final UMLView umlView = new UMLView(in.readString(), in.readBoolean());
+    umlView.lazy = in.readBoolean();
+
+    for (int count = in.readNumber(); count > 0; count--) {
+      switch (in.readByte()) {
+        case COMPONENT_VIEW_RECORD:
+          final ComponentView componentView = new ComponentView();
+          componentView.componentId = in.readNumber();
+          componentView.color = in.readNumber();
+          componentView.displayAttributes = in.readOptionalBoolean();
+          componentView.displayMethods = in.readOptionalBoolean();
+          componentView.displayDefault = in.readOptionalBoolean();
+          componentView.typeEnumDisplay = in.readEnum(TypeEnumDisplay.class);
+          componentView.geometry = in.readRectangle();
+          umlView.add(componentView);
+          break;
+        case RELATION_VIEW_RECORD:
+          umlView.add(readRelationView(in));
+          break;
+        case MULTI_VIEW_RECORD:
+          final MultiView multiView = new MultiView();
+          multiView.relationId = in.readNumber();
+          multiView.color = in.readNumber();
+          multiView.multiViewBounds = in.readRectangle();
+
+          for (int lines = in.readNumber(); lines > 0; lines--)
+            multiView.multiLineView.add(readRelationView(in));
+
+          umlView.add(multiView);
+          break;
+        case NOTE_RECORD:
+          final Note note = new Note();
+          note.color = in.readNumber();
+          note.content = in.readString();
+          note.bounds = in.readRectangle();
+
+          for (int lines = in.readNumber(); lines > 0; lines--)
+            note.line.add(readRelationView(in));
+
+          umlView.add(note);
+          break;
+        default:
+          throw new IOException("Unknown view record in project snapshot.");
+      }
+    }
+
+    return umlView;
+  }
+
+  private void writeRelationView(ProjectCache.Output out, RelationView relationView) throws IOException {
+    out.writeNumber(relationView.relationId);
+    out.writeNumber(relationView.color);
+    out.writeBoolean(relationView.labelAssociation != null);
+    if (relationView.labelAssociation != null) out.writeRectangle(relationView.labelAssociation);
+
+    out.writeNumber(relationView.line.size());
+    for (final Point point : relationView.line)
+      out.writePoint(point);
+
+    out.writeNumber(relationView.roleAssociations.size());
+    for (final Rectangle role : relationView.roleAssociations)
+      out.writeRectangle(role);
+
+    out.writeNumber(relationView.multipliciteAssociations.size());
+    for (final Rectangle multiplicity : relationView.multipliciteAssociations)
+      out.writeRectangle(multiplicity);
+  }
+
+  private RelationView readRelationView(ProjectCache.Input in) throws IOException {
+    final RelationView relationView = new RelationView();
+    relationView.relationId = in.readNumber();
+    relationView.color = in.readNumber();
+    if (in.readBoolean()) relationView.labelAssociation = in.readRectangle();
+
+    for (int count = in.readNumber(); count > 0; count--)
+      relationView.line.add(in.readPoint());
+
+    for (int count = in.readNumber(); count > 0; count--)
+      relationView.roleAssociations.add(in.readRectangle());
+
+    for (int count = in.readNumber(); count > 0; count--)
+      relationView.multipliciteAssociations.add(in.readRectangle());
+
+    return relationView;
+  }
+
+  /**
+   * Create the XML element of a view from its records, as its components write it.
+   *
+   * @param doc the document to create the element with.
+   * @param umlView the records of the view.
+   *
+   * @return the umlView element, without the attributes of the view.
+   */
+  private static Element createXmlElement(Document doc, UMLView umlView) {
+    final Element view = doc.createElement(Tag.UML_VIEW.xmlName);
+
+    for (final Object record : umlView.elements) {
+      if (record instanceof ComponentView) {
+        final ComponentView componentView = (ComponentView) record;
+        final Element element = doc.createElement(Tag.COMPONENT_VIEW.xmlName);
+        element.setAttribute("componentID", String.valueOf(componentView.componentId));
+        element.setAttribute("color", String.valueOf(componentView.color));
+        setOptionalAttribute(element, "displayAttributes", componentView.displayAttributes);
+        setOptionalAttribute(element, "displayMethods", componentView.displayMethods);
+        setOptionalAttribute(element, "displayDefault", componentView.displayDefault);
+        setOptionalAttribute(element, "enumValuesVisible", componentView.typeEnumDisplay);
+        element.appendChild(Utility.boundsToXmlElement(doc, componentView.geometry, Tag.GEOMETRY.xmlName));
+        view.appendChild(element);
+      } else if (record instanceof RelationView) {
+        view.appendChild(createXmlElement(doc, (RelationView) record, Tag.RELATION_VIEW));
+      } else if (record instanceof MultiView) {
+        final MultiView multiView = (MultiView) record;
+        final Element element = doc.createElement(Tag.MULTI_VIEW.xmlName);
+        element.setAttribute("relationId", String.valueOf(multiView.relationId));
+        element.setAttribute("color", String.valueOf(multiView.color));
+        element.appendChild(Utility.boundsToXmlElement(doc, multiView.multiViewBounds, Tag.MULTI_VIEW_BOUNDS.xmlName));
+        for (final RelationView line : multiView.multiLineView)
+          element.appendChild(createXmlElement(doc, line, Tag.MULTI_LINE_VIEW));
+        view.appendChild(element);
+      } else {
+        final Note note = (Note) record;
+        final Element element = doc.createElement(Tag.NOTE.xmlName);
+        element.setAttribute("content", note.content);
+        element.setAttribute("color", String.valueOf(note.color));
+        element.appendChild(Utility.boundsToXmlElement(doc, note.bounds, Tag.NOTE_GEOMETRY.xmlName));
+        for (final RelationView line : note.line) {
+          final Element noteLine = doc.createElement(Tag.NOTE_LINE.xmlName);
+          noteLine.setAttribute("relationId", String.valueOf(line.relationId));
+          noteLine.setAttribute("color", String.valueOf(line.color));
+          for (final Point point : line.line)
+            noteLine.appendChild(Utility.pointToXmlElement(point, Tag.POINT.xmlName, doc));
+          element.appendChild(noteLine);
+        }
+        view.appendChild(element);
+      }
+    }
+
+    return view;
+  }
+
+  private static Element createXmlElement(Document doc, RelationView relationView, Tag tag) {
+    final Element element = doc.createElement(tag.xmlName), line = doc.createElement(Tag.LINE.xmlName);
+    element.setAttribute("relationId", String.valueOf(relationView.relationId));
+    element.setAttribute("color", String.valueOf(relationView.color));
+
+    for (final Point point : relationView.line)
+      line.appendChild(Utility.pointToXmlElement(point, Tag.POINT.xmlName, doc));
+    element.appendChild(line);
+
+    if (relationView.labelAssociation != null)
+      element.appendChild(
+          Utility.boundsToXmlElement(doc, relationView.labelAssociation, Tag.LABEL_ASSOCIATION.xmlName));
+    for (final Rectangle role : relationView.roleAssociations)
+      element.appendChild(Utility.boundsToXmlElement(doc, role, Tag.ROLE_ASSOCIATION.xmlName));
+    for (final Rectangle multiplicity : relationView.multipliciteAssociations)
+      element.appendChild(Utility.boundsToXmlElement(doc, multiplicity, Tag.MULTIPLICITE_ASSOCIATION.xmlName));
+
+    return element;
+  }
+
+  private static void setOptionalAttribute(Element element, String name, Object value) {
+    if (value != null) element.setAttribute(name, String.valueOf(value));
+  }
+
+  /**
+   * A closed view: the records read in the file. The components removed from the class diagram are forgotten, their
+   * ids can be given to new components.
+   */
+  private static class LazyView implements GraphicView.LazyContent {
+
+    private final UMLView umlView;
+
+    LazyView(UMLView umlView) {
+      this.umlView = umlView;
+    }
+
+    @Override
+    public boolean references(IDiagramComponent component) {
+      return component != null && umlView.displays(component.getId());
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return umlView.elements.isEmpty();
+    }
+
+    @Override
+    public void remove(IDiagramComponent component) {
+      umlView.remove(component.getId());
+    }
+
+    @Override
+    public Element getXmlElement(Document doc) {
+      return createXmlElement(doc, umlView);
+    }
+
+    @Override
+    public void materialize(GraphicView view) {
+      new XMLParser(view.getClassDiagram()).materializeView(view, umlView);
+    }
+  }
+
 }
@@ -1,13 +1,24 @@
 package swing;
 
 import classDiagram.ClassDiagram;
+import classDiagram.IDiagramComponent;
+import graphic.GraphicComponent;
 import graphic.GraphicView;
+import graphic.relations.LineView;
+import graphic.relations.MultiLineView;
+import graphic.relations.MultiView;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class XmlFactory {
 
@@ -17,6 +28,28 @@ public class XmlFactory {
     return instance.generate();
   }
 
+  /**
+   * Get a document with the given components of a view, as a project of a single view. The components the selection
+   * depends on, as the ends of its relations, are added so the document can be read alone.
+   *
+   * @param graphicView the view of the components.
+   * @param selected the components.
+   *
+   * @return the document.
+   */
+  public static Document getSelectionDocument(GraphicView graphicView, Collection<GraphicComponent> selected) {
+    return instance.generateSelection(graphicView, selected);
+  }
+
+  /**
+   * Get an empty document, to build the elements of a part of the project.
+   *
+   * @return the document.
+   */
+  public static Document createDocument() {
+    return instance.createNewDocument();
+  }
+
   private XmlFactory() { }
 
   private Document createNewDocument() {
@@ -49,4 +82,44 @@ public class XmlFactory {
     return doc;
   }
 
+  private Document generateSelection(GraphicView graphicView, Collection<GraphicComponent> selected) {
+    Document doc = createNewDocument();
+    ClassDiagram model = graphicView.getClassDiagram();
+
+    // Close the selection over the components it depends on.
+    Set<GraphicComponent> included = new LinkedHashSet<>();
+    Deque<GraphicComponent> pending = new ArrayDeque<>(selected);
+    while (!pending.isEmpty()) {
+      GraphicComponent c = pending.poll();
+      if (c == null || c == graphicView || !included.add(c)) continue;
+
+      if (c instanceof LineView) {
+        pending.add(((LineView) c).getFirstPoint().getAssociedComponentView());
+        pending.add(((LineView) c).getLastPoint().getAssociedComponentView());
+      }
+      if (c instanceof MultiView)
+        pending.addAll(((MultiView) c).getMultiLinesView());
+    }
+
+    Set<IDiagramComponent> associated = new HashSet<>();
+    for (GraphicComponent c : included)
+      if (c.getAssociatedXmlElement() != null) associated.add(c.getAssociatedXmlElement());
+
+    Element diagramElements = model.getXmlElement(doc, associated::contains);
+
+    Element umlView = doc.createElement(graphicView.getXmlTagName());
+    umlView.setAttribute("name", graphicView.getName());
+    for (GraphicComponent c : graphicView.getAllComponents()) {
+      Element el = included.contains(c) && c.getClass() != MultiLineView.class ? c.getXmlElement(doc) : null;
+      if (el != null) umlView.appendChild(el);
+    }
+
+    Element classDiagram = doc.createElement("classDiagram");
+    classDiagram.appendChild(diagramElements);
+    classDiagram.appendChild(umlView);
+    doc.appendChild(classDiagram);
+
+    return doc;
+  }
+
 }
@@ -303,7 +303,7 @@ public class HierarchicalView
       }
     };
     tree = new STree(treeModel);
-    tree.setDragEnabled(true);
+    tree.setDragEnabled(!GraphicsEnvironment.isHeadless()); // Throws without display (batch export).
     tree.setTransferHandler(new TransferHandler() {
 
       @Override
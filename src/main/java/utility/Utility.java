@@ -20,6 +20,7 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.text.Normalizer;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -27,6 +28,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Pattern;
 
 /**
  * Utilities class containing tools methods.
@@ -38,6 +43,8 @@ public class Utility {
 
   public static final GraphicQualityType GRAPHIQUE_QUALITY_TYPE = GraphicQualityType.MAX;
 
+  private static final Pattern COMBINING_DIACRITICAL_MARKS = Pattern.compile("[\\p{InCombiningDiacriticalMarks}]");
+
   /**
    * Set the given size for preferredSize, maximumSize and minimumSize to the given component.
    *
@@ -596,7 +603,7 @@ public class Utility {
 
   public static String stripAccents(String s) {
     s = Normalizer.normalize(s, Normalizer.Form.NFD);
-    s = s.replaceAll("[\\p{InCombiningDiacriticalMarks}]", "");
+    s = COMBINING_DIACRITICAL_MARKS.matcher(s).replaceAll("");
     return s;
   }
 
@@ -610,4 +617,29 @@ public class Utility {
     return accelerator;
   }
 
+  /**
+   * Run the given task on the EDT and wait for its result. The task is run directly if the caller is the EDT.
+   *
+   * @param task the task to run.
+   *
+   * @return the result of the task.
+   *
+   * @throws ExecutionException if the task throws an exception, which is its cause.
+   */
+  public static <T> T onEdt(final Callable<T> task) throws ExecutionException, InterruptedException {
+    final FutureTask<T> future = new FutureTask<>(task);
+
+    if (SwingUtilities.isEventDispatchThread()) {
+      future.run();
+    } else {
+      try {
+        SwingUtilities.invokeAndWait(future);
+      } catch (InvocationTargetException e) {
+        throw new ExecutionException(e.getCause());
+      }
+    }
+
+    return future.get();
+  }
+
 }
@@ -1,189 +1,287 @@
 package utility;
 
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
-
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches files for modifications and deletions, on a single background thread. Any number of files can be watched,
+ * the files of a same directory share the watch key of this directory.
+ * <p>
+ * The events of a file are coalesced and debounced: its listeners are notified once the file has been quiet for a
+ * short delay, according to its state at this time. A file deleted and created again, as editors saving atomically
+ * do, is therefore reported once as modified. The listeners are called on the watch thread.
+ */
 public class WatchDir {
 
-  private class SlyumKey {
-    Path file;
-    WatchFileListener listener;
-    boolean isDisable = false;
-    int ignore = 0;
-
-    SlyumKey(Path file, WatchFileListener listener) {
-      this.file = file;
-      this.listener = listener;
-    }
-
-    int ignorePostDec() {
-      int temp = ignore;
-      ignore = (ignore == 0 ? 0 : --ignore);
-      return temp;
-    }
-
-    Path dir() {
-      return file.getParent();
-    }
-
-  }
-
-  @SuppressWarnings("unchecked")
-  private static <T> WatchEvent<T> cast(WatchEvent<?> event) {
-    return (WatchEvent<T>) event;
-  }
+  /**
+   * Time without event after which the listeners of a file are notified.
+   */
+  private static final long DEBOUNCE_DELAY = TimeUnit.MILLISECONDS.toNanos(300);
 
   private static WatchDir instance;
 
   /**
-   * Register the given directory with the WatchService
+   * Watch the given file.
    *
-   * @param file the {@link Path} to watch.
-   * @param listener the {@link WatchFileListener}.
+   * @param file the {@link Path} of the file to watch.
+   * @param listener the {@link WatchFileListener} notified of the changes of the file.
    *
-   * @throws IOException if the path does not exist.
+   * @throws IOException if the directory of the file cannot be watched.
    */
   public static void register(final Path file, final WatchFileListener listener) throws IOException {
     getInstance()._register(file, listener);
   }
 
+  /**
+   * Stop watching the given file, for all its listeners.
+   *
+   * @param file the watched file, can be null.
+   */
   public static void unregister(Path file) {
-    getInstance()._unregister(file);
-  }
-
-  public static void stopWatchingFile(Path file, boolean stopWatching) {
-    getInstance()._stopWatchingFile(file, stopWatching);
+    unregister(file, null);
   }
 
-  public void _stopWatchingFile(Path file, boolean stopWatching) {
-    keys.get(searchByPath(file)).isDisable = stopWatching;
+  /**
+   * Remove a listener of the given file. The file is no longer watched once it has no listener.
+   *
+   * @param file the watched file, can be null.
+   * @param listener the listener to remove.
+   */
+  public static void unregister(Path file, WatchFileListener listener) {
+    final WatchDir watchDir = getInstanceIfCreated();
+    if (watchDir != null) watchDir._unregister(file, listener);
   }
 
-  public static void ignoreNextEvents(Path file, int count) {
-    getInstance()._ignoreNextEvents(file, count);
+  /**
+   * Stop the watch thread and release the watch service. Used before leaving the application.
+   */
+  public static void shutdown() {
+    final WatchDir watchDir;
+    synchronized (WatchDir.class) {
+      watchDir = instance;
+      instance = null;
+    }
+    if (watchDir != null) watchDir._shutdown();
   }
 
-  public void _ignoreNextEvents(Path file, int count) {
-    keys.get(searchByPath(file)).ignore = count;
+  /**
+   * Get the instance, created the first time a file is watched. The creation is tried again at the next call if the
+   * watch service cannot be created.
+   *
+   * @throws IOException if the watch service cannot be created.
+   */
+  private static synchronized WatchDir getInstance() throws IOException {
+    if (instance == null) instance = new WatchDir();
+    return instance;
   }
 
-  private static WatchDir getInstance() {
-    if (instance == null) try {
-      instance = new WatchDir();
-    } catch (IOException ex) {
-      Logger.getLogger(WatchDir.class.getName()).log(Level.SEVERE, "Unable to create WatchDir.", ex);
-    }
+  private static synchronized WatchDir getInstanceIfCreated() {
     return instance;
   }
 
   private final WatchService watcher;
-  private final HashMap<WatchKey, SlyumKey> keys;
+  private final HashMap<Path, Directory> directories = new HashMap<>();
+  private final HashMap<WatchKey, Directory> keys = new HashMap<>();
+
+  /**
+   * Files with events not notified yet, and the time after which they are notified. Only used by the watch thread.
+   */
+  private final LinkedHashMap<Path, Long> pending = new LinkedHashMap<>();
 
   private Thread thread = null;
+  private boolean closed = false;
 
   private WatchDir() throws IOException {
     this.watcher = FileSystems.getDefault().newWatchService();
-    this.keys = new HashMap<>();
   }
 
-  private void _register(Path file, WatchFileListener listener) throws IOException {
-    WatchKey key = file.getParent().register(watcher, ENTRY_DELETE, ENTRY_MODIFY);
-    keys.put(key, new SlyumKey(file, listener));
+  private synchronized void _register(Path file, WatchFileListener listener) throws IOException {
+    if (closed) throw new ClosedWatchServiceException();
 
-    if (thread == null) {
-      thread = new Thread(new Runnable() {
+    file = file.toAbsolutePath().normalize();
+    final Path path = file.getParent();
 
-        @Override
-        public void run() {
-          processEvents();
-          thread = null;
-        }
-      });
+    Directory directory = directories.get(path);
+    if (directory == null) {
+      directory = new Directory(path, path.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+      directories.put(path, directory);
+      keys.put(directory.key, directory);
+    }
+    directory.files.computeIfAbsent(file, f -> new ArrayList<>()).add(listener);
+
+    if (thread == null) {
+      thread = new Thread(this::processEvents, "Slyum-watch");
+      thread.setDaemon(true);
       thread.start();
     }
   }
 
-  private void _unregister(Path file) {
-    WatchKey key = searchByPath(file);
-    if (key == null) return;
+  private synchronized void _unregister(Path file, WatchFileListener listener) {
+    if (file == null) return;
+
+    file = file.toAbsolutePath().normalize();
+    final Directory directory = directories.get(file.getParent());
+    if (directory == null) return;
+
+    final List<WatchFileListener> listeners = directory.files.get(file);
+    if (listeners != null) {
+      if (listener == null) listeners.clear();
+      else listeners.remove(listener);
 
-    keys.remove(key);
-    key.cancel();
+      if (listeners.isEmpty()) directory.files.remove(file);
+    }
+
+    if (directory.files.isEmpty()) {
+      directory.key.cancel();
+      directories.remove(directory.path);
+      keys.remove(directory.key);
+    }
   }
 
-  private WatchKey searchByPath(Path file) {
-    Iterator it = keys.entrySet().iterator();
-    while (it.hasNext()) {
-      Map.Entry pairs = (Map.Entry) it.next();
-      SlyumKey skey = (SlyumKey) pairs.getValue();
-      if (skey.file.equals(file)) return (WatchKey) pairs.getKey();
-      it.remove();
+  private void _shutdown() {
+    synchronized (this) {
+      closed = true;
+      directories.clear();
+      keys.clear();
     }
-    return null;
+
+    try {
+      watcher.close();
+    } catch (IOException ex) {
+      Logger.getLogger(WatchDir.class.getName()).log(Level.WARNING, "Unable to close WatchDir.", ex);
+    }
+  }
+
+  private synchronized List<WatchFileListener> getListeners(Path file) {
+    final Directory directory = directories.get(file.getParent());
+    final List<WatchFileListener> listeners = directory == null ? null : directory.files.get(file);
+    return listeners == null ? new ArrayList<>() : new ArrayList<>(listeners);
   }
 
   /**
-   * Process all events for keys queued to the watcher
+   * Process all events for keys queued to the watcher, until the watch service is closed.
    */
   private void processEvents() {
-    while (true) {
+    try {
+      while (true) {
+        final WatchKey key = pending.isEmpty() ?
+            watcher.take() : watcher.poll(getDelayBeforeNextNotification(), TimeUnit.NANOSECONDS);
 
-      // wait for key to be signalled
-      WatchKey key;
-      try {
-        key = watcher.take();
-      } catch (InterruptedException x) {
-        return;
+        if (key != null) collectEvents(key);
+        notifyQuietFiles();
       }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      /* The watch service is closed. */
+    }
+  }
 
-      SlyumKey skey = keys.get(key);
-      if (skey.file == null) {
-        continue;
-      }
+  private long getDelayBeforeNextNotification() {
+    final long now = System.nanoTime();
+    long delay = DEBOUNCE_DELAY;
+    for (long deadline : pending.values())
+      delay = Math.min(delay, deadline - now);
+    return Math.max(0, delay);
+  }
 
-      // Get only the last event.
-      List<WatchEvent<?>> events = key.pollEvents();
-      WatchEvent<?> event = events.get(events.size() - 1);
-      WatchEvent.Kind kind = event.kind();
-
-      // Context for directory entry event is the file name of entry
-      WatchEvent<Path> ev = cast(event);
-      Path name = ev.context();
-      Path child = skey.dir().resolve(name);
-
-      if (child.equals(skey.file) && !skey.isDisable && skey.ignorePostDec() == 0) {
-        if (kind == ENTRY_DELETE) {
-          skey.listener.fileDeleted();
-        } else if (kind == ENTRY_MODIFY) {
-          skey.listener.fileModified();
+  /**
+   * Take all the events of the key, and delay the notification of the files they concern.
+   */
+  private void collectEvents(WatchKey key) {
+    final long deadline = System.nanoTime() + DEBOUNCE_DELAY;
+    final HashMap<Path, List<WatchFileListener>> lost = new HashMap<>();
+
+    synchronized (this) {
+      final Directory directory = keys.get(key);
+      final List<WatchEvent<?>> events = key.pollEvents();
+      if (directory == null) return; // Unregistered in the meantime.
+
+      for (WatchEvent<?> event : events) {
+        if (event.kind() == OVERFLOW) {
+          // Events have been lost, all the files of the directory are checked.
+          for (Path file : directory.files.keySet())
+            pending.put(file, deadline);
+        } else {
+          final Path file = directory.path.resolve((Path) event.context());
+          if (directory.files.containsKey(file)) pending.put(file, deadline);
         }
       }
 
-      // reset key and remove from set if directory no longer accessible
-      boolean valid = key.reset();
-      if (!valid) {
+      // The directory is no longer accessible: its files are reported now, before forgetting them.
+      if (!key.reset()) {
+        for (Map.Entry<Path, List<WatchFileListener>> file : directory.files.entrySet())
+          lost.put(file.getKey(), new ArrayList<>(file.getValue()));
+
+        directories.remove(directory.path);
         keys.remove(key);
+      }
+    }
 
-        // all directories are inaccessible
-        if (keys.isEmpty()) {
-          break;
-        }
+    lost.forEach((file, listeners) -> {
+      pending.remove(file);
+      notify(file, listeners);
+    });
+  }
+
+  /**
+   * Notify the listeners of the files without event since the debounce delay.
+   */
+  private void notifyQuietFiles() {
+    final long now = System.nanoTime();
+    final Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator();
+
+    while (it.hasNext()) {
+      final Map.Entry<Path, Long> entry = it.next();
+      if (entry.getValue() - now > 0) continue;
+
+      it.remove();
+      notify(entry.getKey(), getListeners(entry.getKey()));
+    }
+  }
+
+  private void notify(Path file, List<WatchFileListener> listeners) {
+    final boolean exists = Files.exists(file);
+    for (WatchFileListener listener : listeners) {
+      try {
+        if (exists) listener.fileModified();
+        else listener.fileDeleted();
+      } catch (RuntimeException ex) {
+        Logger.getLogger(WatchDir.class.getName()).log(Level.SEVERE, "Error in a file listener.", ex);
       }
     }
   }
 
-}
+  /**
+   * A watched directory and its watched files.
+   */
+  private static class Directory {
+    final Path path;
+    final WatchKey key;
+    final HashMap<Path, List<WatchFileListener>> files = new HashMap<>();
+
+    Directory(Path path, WatchKey key) {
+      this.path = path;
+      this.key = key;
+    }
+  }
 
+}